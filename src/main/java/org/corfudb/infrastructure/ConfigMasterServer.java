@@ -84,6 +84,7 @@ public class ConfigMasterServer implements ICorfuDBServer {
     @Getter
     private Thread thread;
     private HttpServer server;
+    private NettyLayoutPushServer pushServer;
 
   //  private GossipServer gossipServer;
     private RemoteLogView currentRemoteView;
@@ -108,6 +109,13 @@ public class ConfigMasterServer implements ICorfuDBServer {
         UUID logID =  UUID.randomUUID();
         log.info("New log instance id= " + logID.toString());
         currentView.setUUID(logID);
+        if (config.get("pushport") != null)
+        {
+            Map<String,Object> pushConfig = new HashMap<String,Object>();
+            pushConfig.put("port", config.get("pushport"));
+            pushServer = new NettyLayoutPushServer(() -> currentView);
+            pushServer.getInstance(pushConfig);
+        }
         thread = new Thread(this);
         return this;
     }
@@ -120,6 +128,23 @@ public class ConfigMasterServer implements ICorfuDBServer {
             server.stop(0);
             this.getThread().interrupt();
         }
+        if (pushServer != null)
+        {
+            pushServer.close();
+        }
+    }
+
+    /**
+     * Push the current view to subscribed clients, if layout updates are pushed.
+     * This should be called whenever the current view changes.
+     */
+    private void publishView()
+    {
+        if (pushServer != null)
+        {
+            currentView.setPushPort((Integer) config.get("pushport"));
+            pushServer.publish(currentView);
+        }
     }
 
     public void loadRemoteLogs()
@@ -168,6 +193,7 @@ public class ConfigMasterServer implements ICorfuDBServer {
                     log.info("New view is now accessible and active");
                     currentView.setEpoch(0);
                     viewActive = true;
+                    publishView();
                     synchronized(viewActive)
                     {
                         viewActive.notify();
@@ -205,6 +231,11 @@ public class ConfigMasterServer implements ICorfuDBServer {
             //server.createContext("/", new StaticRequestHandler());
             server.setExecutor(null);
             server.start();
+            if (pushServer != null)
+            {
+                log.info("Starting layout push service on port " + config.get("pushport"));
+                pushServer.getThread().start();
+            }
             loadRemoteLogs();
             checkViewThread();
         } catch(IOException ie) {
@@ -249,6 +280,7 @@ public class ConfigMasterServer implements ICorfuDBServer {
         currentView.setUUID(logID);
         log.info("New log instance id= " + logID.toString());
         currentView.resetEpoch(newEpoch);
+        publishView();
     }
 
     private JsonValue addStream(JsonObject params)
@@ -413,6 +445,7 @@ public class ConfigMasterServer implements ICorfuDBServer {
             }
             IReconfigurationPolicy policy = new SimpleReconfigurationPolicy();
             currentView = policy.getNewView(currentView, ne);
+            publishView();
             log.warn("Reconfiguration completed, view is now " + currentView.getSerializedJSONView().toString());
         }
         catch (Exception e)
@@ -434,7 +467,8 @@ public class ConfigMasterServer implements ICorfuDBServer {
                     try (JsonReader jr = Json.createReader(br))
                     {
                         JsonObject jo  = jr.readObject();
-                        currentView = new CorfuDBView(jo);;
+                        currentView = new CorfuDBView(jo);
+                        publishView();
                     }
                     catch (Exception e)
                     {
@@ -0,0 +1,94 @@
+package org.corfudb.infrastructure;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.infrastructure.wireprotocol.NettyCorfuMsg;
+import org.corfudb.infrastructure.wireprotocol.NettyLayoutMsg;
+import org.corfudb.runtime.view.CorfuDBView;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Pushes the layout of the configuration master to subscribed clients.
+ *
+ * Clients subscribe once, over a long lived connection, and are sent the current layout in
+ * reply. After that, the configuration master publishes the layout whenever the epoch changes,
+ * and every subscriber receives it at once, instead of polling for it.
+ */
+@Slf4j
+public class NettyLayoutPushServer extends AbstractNettyServer {
+
+    /** The client ID pushed layouts are sent with. */
+    final UUID serverID = UUID.randomUUID();
+
+    /** Supplies the current view of the configuration master. */
+    final Supplier<CorfuDBView> viewSupplier;
+
+    /** The channels of the subscribed clients. Channels leave the group when they close. */
+    final ChannelGroup subscribers = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    public NettyLayoutPushServer(Supplier<CorfuDBView> viewSupplier)
+    {
+        this.viewSupplier = viewSupplier;
+    }
+
+    @Override
+    void parseConfiguration(Map<String, Object> configuration) {
+        serverName = "NettyLayoutPushServer";
+    }
+
+    /** Process an incoming message
+     *
+     * @param msg   The message to process.
+     * @param ctx   Where to send the response.
+     */
+    @Override
+    void processMessage(NettyCorfuMsg msg, ChannelHandlerContext ctx) {
+        switch (msg.getMsgType())
+        {
+            case LAYOUT_SUBSCRIBE: {
+                log.debug("Client {} subscribed to layout updates", msg.getClientID());
+                subscribers.add(ctx.channel());
+                NettyLayoutMsg layout = new NettyLayoutMsg(viewSupplier.get());
+                layout.setClientID(msg.getClientID());
+                layout.setRequestID(msg.getRequestID());
+                ctx.writeAndFlush(layout);
+            }
+            break;
+            default:
+                log.warn("Unknown message type {} passed to handler!", msg.getMsgType());
+                throw new RuntimeException("Unsupported message passed to handler!");
+        }
+    }
+
+    /**
+     * Clients subscribe without knowing the current epoch, so messages are valid in any epoch.
+     */
+    @Override
+    public boolean validateEpoch(NettyCorfuMsg msg, ChannelHandlerContext ctx) {
+        return true;
+    }
+
+    /** This server holds no state of its own. */
+    @Override
+    public void reset() {
+    }
+
+    /**
+     * Push a layout to every subscribed client.
+     *
+     * @param view  The view to push.
+     */
+    public void publish(CorfuDBView view)
+    {
+        NettyLayoutMsg layout = new NettyLayoutMsg(view);
+        layout.setClientID(serverID);
+        log.info("Pushing layout at epoch {} to {} subscribers", view.getEpoch(), subscribers.size());
+        subscribers.writeAndFlush(layout);
+    }
+}
@@ -22,6 +22,8 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static io.netty.buffer.Unpooled.directBuffer;
 
@@ -42,6 +44,13 @@ public class NettyStreamingSequencerServer extends AbstractNettyServer {
      */
     AtomicLong globalIndex;
 
+    /**
+     * Conditional requests hold the write lock while they validate their read set
+     * and issue their tokens, so no token can be issued between the check and the issue.
+     * Unconditional requests share the read lock.
+     */
+    final ReentrantReadWriteLock issueLock = new ReentrantReadWriteLock();
+
     @Override
     void parseConfiguration(Map<String, Object> configuration)
     {
@@ -60,24 +69,35 @@ public class NettyStreamingSequencerServer extends AbstractNettyServer {
         {
             case TOKEN_REQ: {
                 NettyStreamingServerTokenRequestMsg req = (NettyStreamingServerTokenRequestMsg) msg;
-                if (req.getNumTokens() == 0)
-                {
-                    long max = 0L;
-                    for (UUID id : req.getStreamIDs()) {
-                        Long lastIssued = lastIssuedMap.get(id);
-                        max = Math.max(max, lastIssued == null ? Long.MIN_VALUE: lastIssued);
+                Lock l = req.getReadSet().isEmpty() ? issueLock.readLock() : issueLock.writeLock();
+                l.lock();
+                try {
+                    if (!checkReadSet(req))
+                    {
+                        log.debug("Rejecting conditional token request, read set {} is out of date.", req.getReadSet());
+                        sendResponse(new NettyCorfuMsg(NettyCorfuMsg.NettyCorfuMsgType.TOKEN_REJECTED), msg, ctx);
                     }
-                    NettyStreamingServerTokenResponseMsg resp = new NettyStreamingServerTokenResponseMsg(max);
-                    sendResponse(resp, msg, ctx);
-                }
-                else {
-                    long thisIssue = globalIndex.getAndAdd(req.getNumTokens());
-                    for (UUID id : req.getStreamIDs()) {
-                        lastIssuedMap.compute(id, (k, v) -> v == null ? thisIssue + req.getNumTokens() :
-                                Math.max(thisIssue + req.getNumTokens(), v));
+                    else if (req.getNumTokens() == 0)
+                    {
+                        long max = 0L;
+                        for (UUID id : req.getStreamIDs()) {
+                            Long lastIssued = lastIssuedMap.get(id);
+                            max = Math.max(max, lastIssued == null ? Long.MIN_VALUE: lastIssued);
+                        }
+                        NettyStreamingServerTokenResponseMsg resp = new NettyStreamingServerTokenResponseMsg(max);
+                        sendResponse(resp, msg, ctx);
                     }
-                    NettyStreamingServerTokenResponseMsg resp = new NettyStreamingServerTokenResponseMsg(thisIssue);
-                    sendResponse(resp, msg, ctx);
+                    else {
+                        long thisIssue = globalIndex.getAndAdd(req.getNumTokens());
+                        for (UUID id : req.getStreamIDs()) {
+                            lastIssuedMap.compute(id, (k, v) -> v == null ? thisIssue + req.getNumTokens() :
+                                    Math.max(thisIssue + req.getNumTokens(), v));
+                        }
+                        NettyStreamingServerTokenResponseMsg resp = new NettyStreamingServerTokenResponseMsg(thisIssue);
+                        sendResponse(resp, msg, ctx);
+                    }
+                } finally {
+                    l.unlock();
                 }
             }
             break;
@@ -87,6 +107,26 @@ public class NettyStreamingSequencerServer extends AbstractNettyServer {
         }
     }
 
+    /**
+     * Check whether the read set of a request is still current.
+     *
+     * @param req   The request to check.
+     * @return      True, if no stream in the read set has been issued a token past the version read,
+     *              False otherwise.
+     */
+    boolean checkReadSet(NettyStreamingServerTokenRequestMsg req)
+    {
+        for (Map.Entry<UUID, Long> read : req.getReadSet().entrySet())
+        {
+            Long lastIssued = lastIssuedMap.get(read.getKey());
+            if (lastIssued != null && lastIssued > read.getValue())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Reset the state of the server.
      */
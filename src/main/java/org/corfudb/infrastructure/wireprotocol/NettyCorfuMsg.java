@@ -38,6 +38,7 @@ public class NettyCorfuMsg {
         // StreamingSequencer Messages
         TOKEN_REQ(20, NettyStreamingServerTokenRequestMsg.class),
         TOKEN_RES(21, NettyStreamingServerTokenResponseMsg.class),
+        TOKEN_REJECTED(22, NettyCorfuMsg.class),
 
         // Logging Unit Messages
         WRITE(30, NettyLogUnitWriteMsg.class),
@@ -53,7 +54,11 @@ public class NettyCorfuMsg {
         ERROR_TRIMMED(41, NettyCorfuMsg.class),
         ERROR_OVERWRITE(42, NettyCorfuMsg.class),
         ERROR_OOS(43, NettyCorfuMsg.class),
-        ERROR_RANK(44, NettyCorfuMsg.class)
+        ERROR_RANK(44, NettyCorfuMsg.class),
+
+        // Configuration Master Messages
+        LAYOUT_SUBSCRIBE(50, NettyCorfuMsg.class),
+        LAYOUT_PUSH(51, NettyLayoutMsg.class)
         ;
 
         final int type;
@@ -0,0 +1,218 @@
+package org.corfudb.infrastructure.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.corfudb.runtime.protocols.IServerProtocol;
+import org.corfudb.runtime.view.CorfuDBView;
+import org.corfudb.runtime.view.CorfuDBViewSegment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A layout, pushed by the configuration master to subscribed clients whenever the epoch changes.
+ * The epoch of the message is the epoch of the layout.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class NettyLayoutMsg extends NettyCorfuMsg {
+
+    /** A segment of the layout. */
+    @Data
+    @AllArgsConstructor
+    public static class LayoutSegment {
+        /** The protocol string of the replication protocol. */
+        String replication;
+        long start;
+        long sealed;
+        /** The server strings of the logging units, by group. */
+        List<List<String>> groups;
+    }
+
+    /** The ID of the log. */
+    UUID logID;
+
+    /** The page size of the log. */
+    long pageSize;
+
+    /** The server strings of the sequencers. */
+    List<String> sequencers;
+
+    /** The server strings of the configuration masters. */
+    List<String> configMasters;
+
+    /** The segments of the layout. */
+    List<LayoutSegment> segments;
+
+        /* The wire format of the NettyLayoutMsg message is below. Strings are written as
+           their length (2) followed by their UTF-8 bytes, and lists as their size (2)
+           followed by their elements.
+            | log ID(16) | page size(8) | sequencers | config masters | segments |
+            segment: | replication | start(8) | sealed(8) | groups (lists of strings) |
+         */
+
+    public NettyLayoutMsg(CorfuDBView view)
+    {
+        this.msgType = NettyCorfuMsgType.LAYOUT_PUSH;
+        this.epoch = view.getEpoch();
+        this.logID = view.getUUID();
+        this.pageSize = view.getPageSize();
+        this.sequencers = toStrings(view.getSequencers());
+        this.configMasters = toStrings(view.getConfigMasters());
+        this.segments = new ArrayList<>();
+        for (CorfuDBViewSegment vs : view.getSegments())
+        {
+            List<List<String>> groups = new ArrayList<>();
+            for (List<IServerProtocol> group : vs.getGroups())
+            {
+                groups.add(toStrings(group));
+            }
+            String replication;
+            try {
+                replication = (String) vs.getReplicationProtocol().getClass().getMethod("getProtocolString").invoke(null);
+            } catch (Exception e) {
+                throw new RuntimeException("Couldn't get the replication protocol string of a segment", e);
+            }
+            segments.add(new LayoutSegment(replication, vs.getStart(), vs.getSealed(), groups));
+        }
+    }
+
+    static List<String> toStrings(List<IServerProtocol> servers)
+    {
+        List<String> l = new ArrayList<>();
+        for (IServerProtocol sp : servers)
+        {
+            l.add(sp.getFullString());
+        }
+        return l;
+    }
+
+    /**
+     * Get the layout as a configuration object, which CorfuDBView can be built from.
+     * @return  The layout, in the form of a parsed configuration.
+     */
+    public Map<String, Object> toConfig()
+    {
+        Map<String, Object> config = new HashMap<>();
+        config.put("epoch", epoch);
+        config.put("logid", logID.toString());
+        config.put("pagesize", pageSize);
+        config.put("sequencers", sequencers);
+        config.put("configmasters", configMasters);
+        List<Map<String, Object>> segmentList = new ArrayList<>();
+        for (LayoutSegment s : segments)
+        {
+            Map<String, Object> segment = new HashMap<>();
+            segment.put("replication", s.replication);
+            segment.put("start", s.start);
+            segment.put("sealed", s.sealed);
+            List<Map<String, Object>> groupList = new ArrayList<>();
+            for (List<String> group : s.groups)
+            {
+                Map<String, Object> g = new HashMap<>();
+                g.put("nodes", group);
+                groupList.add(g);
+            }
+            segment.put("groups", groupList);
+            segmentList.add(segment);
+        }
+        Map<String, Object> layout = new HashMap<>();
+        layout.put("segments", segmentList);
+        config.put("layout", layout);
+        return config;
+    }
+
+    static void writeString(String s, ByteBuf buffer)
+    {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        buffer.writeShort(b.length);
+        buffer.writeBytes(b);
+    }
+
+    static String readString(ByteBuf buffer)
+    {
+        byte[] b = new byte[buffer.readUnsignedShort()];
+        buffer.readBytes(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    static void writeStrings(List<String> l, ByteBuf buffer)
+    {
+        buffer.writeShort(l.size());
+        l.forEach(s -> writeString(s, buffer));
+    }
+
+    static List<String> readStrings(ByteBuf buffer)
+    {
+        int size = buffer.readUnsignedShort();
+        List<String> l = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            l.add(readString(buffer));
+        }
+        return l;
+    }
+
+    /**
+     * Serialize the message into the given bytebuffer.
+     *
+     * @param buffer The buffer to serialize to.
+     */
+    @Override
+    public void serialize(ByteBuf buffer) {
+        super.serialize(buffer);
+        buffer.writeLong(logID.getMostSignificantBits());
+        buffer.writeLong(logID.getLeastSignificantBits());
+        buffer.writeLong(pageSize);
+        writeStrings(sequencers, buffer);
+        writeStrings(configMasters, buffer);
+        buffer.writeShort(segments.size());
+        for (LayoutSegment s : segments)
+        {
+            writeString(s.replication, buffer);
+            buffer.writeLong(s.start);
+            buffer.writeLong(s.sealed);
+            buffer.writeShort(s.groups.size());
+            s.groups.forEach(g -> writeStrings(g, buffer));
+        }
+    }
+
+    /**
+     * Parse the rest of the message from the buffer. Classes that extend NettyCorfuMsg
+     * should parse their fields in this method.
+     *
+     * @param buffer
+     */
+    @Override
+    public void fromBuffer(ByteBuf buffer) {
+        super.fromBuffer(buffer);
+        logID = new UUID(buffer.readLong(), buffer.readLong());
+        pageSize = buffer.readLong();
+        sequencers = readStrings(buffer);
+        configMasters = readStrings(buffer);
+        int segmentCount = buffer.readUnsignedShort();
+        segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++)
+        {
+            String replication = readString(buffer);
+            long start = buffer.readLong();
+            long sealed = buffer.readLong();
+            int groupCount = buffer.readUnsignedShort();
+            List<List<String>> groups = new ArrayList<>(groupCount);
+            for (int j = 0; j < groupCount; j++)
+            {
+                groups.add(readStrings(buffer));
+            }
+            segments.add(new LayoutSegment(replication, start, sealed, groups));
+        }
+    }
+}
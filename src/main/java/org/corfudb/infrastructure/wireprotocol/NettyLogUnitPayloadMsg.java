@@ -1,11 +1,15 @@
 package org.corfudb.infrastructure.wireprotocol;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import lombok.Getter;
 import lombok.Setter;
+import org.corfudb.util.serializer.CompressionDictionary;
 import org.corfudb.util.serializer.CorfuSerializer;
 import org.corfudb.util.serializer.ISerializer;
-import org.corfudb.util.serializer.KryoSerializer;
+import org.corfudb.util.serializer.PayloadCompression;
+
+import java.util.function.Function;
 
 /**
  * Created by mwei on 9/17/15.
@@ -29,20 +33,62 @@ public class NettyLogUnitPayloadMsg extends NettyLogUnitMetadataMsg {
     @Setter
     ISerializer serializer = defaultSerializer;
 
-    public Object getPayload()
+    /** Reads a dictionary from the log this message was received from, if the payload was
+     * compressed with a dictionary which has not been added. */
+    @Setter
+    Function<Long, CompressionDictionary> dictionaryLoader;
+
+    public synchronized Object getPayload()
     {
         Object ret =
                 (payload != null) ? payload :
-                (data == null) ? null : serializer.deserialize(data);
+                (data == null) ? null : deserializeData();
         if (data != null)
         {
             data.release();
             data = null;
+            if (ret instanceof CompressionDictionary)
+            {
+                // Make the dictionary available to the entries which follow it. Its address is
+                // set by the stream address space, which knows where it was read from.
+                ((CompressionDictionary) ret).setAddress(-1);
+                PayloadCompression.addDictionary((CompressionDictionary) ret);
+            }
         }
         payload = ret;
         return ret;
     }
 
+    /**
+     * Copy the serialized payload, if it has not been deserialized, out of the ByteBuf it was
+     * received in, and release that ByteBuf.
+     */
+    public synchronized void detach()
+    {
+        if (data != null)
+        {
+            ByteBuf copy = Unpooled.copiedBuffer(data);
+            data.release();
+            data = copy;
+        }
+    }
+
+    /** Deserialize the payload from the ByteBuf, decompressing it first if it was compressed. */
+    Object deserializeData()
+    {
+        if (!PayloadCompression.isCompressed(data))
+        {
+            return serializer.deserialize(data);
+        }
+        ByteBuf plain = PayloadCompression.decompress(data, dictionaryLoader);
+        try {
+            return serializer.deserialize(plain);
+        }
+        finally {
+            plain.release();
+        }
+    }
+
     public ByteBuf getData()
     {
         return data.duplicate();
@@ -59,7 +105,21 @@ public class NettyLogUnitPayloadMsg extends NettyLogUnitMetadataMsg {
         int index = buffer.writerIndex();
         buffer.writeInt(0);
         if (payload != null) {
-            serializer.serialize(payload, buffer);
+            if (PayloadCompression.isEnabled() && !(payload instanceof CompressionDictionary))
+            {
+                // Dictionaries are never compressed, since readers need them to decompress.
+                ByteBuf raw = Unpooled.buffer();
+                serializer.serialize(payload, raw);
+                if (!PayloadCompression.compress(raw, getStreams(), buffer))
+                {
+                    buffer.writeBytes(raw);
+                }
+                raw.release();
+            }
+            else
+            {
+                serializer.serialize(payload, buffer);
+            }
             int finalIndex = buffer.writerIndex();
             //this is the total size written by the serializer
             buffer.setInt(index, finalIndex - index - 4);
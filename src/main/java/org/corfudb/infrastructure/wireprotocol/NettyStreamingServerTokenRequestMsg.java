@@ -6,7 +6,10 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -17,6 +20,9 @@ import java.util.UUID;
 @Setter
 @NoArgsConstructor
 public class NettyStreamingServerTokenRequestMsg extends NettyCorfuMsg {
+    /** The largest read set a request may carry, since its size is written as an unsigned short. */
+    public static final int MAX_READS = 0xFFFF;
+
     /** The streams to request tokens for */
     @Getter
     Set<UUID> streamIDs;
@@ -25,17 +31,37 @@ public class NettyStreamingServerTokenRequestMsg extends NettyCorfuMsg {
     @Getter
     long numTokens;
 
+    /** The version of each stream the request is conditional on. If any of these streams
+     * have been issued a token past the given version, the request is rejected. */
+    @Getter
+    Map<UUID, Long> readSet;
+
         /* The wire format of the NettyStreamingServerTokenRequest message is below:
             | client ID(16) | request ID(8) |  type(1)  |   numStreams(1)  |stream ID(16)...| numTokens(8) |
             |  MSB  |  LSB  |               |           |                  |  MSB   |  LSB  |              |
             0       7       15              23          24                 25       32+     40+            48
+
+            | numReads(2) | stream ID(16) | version(8) | ...
+            |             |  MSB  |  LSB  |            |
+            48            50      58+     66+          74+
          */
 
     public NettyStreamingServerTokenRequestMsg(Set<UUID> streamIDs, long numTokens)
     {
+        this(streamIDs, numTokens, Collections.emptyMap());
+    }
+
+    public NettyStreamingServerTokenRequestMsg(Set<UUID> streamIDs, long numTokens, Map<UUID, Long> readSet)
+    {
+        if (readSet.size() > MAX_READS)
+        {
+            throw new IllegalArgumentException("Read set of " + readSet.size() + " streams exceeds the maximum of "
+                    + MAX_READS + ".");
+        }
         this.msgType = NettyCorfuMsgType.TOKEN_REQ;
         this.numTokens = numTokens;
         this.streamIDs = streamIDs;
+        this.readSet = readSet;
     }
 
     /**
@@ -53,6 +79,13 @@ public class NettyStreamingServerTokenRequestMsg extends NettyCorfuMsg {
             buffer.writeLong(sid.getLeastSignificantBits());
         }
         buffer.writeLong(numTokens);
+        buffer.writeShort(readSet.size());
+        for (Map.Entry<UUID, Long> read : readSet.entrySet())
+        {
+            buffer.writeLong(read.getKey().getMostSignificantBits());
+            buffer.writeLong(read.getKey().getLeastSignificantBits());
+            buffer.writeLong(read.getValue());
+        }
     }
 
     /**
@@ -71,5 +104,11 @@ public class NettyStreamingServerTokenRequestMsg extends NettyCorfuMsg {
             streamIDs.add(new UUID(buffer.readLong(), buffer.readLong()));
         }
         numTokens = buffer.readLong();
+        readSet = new HashMap<UUID, Long>();
+        int numReads = buffer.readUnsignedShort();
+        for (int i = 0; i < numReads; i++)
+        {
+            readSet.put(new UUID(buffer.readLong(), buffer.readLong()), buffer.readLong());
+        }
     }
 }
@@ -18,6 +18,7 @@ package org.corfudb.runtime;
 import org.corfudb.runtime.exceptions.NetworkException;
 import org.corfudb.runtime.exceptions.RemoteException;
 import org.corfudb.runtime.protocols.configmasters.MemoryConfigMasterProtocol;
+import org.corfudb.runtime.protocols.configmasters.NettyLayoutSubscriber;
 import org.corfudb.runtime.view.*;
 import org.corfudb.util.GitRepositoryState;
 import org.slf4j.Logger;
@@ -43,6 +44,7 @@ import org.corfudb.runtime.protocols.configmasters.IConfigMaster;
 /**
  * Note, the following imports require Java 8
  */
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.StampedLock;
 
 /**
@@ -61,10 +63,19 @@ public class CorfuDBRuntime implements AutoCloseable {
     private BooleanLock viewUpdatePending;
     private Boolean closed = false;
     private UUID localID = null;
+    private NettyLayoutSubscriber layoutSubscriber;
     private org.corfudb.runtime.view.RemoteLogView remoteView;
     private LocalDateTime lastInvalidation;
     private LocalDateTime backOffTime;
     private long backOff = 0;
+    /** Completes with the next valid view, while a view update is pending. */
+    private CompletableFuture<org.corfudb.runtime.view.CorfuDBView> pendingView;
+    /** The time to wait until before retrieving the pending view, if backing off. */
+    private LocalDateTime retrieveAfter;
+    /** The configuration master to request a reconfiguration from, before retrieving the pending view. */
+    private IConfigMaster reconfigurationMaster;
+    /** The exception which caused the pending reconfiguration. */
+    private NetworkException reconfigurationCause;
     private static final HashMap<String, CorfuDBRuntime> s_rts = new HashMap();
 
     private ICorfuDBInstance localInstance;
@@ -247,51 +258,91 @@ public class CorfuDBRuntime implements AutoCloseable {
      */
     public void invalidateViewAndWait(NetworkException e)
     {
-        log.warn("Client requested invalidation of current view, backoff level=" + backOff);
-        lastInvalidation = LocalDateTime.now();
+        invalidateViewAsync(e).join();
+    }
 
-        if (backOffTime != null)
+    /**
+     * Invalidate the current view, and request a new view without waiting for it. The view
+     * manager backs off, retrieves the view and requests any reconfiguration on its own thread,
+     * so this method is safe to call from any thread, including a Netty event loop.
+     *
+     * Invalidations which arrive while a view update is pending join that update instead of
+     * starting another one.
+     *
+     * @param e     The exception which caused the invalidation, or null.
+     * @return      A future which completes with the next valid view.
+     */
+    public CompletableFuture<org.corfudb.runtime.view.CorfuDBView> invalidateViewAsync(NetworkException e)
+    {
+        synchronized(viewUpdatePending)
         {
-            if (backOffTime.compareTo(lastInvalidation) > 0)
+            if (viewUpdatePending.lock && pendingView != null)
+            {
+                return pendingView;
+            }
+
+            log.warn("Client requested invalidation of current view, backoff level=" + backOff);
+            lastInvalidation = LocalDateTime.now();
+            retrieveAfter = null;
+
+            if (backOffTime != null)
+            {
+                if (backOffTime.compareTo(lastInvalidation) > 0)
+                {
+                    //backoff, by delaying the retrieval of the next view.
+                    retrieveAfter = lastInvalidation.plus((long)Math.pow(2, backOff), ChronoUnit.SECONDS);
+                    //increment backoff
+                    backOff++;
+                    backOffTime = retrieveAfter.plus((long)Math.pow(2, backOff), ChronoUnit.SECONDS);
+                }
+                else
+                {
+                    //no need to backoff
+                    backOff = 0;
+                }
+            }
+            else
             {
-                //backoff!
-                try {
-                    Thread.sleep((long) Math.pow(2, backOff) * 1000);
-                } catch (Exception ex) {}
-                //increment backoff
                 backOff++;
                 backOffTime = LocalDateTime.now().plus((long)Math.pow(2, backOff), ChronoUnit.SECONDS);
             }
-            else
+
+            if (currentView != null)
             {
-                //no need to backoff
-                backOff = 0;
+                currentView.invalidate();
+                reconfigurationMaster = (IConfigMaster) currentView.getConfigMasters().get(0);
+                reconfigurationCause = e;
             }
+            if (pendingView == null)
+            {
+                pendingView = new CompletableFuture<>();
+            }
+            viewUpdatePending.lock = true;
+            viewUpdatePending.notifyAll();
+            return pendingView;
         }
-        else
-        {
-            backOff++;
-            backOffTime = LocalDateTime.now().plus((long)Math.pow(2, backOff), ChronoUnit.SECONDS);
-        }
+    }
 
-        if (currentView != null)
+    /**
+     * Get the current view without blocking.
+     *
+     * @return  A future which completes with the current view, or with the next valid view
+     *          if a view update is pending.
+     */
+    public CompletableFuture<org.corfudb.runtime.view.CorfuDBView> getViewAsync()
+    {
+        synchronized(viewUpdatePending)
         {
-            currentView.invalidate();
-            IConfigurationMaster cm = new ConfigurationMaster(this);
-            cm.requestReconfiguration(e);
-        }
-            synchronized(viewUpdatePending)
+            if (!viewUpdatePending.lock && currentView != null)
             {
-                viewUpdatePending.lock = true;
-                viewUpdatePending.notify();
-                while (viewUpdatePending.lock)
-                {
-                    try {
-                    viewUpdatePending.wait();
-                    } catch (InterruptedException ie)
-                    {}
-                }
+                return CompletableFuture.completedFuture(currentView);
+            }
+            if (pendingView == null)
+            {
+                pendingView = new CompletableFuture<>();
             }
+            return pendingView;
+        }
     }
 
     /**
@@ -382,11 +433,110 @@ public class CorfuDBRuntime implements AutoCloseable {
     {
         closed = true;
         viewManagerThread.interrupt();
+        if (localInstance != null)
+        {
+            localInstance.close();
+        }
+        synchronized(viewUpdatePending)
+        {
+            if (layoutSubscriber != null)
+            {
+                layoutSubscriber.close();
+            }
+        }
+    }
+
+    /**
+     * Subscribe to the layouts pushed by the configuration master, if it pushes them.
+     * Must be called while holding the viewUpdatePending lock.
+     *
+     * @param view  The view just retrieved from the configuration master.
+     */
+    private void subscribeToLayouts(org.corfudb.runtime.view.CorfuDBView view)
+    {
+        if (layoutSubscriber != null || closed || view.getPushPort() == null)
+        {
+            return;
+        }
+        try {
+            URL url = new URL(configurationString);
+            log.info("Subscribing to layout updates at " + url.getHost() + ":" + view.getPushPort());
+            layoutSubscriber = new NettyLayoutSubscriber(url.getHost(), view.getPushPort(), this::installPushedView);
+        }
+        catch (IOException ie)
+        {
+            log.debug("Not subscribing to layout updates for " + configurationString);
+        }
+    }
+
+    /**
+     * Install a view pushed by the configuration master, if it is newer than the current view.
+     *
+     * @param newView   The pushed view.
+     */
+    private void installPushedView(org.corfudb.runtime.view.CorfuDBView newView)
+    {
+        installView(newView, true);
+    }
+
+    /**
+     * Install a new view if it is newer than the current view, and release any threads and
+     * futures waiting for a view update. Futures are completed after the locks are released,
+     * so their dependents are free to read the view.
+     *
+     * @param newView   The new view.
+     * @param pushed    True, if the view was pushed by the configuration master. A pushed view
+     *                  which is not newer than the current view is ignored.
+     */
+    private void installView(org.corfudb.runtime.view.CorfuDBView newView, boolean pushed)
+    {
+        CompletableFuture<org.corfudb.runtime.view.CorfuDBView> waiting;
+        org.corfudb.runtime.view.CorfuDBView installed;
+        synchronized(viewUpdatePending)
+        {
+            //lock, preventing old view from being read.
+            long stamp = viewLock.writeLock();
+            try {
+                if (currentView == null || newView.getEpoch() > currentView.getEpoch())
+                {
+                    String oldEpoch = (currentView == null) ? "null" : Long.toString(currentView.getEpoch());
+                    log.info((pushed ? "Pushed" : "New") + " view epoch " + newView.getEpoch() + " greater than old view epoch " + oldEpoch + ", changing views");
+                    currentView = newView;
+                    localID = currentView.getUUID();
+                }
+                else if (pushed)
+                {
+                    return;
+                }
+                else
+                {
+                    log.info("New view epoch " + newView.getEpoch() + " is the same as previous...");
+                    currentView.revalidate();
+                }
+                if (!pushed)
+                {
+                    subscribeToLayouts(newView);
+                }
+                viewUpdatePending.lock = false;
+                viewUpdatePending.notifyAll();
+                waiting = pendingView;
+                pendingView = null;
+                installed = currentView;
+            }
+            finally {
+                viewLock.unlock(stamp);
+            }
+        }
+        if (waiting != null)
+        {
+            waiting.complete(installed);
+        }
     }
 
     /**
      * Retrieves a runnable that provides a view manager thread. The view
-     * manager retrieves the view and manages view changes.
+     * manager retrieves the view and manages view changes. No locks are held while the
+     * view is retrieved, so invalidating the view never blocks on the configuration master.
      */
     private Thread getViewManagerThread() {
         return new Thread(new Runnable() {
@@ -395,54 +545,62 @@ public class CorfuDBRuntime implements AutoCloseable {
                 log.debug("View manager thread started.");
                 while (!closed)
                 {
+                    IConfigMaster reconfigure;
+                    NetworkException cause;
                     synchronized(viewUpdatePending)
                     {
-                        if (viewUpdatePending.lock)
-                        {
-                            log.debug("View manager retrieving view...");
-                            //lock, preventing old view from being read.
-                            long stamp = viewLock.writeLock();
-                            try {
-                                org.corfudb.runtime.view.CorfuDBView newView = retrieveView(configurationString);
-                                if (currentView == null || newView.getEpoch() > currentView.getEpoch())
+                        try {
+                            while (!viewUpdatePending.lock || (retrieveAfter != null && retrieveAfter.isAfter(LocalDateTime.now())))
+                            {
+                                if (viewUpdatePending.lock)
                                 {
-                                    String oldEpoch = (currentView == null) ? "null" : Long.toString(currentView.getEpoch());
-                                    log.info("New view epoch " + newView.getEpoch() + " greater than old view epoch " + oldEpoch + ", changing views");
-                                    currentView = newView;
-                                    localID = currentView.getUUID();
-                                    viewUpdatePending.lock = false;
-                                    viewUpdatePending.notifyAll();
+                                    //back off before retrieving the view.
+                                    viewUpdatePending.wait(Math.max(1L, ChronoUnit.MILLIS.between(LocalDateTime.now(), retrieveAfter)));
                                 }
                                 else
                                 {
-                                    log.info("New view epoch " + newView.getEpoch() + " is the same as previous...");
-                                    currentView.revalidate();
-                                    viewUpdatePending.lock = false;
-                                    viewUpdatePending.notifyAll();
+                                    viewUpdatePending.wait();
                                 }
                             }
-                            catch (IOException ie)
-                            {
-                                log.warn("Error retrieving view at " + configurationString + ": " + ie.getMessage());
-                                if (currentView != null) {currentView.invalidate();}
-                            }
-                            finally {
-                                viewLock.unlock(stamp);
-                            }
                         }
-                        else
+                        catch (InterruptedException ie){
+                            if (closed) { return; }
+                            continue;
+                        }
+                        retrieveAfter = null;
+                        reconfigure = reconfigurationMaster;
+                        cause = reconfigurationCause;
+                        reconfigurationMaster = null;
+                        reconfigurationCause = null;
+                    }
+
+                    if (reconfigure != null)
+                    {
+                        try {
+                            reconfigure.requestReconfiguration(cause);
+                        }
+                        catch (Exception e)
                         {
-                            while (!viewUpdatePending.lock)
-                            {
-                                try {
-                                    viewUpdatePending.wait();
-                                }
-                                catch (InterruptedException ie){
-                                    if (closed) { return; }
-                                }
-                            }
+                            log.warn("Error requesting reconfiguration", e);
+                        }
+                    }
+
+                    log.debug("View manager retrieving view...");
+                    org.corfudb.runtime.view.CorfuDBView newView;
+                    try {
+                        newView = retrieveView(configurationString);
+                    }
+                    catch (IOException ie)
+                    {
+                        log.warn("Error retrieving view at " + configurationString + ": " + ie.getMessage());
+                        synchronized(viewUpdatePending)
+                        {
+                            if (currentView != null) {currentView.invalidate();}
+                            retrieveAfter = LocalDateTime.now().plus(1, ChronoUnit.SECONDS);
                         }
+                        continue;
                     }
+                    installView(newView, false);
                 }
             }
         });
@@ -0,0 +1,350 @@
+package org.corfudb.runtime;
+
+import com.yahoo.ycsb.ByteArrayByteIterator;
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.DBException;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.runtime.collections.CDBConcurrentSkipListMap;
+import org.corfudb.runtime.collections.CDBShardedMap;
+import org.corfudb.runtime.collections.CDBSimpleMap;
+import org.corfudb.runtime.collections.CorfuTokenMap;
+import org.corfudb.runtime.smr.ICorfuDBObject;
+import org.corfudb.runtime.smr.WriteBehindSMREngine;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A YCSB binding, which stores each table in Corfu maps. Each record is a map from field names
+ * to values, stored under its key.
+ *
+ * The binding is configured with the following properties:
+ *  corfudb.config      The configuration string of the instance, or "inprocess" to start a
+ *                      sequencer, log units and a configuration master in the YCSB process
+ *                      (default http://localhost:9999/corfu).
+ *  corfudb.logunits    The number of log units of an in process instance (default 1).
+ *  corfudb.chains      The number of chains the log units are spread across (default 1).
+ *  corfudb.map         The type of map a table is stored in: simple (CDBSimpleMap), token
+ *                      (CorfuTokenMap) or skiplist (CDBConcurrentSkipListMap). Only skiplist
+ *                      maps support scans (default simple).
+ *  corfudb.shards      The number of maps, each on a stream of its own, the keys of a table are
+ *                      partitioned across by hash (default 1).
+ *  corfudb.staleness   The staleness, in milliseconds, tolerated by reads (default 0).
+ *  corfudb.batchsize   If positive, the maximum number of writes batched into a single log
+ *                      entry. Only simple maps batch writes (default 0).
+ *  corfudb.batchmicros The maximum delay, in microseconds, before a batch is written (default 1000).
+ *
+ * An in process instance is lost when YCSB exits, so the load and run phases cannot be run
+ * separately against it. Instead, start an instance with the main method of this class, and
+ * point both phases at it.
+ */
+@Slf4j
+public class YCSBClient extends DB {
+
+    public static final int OK = 0;
+    public static final int ERROR = 1;
+
+    static final String DEFAULT_CONFIG = "http://localhost:9999/corfu";
+    static final String IN_PROCESS = "inprocess";
+
+    /** The instance started in this process, shared by every client thread, if any. */
+    static CorfuInfrastructureBuilder localInstance;
+    static int localInstanceClients;
+
+    ICorfuDBInstance instance;
+    boolean usesLocalInstance;
+    boolean scannable;
+    int shardCount;
+    ICorfuDBInstance.OpenObjectArgs oargs;
+
+    /** The shards of each table, in order. */
+    final Map<String, List<Map<String, HashMap<String, byte[]>>>> tables = new HashMap<>();
+
+    /**
+     * Start a sequencer, log units and a configuration master in this process.
+     * @param configMasterPort  The port to run the configuration master on.
+     * @param logUnits          The number of log units.
+     * @param chains            The number of chains the log units are spread across.
+     * @return                  The infrastructure started.
+     */
+    static CorfuInfrastructureBuilder startInstance(int configMasterPort, int logUnits, int chains)
+    {
+        if (chains < 1 || logUnits < chains)
+        {
+            throw new IllegalArgumentException("Each of the " + chains + " chains needs at least one log unit");
+        }
+        CorfuInfrastructureBuilder infrastructure = CorfuInfrastructureBuilder.getBuilder()
+                .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null);
+        for (int i = 0; i < logUnits; i++)
+        {
+            Map<String, Object> luConfigMap = new HashMap<>();
+            luConfigMap.put("capacity", 200000);
+            luConfigMap.put("ramdisk", true);
+            luConfigMap.put("pagesize", 4096);
+            luConfigMap.put("trim", 0);
+            infrastructure.addLoggingUnit(RandomOpenPort.getOpenPort(), i % chains, NettyLogUnitServer.class, "nlu", luConfigMap);
+        }
+        return infrastructure.start(configMasterPort);
+    }
+
+    static synchronized String acquireLocalInstance(int logUnits, int chains)
+    {
+        if (localInstance == null)
+        {
+            localInstance = startInstance(RandomOpenPort.getOpenPort(), logUnits, chains);
+        }
+        localInstanceClients++;
+        return localInstance.getConfigString();
+    }
+
+    static synchronized void releaseLocalInstance()
+    {
+        if (--localInstanceClients == 0)
+        {
+            CorfuDBRuntime.getRuntime(localInstance.getConfigString()).close();
+            localInstance.shutdownAndWait();
+            localInstance = null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void init() throws DBException {
+        Properties p = getProperties();
+        String config = p.getProperty("corfudb.config", DEFAULT_CONFIG);
+        String mapType = p.getProperty("corfudb.map", "simple");
+        shardCount = Integer.parseInt(p.getProperty("corfudb.shards", "1"));
+        int batchSize = Integer.parseInt(p.getProperty("corfudb.batchsize", "0"));
+
+        Class<? extends ICorfuDBObject> type;
+        switch (mapType)
+        {
+            case "simple":
+                type = CDBSimpleMap.class;
+                break;
+            case "token":
+                type = CorfuTokenMap.class;
+                break;
+            case "skiplist":
+                type = CDBConcurrentSkipListMap.class;
+                break;
+            default:
+                throw new DBException("Unknown map type " + mapType);
+        }
+        if (shardCount < 1)
+        {
+            throw new DBException("A table needs at least one shard");
+        }
+        if (batchSize > 0 && type != CDBSimpleMap.class)
+        {
+            throw new DBException("Only simple maps batch writes");
+        }
+        scannable = type == CDBConcurrentSkipListMap.class;
+
+        oargs = new ICorfuDBInstance.OpenObjectArgs(type, batchSize > 0 ? WriteBehindSMREngine.class : null);
+        oargs.maxStaleness = Long.parseLong(p.getProperty("corfudb.staleness", "0"));
+        oargs.writeBehindBatchSize = batchSize;
+        oargs.writeBehindMicros = Long.parseLong(p.getProperty("corfudb.batchmicros", "1000"));
+
+        if (config.equals(IN_PROCESS))
+        {
+            config = acquireLocalInstance(Integer.parseInt(p.getProperty("corfudb.logunits", "1")),
+                    Integer.parseInt(p.getProperty("corfudb.chains", "1")));
+            usesLocalInstance = true;
+        }
+        CorfuDBRuntime runtime = CorfuDBRuntime.getRuntime(config);
+        runtime.waitForViewReady();
+        instance = runtime.getLocalInstance();
+    }
+
+    @Override
+    public void cleanup() throws DBException {
+        // Write any batches which are still pending.
+        tables.values().stream()
+                .flatMap(List::stream)
+                .map(m -> ((ICorfuDBObject<?>) m).getUnderlyingSMREngine())
+                .filter(e -> e instanceof WriteBehindSMREngine)
+                .forEach(e -> ((WriteBehindSMREngine<?>) e).flush());
+        if (usesLocalInstance)
+        {
+            releaseLocalInstance();
+        }
+    }
+
+    /**
+     * Get the shards of a table, opening them if this client has not yet accessed the table.
+     * The shards are opened together, so that their streams are replayed in parallel.
+     * @param table The name of the table.
+     * @return      The shards of the table, in order.
+     */
+    @SuppressWarnings("unchecked")
+    List<Map<String, HashMap<String, byte[]>>> getShards(String table)
+    {
+        return tables.computeIfAbsent(table, t -> {
+            UUID tableID = UUID.nameUUIDFromBytes(("ycsb/" + t).getBytes(StandardCharsets.UTF_8));
+            List<UUID> ids = IntStream.range(0, shardCount)
+                    .mapToObj(i -> CDBShardedMap.getShardID(tableID, i))
+                    .collect(Collectors.toList());
+            Map<UUID, ? extends ICorfuDBObject> objects = instance.openObjects(new HashSet<>(ids), oargs);
+            return ids.stream()
+                    .map(i -> (Map<String, HashMap<String, byte[]>>) objects.get(i))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    /** Get the shard of a table which owns a key, partitioned by hash in the same way as CDBShardedMap. */
+    Map<String, HashMap<String, byte[]>> getShard(String table, String key)
+    {
+        List<Map<String, HashMap<String, byte[]>>> shards = getShards(table);
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return shards.get(Math.floorMod(h, shards.size()));
+    }
+
+    @SuppressWarnings("unchecked")
+    static void write(Map<String, HashMap<String, byte[]>> shard, String key, HashMap<String, byte[]> record)
+    {
+        if (shard instanceof CDBSimpleMap)
+        {
+            // fastPut does not wait for the previous value, so it may be batched.
+            ((CDBSimpleMap<String, HashMap<String, byte[]>>) shard).fastPut(key, record);
+        }
+        else
+        {
+            shard.put(key, record);
+        }
+    }
+
+    static HashMap<String, byte[]> toRecord(HashMap<String, ByteIterator> values)
+    {
+        HashMap<String, byte[]> record = new HashMap<>();
+        values.forEach((k, v) -> record.put(k, v.toArray()));
+        return record;
+    }
+
+    static void copyFields(HashMap<String, byte[]> record, Set<String> fields, HashMap<String, ByteIterator> result)
+    {
+        record.forEach((k, v) -> {
+            if (fields == null || fields.contains(k))
+            {
+                result.put(k, new ByteArrayByteIterator(v));
+            }
+        });
+    }
+
+    @Override
+    public int read(String table, String key, Set<String> fields, HashMap<String, ByteIterator> result) {
+        try {
+            HashMap<String, byte[]> record = getShard(table, key).get(key);
+            if (record == null)
+            {
+                return ERROR;
+            }
+            copyFields(record, fields, result);
+            return OK;
+        } catch (Exception e)
+        {
+            log.warn("Failed to read {} from {}", key, table, e);
+            return ERROR;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int scan(String table, String startkey, int recordcount, Set<String> fields,
+                    Vector<HashMap<String, ByteIterator>> result) {
+        if (!scannable)
+        {
+            log.warn("Scans require corfudb.map=skiplist");
+            return ERROR;
+        }
+        try {
+            // Keys are partitioned by hash, so the first keys of the range may be in any shard.
+            List<Map.Entry<String, HashMap<String, byte[]>>> entries = getShards(table).parallelStream()
+                    .flatMap(s -> ((CDBConcurrentSkipListMap<String, HashMap<String, byte[]>>) s)
+                            .scan(startkey, true, null, false, recordcount).getEntries().stream())
+                    .sorted(Map.Entry.comparingByKey())
+                    .limit(recordcount)
+                    .collect(Collectors.toList());
+            for (Map.Entry<String, HashMap<String, byte[]>> e : entries)
+            {
+                HashMap<String, ByteIterator> values = new HashMap<>();
+                copyFields(e.getValue(), fields, values);
+                result.add(values);
+            }
+            return OK;
+        } catch (Exception e)
+        {
+            log.warn("Failed to scan {} from {}", table, startkey, e);
+            return ERROR;
+        }
+    }
+
+    @Override
+    public int update(String table, String key, HashMap<String, ByteIterator> values) {
+        try {
+            Map<String, HashMap<String, byte[]>> shard = getShard(table, key);
+            HashMap<String, byte[]> existing = shard.get(key);
+            if (existing == null)
+            {
+                return ERROR;
+            }
+            // The record read belongs to the map, so it is copied rather than modified.
+            HashMap<String, byte[]> record = new HashMap<>(existing);
+            record.putAll(toRecord(values));
+            write(shard, key, record);
+            return OK;
+        } catch (Exception e)
+        {
+            log.warn("Failed to update {} in {}", key, table, e);
+            return ERROR;
+        }
+    }
+
+    @Override
+    public int insert(String table, String key, HashMap<String, ByteIterator> values) {
+        try {
+            write(getShard(table, key), key, toRecord(values));
+            return OK;
+        } catch (Exception e)
+        {
+            log.warn("Failed to insert {} into {}", key, table, e);
+            return ERROR;
+        }
+    }
+
+    @Override
+    public int delete(String table, String key) {
+        try {
+            return getShard(table, key).remove(key) == null ? ERROR : OK;
+        } catch (Exception e)
+        {
+            log.warn("Failed to delete {} from {}", key, table, e);
+            return ERROR;
+        }
+    }
+
+    /**
+     * Start an instance for YCSB to run against, which lives until the process is stopped.
+     * Both the load and run phases can be pointed at it with -p corfudb.config=...
+     * @param args  The port to run the configuration master on (default 9999), the number of
+     *              log units (default 1) and the number of chains (default 1).
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9999;
+        int logUnits = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int chains = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        CorfuInfrastructureBuilder infrastructure = startInstance(port, logUnits, chains);
+        Runtime.getRuntime().addShutdownHook(new Thread(infrastructure::shutdownAndWait));
+        System.out.println("Corfu instance for YCSB started, use -p corfudb.config=" + infrastructure.getConfigString());
+        Thread.currentThread().join();
+    }
+}
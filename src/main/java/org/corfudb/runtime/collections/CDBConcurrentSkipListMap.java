@@ -1,6 +1,10 @@
 package org.corfudb.runtime.collections;
 
+import lombok.Getter;
 import org.corfudb.runtime.smr.ICorfuDBObject;
+import org.corfudb.runtime.smr.ISMREngine;
+import org.corfudb.runtime.smr.SimpleSMREngine;
+import org.corfudb.runtime.stream.ITimestamp;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
@@ -766,4 +770,143 @@ public class CDBConcurrentSkipListMap<K,V> implements ICorfuDBObject<ConcurrentS
     public V replace(K key, V value) {
         return mutatorAccessorHelper((map, opts) -> map.replace(key, value));
     }
+
+    /**
+     * A page of a range scan: a bounded batch of entries, copied out of the map at a single
+     * position in the stream, and the key to continue the scan from.
+     */
+    public static class ScanPage<K,V> {
+        final CDBConcurrentSkipListMap<K,V> map;
+        final K toKey;
+        final boolean toInclusive;
+        final int limit;
+
+        /** The entries of this page, in ascending key order. */
+        @Getter
+        final List<Entry<K,V>> entries;
+
+        /** The last key of this page, which the next page starts after, or null if the scan is complete. */
+        @Getter
+        final K continuationKey;
+
+        /** The position in the stream the page was read at, if the engine tracks it. */
+        @Getter
+        final ITimestamp position;
+
+        ScanPage(CDBConcurrentSkipListMap<K,V> map, List<Entry<K,V>> entries, K continuationKey,
+                 K toKey, boolean toInclusive, int limit, ITimestamp position)
+        {
+            this.map = map;
+            this.entries = entries;
+            this.continuationKey = continuationKey;
+            this.toKey = toKey;
+            this.toInclusive = toInclusive;
+            this.limit = limit;
+            this.position = position;
+        }
+
+        /** Returns true if there are entries after this page. */
+        public boolean hasNext()
+        {
+            return continuationKey != null;
+        }
+
+        /**
+         * Fetch the next page of the scan, at the current position of the map.
+         * @return  The next page.
+         */
+        public ScanPage<K,V> next()
+        {
+            if (continuationKey == null)
+            {
+                throw new NoSuchElementException();
+            }
+            return map.scan(continuationKey, false, toKey, toInclusive, limit);
+        }
+    }
+
+    /**
+     * Returns a page of at most limit entries with keys in the given range, in ascending order.
+     * The page is copied out of the map while the engine is not applying updates, so it reflects
+     * a single position in the stream, and the apply loop is only held up for one page at a time.
+     * Successive pages are each consistent, but may be read at different positions.
+     *
+     * @param fromKey       low endpoint of the keys in the page, or null to start at the first key
+     * @param fromInclusive true if the low endpoint is to be included in the page
+     * @param toKey         high endpoint of the keys in the scan, or null to end at the last key
+     * @param toInclusive   true if the high endpoint is to be included in the scan
+     * @param limit         the maximum number of entries in the page
+     * @return a page of entries, and the key to continue the scan from
+     */
+    @SuppressWarnings("unchecked")
+    public ScanPage<K,V> scan(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive, int limit) {
+        if (limit < 1)
+        {
+            throw new IllegalArgumentException("The page limit must be positive.");
+        }
+        ISMREngine<ConcurrentSkipListMap<K,V>> engine = getSMREngine();
+        engine.sync(null);
+        synchronized (engine)
+        {
+            return engine.read((map, opts) -> {
+                NavigableMap<K,V> range = map;
+                if (fromKey != null)
+                {
+                    range = range.tailMap(fromKey, fromInclusive);
+                }
+                if (toKey != null)
+                {
+                    range = range.headMap(toKey, toInclusive);
+                }
+                List<Entry<K,V>> entries = new ArrayList<>(Math.min(limit, 1024));
+                K continuationKey = null;
+                for (Entry<K,V> e : range.entrySet())
+                {
+                    if (entries.size() == limit)
+                    {
+                        continuationKey = entries.get(limit - 1).getKey();
+                        break;
+                    }
+                    entries.add(new AbstractMap.SimpleImmutableEntry<>(e));
+                }
+                ITimestamp position = engine instanceof SimpleSMREngine ? ((SimpleSMREngine) engine).lastApplied : null;
+                return new ScanPage<>(this, entries, continuationKey, toKey, toInclusive, limit, position);
+            });
+        }
+    }
+
+    /**
+     * Returns an iterator over the entries with keys in the given range, in ascending order,
+     * which fetches them from the map a page at a time.
+     *
+     * @param fromKey  low endpoint (inclusive) of the keys, or null to start at the first key
+     * @param toKey    high endpoint (exclusive) of the keys, or null to end at the last key
+     * @param pageSize the number of entries to fetch at a time
+     * @return an iterator over the entries in the range
+     */
+    public Iterator<Entry<K,V>> scanIterator(K fromKey, K toKey, int pageSize) {
+        return new Iterator<Entry<K,V>>() {
+            ScanPage<K,V> page = scan(fromKey, true, toKey, false, pageSize);
+            Iterator<Entry<K,V>> current = page.getEntries().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && page.hasNext())
+                {
+                    page = page.next();
+                    current = page.getEntries().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Entry<K,V> next() {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
 }
@@ -0,0 +1,297 @@
+package org.corfudb.runtime.collections;
+
+import lombok.Getter;
+import org.corfudb.runtime.smr.ICorfuDBObject;
+import org.corfudb.runtime.smr.TransactionalContext;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A map whose keys are partitioned across several Corfu maps, each backed by its own stream.
+ *
+ * Each shard has its own SMR engine, so replay, apply and memory scale with the number of shards.
+ * Operations on a single key are routed to the shard which owns it, and operations over the whole
+ * map, such as size() or a range scan, fan out to the shards in parallel. Inside a transaction,
+ * which is bound to the calling thread, they visit the shards on the calling thread instead.
+ *
+ * Keys are partitioned either by hash, across CDBSimpleMaps, or by range, across
+ * CDBConcurrentSkipListMaps which also support ordered range scans. The partitioning is not
+ * recorded in the log, so every client must open the map with the same shard count or split points.
+ *
+ * The key, value and entry views are snapshots, merged from every shard.
+ */
+public class CDBShardedMap<K,V> implements Map<K,V> {
+
+    @Getter
+    final UUID id;
+
+    /** The shards, in order. */
+    final List<Map<K,V>> shards;
+
+    /** For a range partitioned map, the lowest key of every shard but the first, in order. Otherwise null. */
+    final List<K> splitPoints;
+
+    /**
+     * Open a map partitioned by hash.
+     * @param instance      The instance to open the shards on.
+     * @param id            The unique ID of the map.
+     * @param shardCount    The number of shards.
+     */
+    public CDBShardedMap(ICorfuDBInstance instance, UUID id, int shardCount)
+    {
+        if (shardCount < 1)
+        {
+            throw new IllegalArgumentException("A sharded map needs at least one shard.");
+        }
+        this.id = id;
+        this.splitPoints = null;
+        this.shards = openShards(instance, id, shardCount, CDBSimpleMap.class);
+    }
+
+    /**
+     * Open a map partitioned by range.
+     * @param instance      The instance to open the shards on.
+     * @param id            The unique ID of the map.
+     * @param splitPoints   The lowest key of every shard but the first, in ascending order.
+     *                      There is one more shard than there are split points.
+     */
+    public CDBShardedMap(ICorfuDBInstance instance, UUID id, List<K> splitPoints)
+    {
+        for (int i = 1; i < splitPoints.size(); i++)
+        {
+            if (compare(splitPoints.get(i - 1), splitPoints.get(i)) >= 0)
+            {
+                throw new IllegalArgumentException("Split points must be in strictly ascending order.");
+            }
+        }
+        this.id = id;
+        this.splitPoints = new ArrayList<>(splitPoints);
+        this.shards = openShards(instance, id, splitPoints.size() + 1, CDBConcurrentSkipListMap.class);
+    }
+
+    /**
+     * Get the stream ID of a shard, derived from the ID of the map.
+     * @param id    The unique ID of the map.
+     * @param shard The index of the shard.
+     * @return      The stream ID of the shard.
+     */
+    public static UUID getShardID(UUID id, int shard)
+    {
+        return UUID.nameUUIDFromBytes((id.toString() + "/" + shard).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K,V> List<Map<K,V>> openShards(ICorfuDBInstance instance, UUID id, int shardCount,
+                                            Class<? extends ICorfuDBObject> type)
+    {
+        List<UUID> ids = IntStream.range(0, shardCount)
+                .mapToObj(i -> getShardID(id, i))
+                .collect(Collectors.toList());
+        // Opening the shards together replays their streams in parallel.
+        Map<UUID, ? extends ICorfuDBObject> objects =
+                instance.openObjects(new HashSet<>(ids), new ICorfuDBInstance.OpenObjectArgs(type));
+        return ids.stream()
+                .map(i -> (Map<K,V>) objects.get(i))
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compare(Object a, Object b)
+    {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    /** Returns the number of shards of this map. */
+    public int getShardCount()
+    {
+        return shards.size();
+    }
+
+    /** Returns true if this map is partitioned by range. */
+    public boolean isRangePartitioned()
+    {
+        return splitPoints != null;
+    }
+
+    /**
+     * Get the index of the shard which owns a key.
+     * @param key   The key.
+     * @return      The index of the shard.
+     */
+    int shardIndex(Object key)
+    {
+        if (splitPoints == null)
+        {
+            int h = Objects.hashCode(key);
+            h ^= h >>> 16;
+            return Math.floorMod(h, shards.size());
+        }
+        int lo = 0;
+        int hi = splitPoints.size();
+        // Find the number of split points which are less than or equal to the key.
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (compare(splitPoints.get(mid), key) <= 0)
+            {
+                lo = mid + 1;
+            }
+            else
+            {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    Map<K,V> shardFor(Object key)
+    {
+        return shards.get(shardIndex(key));
+    }
+
+    /**
+     * Returns true if the calling thread is in a transaction, in which case shard operations
+     * must run on the calling thread to be part of the transaction.
+     */
+    static boolean inTransaction()
+    {
+        return TransactionalContext.getCurrentTX() != null;
+    }
+
+    /**
+     * Get a stream over the given elements, which is parallel unless the calling thread is in
+     * a transaction.
+     * @param c The elements, usually the shards.
+     * @return  A stream over the elements.
+     */
+    static <T> Stream<T> fanOut(Collection<T> c)
+    {
+        return inTransaction() ? c.stream() : c.parallelStream();
+    }
+
+    @Override
+    public int size() {
+        return fanOut(shards)
+                .mapToInt(Map::size)
+                .sum();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return fanOut(shards)
+                .allMatch(Map::isEmpty);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shardFor(key).containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return fanOut(shards)
+                .anyMatch(s -> s.containsValue(value));
+    }
+
+    @Override
+    public V get(Object key) {
+        return shardFor(key).get(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return shardFor(key).put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return shardFor(key).remove(key);
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map. The mappings are grouped
+     * by shard, and each shard is written in parallel, unless the calling thread is in a transaction.
+     *
+     * @param m mappings to be stored in this map
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        Map<Integer, Map<K,V>> byShard = new HashMap<>();
+        for (Entry<? extends K, ? extends V> e : m.entrySet())
+        {
+            byShard.computeIfAbsent(shardIndex(e.getKey()), x -> new HashMap<>())
+                    .put(e.getKey(), e.getValue());
+        }
+        fanOut(byShard.entrySet())
+                .forEach(e -> shards.get(e.getKey()).putAll(e.getValue()));
+    }
+
+    @Override
+    public void clear() {
+        fanOut(shards)
+                .forEach(Map::clear);
+    }
+
+    /**
+     * Returns a snapshot of the mappings of every shard. For a range partitioned map, the
+     * snapshot is ordered by key.
+     */
+    Map<K,V> snapshot() {
+        List<Map<K,V>> parts = fanOut(shards)
+                .map(s -> splitPoints == null ? (Map<K,V>) new HashMap<K,V>(s) : (Map<K,V>) new TreeMap<K,V>(s))
+                .collect(Collectors.toList());
+        Map<K,V> result = splitPoints == null ? new HashMap<>() : new TreeMap<>();
+        parts.forEach(result::putAll);
+        return result;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(snapshot().keySet());
+    }
+
+    @Override
+    public Collection<V> values() {
+        return Collections.unmodifiableCollection(snapshot().values());
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return Collections.unmodifiableSet(snapshot().entrySet());
+    }
+
+    /**
+     * Returns a snapshot of the mappings whose keys range from fromKey, inclusive, to toKey,
+     * exclusive. Only the shards which overlap the range are scanned, in parallel unless the
+     * calling thread is in a transaction.
+     *
+     * @param fromKey low endpoint (inclusive) of the keys in the returned map
+     * @param toKey   high endpoint (exclusive) of the keys in the returned map
+     * @return the mappings in the range, ordered by key
+     * @throws UnsupportedOperationException if this map is not partitioned by range
+     */
+    @SuppressWarnings("unchecked")
+    public NavigableMap<K,V> subMap(K fromKey, K toKey) {
+        if (splitPoints == null)
+        {
+            throw new UnsupportedOperationException("Range scans require a range partitioned map.");
+        }
+        if (compare(fromKey, toKey) > 0)
+        {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        IntStream overlapping = IntStream.rangeClosed(shardIndex(fromKey), shardIndex(toKey));
+        List<NavigableMap<K,V>> parts = (inTransaction() ? overlapping : overlapping.parallel())
+                .mapToObj(i -> (NavigableMap<K,V>) new TreeMap<K,V>(
+                        ((CDBConcurrentSkipListMap<K,V>) shards.get(i)).subMap(fromKey, true, toKey, false)))
+                .collect(Collectors.toList());
+        TreeMap<K,V> result = new TreeMap<>();
+        parts.forEach(result::putAll);
+        return result;
+    }
+}
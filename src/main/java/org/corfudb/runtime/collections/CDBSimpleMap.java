@@ -2,15 +2,24 @@ package org.corfudb.runtime.collections;
 
 import org.corfudb.runtime.objects.Accessor;
 import org.corfudb.runtime.smr.*;
+import org.corfudb.runtime.smr.smrprotocol.MapBatchSMRCommand;
+import org.corfudb.util.collections.IndexedHashMap;
+import org.corfudb.util.collections.IndexedHashMap.IndexDefinition;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Created by mwei on 5/1/15.
+ *
+ * Secondary indexes may be registered on the map to look entries up by an attribute of their
+ * values. Indexes are maintained locally as commands are applied, and are never written to the log.
  */
-public class CDBSimpleMap<K,V> implements ICorfuDBObject<ConcurrentHashMap<K,V>>, Map<K,V> {
+public class CDBSimpleMap<K,V> implements ICorfuDBObject<IndexedHashMap<K,V>>, Map<K,V> {
 
     /**
      * Returns the number of key-value mappings in this map.  If the
@@ -231,9 +240,66 @@ public class CDBSimpleMap<K,V> implements ICorfuDBObject<ConcurrentHashMap<K,V>>
      */
     @Override
     public void putAll(Map<? extends K, ? extends V> m) {
-        mutatorHelper((map,opts) -> {
-            map.putAll(m);
+        mutatorHelper(new MapBatchSMRCommand<IndexedHashMap<K,V>>(MapBatchSMRCommand.MapBatchOp.PUT_ALL, m));
+    }
+
+    /**
+     * Removes the mappings for every key in the given collection, as a single
+     * command in the log.
+     *
+     * @param keys keys whose mappings are to be removed from the map
+     * @return the number of mappings removed
+     */
+    public int removeAll(Collection<?> keys) {
+        return (int) mutatorAccessorHelper(new MapBatchSMRCommand<IndexedHashMap<K,V>>(keys));
+    }
+
+    /**
+     * For every key in the given collection which is not already associated with
+     * a value, associates it with the value computed by the mapping function, as a
+     * single command in the log. The mapping function runs eagerly, on the caller,
+     * before the command is proposed, once for each key which is absent when this
+     * method is called. If another client maps such a key first, the value it put is
+     * kept and the computed value is discarded. Keys for which the function returns
+     * null are left unmapped, and are not part of the result.
+     *
+     * @param keys            keys to compute values for
+     * @param mappingFunction the function to compute a value
+     * @return the value each key is associated with after the operation
+     */
+    @SuppressWarnings("unchecked")
+    public Map<K,V> computeIfAbsentAll(Collection<? extends K> keys, Function<? super K, ? extends V> mappingFunction) {
+        Map<K,V> present = accessorHelper((map, opts) -> {
+            Map<K,V> found = new HashMap<>();
+            for (K key : keys)
+            {
+                V value = map.get(key);
+                if (value != null)
+                {
+                    found.put(key, value);
+                }
+            }
+            return found;
         });
+        Map<K,V> computed = new HashMap<>();
+        for (K key : keys)
+        {
+            if (!present.containsKey(key))
+            {
+                V value = mappingFunction.apply(key);
+                if (value != null)
+                {
+                    computed.put(key, value);
+                }
+            }
+        }
+        if (computed.isEmpty())
+        {
+            return present;
+        }
+        present.putAll((Map<K,V>) mutatorAccessorHelper(
+                new MapBatchSMRCommand<IndexedHashMap<K,V>>(MapBatchSMRCommand.MapBatchOp.PUT_IF_ABSENT_ALL, computed)));
+        return present;
     }
 
     /**
@@ -316,4 +382,80 @@ public class CDBSimpleMap<K,V> implements ICorfuDBObject<ConcurrentHashMap<K,V>>
            return map.entrySet();
         });
     }
+
+    /* The indexes registered on this map, by name. These are local to this client, and
+     * are built on the state of the map the first time they are used. */
+    final Map<String, IndexDefinition<V>> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a secondary index on this map, replacing any index of the same name.
+     *
+     * @param definition the definition of the index
+     */
+    public void registerIndex(IndexDefinition<V> definition) {
+        indexes.put(definition.getName(), definition);
+        accessorHelper((map, opts) -> map.index(definition));
+    }
+
+    /**
+     * Returns the mappings whose values have the given index key.
+     *
+     * @param indexName the name of a registered index
+     * @param indexKey  the index key to look up
+     * @return the mappings whose values have the given index key
+     * @throws IllegalArgumentException if no index of that name is registered
+     */
+    public Map<K,V> getByIndex(String indexName, Object indexKey) {
+        IndexDefinition<V> definition = getIndexDefinition(indexName);
+        return accessorHelper((map, opts) -> {
+            Map<K,V> result = new HashMap<>();
+            for (K key : map.index(definition).get(indexKey))
+            {
+                V value = map.get(key);
+                if (value != null)
+                {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Returns the mappings whose index keys fall in a range, ordered by index key.
+     *
+     * @param indexName the name of a registered, sorted index
+     * @param from      the lowest index key to return, inclusive
+     * @param to        the highest index key to return, exclusive
+     * @return the mappings whose index keys fall in the range
+     * @throws IllegalArgumentException      if no index of that name is registered
+     * @throws UnsupportedOperationException if the index is not sorted
+     */
+    public Map<K,V> getByIndexRange(String indexName, Object from, Object to) {
+        IndexDefinition<V> definition = getIndexDefinition(indexName);
+        return accessorHelper((map, opts) -> {
+            Map<K,V> result = new LinkedHashMap<>();
+            for (Set<K> keys : map.index(definition).range(from, to).values())
+            {
+                for (K key : keys)
+                {
+                    V value = map.get(key);
+                    if (value != null)
+                    {
+                        result.put(key, value);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    IndexDefinition<V> getIndexDefinition(String indexName) {
+        IndexDefinition<V> definition = indexes.get(indexName);
+        if (definition == null)
+        {
+            throw new IllegalArgumentException("No index named " + indexName + " is registered.");
+        }
+        return definition;
+    }
 }
@@ -0,0 +1,88 @@
+package org.corfudb.runtime.collections;
+
+import org.corfudb.runtime.smr.ICorfuDBObject;
+import org.corfudb.runtime.smr.smrprotocol.LongCollectionSMRCommand;
+import org.corfudb.util.collections.LongLongHashMap;
+
+/**
+ * A map from longs to longs, backed by an open addressing table of primitives.
+ * Keys and values are never boxed, in memory or in the log.
+ *
+ * The table is rehashed and shifted in place as updates are applied, so it is only read
+ * under the monitor of the engine, which updates are applied under.
+ */
+public class CorfuLongLongMap implements ICorfuDBObject<LongLongHashMap> {
+
+    /**
+     * Returns the number of mappings in this map.
+     *
+     * @return the number of mappings in this map
+     */
+    public int size() {
+        return synchronizedAccessorHelper((map, opts) -> map.size());
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the specified key
+     */
+    public boolean containsKey(long key) {
+        return synchronizedAccessorHelper((map, opts) -> map.containsKey(key));
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the default value
+     * if this map contains no mapping for the key.
+     *
+     * @param key          the key whose associated value is to be returned
+     * @param defaultValue the value to return if there is no mapping for the key
+     * @return the value to which the specified key is mapped, or the default value
+     */
+    public long get(long key, long defaultValue) {
+        return synchronizedAccessorHelper((map, opts) -> map.get(key, defaultValue));
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     */
+    public void put(long key, long value) {
+        putAll(new long[]{key}, new long[]{value});
+    }
+
+    /**
+     * Associates each key with the value at the same index, as a single command in the log.
+     *
+     * @param keys   keys with which the values are to be associated
+     * @param values values to be associated with the keys
+     */
+    public void putAll(long[] keys, long[] values) {
+        if (keys.length != values.length)
+        {
+            throw new IllegalArgumentException("Keys and values must have the same length.");
+        }
+        mutatorHelper(new LongCollectionSMRCommand<LongLongHashMap>(keys, values));
+    }
+
+    /**
+     * Removes the mappings for the specified keys from this map, if present.
+     *
+     * @param keys keys whose mappings are to be removed from the map
+     */
+    public void remove(long... keys) {
+        mutatorHelper(new LongCollectionSMRCommand<LongLongHashMap>(
+                LongCollectionSMRCommand.LongCollectionOp.REMOVE, keys));
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        mutatorHelper(new LongCollectionSMRCommand<LongLongHashMap>(
+                LongCollectionSMRCommand.LongCollectionOp.CLEAR));
+    }
+}
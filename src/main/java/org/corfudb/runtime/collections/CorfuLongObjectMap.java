@@ -0,0 +1,87 @@
+package org.corfudb.runtime.collections;
+
+import org.corfudb.runtime.smr.ICorfuDBObject;
+import org.corfudb.runtime.smr.smrprotocol.LongCollectionSMRCommand;
+import org.corfudb.util.collections.LongObjectHashMap;
+
+/**
+ * A map from longs to objects, backed by an open addressing table with primitive keys.
+ * Keys are never boxed, in memory or in the log.
+ *
+ * Accessors read the table under the engine monitor, since applying an update may rehash
+ * it or shift entries in place.
+ */
+public class CorfuLongObjectMap<V> implements ICorfuDBObject<LongObjectHashMap<V>> {
+
+    /**
+     * Returns the number of mappings in this map.
+     *
+     * @return the number of mappings in this map
+     */
+    public int size() {
+        return synchronizedAccessorHelper((map, opts) -> map.size());
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the specified key
+     */
+    public boolean containsKey(long key) {
+        return synchronizedAccessorHelper((map, opts) -> map.containsKey(key));
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null
+     * if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null
+     */
+    public V get(long key) {
+        return synchronizedAccessorHelper((map, opts) -> map.get(key));
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     */
+    public void put(long key, V value) {
+        putAll(new long[]{key}, new Object[]{value});
+    }
+
+    /**
+     * Associates each key with the value at the same index, as a single command in the log.
+     *
+     * @param keys   keys with which the values are to be associated
+     * @param values values to be associated with the keys
+     */
+    public void putAll(long[] keys, Object[] values) {
+        if (keys.length != values.length)
+        {
+            throw new IllegalArgumentException("Keys and values must have the same length.");
+        }
+        mutatorHelper(new LongCollectionSMRCommand<LongObjectHashMap<V>>(keys, values));
+    }
+
+    /**
+     * Removes the mappings for the specified keys from this map, if present.
+     *
+     * @param keys keys whose mappings are to be removed from the map
+     */
+    public void remove(long... keys) {
+        mutatorHelper(new LongCollectionSMRCommand<LongObjectHashMap<V>>(
+                LongCollectionSMRCommand.LongCollectionOp.REMOVE, keys));
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        mutatorHelper(new LongCollectionSMRCommand<LongObjectHashMap<V>>(
+                LongCollectionSMRCommand.LongCollectionOp.CLEAR));
+    }
+}
@@ -0,0 +1,61 @@
+package org.corfudb.runtime.collections;
+
+import org.corfudb.runtime.smr.ICorfuDBObject;
+import org.corfudb.runtime.smr.smrprotocol.LongCollectionSMRCommand;
+import org.corfudb.util.collections.LongHashSet;
+
+/**
+ * A set of longs, backed by an open addressing table of primitives.
+ * Values are never boxed, in memory or in the log.
+ *
+ * Like CorfuLongLongMap, the set is only read under the engine monitor.
+ */
+public class CorfuLongSet implements ICorfuDBObject<LongHashSet> {
+
+    /**
+     * Returns the number of values in this set.
+     *
+     * @return the number of values in this set
+     */
+    public int size() {
+        return synchronizedAccessorHelper((set, opts) -> set.size());
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains the specified value.
+     *
+     * @param value value whose presence in this set is to be tested
+     * @return <tt>true</tt> if this set contains the specified value
+     */
+    public boolean contains(long value) {
+        return synchronizedAccessorHelper((set, opts) -> set.contains(value));
+    }
+
+    /**
+     * Adds the specified values to this set, as a single command in the log.
+     *
+     * @param values values to be added to this set
+     */
+    public void add(long... values) {
+        mutatorHelper(new LongCollectionSMRCommand<LongHashSet>(
+                LongCollectionSMRCommand.LongCollectionOp.ADD, values));
+    }
+
+    /**
+     * Removes the specified values from this set, if present.
+     *
+     * @param values values to be removed from this set
+     */
+    public void remove(long... values) {
+        mutatorHelper(new LongCollectionSMRCommand<LongHashSet>(
+                LongCollectionSMRCommand.LongCollectionOp.REMOVE, values));
+    }
+
+    /**
+     * Removes all of the values from this set.
+     */
+    public void clear() {
+        mutatorHelper(new LongCollectionSMRCommand<LongHashSet>(
+                LongCollectionSMRCommand.LongCollectionOp.CLEAR));
+    }
+}
@@ -0,0 +1,177 @@
+package org.corfudb.runtime.collections;
+
+import org.corfudb.runtime.smr.ICorfuDBObject;
+import org.corfudb.runtime.smr.smrprotocol.MapBatchSMRCommand;
+import org.corfudb.util.collections.OffHeapHashMap;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A map whose state is kept serialized in direct memory rather than on the Java heap,
+ * so that large maps do not add to garbage collection pauses.
+ *
+ * Keys are compared by their serialized form, and every read returns a freshly deserialized
+ * copy of the value.
+ */
+public class CorfuOffHeapMap<K,V> implements ICorfuDBObject<OffHeapHashMap<K,V>>, Map<K,V> {
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    @Override
+    public int size() {
+        return accessorHelper((map, opts) -> map.size());
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    @Override
+    public boolean isEmpty() {
+        return accessorHelper((map, opts) -> map.isEmpty());
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the specified key
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return accessorHelper((map, opts) -> map.containsKey(key));
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the specified value.
+     * This deserializes every value in the map.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map maps one or more keys to the specified value
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        return accessorHelper((map, opts) -> map.containsValue(value));
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this map
+     * contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null
+     */
+    @Override
+    public V get(Object key) {
+        return accessorHelper((map, opts) -> map.get(key));
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or null
+     */
+    @Override
+    public V put(K key, V value) {
+        return mutatorAccessorHelper((map, opts) -> map.put(key, value));
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map, without
+     * waiting for the previous value.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     */
+    public void fastPut(K key, V value) {
+        mutatorHelper((map, opts) -> map.put(key, value));
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or null
+     */
+    @Override
+    public V remove(Object key) {
+        return mutatorAccessorHelper((map, opts) -> map.remove(key));
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map, as a single command in the log.
+     *
+     * @param m mappings to be stored in this map
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        mutatorHelper(new MapBatchSMRCommand<OffHeapHashMap<K,V>>(MapBatchSMRCommand.MapBatchOp.PUT_ALL, m));
+    }
+
+    /**
+     * Removes the mappings for all of the given keys, as a single command in the log.
+     *
+     * @param keys keys whose mappings are to be removed from the map
+     * @return the number of mappings removed
+     */
+    public int removeAll(Collection<?> keys) {
+        return (int) mutatorAccessorHelper(new MapBatchSMRCommand<OffHeapHashMap<K,V>>(keys));
+    }
+
+    /**
+     * Removes all of the mappings from this map, releasing its direct memory.
+     */
+    @Override
+    public void clear() {
+        mutatorHelper((map, opts) -> {
+            map.clear();
+        });
+    }
+
+    /**
+     * Returns the number of bytes of direct memory held by this map.
+     *
+     * @return the number of bytes of direct memory held by this map
+     */
+    public long getOffHeapBytes() {
+        return accessorHelper((map, opts) -> map.getOffHeapBytes());
+    }
+
+    /**
+     * Returns a view of the keys contained in this map. Keys are deserialized as they are iterated.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    @Override
+    public Set<K> keySet() {
+        return accessorHelper((map, opts) -> map.keySet());
+    }
+
+    /**
+     * Returns a view of the values contained in this map. Values are deserialized as they are iterated.
+     *
+     * @return a collection view of the values contained in this map
+     */
+    @Override
+    public Collection<V> values() {
+        return accessorHelper((map, opts) -> map.values());
+    }
+
+    /**
+     * Returns a view of the mappings contained in this map. Mappings are deserialized as they are iterated.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return accessorHelper((map, opts) -> map.entrySet());
+    }
+}
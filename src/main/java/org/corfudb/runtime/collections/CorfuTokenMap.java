@@ -4,12 +4,14 @@ import org.corfudb.runtime.objects.Accessor;
 import org.corfudb.runtime.objects.Mutator;
 import org.corfudb.runtime.objects.MutatorAccessor;
 import org.corfudb.runtime.smr.ICorfuDBObject;
+import org.corfudb.runtime.smr.smrprotocol.MapBatchSMRCommand;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 /**
  * Created by mwei on 9/29/15.
@@ -204,9 +206,67 @@ public class CorfuTokenMap<K,V> implements ICorfuDBObject<HashMap<K,V>>, Concurr
      *                                       the specified map prevents it from being stored in this map
      */
     @Override
-    @Mutator
     public void putAll(Map<? extends K, ? extends V> m) {
-        getState().putAll(m);
+        mutatorHelper(new MapBatchSMRCommand<HashMap<K,V>>(MapBatchSMRCommand.MapBatchOp.PUT_ALL, m));
+    }
+
+    /**
+     * Removes the mappings for every key in the given collection, as a single
+     * command in the log.
+     *
+     * @param keys keys whose mappings are to be removed from the map
+     * @return the number of mappings removed
+     */
+    public int removeAll(Collection<?> keys) {
+        return (int) mutatorAccessorHelper(new MapBatchSMRCommand<HashMap<K,V>>(keys));
+    }
+
+    /**
+     * For every key in the given collection which is not already associated with
+     * a value, associates it with the value computed by the mapping function, as a
+     * single command in the log. The mapping function runs eagerly, on the caller,
+     * before the command is proposed, once for each key which is absent when this
+     * method is called. If another client maps such a key first, the value it put is
+     * kept and the computed value is discarded. Keys for which the function returns
+     * null are left unmapped, and are not part of the result.
+     *
+     * @param keys            keys to compute values for
+     * @param mappingFunction the function to compute a value
+     * @return the value each key is associated with after the operation
+     */
+    @SuppressWarnings("unchecked")
+    public Map<K,V> computeIfAbsentAll(Collection<? extends K> keys, Function<? super K, ? extends V> mappingFunction) {
+        Map<K,V> present = accessorHelper((map, opts) -> {
+            Map<K,V> found = new HashMap<>();
+            for (K key : keys)
+            {
+                V value = map.get(key);
+                if (value != null)
+                {
+                    found.put(key, value);
+                }
+            }
+            return found;
+        });
+        Map<K,V> computed = new HashMap<>();
+        for (K key : keys)
+        {
+            if (!present.containsKey(key))
+            {
+                V value = mappingFunction.apply(key);
+                if (value != null)
+                {
+                    computed.put(key, value);
+                }
+            }
+        }
+        if (computed.isEmpty())
+        {
+            return present;
+        }
+        present.putAll((Map<K,V>) mutatorAccessorHelper(
+                new MapBatchSMRCommand<HashMap<K,V>>(MapBatchSMRCommand.MapBatchOp.PUT_IF_ABSENT_ALL, computed)));
+        return present;
     }
 
     /**
@@ -0,0 +1,22 @@
+package org.corfudb.runtime.exceptions;
+
+/**
+ * This exception is thrown when an asynchronous read of a batch of a stream fails.
+ * Entries after the batch cannot be applied until the batch is read again, so the
+ * exception records the batch and the range of addresses it covers.
+ */
+@SuppressWarnings("serial")
+public class BatchReadException extends RuntimeException
+{
+    public final long batch;
+    public final long start;
+    public final long end;
+
+    public BatchReadException(long batch, long start, long end, Throwable cause)
+    {
+        super("Failed to read batch " + batch + " [" + start + ", " + end + ")", cause);
+        this.batch = batch;
+        this.start = start;
+        this.end = end;
+    }
+}
@@ -12,4 +12,6 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Accessor {
+    /** The staleness, in milliseconds, this accessor tolerates. 0 means the access is linearized. */
+    long maxStaleness() default 0;
 }
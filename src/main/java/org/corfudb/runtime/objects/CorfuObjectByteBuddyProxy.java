@@ -102,7 +102,15 @@ public class CorfuObjectByteBuddyProxy implements CorfuObjectProxy {
                                              @Origin Method method)
                 throws Exception
         {
-            obj.getSMREngine().sync(null);
+            Accessor accessor = method.getAnnotation(Accessor.class);
+            if (accessor != null && accessor.maxStaleness() > 0)
+            {
+                obj.getSMREngine().syncStale(accessor.maxStaleness());
+            }
+            else
+            {
+                obj.getSMREngine().sync(null);
+            }
             return originalCall.call();
         }
     }
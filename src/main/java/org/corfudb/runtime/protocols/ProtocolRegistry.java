@@ -0,0 +1,99 @@
+package org.corfudb.runtime.protocols;
+
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.protocols.configmasters.CorfuDBConfigMasterProtocol;
+import org.corfudb.runtime.protocols.configmasters.MemoryConfigMasterProtocol;
+import org.corfudb.runtime.protocols.logunits.MemoryLogUnitProtocol;
+import org.corfudb.runtime.protocols.logunits.NettyLogUnitProtocol;
+import org.corfudb.runtime.protocols.logunits.RedisLogUnitProtocol;
+import org.corfudb.runtime.protocols.replications.ChainReplicationProtocol;
+import org.corfudb.runtime.protocols.replications.IReplicationProtocol;
+import org.corfudb.runtime.protocols.sequencers.MemorySequencerProtocol;
+import org.corfudb.runtime.protocols.sequencers.NettyStreamingSequencerProtocol;
+import org.corfudb.runtime.protocols.sequencers.RedisSequencerProtocol;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The protocols which views are built from, by protocol string.
+ *
+ * Protocols are registered explicitly, so building a view never scans the classpath. The
+ * registry is built once, when it is first used, and is shared by every view. A new protocol
+ * must be added here, or registered with one of the register methods before a view which
+ * uses it is built.
+ */
+@Slf4j
+public class ProtocolRegistry {
+
+    /** The sequencer protocols, by protocol string. */
+    public static final Map<String, Class<? extends IServerProtocol>> sequencers = new ConcurrentHashMap<>();
+
+    /** The logging unit protocols, by protocol string. */
+    public static final Map<String, Class<? extends IServerProtocol>> logUnits = new ConcurrentHashMap<>();
+
+    /** The configuration master protocols, by protocol string. */
+    public static final Map<String, Class<? extends IServerProtocol>> configMasters = new ConcurrentHashMap<>();
+
+    /** The replication protocols, by protocol string. */
+    public static final Map<String, Class<? extends IReplicationProtocol>> replications = new ConcurrentHashMap<>();
+
+    static {
+        registerSequencer(MemorySequencerProtocol.class);
+        registerSequencer(NettyStreamingSequencerProtocol.class);
+        registerSequencer(RedisSequencerProtocol.class);
+
+        registerLogUnit(MemoryLogUnitProtocol.class);
+        registerLogUnit(NettyLogUnitProtocol.class);
+        registerLogUnit(RedisLogUnitProtocol.class);
+
+        registerConfigMaster(CorfuDBConfigMasterProtocol.class);
+        registerConfigMaster(MemoryConfigMasterProtocol.class);
+
+        registerReplication(ChainReplicationProtocol.class);
+    }
+
+    /**
+     * Get the protocol string of a protocol class, from its static getProtocolString method.
+     *
+     * @param c The protocol class.
+     * @return  The protocol string of the class.
+     */
+    static String getProtocolString(Class<?> c)
+    {
+        try {
+            return (String) c.getMethod("getProtocolString").invoke(null);
+        }
+        catch (Exception e)
+        {
+            throw new IllegalArgumentException("Protocol " + c.getName() + " does not implement getProtocolString", e);
+        }
+    }
+
+    static <T> void register(Map<String, Class<? extends T>> map, Class<? extends T> c, String kind)
+    {
+        String protocol = getProtocolString(c);
+        map.put(protocol, c);
+        log.debug("Registered {} protocol {}\t\t- {}", kind, protocol, c.getName());
+    }
+
+    public static void registerSequencer(Class<? extends IServerProtocol> c)
+    {
+        register(sequencers, c, "sequencer");
+    }
+
+    public static void registerLogUnit(Class<? extends IServerProtocol> c)
+    {
+        register(logUnits, c, "stream unit");
+    }
+
+    public static void registerConfigMaster(Class<? extends IServerProtocol> c)
+    {
+        register(configMasters, c, "configuration master");
+    }
+
+    public static void registerReplication(Class<? extends IReplicationProtocol> c)
+    {
+        register(replications, c, "replication");
+    }
+}
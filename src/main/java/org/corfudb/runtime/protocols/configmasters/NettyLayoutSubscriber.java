@@ -0,0 +1,181 @@
+package org.corfudb.runtime.protocols.configmasters;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.infrastructure.wireprotocol.NettyCorfuMessageDecoder;
+import org.corfudb.infrastructure.wireprotocol.NettyCorfuMessageEncoder;
+import org.corfudb.infrastructure.wireprotocol.NettyCorfuMsg;
+import org.corfudb.infrastructure.wireprotocol.NettyLayoutMsg;
+import org.corfudb.runtime.view.CorfuDBView;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Subscribes to the layouts pushed by a {@link org.corfudb.infrastructure.NettyLayoutPushServer}.
+ *
+ * The subscriber holds a single connection to the configuration master, and hands every layout
+ * it receives to a listener. If the connection is lost, the subscriber reconnects with an
+ * exponential backoff. The backoff is jittered, so that clients which lost their connection at
+ * the same time do not all reconnect at the same time.
+ */
+@Slf4j
+public class NettyLayoutSubscriber implements AutoCloseable {
+
+    /** The initial delay before reconnecting, in milliseconds. */
+    static final long MIN_BACKOFF = 100;
+
+    /** The maximum delay before reconnecting, in milliseconds. */
+    static final long MAX_BACKOFF = 30000;
+
+    static final EventLoopGroup workerGroup = new NioEventLoopGroup(1, new ThreadFactory() {
+        final AtomicInteger threadNum = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r);
+            t.setName("NettyLayoutSubscriber-worker-" + threadNum.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    @Getter
+    final String host;
+
+    @Getter
+    final Integer port;
+
+    /** The ID this client subscribes with. */
+    final UUID clientID = UUID.randomUUID();
+
+    /** The listener which receives pushed views. */
+    final Consumer<CorfuDBView> listener;
+
+    /** The number of connection attempts since a layout was last received. */
+    final AtomicInteger retries = new AtomicInteger(0);
+
+    final Bootstrap b;
+
+    volatile Channel channel;
+
+    volatile boolean closed = false;
+
+    public NettyLayoutSubscriber(String host, Integer port, Consumer<CorfuDBView> listener)
+    {
+        this.host = host;
+        this.port = port;
+        this.listener = listener;
+
+        b = new Bootstrap();
+        b.group(workerGroup);
+        b.channel(NioSocketChannel.class);
+        b.option(ChannelOption.SO_KEEPALIVE, true);
+        b.option(ChannelOption.TCP_NODELAY, true);
+        b.handler(new ChannelInitializer<SocketChannel>() {
+            @Override
+            public void initChannel(SocketChannel ch) throws Exception {
+                ch.pipeline().addLast(new LengthFieldPrepender(4));
+                ch.pipeline().addLast(new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4));
+                ch.pipeline().addLast(new NettyCorfuMessageDecoder());
+                ch.pipeline().addLast(new NettyCorfuMessageEncoder());
+                ch.pipeline().addLast(new SubscriberHandler());
+            }
+        });
+        connect();
+    }
+
+    void connect()
+    {
+        if (closed) { return; }
+        b.connect(host, port).addListener((ChannelFutureListener) f -> {
+            if (f.isSuccess())
+            {
+                channel = f.channel();
+                if (closed) { channel.close(); }
+            }
+            else
+            {
+                log.debug("Couldn't connect to layout push service at {}:{}", host, port);
+                reconnect();
+            }
+        });
+    }
+
+    void reconnect()
+    {
+        if (closed) { return; }
+        long ceiling = Math.min(MAX_BACKOFF, MIN_BACKOFF << Math.min(retries.getAndIncrement(), 16));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        log.debug("Reconnecting to layout push service at {}:{} in {} ms", host, port, delay);
+        workerGroup.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        Channel c = channel;
+        if (c != null)
+        {
+            c.close();
+        }
+    }
+
+    class SubscriberHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            NettyCorfuMsg m = new NettyCorfuMsg(NettyCorfuMsg.NettyCorfuMsgType.LAYOUT_SUBSCRIBE);
+            m.setClientID(clientID);
+            ctx.writeAndFlush(m);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            NettyCorfuMsg m = (NettyCorfuMsg) msg;
+            if (m.getMsgType() != NettyCorfuMsg.NettyCorfuMsgType.LAYOUT_PUSH)
+            {
+                log.warn("Unexpected message type {} from layout push service", m.getMsgType());
+                return;
+            }
+            retries.set(0);
+            try {
+                listener.accept(new CorfuDBView(((NettyLayoutMsg) m).toConfig()));
+            }
+            catch (Exception e)
+            {
+                log.warn("Error installing pushed layout at epoch " + m.getEpoch(), e);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            log.info("Lost connection to layout push service at {}:{}", host, port);
+            reconnect();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.error("Error in layout subscription", cause);
+            ctx.close();
+        }
+    }
+}
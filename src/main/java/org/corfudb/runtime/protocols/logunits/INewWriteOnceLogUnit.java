@@ -15,7 +15,10 @@
 
 package org.corfudb.runtime.protocols.logunits;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import org.corfudb.infrastructure.NettyLogUnitServer;
 import org.corfudb.infrastructure.thrift.Hint;
 import org.corfudb.infrastructure.thrift.Hints;
@@ -25,6 +28,7 @@ import org.corfudb.infrastructure.wireprotocol.IMetadata;
 import org.corfudb.infrastructure.wireprotocol.NettyLogUnitReadResponseMsg;
 import org.corfudb.runtime.*;
 import org.corfudb.runtime.protocols.IServerProtocol;
+import org.corfudb.util.serializer.CompressionDictionary;
 
 import java.nio.ByteBuffer;
 import java.util.EnumMap;
@@ -32,6 +36,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * This interface represents the simplest type of stream unit.
@@ -65,40 +70,78 @@ public interface INewWriteOnceLogUnit extends IServerProtocol {
         TRIMMED
     }
 
+    /**
+     * The result of a read. The payload is kept serialized, as received, and is only deserialized
+     * when it is first asked for, so entries which are never consumed are never deserialized.
+     */
     @Data
     class ReadResult implements IMetadata {
         final ReadResultType result;
-        final Object payload;
         final EnumMap<NettyLogUnitServer.LogUnitMetadataType, Object> metadataMap;
 
+        /** The message holding the payload, or null if the read returned no data. */
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        final NettyLogUnitReadResponseMsg message;
+
         public ReadResult(NettyLogUnitReadResponseMsg m)
         {
+            metadataMap = m.getMetadataMap();
             switch (m.getResult())
             {
                 case DATA:
                     result = ReadResultType.DATA;
-                    payload = m.getPayload();
-                    metadataMap = m.getMetadataMap();
+                    message = m;
                     break;
                 case EMPTY:
                     result = ReadResultType.EMPTY;
-                    payload = null;
-                    metadataMap = m.getMetadataMap();
+                    message = null;
                     break;
                 case FILLED_HOLE:
                     result = ReadResultType.FILLED_HOLE;
-                    payload = null;
-                    metadataMap = m.getMetadataMap();
+                    message = null;
                     break;
                 case TRIMMED:
                     result = ReadResultType.TRIMMED;
-                    payload = null;
-                    metadataMap = m.getMetadataMap();
+                    message = null;
                     break;
                 default:
                     result = ReadResultType.EMPTY;
-                    metadataMap = m.getMetadataMap();
-                    payload = null;
+                    message = null;
+            }
+        }
+
+        /**
+         * Get the payload, deserializing it if it has not been deserialized yet.
+         * @return  The payload, or null if the read returned no data.
+         */
+        public Object getPayload()
+        {
+            return message == null ? null : message.getPayload();
+        }
+
+        /**
+         * Set the function which reads a dictionary from the log this result was read from, in case
+         * the payload was compressed with a dictionary which has not been added.
+         * @param loader    Reads the dictionary at a log address.
+         */
+        public void setDictionaryLoader(Function<Long, CompressionDictionary> loader)
+        {
+            if (message != null)
+            {
+                message.setDictionaryLoader(loader);
+            }
+        }
+
+        /**
+         * Release the buffer the payload was received in. If the payload has not been deserialized
+         * yet, it is copied out of the buffer first, so it can still be read later.
+         */
+        public void release()
+        {
+            if (message != null)
+            {
+                message.detach();
             }
         }
     }
@@ -1,5 +1,6 @@
 package org.corfudb.runtime.protocols.sequencers;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -17,5 +18,16 @@ public interface INewStreamSequencer {
      */
     CompletableFuture<Long> getNext(Set<UUID> streams, long numTokens);
 
+    /**
+     * Get the next tokens for a particular stream, only if none of the streams read have
+     * been issued a token since they were read.
+     * @param streams       The streams to acquire this token for.
+     * @param numTokens     The number of tokens to acquire.
+     * @param readSet       The version of each stream read, as returned by a request for 0 tokens.
+     * @return              The start of the first token returned, or a future which completes
+     *                      exceptionally with a TransactionAbortedException if the request was rejected.
+     */
+    CompletableFuture<Long> getNext(Set<UUID> streams, long numTokens, Map<UUID, Long> readSet);
+
 
 }
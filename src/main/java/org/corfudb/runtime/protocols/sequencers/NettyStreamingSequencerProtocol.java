@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.corfudb.infrastructure.wireprotocol.NettyCorfuMsg;
 import org.corfudb.infrastructure.wireprotocol.NettyStreamingServerTokenRequestMsg;
 import org.corfudb.infrastructure.wireprotocol.NettyStreamingServerTokenResponseMsg;
+import org.corfudb.runtime.exceptions.TransactionAbortedException;
 import org.corfudb.runtime.protocols.AbstractNettyProtocol;
 import org.corfudb.runtime.protocols.IServerProtocol;
 import org.corfudb.runtime.protocols.NettyRPCChannelInboundHandlerAdapter;
@@ -52,6 +53,30 @@ public class NettyStreamingSequencerProtocol
             return handler.sendMessageAndGetCompletable(getEpoch(), r);
     }
 
+    /**
+     * Get the next tokens for a particular stream, only if none of the streams read have
+     * been issued a token since they were read.
+     *
+     * @param streams   The streams to acquire this token for.
+     * @param numTokens The number of tokens to acquire.
+     * @param readSet   The version of each stream read, as returned by a request for 0 tokens.
+     * @return The start of the first token returned.
+     */
+    @Override
+    public CompletableFuture<Long> getNext(Set<UUID> streams, long numTokens, Map<UUID, Long> readSet) {
+        if (readSet.size() > NettyStreamingServerTokenRequestMsg.MAX_READS)
+        {
+            CompletableFuture<Long> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new IllegalArgumentException("Read set of " + readSet.size()
+                    + " streams exceeds the maximum of " + NettyStreamingServerTokenRequestMsg.MAX_READS + "."));
+            return rejected;
+        }
+        NettyStreamingServerTokenRequestMsg r =
+                new NettyStreamingServerTokenRequestMsg
+                        (streams, numTokens, readSet);
+        return handler.sendMessageAndGetCompletable(getEpoch(), r);
+    }
+
     static class NettyStreamingSequencerHandler extends NettyRPCChannelInboundHandlerAdapter {
 
         //region Handler Interface
@@ -66,6 +91,9 @@ public class NettyStreamingSequencerProtocol
                 case TOKEN_RES:
                     completeRequest(message.getRequestID(), ((NettyStreamingServerTokenResponseMsg)message).getToken());
                     break;
+                case TOKEN_REJECTED:
+                    failRequest(message.getRequestID(), new TransactionAbortedException());
+                    break;
             }
         }
         //endregion
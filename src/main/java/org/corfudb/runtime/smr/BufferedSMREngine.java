@@ -215,6 +215,17 @@ public class BufferedSMREngine<T> implements ISMREngine<T>, IBufferedSMREngine<T
         return ts;
     }
 
+    /**
+     * Get the timestamp the buffered engine was created at. Buffered commands are
+     * executed at this timestamp.
+     *
+     * @return The timestamp the buffered engine was created at.
+     */
+    @Override
+    public ITimestamp getStreamPointer() {
+        return ts;
+    }
+
     /**
      * Get the underlying stream ID.
      *
@@ -11,6 +11,7 @@ import org.corfudb.runtime.stream.IStream;
 import org.corfudb.runtime.stream.ITimestamp;
 import org.corfudb.runtime.stream.SimpleTimestamp;
 import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.runtime.view.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +33,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * stream must execute the deferred transaction to determine whether the transaction
  * will affect it.
  *
+ * If the streams the transaction touches are declared up front, or inferred by a dry run
+ * (see inferStreams()), the transaction is tagged with them, and only those streams
+ * execute it. Accessing an undeclared stream during execution is an error.
+ *
  * Created by mwei on 5/3/15.
  */
 @Slf4j
@@ -52,6 +57,9 @@ public class DeferredTransaction<R> implements ITransaction<R>, Serializable {
     @Setter
     public transient ITimestamp timestamp;
 
+    /** The engines used by a dry run, by stream, or null if no dry run is executing. */
+    transient Map<UUID, ISMREngine> dryRunEngines;
+
     public DeferredTransaction(ICorfuDBInstance instance)
     {
         streamList = new ArrayList<>();
@@ -64,6 +72,68 @@ public class DeferredTransaction<R> implements ITransaction<R>, Serializable {
         this.transaction = transaction;
     }
 
+    /**
+     * Create a deferred transaction which is tagged with the streams it touches.
+     *
+     * @param instance      The instance the transaction executes under.
+     * @param transaction   The transaction to execute.
+     * @param streams       The streams the transaction touches.
+     */
+    public DeferredTransaction(ICorfuDBInstance instance, ITransactionCommand<R> transaction, Set<UUID> streams)
+    {
+        this(instance, transaction);
+        this.streamList.addAll(streams);
+    }
+
+    /**
+     * Infer the streams this transaction touches, by executing it against private copies of the
+     * objects it accesses, and tag the transaction with them. The dry run executes against local
+     * state, so a transaction whose accesses depend on state which changes before it executes
+     * should declare its streams instead.
+     *
+     * When it executes, the transaction is passed the object of whichever stream is applying it,
+     * which is not known until then. A transaction whose streams are inferred must therefore not
+     * use its argument, and is passed null during the dry run.
+     *
+     * @return This transaction, tagged with the streams it touched during the dry run.
+     * @throws IllegalStateException If the dry run failed, for example because the transaction
+     *                               used its argument.
+     */
+    public DeferredTransaction<R> inferStreams()
+    {
+        dryRunEngines = new HashMap<>();
+        try (TransactionalContext tc = new TransactionalContext(this)) {
+            transaction.apply(null);
+            streamList = new ArrayList<>(dryRunEngines.keySet());
+        } catch (RuntimeException e)
+        {
+            throw new IllegalStateException("Dry run of deferred transaction failed. A transaction whose "
+                    + "streams are inferred must not use its argument, which is null during the dry run.", e);
+        } finally {
+            dryRunEngines = null;
+        }
+        log.debug("Inferred streams {} for deferred transaction", streamList);
+        return this;
+    }
+
+    /**
+     * Returns an SMR engine for a dry run, which buffers commands against a copy of the object.
+     *
+     * @param streamID The streamID the SMR engine should run on.
+     * @param objClass The class that the SMR engine runs against.
+     * @return The SMR engine to be used for a dry run.
+     */
+    @SuppressWarnings("unchecked")
+    ISMREngine getDryRunEngine(UUID streamID, Class<?> objClass) {
+        ISMREngine base = instance.openObject(streamID, (Class<? extends ICorfuDBObject>) objClass)
+                .getUnderlyingSMREngine();
+        Object copy;
+        synchronized (base) {
+            copy = Serializer.copy(base.getObject());
+        }
+        return new BufferedSMREngine<>(copy, ITimestamp.getMinTimestamp(), streamID, instance);
+    }
+
     /**
      * Returns an SMR engine for a transactional context.
      *
@@ -74,6 +144,15 @@ public class DeferredTransaction<R> implements ITransaction<R>, Serializable {
     @Override
     @SuppressWarnings("unchecked")
     public ISMREngine getEngine(UUID streamID, Class<?> objClass) {
+        if (dryRunEngines != null)
+        {
+            return dryRunEngines.computeIfAbsent(streamID, id -> getDryRunEngine(id, objClass));
+        }
+        if (!streamList.isEmpty() && !streamList.contains(streamID))
+        {
+            throw new IllegalStateException("Deferred transaction accessed stream " + streamID
+                    + ", which is not one of its declared streams " + streamList);
+        }
         /* do we have this object in memory? */
         ICorfuDBObject obj = instance.openObject(streamID, (Class<? extends ICorfuDBObject>) objClass);
         // lock the object, add it to the list of objects we own
@@ -149,12 +228,14 @@ public class DeferredTransaction<R> implements ITransaction<R>, Serializable {
     public ITimestamp propose()
     throws IOException
     {
+        // an empty stream set means the entry belongs to every stream.
+        Set<UUID> streams = new HashSet<>(streamList);
         try {
-            Long sequence = instance.getNewStreamingSequencer().nextTokenAsync(Collections.<UUID>emptySet(), 1)
+            Long sequence = instance.getNewStreamingSequencer().nextTokenAsync(streams, 1)
                     .thenApplyAsync(x -> {
                         TransactionalContext.setTransactionalFuture(
                                 new SimpleTimestamp(x), new CompletableFuture());
-                        instance.getStreamAddressSpace().write(x, Collections.<UUID>emptySet(),
+                        instance.getStreamAddressSpace().write(x, streams,
                                 new TransactionalLambdaSMRCommand<>(this));
                         return x;
                     }).get();
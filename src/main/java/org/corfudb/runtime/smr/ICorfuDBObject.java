@@ -3,6 +3,7 @@ package org.corfudb.runtime.smr;
 import lombok.SneakyThrows;
 import org.corfudb.runtime.objects.DynamicallyGeneratedException;
 import org.corfudb.runtime.smr.smrprotocol.LambdaSMRCommand;
+import org.corfudb.runtime.smr.smrprotocol.SMRCommand;
 import org.corfudb.runtime.stream.ITimestamp;
 import org.corfudb.runtime.view.*;
 import java.io.Serializable;
@@ -90,6 +91,38 @@ public interface ICorfuDBObject<U> extends Serializable {
         return getSMREngine().read(command);
     }
 
+    /**
+     * Called whenever the object is accessed, for objects whose state cannot be read while
+     * updates are being applied to it. The command runs under the monitor of the engine,
+     * which updates are applied under.
+     * @param command       The command to be executed.
+     * @return              The result of the access.
+     */
+    @SuppressWarnings("unchecked")
+    default <R> R synchronizedAccessorHelper(ISMREngineCommand<U,R> command)
+    {
+        ISMREngine<U> e = getSMREngine();
+        e.sync(null);
+        synchronized (e)
+        {
+            return e.read(command);
+        }
+    }
+
+    /**
+     * Called whenever the object is accessed by a reader which tolerates stale state.
+     * @param command       The command to be executed.
+     * @param maxStaleness  The staleness tolerated by this access, in milliseconds.
+     * @return              The result of the access.
+     */
+    @SuppressWarnings("unchecked")
+    default <R> R accessorHelper(ISMREngineCommand<U,R> command, long maxStaleness)
+    {
+        ISMREngine<U> e = getSMREngine();
+        e.syncStale(maxStaleness);
+        return getSMREngine().read(command);
+    }
+
     /**
      * Called whenever an object is to be mutated with the command that will
      * be executed.
@@ -107,6 +140,30 @@ public interface ICorfuDBObject<U> extends Serializable {
                 (BiFunction<U, ISMREngine.ISMREngineOptions, Void> & Serializable) bf), true);
     }
 
+    /**
+     * Called whenever an object is to be mutated with a prebuilt SMR command,
+     * such as a batch of operations.
+     * @param command       The command to be proposed.
+     */
+    default void mutatorHelper(SMRCommand<U,?> command)
+    {
+        getSMREngine().propose(command, true);
+    }
+
+    /**
+     * Called whenever an object will be both mutated and accessed with a prebuilt SMR command.
+     * @param command       The command to be proposed.
+     * @return              The result of the command.
+     */
+    default <R> R mutatorAccessorHelper(SMRCommand<U,R> command)
+    {
+        CompletableFuture<R> o = new CompletableFuture<>();
+        ISMREngine<U> e = getSMREngine();
+        e.proposeAsync(command, o, false)
+                .thenAccept(e::sync);
+        return o.join();
+    }
+
     /**
      * Called whenever and object will be both mutated and accessed.
      * @param command       The command to be executed.
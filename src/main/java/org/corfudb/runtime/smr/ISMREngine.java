@@ -47,6 +47,17 @@ public interface ISMREngine<T> {
      */
     <R> void sync(ITimestamp ts);
 
+    /**
+     * Synchronize the SMR engine, tolerating local state which is at most maxStaleness
+     * milliseconds old. Engines which do not support bounded staleness synchronize to
+     * the most recent version.
+     * @param maxStaleness  The maximum staleness to tolerate, in milliseconds.
+     */
+    default void syncStale(long maxStaleness)
+    {
+        sync(null);
+    }
+
     void setImplementingObject(ICorfuDBObject object);
     ICorfuDBObject getImplementingObject();
 
@@ -1,206 +1,98 @@
-/*
 package org.corfudb.runtime.smr;
 
-import org.corfudb.runtime.CorfuDBRuntime;
-import org.corfudb.runtime.entries.IStreamEntry;
+import lombok.extern.slf4j.Slf4j;
 import org.corfudb.runtime.stream.ITimestamp;
+import org.corfudb.runtime.stream.SimpleTimestamp;
 import org.corfudb.runtime.view.ICorfuDBInstance;
 
 import java.io.IOException;
-import java.io.Serializable;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
-*/
 /**
- * Created by mwei on 5/6/15.
- *//*
-
-public class OptimisticTransaction implements ITransaction, IStreamEntry, Serializable {
-
-    ITransactionCommand transaction;
-    List<UUID> streamList;
-    ITimestamp timestamp;
-    transient ICorfuDBInstance instance;
-    transient ISMREngine executingEngine;
-
-    class OptimisticTransactionOptions implements ITransactionOptions
-    {
-
-        public OptimisticTransactionOptions() {
-        }
-    }
+ * An optimistic transaction executes against private copies of the objects it touches,
+ * buffering its writes and recording the version of each stream it reads.
+ *
+ * On commit, the transaction requests a token conditional on its read set: the sequencer
+ * rejects the request if any stream read has been issued a token since it was read, in which
+ * case the transaction aborts without touching the log. Otherwise, the buffered writes of every
+ * stream are written in a single entry at the token issued.
+ *
+ * Unlike deferred transactions, optimistic transactions are only replayed by the streams they write.
+ */
+@Slf4j
+public class OptimisticTransaction<R> extends WriteBatchTransaction<R> {
+
+    /** The version of each stream read, as issued by the sequencer when the stream was first accessed. */
+    final Map<UUID, Long> readSet = new HashMap<>();
 
     public OptimisticTransaction(ICorfuDBInstance instance)
     {
-        streamList = null;
-        this.instance = instance;
-    }
-
-    */
-/**
-     * Gets the list of of the streams this entry belongs to.
-     *
-     * @return The list of streams this entry belongs to.
-     *//*
-
-    @Override
-    public List<UUID> getStreamIds() {
-        return null;
-    }
-
-    */
-/**
-     * Returns whether this entry belongs to a given stream ID.
-     *
-     * @param stream The stream ID to check
-     * @return True, if this entry belongs to that stream, false otherwise.
-     *//*
-
-    @Override
-    public boolean containsStream(UUID stream) {
-        return false;
-    }
-
-    */
-/**
-     * Gets the timestamp of the stream this entry belongs to.
-     *
-     * @return The timestamp of the stream this entry belongs to.
-     *//*
-
-    @Override
-    public ITimestamp getTimestamp() {
-        return null;
-    }
-
-    */
-/**
-     * Set the timestamp.
-     *
-     * @param ts
-     *//*
-
-    @Override
-    public void setTimestamp(ITimestamp ts) {
-
+        super(instance);
     }
 
-    */
-/**
-     * Gets the payload of this stream.
-     *
-     * @return The payload of the stream.
-     *//*
-
-    @Override
-    public Object getPayload() {
-        return null;
+    public OptimisticTransaction(ICorfuDBInstance instance, ITransactionCommand<R> transaction)
+    {
+        super(instance, transaction);
     }
 
-    */
-/**
-     * Returns an SMR engine for a transactional context.
+    /**
+     * Obtain the version of a stream from the sequencer, synchronize the object to that version,
+     * and create a buffered engine over a private copy of it.
      *
      * @param streamID The streamID the SMR engine should run on.
      * @param objClass The class that the SMR engine runs against.
-     * @return The SMR engine to be used for a transactional context.
-     *//*
-
-    @Override
-    public ISMREngine getEngine(UUID streamID, Class<?> objClass) {
-        return null;
-    }
-
-    */
-/**
-     * Registers a stream to be part of a transactional context.
-     *
-     * @param stream A stream that will be joined into this transaction.
-     *//*
-
-    @Override
-    public void registerStream(UUID stream) {
-
-    }
-
-    */
-/**
-     * Set the CorfuDB instance for this transaction. Used during deserialization.
-     *
-     * @param instance The CorfuDB instance used for this tx.
-     *//*
-
-    @Override
-    public void setInstance(ICorfuDBInstance instance) {
-        this.instance = instance;
-    }
-
-    */
-/**
-     * return a pointer to the runtime managing this transaction.
-     * this is needed for transactions on objects which may create
-     * new objects during that transaction.
-     *
-     * @return the runtime
-     *//*
-
-    @Override
-    public ICorfuDBInstance getInstance() {
-        return instance;
-    }
-
-
-    */
-/**
-     * Set the command to be executed for this transaction.
-     *
-     * @param transaction The command(s) to be executed for this transaction.
-     *//*
-
-    @Override
-    public <T> void setTransaction(ITransactionCommand<T>  transaction) {
-
-    }
-
-    */
-/**
-     * Execute this command on a specific SMR engine.
-     *
-     * @param engine The SMR engine to run this command on.
-     *//*
-
+     * @return A buffered engine over a copy of the object.
+     */
     @Override
-    public void executeTransaction(ISMREngine engine) {
-
+    @SuppressWarnings("unchecked")
+    BufferedSMREngine<?> getBufferedEngine(UUID streamID, Class<?> objClass) {
+        long version = instance.getNewStreamingSequencer().nextToken(streamID, 0);
+        ISMREngine base = instance.openObject(streamID, (Class<? extends ICorfuDBObject>) objClass)
+                .getUnderlyingSMREngine();
+        if (version > 0)
+        {
+            base.sync(new SimpleTimestamp(version - 1));
+        }
+        // The copy may include updates past the version read, in which case the
+        // sequencer will reject the commit.
+        readSet.put(streamID, version);
+        return copyEngine(base, streamID, new SimpleTimestamp(version));
     }
 
-    */
-/**
-     * Returns the transaction command.
+    /**
+     * Acquire a token conditional on the read set of this transaction.
      *
-     * @return The command(s) to be executed for this transaction.
-     *//*
-
+     * @param streams       The streams written.
+     * @param numTokens     The number of tokens to acquire.
+     * @return              The first token acquired.
+     */
     @Override
-    public ITransactionCommand getTransaction() {
-        return null;
+    CompletableFuture<Long> acquireToken(Set<UUID> streams, long numTokens) {
+        return instance.getNewStreamingSequencer().nextTokenAsync(streams, numTokens, readSet);
     }
 
-    */
-/**
-     * Propose to the SMR engine(s) for the transaction to be executed.
+    /**
+     * Propose the buffered writes of the transaction to the log, if the read set is still current.
      *
-     * @return The timestamp that the transaction was proposed at.
-     * This timestamp should be a valid timestamp for all streams
-     * that the transaction belongs to, otherwise, the transaction
-     * will abort.
-     *//*
-
+     * @return The timestamp that the transaction was written at, or null, if the transaction
+     * did not write to any stream.
+     * @throws TransactionAbortedException If a stream read was updated during the transaction.
+     */
     @Override
-    public ITimestamp propose() throws IOException {
-        return null;
+    public ITimestamp propose()
+            throws IOException
+    {
+        if (getWriteSet().isEmpty())
+        {
+            // read only transactions still need to validate their reads.
+            acquireTokenOrAbort(Collections.emptySet(), 0);
+            return null;
+        }
+        return super.propose();
     }
 }
-*/
@@ -152,7 +152,7 @@ public class PassThroughSMREngine<T> implements ISMREngine<T>, IBufferedSMREngin
      */
     @Override
     public UUID getStreamID() {
-        return null;
+        return streamID;
     }
 
     /**
@@ -3,6 +3,7 @@ package org.corfudb.runtime.smr;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.cliffc.high_scale_lib.NonBlockingHashMapLong;
 import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.entries.IStreamEntry;
 import org.corfudb.runtime.smr.HoleFillingPolicy.IHoleFillingPolicy;
@@ -10,13 +11,15 @@ import org.corfudb.runtime.smr.HoleFillingPolicy.TimeoutHoleFillPolicy;
 import org.corfudb.runtime.smr.smrprotocol.SMRCommand;
 import org.corfudb.runtime.stream.IStream;
 import org.corfudb.runtime.stream.ITimestamp;
+import org.corfudb.runtime.stream.NewStream;
+import org.corfudb.runtime.stream.SimpleTimestamp;
 import org.corfudb.runtime.view.ICorfuDBInstance;
 import org.corfudb.runtime.view.IStreamAddressSpace;
 
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Created by mwei on 5/1/15.
@@ -24,6 +27,7 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class SimpleSMREngine<T> implements ISMREngine<T> {
 
+    @Getter
     IStream stream;
     T underlyingObject;
 
@@ -34,7 +38,8 @@ public class SimpleSMREngine<T> implements ISMREngine<T> {
     ITimestamp lastProposal;
 
     Class<T> type;
-    final ConcurrentHashMap<ITimestamp, CompletableFuture> completionTable = new ConcurrentHashMap<ITimestamp, CompletableFuture>();
+    /** Futures to complete when a proposal is applied, keyed by the address the proposal was written to. */
+    final NonBlockingHashMapLong<CompletableFuture> completionTable = new NonBlockingHashMapLong<CompletableFuture>();
     HashSet<ITimestamp> localTable;
     Map<UUID, IBufferedSMREngine> cachedEngines = Collections.synchronizedMap(new WeakHashMap<>());
 
@@ -46,6 +51,17 @@ public class SimpleSMREngine<T> implements ISMREngine<T> {
     @Getter
     transient IHoleFillingPolicy holePolicy = new TimeoutHoleFillPolicy();
 
+    /** The staleness, in milliseconds, tolerated by sync(null). 0 means every sync is linearized. */
+    @Getter
+    @Setter
+    long maxStaleness = 0;
+
+    /** The time at which the linearization point of the most recent complete sync was acquired. */
+    volatile long lastSyncTime = 0;
+
+    /** Whether or not a background refresh is currently in progress. */
+    final AtomicBoolean refreshInProgress = new AtomicBoolean(false);
+
     class SimpleSMREngineOptions<Y extends T> implements ISMREngineOptions<Y>
     {
         public ICorfuDBInstance getInstance() { return stream.getInstance(); }
@@ -114,28 +130,43 @@ public class SimpleSMREngine<T> implements ISMREngine<T> {
             (IStreamEntry x, IStreamEntry y) -> x.getLogicalTimestamp().compareTo(y.getLogicalTimestamp())
     );
 
+    /**
+     * Get the address a timestamp refers to, for use as a key in the completion table.
+     *
+     * @param ts    The timestamp, which must be a simple timestamp.
+     * @return      The address of the timestamp.
+     */
+    static long toAddress(ITimestamp ts)
+    {
+        return ((SimpleTimestamp) ts).address;
+    }
+
+    @SuppressWarnings("unchecked")
     public <R> void apply(IStreamEntry entry)
     {
+        CompletableFuture<R> completion = null;
         try {
             log.trace("LearnApply[{}/{}]: Apply", entry.getTimestamp(), entry.getLogicalTimestamp());
             if (entry.getPayload() != null && entry.getPayload() instanceof SMRCommand) {
                 SMRCommand command = (SMRCommand) entry.getPayload();
                 command.setInstance(getInstance());
                 ITimestamp entryTS = entry.getTimestamp();
-                CompletableFuture<R> completion = completionTable.get(entryTS);
-                completionTable.remove(entryTS);
+                completion = completionTable.remove(toAddress(entryTS));
                 R r = (R) command.execute(underlyingObject, this, entryTS);
                 if (completion != null) {
                     log.trace("LearnApply[{}/{}]: Completing Future.", entry.getTimestamp(), entry.getLogicalTimestamp());
                     completion.complete(r);
                 }
             }
-            lastApplied = entry.getLogicalTimestamp();
         }
         catch (Exception e)
         {
-            log.error("LearnApply[{}/{}]: Error during apply of entry!", e);
+            log.error("LearnApply[{}/{}]: Error during apply of entry!", entry.getTimestamp(), entry.getLogicalTimestamp(), e);
+            if (completion != null) {
+                completion.completeExceptionally(e);
+            }
         }
+        lastApplied = entry.getLogicalTimestamp();
     }
 
     public synchronized void learnAndApply(IStreamEntry entry)
@@ -166,17 +197,14 @@ public class SimpleSMREngine<T> implements ISMREngine<T> {
     @SuppressWarnings("unchecked")
     public <R> void sync(ITimestamp ts) {
         if (ts == null) {
-            stream.checkAsync()
-                    .thenApplyAsync(t -> {
-                        log.trace("Sync to most recent @ {}", t);
-                        return stream.readToAsync(t).thenApplyAsync(entryArray -> {
-                                    if (entryArray != null) {
-                                        Arrays.stream(entryArray)
-                                                .forEach(this::learnAndApply);
-                                    }
-                                    return t;
-                                });
-                    }).join();
+            if (maxStaleness > 0)
+            {
+                syncStale(maxStaleness);
+            }
+            else
+            {
+                syncToTail();
+            }
         }
         else
         {
@@ -193,6 +221,81 @@ public class SimpleSMREngine<T> implements ISMREngine<T> {
         }
     }
 
+    /**
+     * Synchronize the SMR engine, tolerating local state which is at most maxStaleness
+     * milliseconds old. If the local state is within the bound, it is served without
+     * contacting the sequencer, and a refresh is started in the background once half
+     * the bound has elapsed. A bound of 0 or less always synchronizes to the tail.
+     *
+     * @param maxStaleness  The maximum staleness to tolerate, in milliseconds.
+     */
+    @Override
+    public void syncStale(long maxStaleness) {
+        if (maxStaleness <= 0)
+        {
+            syncToTail();
+            return;
+        }
+        long age = System.currentTimeMillis() - lastSyncTime;
+        if (age > maxStaleness)
+        {
+            log.trace("Sync stale: state is {}ms old (bound={}ms), syncing.", age, maxStaleness);
+            syncToTail();
+        }
+        else if (age > maxStaleness / 2 && refreshInProgress.compareAndSet(false, true))
+        {
+            log.trace("Sync stale: state is {}ms old (bound={}ms), refreshing in background.", age, maxStaleness);
+            CompletableFuture.runAsync(this::syncToTail)
+                    .whenComplete((r, e) -> {
+                        if (e != null) {
+                            log.warn("Exception during background refresh", e);
+                        }
+                        refreshInProgress.set(false);
+                    });
+        }
+    }
+
+    /**
+     * Synchronize the SMR engine to the most recent version, by acquiring a linearization
+     * point from the sequencer and reading the stream up to that point.
+     */
+    protected void syncToTail()
+    {
+        long syncTime = System.currentTimeMillis();
+        stream.checkAsync()
+                .thenCompose(t -> {
+                    log.trace("Sync to most recent @ {}", t);
+                    return stream.readToAsync(t);
+                })
+                .thenAcceptAsync(entryArray -> {
+                    if (entryArray != null) {
+                        Arrays.stream(entryArray)
+                                .forEach(this::learnAndApply);
+                    }
+                }).join();
+        if (syncTime > lastSyncTime)
+        {
+            lastSyncTime = syncTime;
+        }
+    }
+
+    /**
+     * Synchronize the SMR engine up to a given point, using entries which have already been
+     * fetched from the stream address space, for example by a bulk open of several objects.
+     *
+     * @param point     The point to synchronize to, exclusive.
+     * @param entries   Every written entry between the stream pointer and the point.
+     */
+    public void syncPrefetched(ITimestamp point, NavigableMap<Long, IStreamAddressSpace.StreamAddressSpaceEntry> entries)
+    {
+        IStreamEntry[] entryArray = stream instanceof NewStream ?
+                ((NewStream) stream).readTo(point, entries) : stream.readToAsync(point).join();
+        if (entryArray != null) {
+            Arrays.stream(entryArray)
+                    .forEach(this::learnAndApply);
+        }
+    }
+
     /**
      * Execute a read only command against this engine.
      *
@@ -229,13 +332,12 @@ public class SimpleSMREngine<T> implements ISMREngine<T> {
             }
             return streamPointer;
         }
+        ITimestamp t = null;
         try {
-            //ITimestamp t = stream.append(command);
-            //if (completion != null) { completionTable.put(t, completion); }
-            ITimestamp t = stream.reserve(1)[0];
-                if (completion != null) {
-                    completionTable.put(t, completion);
-                }
+            t = stream.reserve(1)[0];
+            if (completion != null) {
+                completionTable.put(toAddress(t), completion);
+            }
             stream.write(t, command);
             lastProposal = t; //TODO: fix thread safety?
             return t;
@@ -243,11 +345,15 @@ public class SimpleSMREngine<T> implements ISMREngine<T> {
         catch (OverwriteException oe)
         {
             log.warn("Warning, propose resulted in overwrite @ {}, reproposing.", oe.address);
+            completionTable.remove(toAddress(t));
             return propose(command, completion, readOnly);
         }
         catch (Exception e)
         {
             log.warn("Exception proposing new command!", e);
+            if (t != null) {
+                completionTable.remove(toAddress(t));
+            }
             return null;
         }
     }
@@ -267,30 +373,62 @@ public class SimpleSMREngine<T> implements ISMREngine<T> {
             return CompletableFuture.completedFuture(streamPointer);
         }
 
-        final ITimestamp[] proposalTimestamp = new ITimestamp[1];
-        return stream.reserveAsync(1)
-                .thenApply(
-                        t -> {
-                            log.trace("Proposal[{}]: Acquired token", t[0]);
-                            if (completion != null) {
-                                log.trace("Proposal[{}]: Inserted into completion table.", t[0]);
-                                completionTable.put(t[0], completion);
-                            }
-                            try {
-                                log.trace("Proposal[{}]: Writing proposal to stream", t[0]);
-                                proposalTimestamp[0] = t[0];
-                                return stream.writeAsync(t[0], command);
-                            } catch (Exception e) {
-                                log.error("Exception during write.", e);
-                                throw new RuntimeException(e);
-                            }
-                        }
-                )
-                .thenApply( r -> {
-                    log.trace("Proposal[{}]: Wrote proposal to stream", proposalTimestamp[0]);
-                    lastProposal = proposalTimestamp[0]; //TODO: Should be max.
-                    return proposalTimestamp[0];
-                });
+        CompletableFuture<ITimestamp> proposal = new CompletableFuture<>();
+        proposeAsync(command, completion, proposal);
+        return proposal;
+    }
+
+    /**
+     * Acquire a token and write a proposal to it, completing the proposal future with the
+     * timestamp written to. If the write fails, the completion is removed from the completion
+     * table, and both the completion and the proposal are completed exceptionally. If the
+     * token was overwritten, the command is reproposed.
+     *
+     * @param command       The command to propose.
+     * @param completion    The future to complete when the command is applied, or null.
+     * @param proposal      The future to complete with the timestamp written to.
+     */
+    <R> void proposeAsync(SMRCommand<T,R> command, CompletableFuture<R> completion,
+                          CompletableFuture<ITimestamp> proposal)
+    {
+        stream.reserveAsync(1).whenComplete((t, te) -> {
+            if (te != null) {
+                log.error("Exception acquiring token for proposal.", te);
+                if (completion != null) {
+                    completion.completeExceptionally(te);
+                }
+                proposal.completeExceptionally(te);
+                return;
+            }
+            final ITimestamp ts = t[0];
+            final long address = toAddress(ts);
+            log.trace("Proposal[{}]: Acquired token", ts);
+            if (completion != null) {
+                completionTable.put(address, completion);
+            }
+            stream.writeAsync(ts, command).whenComplete((r, we) -> {
+                if (we == null && r == IStreamAddressSpace.StreamAddressWriteResult.OK) {
+                    log.trace("Proposal[{}]: Wrote proposal to stream", ts);
+                    lastProposal = ts; //TODO: Should be max.
+                    proposal.complete(ts);
+                    return;
+                }
+                if (completion != null) {
+                    completionTable.remove(address);
+                }
+                if (we == null && r == IStreamAddressSpace.StreamAddressWriteResult.OVERWRITE) {
+                    log.warn("Warning, propose resulted in overwrite @ {}, reproposing.", address);
+                    proposeAsync(command, completion, proposal);
+                    return;
+                }
+                Throwable cause = we != null ? we : new RuntimeException("Proposal write failed: " + r);
+                log.error("Proposal[{}]: Exception during write.", ts, cause);
+                if (completion != null) {
+                    completion.completeExceptionally(cause);
+                }
+                proposal.completeExceptionally(cause);
+            });
+        });
     }
 
     /**
@@ -315,7 +453,7 @@ public class SimpleSMREngine<T> implements ISMREngine<T> {
         try {
             ITimestamp[] t = stream.reserve(2);
             localTable.add(t[0]);
-            if (completion != null) { completionTable.put(t[0], completion); }
+            if (completion != null) { completionTable.put(toAddress(t[0]), completion); }
             stream.write(t[0], new SMRLocalCommandWrapper<>(command, t[1]));
             lastProposal = t[0];
             return t[0];
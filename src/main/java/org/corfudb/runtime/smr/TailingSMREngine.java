@@ -0,0 +1,325 @@
+package org.corfudb.runtime.smr;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.entries.IStreamEntry;
+import org.corfudb.runtime.exceptions.BatchReadException;
+import org.corfudb.runtime.stream.IStream;
+import org.corfudb.runtime.stream.ITimestamp;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A tailing SMR engine continuously applies updates in the background, streaming new
+ * entries from the log as they are written. Accessors then only need to wait for the gap
+ * between the last entry applied and their linearization point, instead of replaying
+ * every entry written since the last access.
+ *
+ * The background task runs from start() until stopTailing() is called, or until the engine
+ * is no longer referenced. While the tail does not move, the task polls less often.
+ */
+@Slf4j
+public class TailingSMREngine<T> extends SimpleSMREngine<T> {
+
+    /** The executor which runs the tailing task of every tailing engine. */
+    static final ScheduledExecutorService tailExecutor =
+            Executors.newScheduledThreadPool(
+                    1,
+                    new ThreadFactoryBuilder()
+                            .setDaemon(true)
+                            .setNameFormat("tail-%d")
+                            .build());
+
+    /** The time, in milliseconds, to wait before polling again after the tail has moved. */
+    @Getter
+    @Setter
+    long tailInterval = 10;
+
+    /** The longest time, in milliseconds, to wait between polls while the tail has not moved. */
+    @Getter
+    @Setter
+    long maxTailInterval = 1000;
+
+    /** The time, in milliseconds, an accessor waits for the background task to apply entries
+     * before it reads a batch the background task failed to read itself. */
+    @Getter
+    @Setter
+    long applyTimeout = 1000;
+
+    /** The number of times an accessor waits for applyTimeout before it gives up. */
+    static final int MAX_APPLY_ATTEMPTS = 10;
+
+    /** Whether or not this engine is tailing its stream. */
+    @Getter
+    volatile boolean tailing = false;
+
+    final AtomicBoolean started = new AtomicBoolean(false);
+
+    /** The tail of the stream observed by the previous poll. */
+    ITimestamp lastTail = ITimestamp.getMinTimestamp();
+
+    /** The time to wait before the next poll if the tail has not moved. Only used by the background task. */
+    long idleInterval;
+
+    /** Batches which failed to read. No entry after a failed batch can be applied until it is read again. */
+    final Queue<BatchReadException> failedBatches = new ConcurrentLinkedQueue<>();
+
+    public TailingSMREngine(IStream stream, Class<T> type, Class<?>... args)
+    {
+        super(stream, type, args);
+    }
+
+    /**
+     * Start tailing the stream. This should be called once the engine is completely set up,
+     * since the background task applies updates to the object. The task only holds a weak
+     * reference to the engine, so it stops once the engine is no longer referenced.
+     * An engine which has stopped tailing cannot be started again.
+     */
+    public void start()
+    {
+        if (!started.compareAndSet(false, true))
+        {
+            return;
+        }
+        tailing = true;
+        idleInterval = tailInterval;
+        WeakReference<TailingSMREngine<?>> ref = new WeakReference<>(this);
+        tailExecutor.execute(() -> tail(ref));
+    }
+
+    /**
+     * Stop tailing the stream. Accessors will continue to synchronize on demand.
+     */
+    public void stopTailing()
+    {
+        tailing = false;
+    }
+
+    /**
+     * Poll the tail of the stream of an engine, if it is still referenced and tailing,
+     * and reschedule.
+     *
+     * @param ref   A weak reference to the engine.
+     */
+    static void tail(WeakReference<TailingSMREngine<?>> ref)
+    {
+        TailingSMREngine<?> engine = ref.get();
+        if (engine == null || !engine.tailing)
+        {
+            return;
+        }
+        engine.poll().whenComplete((delay, e) -> {
+            if (e != null) {
+                log.error("Tail[{}]: Exception while applying entries.", engine.getStreamID(), e);
+            }
+            if (engine.tailing) {
+                tailExecutor.schedule(() -> tail(ref), e != null ? engine.maxTailInterval : delay,
+                        TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Apply every entry up to the tail of the stream. A batch which failed to read is read
+     * again before the tail is polled, since no entry after it can be applied until it is.
+     *
+     * @return  A future which completes with the time, in milliseconds, to wait before the next poll.
+     */
+    CompletableFuture<Long> poll()
+    {
+        BatchReadException failed = failedBatches.poll();
+        CompletableFuture<IStreamEntry[]> read = failed != null ?
+                stream.rereadAsync(failed) :
+                stream.checkAsync()
+                    .thenCompose(t -> {
+                        boolean moved = !t.equals(lastTail);
+                        lastTail = t;
+                        return moved ? stream.readToAsync(t) : CompletableFuture.<IStreamEntry[]>completedFuture(null);
+                    });
+        // Apply on the tail executor, not on the thread which completed the read, since
+        // applying a command may block.
+        return read.handleAsync((entries, e) -> {
+            if (e != null) {
+                log.warn("Tail[{}]: Exception while tailing stream.", getStreamID(), e);
+                recordFailedBatch(e);
+                return backoff();
+            }
+            if (entries == null) {
+                return backoff();
+            }
+            Arrays.stream(entries).forEach(this::learnAndApply);
+            idleInterval = tailInterval;
+            return failedBatches.isEmpty() ? tailInterval : 0L;
+        }, tailExecutor);
+    }
+
+    /** Get the time to wait before the next poll, and double it, up to maxTailInterval. */
+    long backoff()
+    {
+        long delay = idleInterval;
+        idleInterval = Math.min(idleInterval * 2, maxTailInterval);
+        return delay;
+    }
+
+    /**
+     * Remember a batch which failed to read, so that it is read again.
+     *
+     * @param e The exception a read failed with.
+     */
+    void recordFailedBatch(Throwable e)
+    {
+        // The batch may be wrapped more than once, for example by a dependent stage.
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof BatchReadException))
+        {
+            cause = cause.getCause();
+        }
+        if (cause != null)
+        {
+            failedBatches.offer((BatchReadException) cause);
+        }
+    }
+
+    /**
+     * Synchronize the SMR engine to a given timestamp, or pass null to synchronize
+     * the SMR engine as far as possible. Since the background task has usually read most
+     * of the stream already, this reads only the remaining gap, then waits for the
+     * background task to apply the entries it has read.
+     *
+     * @param ts The timestamp to synchronize to, or null, to synchronize to the most
+     *           recent version.
+     */
+    @Override
+    public <R> void sync(ITimestamp ts) {
+        if (ts == null)
+        {
+            super.sync(null);
+            return;
+        }
+        log.trace("Sync to {}", ts);
+        applyAndWait(stream.readToAsync(stream.getNextTimestamp(ts)));
+    }
+
+    /**
+     * Synchronize the SMR engine to the most recent version.
+     */
+    @Override
+    protected void syncToTail()
+    {
+        long syncTime = System.currentTimeMillis();
+        applyAndWait(stream.checkAsync().thenCompose(stream::readToAsync));
+        if (syncTime > lastSyncTime)
+        {
+            lastSyncTime = syncTime;
+        }
+    }
+
+    /**
+     * Apply the entries of a read, and wait until every entry up to and including them
+     * has been applied, including entries being applied by the background task.
+     *
+     * @param read  The read to apply.
+     */
+    void applyAndWait(CompletableFuture<IStreamEntry[]> read)
+    {
+        IStreamEntry[] entries;
+        try {
+            entries = read.join();
+        } catch (CompletionException ce)
+        {
+            recordFailedBatch(ce);
+            throw ce;
+        }
+        if (entries == null || entries.length == 0)
+        {
+            return;
+        }
+        Arrays.stream(entries).forEach(this::learnAndApply);
+        waitForApply(entries[entries.length - 1].getLogicalTimestamp());
+    }
+
+    /**
+     * Wait until the entry with the given logical timestamp has been applied. If it is not
+     * applied within applyTimeout, because a batch before it failed to read, the batch is
+     * read again on this thread. Entries are applied in batch order, so a gap can only be
+     * filled by reading the batch which left it again.
+     *
+     * @param ts    The logical timestamp to wait for.
+     * @throws RuntimeException If the entry was not applied after MAX_APPLY_ATTEMPTS timeouts,
+     *                          or the thread was interrupted.
+     */
+    void waitForApply(ITimestamp ts)
+    {
+        for (int attempt = 1; !waitForApply(ts, applyTimeout); attempt++)
+        {
+            if (attempt >= MAX_APPLY_ATTEMPTS)
+            {
+                log.error("Tail[{}]: {} was not applied after {} attempts, last applied={}.",
+                        getStreamID(), ts, attempt, lastApplied);
+                throw new RuntimeException("Timed out waiting for " + ts + " to be applied");
+            }
+            BatchReadException failed = failedBatches.poll();
+            if (failed == null)
+            {
+                log.warn("Tail[{}]: Timed out waiting for apply of {}, last applied={}.", getStreamID(), ts, lastApplied);
+                continue;
+            }
+            log.warn("Tail[{}]: Timed out waiting for apply, reading batch {} again.", getStreamID(), failed.batch);
+            try {
+                Arrays.stream(stream.rereadAsync(failed).join())
+                        .forEach(this::learnAndApply);
+            } catch (CompletionException ce)
+            {
+                recordFailedBatch(ce);
+            }
+        }
+    }
+
+    /**
+     * Wait, for at most a given time, until the entry with the given logical timestamp has
+     * been applied.
+     *
+     * @param ts        The logical timestamp to wait for.
+     * @param timeout   The time to wait, in milliseconds.
+     * @return          True, if the entry was applied, false otherwise.
+     * @throws RuntimeException If the thread was interrupted.
+     */
+    synchronized boolean waitForApply(ITimestamp ts, long timeout)
+    {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (ITimestamp.isMin(lastApplied) || lastApplied.compareTo(ts) < 0)
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+            {
+                return false;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ie);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void learnAndApply(IStreamEntry entry)
+    {
+        super.learnAndApply(entry);
+        notifyAll();
+    }
+}
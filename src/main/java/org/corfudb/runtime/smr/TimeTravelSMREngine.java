@@ -1,15 +1,78 @@
 package org.corfudb.runtime.smr;
 
+import lombok.Getter;
+import lombok.Setter;
+import org.corfudb.runtime.entries.IStreamEntry;
+import org.corfudb.runtime.exceptions.TrimmedException;
+import org.corfudb.runtime.smr.smrprotocol.SMRCommand;
 import org.corfudb.runtime.stream.IStream;
 import org.corfudb.runtime.stream.ITimestamp;
+import org.corfudb.runtime.stream.SimpleTimestamp;
+import org.corfudb.runtime.view.Serializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
+ * A time travel SMR engine can move the object to a past timestamp and lock it there.
+ *
+ * In multi-version mode (see setVersionWindow), the engine also retains a window of past
+ * versions, as periodic snapshots plus the commands applied since, so that readers can
+ * query any recent timestamp with readAt() while the live object keeps advancing.
+ * Snapshots are full copies of the object, so the interval between them grows with the
+ * time a copy takes, which keeps the cost of copying each applied command bounded.
+ *
  * Created by mwei on 5/6/15.
  */
 public class TimeTravelSMREngine<T> extends SimpleSMREngine<T> {
 
     ITimestamp lockTS;
 
+    /** The minimum number of versions retained for multi-version reads, or 0 if disabled. */
+    @Getter
+    int versionWindow = 0;
+
+    /** The minimum number of versions applied between snapshots of the object. */
+    @Getter
+    int snapshotInterval = 32;
+
+    /** The time, in nanoseconds, that snapshots may cost each applied version, on average.
+     * Snapshots which take longer to copy are taken less often. */
+    @Getter
+    @Setter
+    long snapshotBudgetNanos = 1000;
+
+    /** The number of versions to apply before the next snapshot. */
+    long nextSnapshotInterval = snapshotInterval;
+
+    /** The address of the most recently applied command. */
+    volatile long lastAppliedAddress = -1L;
+
+    /** The number of commands retained since multi-version reads were enabled. */
+    long versionCount = 0;
+
+    /** A snapshot of the object. */
+    static class Snapshot<T> {
+        /** The copy of the object. */
+        final T object;
+        /** The value of versionCount when the snapshot was taken. */
+        final long versionCount;
+
+        Snapshot(T object, long versionCount)
+        {
+            this.object = object;
+            this.versionCount = versionCount;
+        }
+    }
+
+    /** Snapshots of the object, keyed by the address of the last command applied to them. */
+    final ConcurrentSkipListMap<Long, Snapshot<T>> snapshots = new ConcurrentSkipListMap<>();
+
+    /** The commands applied since the oldest snapshot, keyed by address. */
+    final ConcurrentSkipListMap<Long, SMRCommand<T, ?>> versions = new ConcurrentSkipListMap<>();
+
     public TimeTravelSMREngine(IStream stream, Class<T> type, Class<?>... initArgs)
     {
         super(stream, type, initArgs);
@@ -33,6 +96,21 @@ public class TimeTravelSMREngine<T> extends SimpleSMREngine<T> {
         super.sync(ts);
     }
 
+    /**
+     * Synchronize the SMR engine with bounded staleness. Locked engines are not synchronized.
+     *
+     * @param maxStaleness The maximum staleness to tolerate, in milliseconds.
+     */
+    @Override
+    public void syncStale(long maxStaleness) {
+        if (this.lockTS != null)
+        {
+            return;
+        }
+
+        super.syncStale(maxStaleness);
+    }
+
     @SuppressWarnings("unchecked")
     public void travelAndLock(ITimestamp lockTS)
     {
@@ -80,6 +158,137 @@ public class TimeTravelSMREngine<T> extends SimpleSMREngine<T> {
         }
     }
 
+    /**
+     * Set the minimum number of versions applied between snapshots of the object.
+     *
+     * @param snapshotInterval  The minimum number of versions between snapshots.
+     */
+    public synchronized void setSnapshotInterval(int snapshotInterval)
+    {
+        this.snapshotInterval = snapshotInterval;
+        this.nextSnapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Set the number of versions retained for multi-version reads. Setting a window
+     * discards any versions retained so far, and the window starts at the current version.
+     *
+     * @param versionWindow The minimum number of versions to retain, or 0 to disable
+     *                      multi-version reads.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void setVersionWindow(int versionWindow)
+    {
+        this.versionWindow = versionWindow;
+        snapshots.clear();
+        versions.clear();
+        versionCount = 0;
+        nextSnapshotInterval = snapshotInterval;
+        if (versionWindow > 0)
+        {
+            snapshots.put(lastAppliedAddress, new Snapshot<>((T) Serializer.copy(underlyingObject), 0));
+        }
+    }
+
+    /**
+     * Apply an entry to the live object, retaining the command if multi-version reads
+     * are enabled.
+     *
+     * @param entry The entry to apply.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R> void apply(IStreamEntry entry)
+    {
+        super.apply(entry);
+        if (!(entry.getPayload() instanceof SMRCommand))
+        {
+            return;
+        }
+        long address = ((SimpleTimestamp) entry.getTimestamp()).address;
+        lastAppliedAddress = Math.max(lastAppliedAddress, address);
+        if (versionWindow > 0)
+        {
+            if (versions.put(address, (SMRCommand<T, ?>) entry.getPayload()) == null)
+            {
+                versionCount++;
+            }
+            if (versionCount - snapshots.lastEntry().getValue().versionCount >= nextSnapshotInterval)
+            {
+                long start = System.nanoTime();
+                snapshots.put(address, new Snapshot<>((T) Serializer.copy(underlyingObject), versionCount));
+                nextSnapshotInterval = Math.max(snapshotInterval, (System.nanoTime() - start) / snapshotBudgetNanos);
+                // drop the oldest snapshot while the ones after it still cover the window.
+                while (snapshots.size() > 1 &&
+                        versionCount - snapshots.higherEntry(snapshots.firstKey()).getValue().versionCount >= versionWindow)
+                {
+                    snapshots.pollFirstEntry();
+                    versions.headMap(snapshots.firstKey(), true).clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Execute a read only command against the version of the object at a given timestamp.
+     * The live object is not affected, and continues to advance while the read executes.
+     *
+     * @param ts        The timestamp to read at, which must be within the version window.
+     * @param command   The command to execute. It must be read only.
+     * @return          The return value.
+     * @throws TrimmedException If the timestamp is older than the version window.
+     * @throws IllegalStateException If the timestamp is after the last applied command, and the
+     *                               engine is locked, so it cannot be synchronized to it.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R readAt(ITimestamp ts, ISMREngineCommand<T, R> command)
+        throws TrimmedException
+    {
+        if (versionWindow == 0)
+        {
+            throw new UnsupportedOperationException("Multi-version reads are not enabled on this engine!");
+        }
+        long address = ((SimpleTimestamp) ts).address;
+        if (address > lastAppliedAddress)
+        {
+            if (lockTS != null)
+            {
+                // sync does nothing while the engine is locked, so the version at ts may not be known.
+                throw new IllegalStateException("Cannot read version " + ts + " after the last applied command ("
+                        + lastAppliedAddress + ") while the engine is locked at " + lockTS);
+            }
+            sync(ts);
+        }
+
+        Map.Entry<Long, Snapshot<T>> snapshot = snapshots.floorEntry(address);
+        if (snapshot == null)
+        {
+            throw new TrimmedException("Requested version is older than the version window", address);
+        }
+        List<Map.Entry<Long, SMRCommand<T, ?>>> commands =
+                new ArrayList<>(versions.subMap(snapshot.getKey(), false, address, true).entrySet());
+        if (!snapshots.containsKey(snapshot.getKey()))
+        {
+            // the snapshot was dropped while we were collecting commands, so try again.
+            return readAt(ts, command);
+        }
+
+        // replay onto a copy, in a transactional context, so that commands which execute
+        // against the implementing object act on the copy and not the live object.
+        T version = (T) Serializer.copy(snapshot.getValue().object);
+        PassThroughSMREngine<T> versionEngine = new PassThroughSMREngine<>(version, ts, getInstance(), getStreamID());
+        versionEngine.setImplementingObject(getImplementingObject());
+        try (TransactionalContext tc = new TransactionalContext(
+                new PassthroughTransaction<T>(versionEngine, ts, getInstance())))
+        {
+            for (Map.Entry<Long, SMRCommand<T, ?>> c : commands)
+            {
+                c.getValue().execute(version, versionEngine, new SimpleTimestamp(c.getKey()));
+            }
+            return versionEngine.read(command);
+        }
+    }
+
     /**
      * Execute a read only command against this engine.
      *
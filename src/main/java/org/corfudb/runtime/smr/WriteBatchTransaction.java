@@ -0,0 +1,218 @@
+package org.corfudb.runtime.smr;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.smr.smrprotocol.MultiStreamSMRCommand;
+import org.corfudb.runtime.smr.smrprotocol.SMRCommand;
+import org.corfudb.runtime.stream.ITimestamp;
+import org.corfudb.runtime.stream.SimpleTimestamp;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.runtime.view.IStreamAddressSpace;
+import org.corfudb.runtime.view.Serializer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A write batch transaction executes against private copies of the objects it touches and
+ * buffers its writes, then commits the writes of every stream together: a single token is
+ * requested for all the streams written, and the buffered commands of each stream are packed
+ * into a single log entry tagged with those streams.
+ *
+ * The writes of a write batch are atomic, but its reads are not validated. Use an
+ * OptimisticTransaction for transactions whose writes depend on their reads.
+ */
+@Slf4j
+public class WriteBatchTransaction<R> implements ITransaction<R> {
+
+    @Getter
+    @Setter
+    ITransactionCommand<R> transaction;
+
+    @Getter
+    @Setter
+    ICorfuDBInstance instance;
+
+    /** The engines buffering the writes to each stream accessed. */
+    final Map<UUID, BufferedSMREngine<?>> engines = new HashMap<>();
+
+    class WriteBatchTransactionOptions implements ITransactionOptions
+    {
+    }
+
+    public WriteBatchTransaction(ICorfuDBInstance instance)
+    {
+        this.instance = instance;
+    }
+
+    public WriteBatchTransaction(ICorfuDBInstance instance, ITransactionCommand<R> transaction)
+    {
+        this(instance);
+        this.transaction = transaction;
+    }
+
+    /**
+     * Returns an SMR engine for a transactional context.
+     *
+     * @param streamID The streamID the SMR engine should run on.
+     * @param objClass The class that the SMR engine runs against.
+     * @return The SMR engine to be used for a transactional context.
+     */
+    @Override
+    public ISMREngine getEngine(UUID streamID, Class<?> objClass) {
+        BufferedSMREngine<?> engine = engines.get(streamID);
+        if (engine == null)
+        {
+            engine = getBufferedEngine(streamID, objClass);
+            engines.put(streamID, engine);
+        }
+        return engine;
+    }
+
+    /**
+     * Synchronize an object and create a buffered engine over a private copy of it.
+     *
+     * @param streamID The streamID the SMR engine should run on.
+     * @param objClass The class that the SMR engine runs against.
+     * @return A buffered engine over a copy of the object.
+     */
+    @SuppressWarnings("unchecked")
+    BufferedSMREngine<?> getBufferedEngine(UUID streamID, Class<?> objClass)
+    {
+        ISMREngine base = instance.openObject(streamID, (Class<? extends ICorfuDBObject>) objClass)
+                .getUnderlyingSMREngine();
+        base.sync(null);
+        return copyEngine(base, streamID, ITimestamp.getMinTimestamp());
+    }
+
+    /**
+     * Create a buffered engine over a private copy of an engine's object.
+     *
+     * @param base      The engine to copy.
+     * @param streamID  The stream the engine runs on.
+     * @param ts        The timestamp buffered commands execute at.
+     * @return          A buffered engine over a copy of the object.
+     */
+    BufferedSMREngine<?> copyEngine(ISMREngine base, UUID streamID, ITimestamp ts)
+    {
+        Object copy;
+        synchronized (base) {
+            copy = Serializer.copy(base.getObject());
+        }
+        return new BufferedSMREngine<>(copy, ts, streamID, instance);
+    }
+
+    /**
+     * Get the commands buffered for each stream written by this transaction.
+     *
+     * @return The commands buffered for each stream written.
+     */
+    Map<UUID, List<SMRCommand>> getWriteSet()
+    {
+        Map<UUID, List<SMRCommand>> writeSet = new HashMap<>();
+        engines.forEach((id, e) -> {
+            if (!e.getCommandBuffer().isEmpty())
+            {
+                writeSet.put(id, e.getCommandBuffer());
+            }
+        });
+        return writeSet;
+    }
+
+    /**
+     * Acquire the token(s) this transaction commits at.
+     *
+     * @param streams       The streams written.
+     * @param numTokens     The number of tokens to acquire.
+     * @return              The first token acquired.
+     */
+    CompletableFuture<Long> acquireToken(Set<UUID> streams, long numTokens)
+    {
+        return instance.getNewStreamingSequencer().nextTokenAsync(streams, numTokens);
+    }
+
+    /**
+     * Acquire a token, translating a rejection by the sequencer into an abort.
+     *
+     * @param streams       The streams written.
+     * @param numTokens     The number of tokens to acquire.
+     * @return              The first token acquired.
+     * @throws TransactionAbortedException If the sequencer rejected the request.
+     */
+    long acquireTokenOrAbort(Set<UUID> streams, long numTokens)
+    {
+        try {
+            return acquireToken(streams, numTokens).join();
+        } catch (CompletionException ce)
+        {
+            if (ce.getCause() instanceof org.corfudb.runtime.exceptions.TransactionAbortedException)
+            {
+                log.debug("Transaction aborted, token request for {} rejected.", streams);
+                throw new TransactionAbortedException();
+            }
+            throw ce;
+        }
+    }
+
+    /**
+     * Execute the transaction against the private copies of the objects it touches.
+     *
+     * @param engine The SMR engine to run this command on.
+     */
+    @Override
+    public R executeTransaction(ISMREngine engine) {
+        try (TransactionalContext tc = new TransactionalContext(this)) {
+            return transaction.apply(new WriteBatchTransactionOptions());
+        }
+    }
+
+    /**
+     * Propose the buffered writes of every stream to the log, in a single entry.
+     *
+     * @return The timestamp that the transaction was written at, or null, if the transaction
+     * did not write to any stream.
+     */
+    @Override
+    public ITimestamp propose()
+            throws IOException
+    {
+        Map<UUID, List<SMRCommand>> writeSet = getWriteSet();
+        if (writeSet.isEmpty())
+        {
+            return null;
+        }
+
+        long token = acquireTokenOrAbort(writeSet.keySet(), 1);
+        IStreamAddressSpace.StreamAddressWriteResult result = instance.getStreamAddressSpace()
+                .write(token, writeSet.keySet(), new MultiStreamSMRCommand<>(writeSet));
+        if (result != IStreamAddressSpace.StreamAddressWriteResult.OK)
+        {
+            // The token was filled or trimmed before we could write it.
+            log.warn("Transaction aborted, write to {} failed with {}", token, result);
+            throw new TransactionAbortedException();
+        }
+        return new SimpleTimestamp(token);
+    }
+
+    @Override
+    public CompletableFuture<R> executeAsync() {
+        CompletableFuture<R> cf = new CompletableFuture<>();
+        try {
+            R result = executeTransaction(null);
+            propose();
+            cf.complete(result);
+        }
+        catch (Exception e)
+        {
+            cf.completeExceptionally(e);
+        }
+        return cf;
+    }
+}
@@ -0,0 +1,243 @@
+package org.corfudb.runtime.smr;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.smr.smrprotocol.MultiStreamSMRCommand;
+import org.corfudb.runtime.smr.smrprotocol.SMRCommand;
+import org.corfudb.runtime.stream.IStream;
+import org.corfudb.runtime.stream.ITimestamp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A write-behind SMR engine accumulates fire-and-forget mutations (proposals without a
+ * completion) and appends them to the log as a single batch entry, once maxBatchSize
+ * commands have accumulated or maxDelayMicros has elapsed since the first of them.
+ *
+ * Batches are written asynchronously, one after another, so they are applied in the order
+ * they were made. A batch which fails to write is retried, and if it still cannot be written,
+ * the failure is logged and reported to anyone waiting on it.
+ *
+ * Pending and in-flight mutations are written before every sync, so accessors still read their
+ * own writes; an accessor only waits for a write if there are mutations which are not yet in
+ * the log. Proposals which need a result are not batched: they are written after the pending
+ * mutations, so the order of mutations from this engine is preserved.
+ */
+@Slf4j
+public class WriteBehindSMREngine<T> extends SimpleSMREngine<T> {
+
+    /** The executor which flushes batches whose delay has elapsed, and retries failed writes. */
+    static final ScheduledExecutorService flushExecutor =
+            Executors.newScheduledThreadPool(
+                    1,
+                    new ThreadFactoryBuilder()
+                            .setDaemon(true)
+                            .setNameFormat("writebehind-%d")
+                            .build());
+
+    /** The number of times a batch is written before it is dropped. */
+    static final int MAX_WRITE_ATTEMPTS = 5;
+
+    /** The time, in milliseconds, to wait before writing a failed batch again. Doubles with each attempt. */
+    static final long RETRY_DELAY_MILLIS = 10;
+
+    /** The maximum number of mutations in a batch. */
+    @Getter
+    @Setter
+    int maxBatchSize = 1000;
+
+    /** The maximum time, in microseconds, a mutation may wait before it is appended to the log. */
+    @Getter
+    @Setter
+    long maxDelayMicros = 1000;
+
+    /** The mutations which have not yet been appended to the log. Guarded by pendingLock. */
+    List<SMRCommand> pending = new ArrayList<>();
+
+    /** The write of the most recent batch. Guarded by pendingLock. */
+    CompletableFuture<ITimestamp> lastBatch = CompletableFuture.completedFuture(null);
+
+    /** Held while the pending mutations are swapped for a new batch. Never held across a write. */
+    final Object pendingLock = new Object();
+
+    public WriteBehindSMREngine(IStream stream, Class<T> type, Class<?>... args)
+    {
+        super(stream, type, args);
+    }
+
+    static void await(CompletableFuture<?> f)
+    {
+        if (f != null)
+        {
+            f.join();
+        }
+    }
+
+    /**
+     * Propose a new command to the SMR engine. Mutations without a completion are buffered,
+     * and appended to the log in a batch. The proposer which fills a batch waits for it to be
+     * written, which bounds the number of mutations in flight.
+     *
+     * @param command       The command to propose.
+     * @param completion    A completable future which will be fulfilled once the command is applied.
+     * @param readOnly      Whether or not the command is read only.
+     * @return              The timestamp the command was proposed at, or null, if the command
+     *                      was buffered.
+     */
+    @Override
+    public <R> ITimestamp propose(SMRCommand<T, R> command, CompletableFuture<R> completion, boolean readOnly) {
+        if (readOnly)
+        {
+            return super.propose(command, completion, true);
+        }
+        if (completion != null)
+        {
+            await(flushAsync());
+            return super.propose(command, completion, false);
+        }
+        boolean full;
+        synchronized (pendingLock)
+        {
+            pending.add(command);
+            full = pending.size() >= maxBatchSize;
+            if (pending.size() == 1 && !full)
+            {
+                flushExecutor.schedule(() -> { flushAsync(); }, maxDelayMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+        if (full)
+        {
+            await(flushAsync());
+        }
+        return null;
+    }
+
+    @Override
+    public <R> CompletableFuture<ITimestamp> proposeAsync(SMRCommand<T, R> command, CompletableFuture<R> completion, boolean readOnly) {
+        CompletableFuture<ITimestamp> batch = readOnly ? null : flushAsync();
+        if (batch == null)
+        {
+            return super.proposeAsync(command, completion, readOnly);
+        }
+        // Propose once the pending mutations are written, whether or not they were.
+        return batch.handle((r, e) -> null)
+                .thenCompose(v -> super.proposeAsync(command, completion, false));
+    }
+
+    /**
+     * Start writing the pending mutations to the log. A single mutation is written as is,
+     * several mutations are written as one batch entry. The batch is written once every
+     * previous batch has been written.
+     *
+     * @return  A future which completes with the timestamp the most recent batch was written at,
+     *          or null, if there are no mutations pending or being written.
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<ITimestamp> flushAsync()
+    {
+        synchronized (pendingLock)
+        {
+            if (pending.isEmpty())
+            {
+                return lastBatch.isDone() ? null : lastBatch;
+            }
+            List<SMRCommand> batch = pending;
+            pending = new ArrayList<>();
+            SMRCommand<T, ?> command = batch.size() == 1 ? batch.get(0) :
+                    new MultiStreamSMRCommand<T>(Collections.singletonMap(getStreamID(), batch));
+            lastBatch = lastBatch.handle((r, e) -> null)
+                    .thenCompose(v -> writeBatch(command, batch.size(), 1));
+            return lastBatch;
+        }
+    }
+
+    /**
+     * Write the pending mutations to the log, and wait until every batch has been written.
+     *
+     * @return  The timestamp the most recent batch was written at, or null, if there were
+     *          no mutations pending or being written.
+     */
+    public ITimestamp flush()
+    {
+        CompletableFuture<ITimestamp> f = flushAsync();
+        return f == null ? null : f.join();
+    }
+
+    /**
+     * Write a batch to the log, retrying with a growing delay if the write fails.
+     *
+     * @param command   The command the batch is written as.
+     * @param size      The number of mutations in the batch.
+     * @param attempt   The number of this attempt, starting at 1.
+     * @return          A future which completes with the timestamp the batch was written at,
+     *                  or exceptionally, if it could not be written after MAX_WRITE_ATTEMPTS.
+     */
+    CompletableFuture<ITimestamp> writeBatch(SMRCommand<T, ?> command, int size, int attempt)
+    {
+        log.trace("Flush[{}]: Writing {} pending mutations.", getStreamID(), size);
+        return super.proposeAsync(command, null, false)
+                .handle((ts, e) -> {
+                    if (e == null) {
+                        return CompletableFuture.completedFuture(ts);
+                    }
+                    if (attempt >= MAX_WRITE_ATTEMPTS) {
+                        log.error("Flush[{}]: Failed to write {} mutations after {} attempts, dropping them.",
+                                getStreamID(), size, attempt, e);
+                        CompletableFuture<ITimestamp> failed = new CompletableFuture<>();
+                        failed.completeExceptionally(e);
+                        return failed;
+                    }
+                    log.warn("Flush[{}]: Failed to write {} mutations, retrying.", getStreamID(), size, e);
+                    CompletableFuture<ITimestamp> retry = new CompletableFuture<>();
+                    flushExecutor.schedule(() -> {
+                        writeBatch(command, size, attempt + 1).whenComplete((r, re) -> {
+                            if (re != null) {
+                                retry.completeExceptionally(re);
+                            } else {
+                                retry.complete(r);
+                            }
+                        });
+                    }, RETRY_DELAY_MILLIS << (attempt - 1), TimeUnit.MILLISECONDS);
+                    return retry;
+                })
+                .thenCompose(f -> f);
+    }
+
+    /**
+     * Wait for pending mutations to be written, if there are any, then synchronize the SMR engine.
+     *
+     * @param ts The timestamp to synchronize to, or null, to synchronize to the most
+     *           recent version.
+     */
+    @Override
+    public <R> void sync(ITimestamp ts) {
+        await(flushAsync());
+        super.sync(ts);
+    }
+
+    /**
+     * Synchronize the SMR engine, tolerating stale state. If any mutations were pending or
+     * being written, the engine waits for them and synchronizes to the tail so they are read.
+     *
+     * @param maxStaleness  The maximum staleness to tolerate, in milliseconds.
+     */
+    @Override
+    public void syncStale(long maxStaleness) {
+        CompletableFuture<ITimestamp> batch = flushAsync();
+        if (batch != null)
+        {
+            batch.join();
+            syncToTail();
+            return;
+        }
+        super.syncStale(maxStaleness);
+    }
+}
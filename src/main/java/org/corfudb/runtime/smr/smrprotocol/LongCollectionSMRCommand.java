@@ -0,0 +1,201 @@
+package org.corfudb.runtime.smr.smrprotocol;
+
+import io.netty.buffer.ByteBuf;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.smr.ISMREngine;
+import org.corfudb.runtime.stream.ITimestamp;
+import org.corfudb.util.collections.LongHashSet;
+import org.corfudb.util.collections.LongHashTable;
+import org.corfudb.util.collections.LongLongHashMap;
+import org.corfudb.util.collections.LongObjectHashMap;
+import org.corfudb.util.serializer.ISerializer;
+import org.corfudb.util.serializer.KryoSerializer;
+import org.corfudb.util.serializer.Varint;
+
+/**
+ * A command on a collection keyed by primitive longs. Keys, and the values of long-valued
+ * maps, are written as zigzag varints, so small keys take a byte or two on the wire instead
+ * of a Kryo-serialized Long. A command may carry any number of keys.
+ */
+@Slf4j
+public class LongCollectionSMRCommand<T> extends SMRCommand<T,Void> {
+
+    @RequiredArgsConstructor
+    public enum LongCollectionOp {
+        /** Put long values into a LongLongHashMap. */
+        PUT_LONG(0),
+        /** Put object values into a LongObjectHashMap. */
+        PUT_OBJECT(1),
+        /** Add keys to a LongHashSet. */
+        ADD(2),
+        /** Remove keys from any of the tables. */
+        REMOVE(3),
+        /** Clear any of the tables. */
+        CLEAR(4)
+        ;
+
+        final int op;
+
+        byte asByte() { return (byte)op; }
+
+        static LongCollectionOp fromByte(byte b)
+        {
+            for (LongCollectionOp o : values())
+            {
+                if (o.op == b) { return o; }
+            }
+            throw new IllegalArgumentException("Unknown long collection op " + b);
+        }
+    };
+
+    public LongCollectionSMRCommand()
+    {
+        super();
+        this.type = SMRCommandType.LONG_COLLECTION;
+    }
+
+    public LongCollectionSMRCommand(LongCollectionOp op, long... keys)
+    {
+        this();
+        this.op = op;
+        this.keys = keys;
+    }
+
+    public LongCollectionSMRCommand(long[] keys, long[] longValues)
+    {
+        this(LongCollectionOp.PUT_LONG, keys);
+        this.longValues = longValues;
+    }
+
+    public LongCollectionSMRCommand(long[] keys, Object[] objectValues)
+    {
+        this(LongCollectionOp.PUT_OBJECT, keys);
+        this.objectValues = objectValues;
+    }
+
+    @Getter
+    @Setter
+    LongCollectionOp op;
+
+    @Getter
+    @Setter
+    long[] keys;
+
+    @Getter
+    @Setter
+    long[] longValues;
+
+    @Getter
+    @Setter
+    Object[] objectValues;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Void execute(T state, ISMREngine<T> engine, ITimestamp ts) {
+        switch (op)
+        {
+            case PUT_LONG: {
+                LongLongHashMap map = (LongLongHashMap) state;
+                for (int i = 0; i < keys.length; i++) {
+                    map.put(keys[i], longValues[i]);
+                }
+            }
+            break;
+            case PUT_OBJECT: {
+                LongObjectHashMap<Object> map = (LongObjectHashMap<Object>) state;
+                for (int i = 0; i < keys.length; i++) {
+                    map.put(keys[i], objectValues[i]);
+                }
+            }
+            break;
+            case ADD: {
+                LongHashSet set = (LongHashSet) state;
+                for (long key : keys) {
+                    set.add(key);
+                }
+            }
+            break;
+            case REMOVE:
+                for (long key : keys) {
+                    ((LongHashTable) state).remove(key);
+                }
+                break;
+            case CLEAR:
+                ((LongHashTable) state).clear();
+                break;
+        }
+        return null;
+    }
+
+    //region Serializer
+    static ISerializer valueSerializer = new KryoSerializer();
+
+    /**
+     * Parse the rest of the message from the buffer. Classes that extend SMRCommand
+     * should parse their fields in this method.
+     *
+     * @param buffer
+     */
+    @Override
+    public void fromBuffer(ByteBuf buffer) {
+        super.fromBuffer(buffer);
+        op = LongCollectionOp.fromByte(buffer.readByte());
+        keys = readLongs(buffer);
+        if (op == LongCollectionOp.PUT_LONG)
+        {
+            longValues = readLongs(buffer);
+        }
+        else if (op == LongCollectionOp.PUT_OBJECT)
+        {
+            int size = buffer.readInt();
+            objectValues = (Object[]) valueSerializer.deserialize(buffer.slice(buffer.readerIndex(), size));
+            buffer.skipBytes(size);
+        }
+    }
+
+    /**
+     * Serialize the message into the given bytebuffer.
+     *
+     * @param buffer The buffer to serialize to.
+     */
+    @Override
+    public void serialize(ByteBuf buffer) {
+        super.serialize(buffer);
+        buffer.writeByte(op.asByte());
+        writeLongs(keys, buffer);
+        if (op == LongCollectionOp.PUT_LONG)
+        {
+            writeLongs(longValues, buffer);
+        }
+        else if (op == LongCollectionOp.PUT_OBJECT)
+        {
+            int index = buffer.writerIndex();
+            buffer.writeInt(0);
+            valueSerializer.serialize(objectValues, buffer);
+            buffer.setInt(index, buffer.writerIndex() - index - 4);
+        }
+    }
+
+    static long[] readLongs(ByteBuf buffer)
+    {
+        long[] longs = new long[Varint.readVarInt(buffer)];
+        for (int i = 0; i < longs.length; i++)
+        {
+            longs[i] = Varint.readSignedVarLong(buffer);
+        }
+        return longs;
+    }
+
+    static void writeLongs(long[] longs, ByteBuf buffer)
+    {
+        Varint.writeVarInt(longs.length, buffer);
+        for (long l : longs)
+        {
+            Varint.writeSignedVarLong(l, buffer);
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,193 @@
+package org.corfudb.runtime.smr.smrprotocol;
+
+import io.netty.buffer.ByteBuf;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.smr.ISMREngine;
+import org.corfudb.runtime.stream.ITimestamp;
+import org.corfudb.util.serializer.ISerializer;
+import org.corfudb.util.serializer.KryoSerializer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A batch of operations of the same kind on a map, logged as a single command.
+ *
+ * The payload is columnar: the keys of the batch are serialized together as one column,
+ * followed by the values as another, so a batch costs two serializer calls rather than
+ * one per entry, and replay applies the batch in a single loop.
+ */
+@Slf4j
+public class MapBatchSMRCommand<T> extends SMRCommand<T,Object> {
+
+    @RequiredArgsConstructor
+    public enum MapBatchOp {
+        /** Put every key and value. Returns null. */
+        PUT_ALL(0, true),
+        /** Remove every key. Returns the number of keys removed. */
+        REMOVE_ALL(1, false),
+        /** Put every key and value, unless the key is already mapped. Null values are
+         * never put. Returns the value each mapped key is mapped to after the batch. */
+        PUT_IF_ABSENT_ALL(2, true)
+        ;
+
+        final int op;
+        final boolean hasValues;
+
+        byte asByte() { return (byte)op; }
+
+        static MapBatchOp fromByte(byte b)
+        {
+            for (MapBatchOp o : values())
+            {
+                if (o.op == b) { return o; }
+            }
+            throw new IllegalArgumentException("Unknown map batch op " + b);
+        }
+    };
+
+    public MapBatchSMRCommand()
+    {
+        super();
+        this.type = SMRCommandType.MAP_BATCH;
+    }
+
+    /** Create a batch which puts every mapping in a map.
+     *
+     * @param op        The operation to apply, PUT_ALL or PUT_IF_ABSENT_ALL.
+     * @param entries   The mappings to put.
+     */
+    public MapBatchSMRCommand(MapBatchOp op, Map<?,?> entries)
+    {
+        this();
+        this.op = op;
+        this.keys = new Object[entries.size()];
+        this.values = new Object[entries.size()];
+        int i = 0;
+        for (Map.Entry<?,?> e : entries.entrySet())
+        {
+            keys[i] = e.getKey();
+            values[i] = e.getValue();
+            i++;
+        }
+    }
+
+    /** Create a batch which removes every key in a collection.
+     *
+     * @param keys      The keys to remove.
+     */
+    public MapBatchSMRCommand(Collection<?> keys)
+    {
+        this();
+        this.op = MapBatchOp.REMOVE_ALL;
+        this.keys = keys.toArray();
+    }
+
+    @Getter
+    @Setter
+    MapBatchOp op;
+
+    @Getter
+    @Setter
+    Object[] keys;
+
+    @Getter
+    @Setter
+    Object[] values;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object execute(T state, ISMREngine<T> engine, ITimestamp ts) {
+        Map<Object,Object> map = (Map<Object,Object>) state;
+        switch (op)
+        {
+            case PUT_ALL:
+                for (int i = 0; i < keys.length; i++)
+                {
+                    map.put(keys[i], values[i]);
+                }
+                return null;
+            case REMOVE_ALL:
+                int removed = 0;
+                for (Object key : keys)
+                {
+                    if (map.containsKey(key))
+                    {
+                        map.remove(key);
+                        removed++;
+                    }
+                }
+                return removed;
+            case PUT_IF_ABSENT_ALL:
+                Map<Object,Object> result = new HashMap<>();
+                for (int i = 0; i < keys.length; i++)
+                {
+                    Object current = values[i] == null ? map.get(keys[i]) : map.putIfAbsent(keys[i], values[i]);
+                    if (current != null || values[i] != null)
+                    {
+                        result.put(keys[i], current == null ? values[i] : current);
+                    }
+                }
+                return result;
+            default:
+                throw new UnsupportedOperationException("Unsupported map batch op " + op);
+        }
+    }
+
+    //region Serializer
+    static ISerializer columnSerializer = new KryoSerializer();
+
+    /**
+     * Parse the rest of the message from the buffer. Classes that extend SMRCommand
+     * should parse their fields in this method.
+     *
+     * @param buffer
+     */
+    @Override
+    public void fromBuffer(ByteBuf buffer) {
+        super.fromBuffer(buffer);
+        op = MapBatchOp.fromByte(buffer.readByte());
+        keys = readColumn(buffer);
+        if (op.hasValues)
+        {
+            values = readColumn(buffer);
+        }
+    }
+
+    /**
+     * Serialize the message into the given bytebuffer.
+     *
+     * @param buffer The buffer to serialize to.
+     */
+    @Override
+    public void serialize(ByteBuf buffer) {
+        super.serialize(buffer);
+        buffer.writeByte(op.asByte());
+        writeColumn(keys, buffer);
+        if (op.hasValues)
+        {
+            writeColumn(values, buffer);
+        }
+    }
+
+    static Object[] readColumn(ByteBuf buffer)
+    {
+        int size = buffer.readInt();
+        Object[] column = (Object[]) columnSerializer.deserialize(buffer.slice(buffer.readerIndex(), size));
+        buffer.skipBytes(size);
+        return column;
+    }
+
+    static void writeColumn(Object[] column, ByteBuf buffer)
+    {
+        int index = buffer.writerIndex();
+        buffer.writeInt(0);
+        columnSerializer.serialize(column, buffer);
+        buffer.setInt(index, buffer.writerIndex() - index - 4);
+    }
+    //endregion
+}
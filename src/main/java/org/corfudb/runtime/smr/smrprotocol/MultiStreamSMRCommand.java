@@ -0,0 +1,112 @@
+package org.corfudb.runtime.smr.smrprotocol;
+
+import io.netty.buffer.ByteBuf;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.smr.ISMREngine;
+import org.corfudb.runtime.stream.ITimestamp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A command which carries a buffer of commands for each of several streams, so that updates to
+ * several streams can be written in a single log entry. Each SMR engine which encounters this
+ * command applies only the commands for its own stream.
+ */
+@Slf4j
+public class MultiStreamSMRCommand<T> extends SMRCommand<T,Void> {
+
+    public MultiStreamSMRCommand()
+    {
+        super();
+        this.type = SMRCommandType.MULTI_STREAM_COMMAND;
+    }
+
+    /** Takes the commands to apply to each stream and converts them to a SMRCommand.
+     *
+     * @param commandMap  The commands to apply to each stream, in order.
+     */
+    public MultiStreamSMRCommand(Map<UUID, List<SMRCommand>> commandMap)
+    {
+        this();
+        this.commandMap = commandMap;
+    }
+
+    @Getter
+    @Setter
+    Map<UUID, List<SMRCommand>> commandMap;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Void execute(T state, ISMREngine<T> engine, ITimestamp ts) {
+        List<SMRCommand> commands = commandMap.get(engine.getStreamID());
+        if (commands == null)
+        {
+            log.warn("Multi-stream command at {} has no commands for stream {}", ts, engine.getStreamID());
+            return null;
+        }
+        for (SMRCommand command : commands)
+        {
+            command.setInstance(instance);
+            command.execute(state, engine, ts);
+        }
+        return null;
+    }
+
+    //region Serializer
+    /**
+     * Parse the rest of the message from the buffer. Classes that extend SMRCommand
+     * should parse their fields in this method.
+     *
+     * @param buffer
+     */
+    @Override
+    public void fromBuffer(ByteBuf buffer) {
+        super.fromBuffer(buffer);
+        commandMap = new HashMap<>();
+        int numStreams = buffer.readInt();
+        for (int i = 0; i < numStreams; i++)
+        {
+            UUID streamID = new UUID(buffer.readLong(), buffer.readLong());
+            int numCommands = buffer.readInt();
+            List<SMRCommand> commands = new ArrayList<>(numCommands);
+            for (int j = 0; j < numCommands; j++)
+            {
+                int size = buffer.readInt();
+                commands.add(SMRCommand.deserialize(buffer.slice(buffer.readerIndex(), size)));
+                buffer.skipBytes(size);
+            }
+            commandMap.put(streamID, commands);
+        }
+    }
+
+    /**
+     * Serialize the message into the given bytebuffer.
+     *
+     * @param buffer The buffer to serialize to.
+     */
+    @Override
+    public void serialize(ByteBuf buffer) {
+        super.serialize(buffer);
+        buffer.writeInt(commandMap.size());
+        for (Map.Entry<UUID, List<SMRCommand>> e : commandMap.entrySet())
+        {
+            buffer.writeLong(e.getKey().getMostSignificantBits());
+            buffer.writeLong(e.getKey().getLeastSignificantBits());
+            buffer.writeInt(e.getValue().size());
+            for (SMRCommand command : e.getValue())
+            {
+                int index = buffer.writerIndex();
+                buffer.writeInt(0);
+                command.serialize(buffer);
+                buffer.setInt(index, buffer.writerIndex() - index - 4);
+            }
+        }
+    }
+    //endregion
+}
@@ -29,7 +29,10 @@ public class SMRCommand<T,R> implements ICorfuSerializable {
         NOP(0, SMRCommand.class),
         LAMBDA_COMMAND(20, LambdaSMRCommand.class),
         METHOD_TOKEN(21, MethodTokenSMRCommand.class),
-        TRANSACTIONAL_LAMBDA_COMMAND(22, TransactionalLambdaSMRCommand.class)
+        TRANSACTIONAL_LAMBDA_COMMAND(22, TransactionalLambdaSMRCommand.class),
+        MULTI_STREAM_COMMAND(23, MultiStreamSMRCommand.class),
+        MAP_BATCH(24, MapBatchSMRCommand.class),
+        LONG_COLLECTION(25, LongCollectionSMRCommand.class)
         ;
 
         final int type;
@@ -16,6 +16,7 @@
 package org.corfudb.runtime.stream;
 
 import org.corfudb.runtime.entries.IStreamEntry;
+import org.corfudb.runtime.exceptions.BatchReadException;
 import org.corfudb.runtime.exceptions.HoleEncounteredException;
 import org.corfudb.runtime.exceptions.OutOfSpaceException;
 import org.corfudb.runtime.exceptions.OverwriteException;
@@ -225,6 +226,17 @@ public interface IStream extends AutoCloseable {
     default CompletableFuture<IStreamEntry[]> readToAsync(ITimestamp point) {
         throw new UnsupportedOperationException("not implemented!");
     }
+
+    /**
+     * Asynchronously read a batch which failed to read again. The entries keep the place of the
+     * failed batch in the order entries are applied in.
+     * @param failed            The exception the batch failed with.
+     * @return                  A completable future, which will return the entries of the batch when completed.
+     */
+    default CompletableFuture<IStreamEntry[]> rereadAsync(BatchReadException failed) {
+        throw new UnsupportedOperationException("not implemented!");
+    }
+
     /**
      * Gets the current position the stream has read to (which may not point to an entry in the
      * stream).
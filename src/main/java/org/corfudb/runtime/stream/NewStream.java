@@ -17,6 +17,7 @@ import org.corfudb.util.retry.IRetry;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -278,70 +279,132 @@ public class NewStream implements IStream {
         }
         log.trace("AsyncRead[{}]: {} to {}", batch, startPoint, point);
         if (startPoint > toPhysicalTimestamp(point)){
-            IStreamEntry[] rl;
-            rl = new IStreamEntry[] {
-                    new IStreamAddressSpace.StreamAddressSpaceEntry<>(
-                            Collections.emptySet(),
-                            Long.MIN_VALUE,
-                            IStreamAddressSpace.StreamAddressEntryCode.EMPTY_BATCH,
-                            null
-                    )
-            };
-
-            rl[0].setLogicalTimestamp(
-                    new LogicalAsyncTimestamp(
-                            batch,
-                            0,
-                            0));
-
-            return CompletableFuture.completedFuture(rl);
+            return CompletableFuture.completedFuture(emptyBatch(batch));
         }
         else
         {
-            List<CompletableFuture<IStreamEntry>> requestList = new ArrayList<>();
-            final AtomicLong logicalCounter = new AtomicLong(0);
-            for (long i = startPoint; i < toPhysicalTimestamp(point); i++)
+            return readBatchAsync(batch, startPoint, toPhysicalTimestamp(point));
+        }
+    }
+
+    /**
+     * Read a failed batch again. The batch keeps its batch number, so its entries fill the
+     * gap which entries read after it are waiting on.
+     *
+     * @param failed    The exception the batch failed with.
+     * @return          A future which completes with the entries of the batch.
+     */
+    @Override
+    public CompletableFuture<IStreamEntry[]> rereadAsync(BatchReadException failed) {
+        log.trace("AsyncRead[{}]: Reading {} to {} again", failed.batch, failed.start, failed.end);
+        return readBatchAsync(failed.batch, failed.start, failed.end);
+    }
+
+    /**
+     * Read a range of addresses as a batch. If any read fails, the future completes
+     * exceptionally with a BatchReadException, which can be passed to rereadAsync.
+     *
+     * @param batch     The batch number.
+     * @param start     The first address of the batch.
+     * @param end       The address after the last address of the batch.
+     * @return          A future which completes with the entries of the batch.
+     */
+    CompletableFuture<IStreamEntry[]> readBatchAsync(long batch, long start, long end) {
+        List<CompletableFuture<IStreamEntry>> requestList = new ArrayList<>();
+        CompletableFuture<IStreamEntry[]> result = new CompletableFuture<>();
+        try {
+            for (long i = start; i < end; i++)
             {
                 requestList.add(readAtAddress(i));
             }
-            return CompletableFuture.allOf(requestList.toArray(new CompletableFuture[requestList.size()]))
-                    .thenApply(v ->
-                            {
-                                IStreamEntry[] rl = requestList.stream()
-                                        .map(CompletableFuture::join)
-                                        .filter(x -> x != null)
-                                        .toArray(IStreamEntry[]::new);
-                                int entriesRead = rl.length;
-
-                                Arrays.stream(rl)
-                                        .forEach(x -> x.setLogicalTimestamp(
-                                                new LogicalAsyncTimestamp(
-                                                        batch,
-                                                        logicalCounter.getAndIncrement(),
-                                                        entriesRead)));
-
-                                if (rl.length == 0)
-                                {
-                                    //this batch was empty but we need to expire this batch
-                                    rl = new IStreamEntry[] {
-                                      new IStreamAddressSpace.StreamAddressSpaceEntry<>(
-                                              Collections.emptySet(),
-                                              Long.MIN_VALUE,
-                                              IStreamAddressSpace.StreamAddressEntryCode.EMPTY_BATCH,
-                                              null
-                                      )
-                                    };
-
-                                    rl[0].setLogicalTimestamp(
-                                            new LogicalAsyncTimestamp(
-                                            batch,
-                                            0,
-                                            0));
-                                }
-                                return rl;
-                            }
-                    );
+        } catch (Exception e)
+        {
+            // The batch number is taken, so the batch must still be read again.
+            result.completeExceptionally(new BatchReadException(batch, start, end, e));
+            return result;
         }
+        CompletableFuture.allOf(requestList.toArray(new CompletableFuture[requestList.size()]))
+                .whenComplete((v, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        result.completeExceptionally(new BatchReadException(batch, start, end, cause));
+                        return;
+                    }
+                    result.complete(toBatch(batch, requestList.stream()
+                            .map(CompletableFuture::join)
+                            .filter(x -> x != null)
+                            .toArray(IStreamEntry[]::new)));
+                });
+        return result;
+    }
+
+    /**
+     * Read the stream up to the given point, using entries which have already been fetched from
+     * the stream address space, for example by a bulk open of several streams.
+     *
+     * @param point     The point to read up to, exclusive.
+     * @param entries   Every written entry in the range being read. Entries which do not belong to this
+     *                  stream are dropped, and are not modified.
+     * @return          The batch of entries in this stream up to the given point.
+     */
+    public IStreamEntry[] readTo(ITimestamp point, NavigableMap<Long, IStreamAddressSpace.StreamAddressSpaceEntry> entries) {
+        long startPoint;
+        long batch;
+        synchronized (batchNumber) {
+            batch = batchNumber.getAndIncrement();
+            startPoint = streamPointer.getAndAccumulate(toPhysicalTimestamp(point), Math::max);
+        }
+        log.trace("PrefetchedRead[{}]: {} to {}", batch, startPoint, point);
+        if (startPoint > toPhysicalTimestamp(point)){
+            return emptyBatch(batch);
+        }
+        // Entries are shared by every stream reading the range, so each stream gets its own copy
+        // to set the logical timestamp on. Copies share the payload, which is deserialized once.
+        return toBatch(batch, entries.subMap(startPoint, true, toPhysicalTimestamp(point), false).values().stream()
+                .filter(e -> e.containsStream(streamID))
+                .map(IStreamAddressSpace.StreamAddressSpaceEntry::new)
+                .toArray(IStreamEntry[]::new));
+    }
+
+    /**
+     * Assign logical timestamps to the entries read in a batch, or generate an empty batch
+     * entry if no entries were read, since the batch must still be expired.
+     *
+     * @param batch     The batch number.
+     * @param rl        The entries read in this batch.
+     * @return          The entries in this batch, with logical timestamps.
+     */
+    IStreamEntry[] toBatch(long batch, IStreamEntry[] rl)
+    {
+        if (rl.length == 0)
+        {
+            return emptyBatch(batch);
+        }
+        for (int i = 0; i < rl.length; i++)
+        {
+            rl[i].setLogicalTimestamp(new LogicalAsyncTimestamp(batch, i, rl.length));
+        }
+        return rl;
+    }
+
+    /**
+     * Generate a batch which contains no entries.
+     *
+     * @param batch     The batch number.
+     * @return          A batch containing only an empty batch entry.
+     */
+    IStreamEntry[] emptyBatch(long batch)
+    {
+        IStreamEntry[] rl = new IStreamEntry[] {
+                new IStreamAddressSpace.StreamAddressSpaceEntry<>(
+                        Collections.emptySet(),
+                        Long.MIN_VALUE,
+                        IStreamAddressSpace.StreamAddressEntryCode.EMPTY_BATCH,
+                        null
+                )
+        };
+        rl[0].setLogicalTimestamp(new LogicalAsyncTimestamp(batch, 0, 0));
+        return rl;
     }
 
     /**
@@ -28,8 +28,6 @@ import java.util.ArrayList;
 
 import java.util.regex.Matcher;
 
-import java.lang.reflect.Method;
-import java.lang.StringBuilder;
 
 import javax.json.Json;
 import javax.json.JsonValue;
@@ -42,9 +40,8 @@ import org.corfudb.runtime.protocols.configmasters.IConfigMaster;
 
 import java.util.UUID;
 
-import org.reflections.Reflections;
-import org.reflections.scanners.SubTypesScanner;
 import org.corfudb.runtime.protocols.IServerProtocol;
+import org.corfudb.runtime.protocols.ProtocolRegistry;
 /**
  * This class provides a view of the CorfuDB infrastructure. Clients
  * should not directly access the view without an interface.
@@ -59,10 +56,11 @@ public class CorfuDBView {
     private long pagesize;
     private UUID logID;
     private boolean isInvalid = false;
-    private static Map<String,Class<? extends IServerProtocol>> availableSequencerProtocols= getSequencerProtocolClasses();
-    private static Map<String,Class<? extends IServerProtocol>> availableLogUnitProtocols= getLogUnitProtocolClasses();
-    private static Map<String,Class<? extends IServerProtocol>> availableConfigMasterProtocols = getConfigMasterProtocolClasses();
-    private static Map<String,Class<? extends IReplicationProtocol>> availableReplicationProtocols = getReplicationProtocolClasses();
+    private Integer pushPort;
+    private static Map<String,Class<? extends IServerProtocol>> availableSequencerProtocols = ProtocolRegistry.sequencers;
+    private static Map<String,Class<? extends IServerProtocol>> availableLogUnitProtocols = ProtocolRegistry.logUnits;
+    private static Map<String,Class<? extends IServerProtocol>> availableConfigMasterProtocols = ProtocolRegistry.configMasters;
+    private static Map<String,Class<? extends IReplicationProtocol>> availableReplicationProtocols = ProtocolRegistry.replications;
 
     private List<IServerProtocol> sequencers;
     private List<CorfuDBViewSegment> segments; //eventually this should be upgraded to rangemap or something..
@@ -73,6 +71,10 @@ public class CorfuDBView {
         epoch = jsonView.getJsonNumber("epoch").longValue();
         pagesize = jsonView.getJsonNumber("pagesize").longValue();
         logID = UUID.fromString(jsonView.getJsonString("logid").getString());
+        if (jsonView.containsKey("pushport"))
+        {
+            pushPort = jsonView.getJsonNumber("pushport").intValue();
+        }
         LinkedList<String> lsequencers = new LinkedList<String>();
         for (JsonValue j : jsonView.getJsonArray("sequencer"))
         {
@@ -140,6 +142,7 @@ public class CorfuDBView {
         sequencers = populateSequencersFromList((List<String>) config.get("sequencers"));
         configmasters = populateConfigMastersFromList((List<String>)config.get("configmasters"));
         segments = populateSegmentsFromList((List<Map<String,Object>>)((Map<String,Object>)config.get("layout")).get("segments"));
+        pushPort = (Integer) config.get("pushport");
     }
 
     public void setUUID(UUID uuid)
@@ -157,6 +160,26 @@ public class CorfuDBView {
         return epoch;
     }
 
+    public long getPageSize()
+    {
+        return pagesize;
+    }
+
+    /**
+     * Get the port the configuration master pushes layout updates on.
+     *
+     * @return  The port, or null if the configuration master does not push layout updates.
+     */
+    public Integer getPushPort()
+    {
+        return pushPort;
+    }
+
+    public void setPushPort(Integer pushPort)
+    {
+        this.pushPort = pushPort;
+    }
+
     /**
      * Attempts to move all servers in this view to the given epoch. This should be called by
      * the configuration master only!
@@ -288,14 +311,18 @@ public class CorfuDBView {
             segmentObject.add(jsb);
         }
 
-        return Json.createObjectBuilder()
+        JsonObjectBuilder view = Json.createObjectBuilder()
                                 .add("epoch", epoch)
                                 .add("logid", logID.toString())
                                 .add("pagesize", pagesize)
                                 .add("sequencer", sequencerObject)
                                 .add("configmaster", configmasterObject)
-                                .add("segments", segmentObject)
-                                .build();
+                                .add("segments", segmentObject);
+        if (pushPort != null)
+        {
+            view.add("pushport", pushPort);
+        }
+        return view.build();
     }
 
     @SuppressWarnings("unchecked")
@@ -487,120 +514,4 @@ public class CorfuDBView {
             }
         return null;
     }
-
-    @SuppressWarnings("unchecked")
-    private static Map<String,Class<? extends IServerProtocol>> getSequencerProtocolClasses()
-    {
-        Reflections reflections = new Reflections("org.corfudb.runtime.protocols.sequencers", new SubTypesScanner(false));
-        Set<Class<? extends Object>> allClasses = reflections.getSubTypesOf(Object.class);
-        Map<String, Class<? extends IServerProtocol>> sequencerMap = new HashMap<String,Class<? extends IServerProtocol>>();
-
-        for(Class<? extends Object> c : allClasses)
-        {
-            try {
-                Method getProtocolString = c.getMethod("getProtocolString");
-                String protocol = (String) getProtocolString.invoke(null);
-                sequencerMap.put(protocol, (Class<? extends IServerProtocol>)c);
-            }
-            catch (Exception e)
-            {
-            }
-        }
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("Found ").append(sequencerMap.size()).append(" supported sequencer(s):\n");
-        for(String proto : sequencerMap.keySet())
-        {
-            sb.append(proto + "\t\t- " + sequencerMap.get(proto).toString() + "\n");
-        }
-        log.debug(sb.toString());
-        return sequencerMap;
-    }
-
-    @SuppressWarnings("unchecked")
-    private static Map<String,Class<? extends IServerProtocol>> getLogUnitProtocolClasses()
-    {
-        Reflections reflections = new Reflections("org.corfudb.runtime.protocols.logunits", new SubTypesScanner(false));
-        Set<Class<? extends Object>> allClasses = reflections.getSubTypesOf(Object.class);
-        Map<String, Class<? extends IServerProtocol>> logunitMap = new HashMap<String,Class<? extends IServerProtocol>>();
-
-        for(Class<? extends Object> c : allClasses)
-        {
-            try {
-                Method getProtocolString = c.getMethod("getProtocolString");
-                String protocol = (String) getProtocolString.invoke(null);
-                logunitMap.put(protocol, (Class<? extends IServerProtocol>)c);
-            }
-            catch (Exception e)
-            {
-            }
-        }
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("Found ").append(logunitMap.size()).append(" supported stream unit(s):\n");
-        for(String proto : logunitMap.keySet())
-        {
-            sb.append(proto + "\t\t- " + logunitMap.get(proto).toString() + "\n");
-        }
-        log.debug(sb.toString());
-        return logunitMap;
-    }
-
-    @SuppressWarnings("unchecked")
-    private static Map<String,Class<? extends IServerProtocol>> getConfigMasterProtocolClasses()
-    {
-        Reflections reflections = new Reflections("org.corfudb.runtime.protocols.configmasters", new SubTypesScanner(false));
-        Set<Class<? extends Object>> allClasses = reflections.getSubTypesOf(Object.class);
-        Map<String, Class<? extends IServerProtocol>> logunitMap = new HashMap<String,Class<? extends IServerProtocol>>();
-
-        for(Class<? extends Object> c : allClasses)
-        {
-            try {
-                Method getProtocolString = c.getMethod("getProtocolString");
-                String protocol = (String) getProtocolString.invoke(null);
-                logunitMap.put(protocol, (Class<? extends IServerProtocol>)c);
-            }
-            catch (Exception e)
-            {
-            }
-        }
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("Found ").append(logunitMap.size()).append(" supported configuration master(s):\n");
-        for(String proto : logunitMap.keySet())
-        {
-            sb.append(proto + "\t\t- " + logunitMap.get(proto).toString() + "\n");
-        }
-        log.debug(sb.toString());
-        return logunitMap;
-    }
-
-    @SuppressWarnings("unchecked")
-    private static Map<String,Class<? extends IReplicationProtocol>> getReplicationProtocolClasses()
-    {
-        Reflections reflections = new Reflections("org.corfudb.runtime.protocols.replications", new SubTypesScanner(false));
-        Set<Class<? extends Object>> allClasses = reflections.getSubTypesOf(Object.class);
-        Map<String, Class<? extends IReplicationProtocol>> replicationMap = new HashMap<String,Class<? extends IReplicationProtocol>>();
-
-        for(Class<? extends Object> c : allClasses)
-        {
-            try {
-                Method getProtocolString = c.getMethod("getProtocolString");
-                String protocol = (String) getProtocolString.invoke(null);
-                replicationMap.put(protocol, (Class<? extends IReplicationProtocol>)c);
-            }
-            catch (Exception e)
-            {
-            }
-        }
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("Found ").append(replicationMap.size()).append(" supported replication protocol(s):\n");
-        for(String proto : replicationMap.keySet())
-        {
-            sb.append(proto + "\t\t- " + replicationMap.get(proto).toString() + "\n");
-        }
-        log.debug(sb.toString());
-        return replicationMap;
-    }
 }
@@ -6,10 +6,15 @@ import org.corfudb.runtime.smr.ITransaction;
 import org.corfudb.runtime.smr.ITransactionCommand;
 import org.corfudb.runtime.stream.IStream;
 import org.corfudb.runtime.stream.IStreamMetadata;
+import org.corfudb.util.collections.IndexedHashMap;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This interface represents a CorfuDB instance.
@@ -89,9 +94,21 @@ public interface ICorfuDBInstance {
     class OpenObjectArgs<T extends ICorfuDBObject>
     {
         public Class<T> type;
+        /* The type of SMR engine to run the object under, for example SimpleSMREngine,
+         * or TailingSMREngine to apply updates continuously in the background. */
         public Class<? extends ISMREngine> smrType;
         public boolean createNew = false;
         public boolean typeCheck = true;
+        /* The staleness, in milliseconds, tolerated by accessors on this object.
+         * Since objects on the same stream share an engine, this applies to the stream.
+         * 0 means every access is linearized. */
+        public long maxStaleness = 0;
+        /* If set, and the object uses a WriteBehindSMREngine, the maximum number of mutations
+         * and the maximum delay, in microseconds, before buffered mutations are appended to the log. */
+        public int writeBehindBatchSize = 0;
+        public long writeBehindMicros = 0;
+        /* Secondary indexes to register on the object, if it is a CDBSimpleMap. */
+        public List<IndexedHashMap.IndexDefinition<?>> indexes = new ArrayList<>();
 
         public OpenObjectArgs(boolean typeCheck) { this.typeCheck = typeCheck; }
 
@@ -155,6 +172,15 @@ public interface ICorfuDBInstance {
      */
     <T extends ICorfuDBObject> T openObject(UUID id, OpenObjectArgs<T> oArgs, Class<?>... args);
 
+    /**
+     * Retrieves a set of corfuDB objects together. The log is read once for all of the objects,
+     * and each object replays its share of the log in parallel.
+     * @param ids   The unique IDs of the objects to be retrieved.
+     * @param oArgs The arguments to open each object with.
+     * @return      A map from each ID to its CorfuDB object.
+     */
+    <T extends ICorfuDBObject> Map<UUID, T> openObjects(Set<UUID> ids, OpenObjectArgs<T> oArgs);
+
     /**
      * Executes a transaction against the CorfuDB instance.
      * @param type      The type of transaction to execute.
@@ -166,4 +192,18 @@ public interface ICorfuDBInstance {
 
     /** Invalidate the current view, requiring that the view be refreshed. */
     void invalidateView();
+
+    /** Invalidate the current view without waiting for it to be refreshed.
+     * @return  A future which completes with the next valid view.
+     */
+    CompletableFuture<CorfuDBView> invalidateViewAsync();
+
+    /** Get the current view without blocking.
+     * @return  A future which completes with the current view, or with the next valid view if
+     *          the view is being refreshed.
+     */
+    CompletableFuture<CorfuDBView> getViewAsync();
+
+    /** Close this instance, stopping any background tasks of the objects opened on it. */
+    void close();
 }
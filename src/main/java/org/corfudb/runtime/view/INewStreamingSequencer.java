@@ -3,6 +3,7 @@ package org.corfudb.runtime.view;
 import lombok.SneakyThrows;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -20,6 +21,17 @@ public interface INewStreamingSequencer {
      */
     CompletableFuture<Long> nextTokenAsync(Set<UUID> streams, long numTokens);
 
+    /** Asynchronously retrieve the next token in the sequence, given a set of streams, only if
+     * none of the streams in the read set have been issued a token past the version read.
+     *
+     * @param streams       The set of streams to retrieve the next token for.
+     * @param numTokens     The number of tokens to acquire, 0 means to just fetch the head of the stream.
+     * @param readSet       The version of each stream read, as returned by nextTokenAsync for 0 tokens.
+     * @return              The next token in the sequence, or a future which completes exceptionally
+     *                      with a TransactionAbortedException if the read set is out of date.
+     */
+    CompletableFuture<Long> nextTokenAsync(Set<UUID> streams, long numTokens, Map<UUID, Long> readSet);
+
     /**  Asynchronously retrieve the next token in the sequence for a particular stream.
      * @param stream        The stream to retrieve the next token for.
      * @param numTokens     The number of tokens to acquire, 0 means to just fetch the head of the stream.
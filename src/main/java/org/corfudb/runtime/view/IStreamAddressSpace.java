@@ -4,11 +4,14 @@ import lombok.*;
 import org.corfudb.infrastructure.thrift.Hint;
 import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.entries.IStreamEntry;
+import org.corfudb.runtime.protocols.logunits.INewWriteOnceLogUnit;
 import org.corfudb.runtime.stream.ITimestamp;
 import org.corfudb.runtime.stream.SimpleTimestamp;
+import org.corfudb.util.serializer.CompressionDictionary;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * A stream address space is a write-once address space which is fully stream-aware.
@@ -40,11 +43,61 @@ public interface IStreamAddressSpace {
      * This class represents an entry in a stream address space.
      */
     @Data
-    @AllArgsConstructor
-    @RequiredArgsConstructor
     class StreamAddressSpaceEntry<T> implements IStreamEntry
     {
 
+        public StreamAddressSpaceEntry(@NonNull Set<UUID> streams, Long globalIndex,
+                                       StreamAddressEntryCode code, T payload)
+        {
+            this.streams = streams;
+            this.globalIndex = globalIndex;
+            this.code = code;
+            this.payload = payload;
+            this.source = null;
+        }
+
+        public StreamAddressSpaceEntry(@NonNull Set<UUID> streams, Set<Hint> hints, Long globalIndex,
+                                       StreamAddressEntryCode code, ITimestamp logicalTimestamp, T payload)
+        {
+            this(streams, globalIndex, code, payload);
+            this.hints = hints;
+            this.logicalTimestamp = logicalTimestamp;
+        }
+
+        /**
+         * This constructor is for entries whose payload is deserialized from a read only when it
+         * is first asked for.
+         * @param streams       The streams this entry belongs to.
+         * @param globalIndex   The global index (address) for this entry.
+         * @param source        The read which holds the serialized payload.
+         */
+        public StreamAddressSpaceEntry(@NonNull Set<UUID> streams, Long globalIndex,
+                                       INewWriteOnceLogUnit.ReadResult source)
+        {
+            this.streams = streams;
+            this.globalIndex = globalIndex;
+            this.code = StreamAddressEntryCode.DATA;
+            this.source = source;
+        }
+
+        /**
+         * This constructor copies an entry, without its logical timestamp. The copy shares the
+         * payload of the original, and does not deserialize it.
+         * @param other         The entry to copy.
+         */
+        public StreamAddressSpaceEntry(StreamAddressSpaceEntry<T> other)
+        {
+            synchronized (other)
+            {
+                this.streams = other.streams;
+                this.hints = other.hints;
+                this.globalIndex = other.globalIndex;
+                this.code = other.code;
+                this.payload = other.payload;
+                this.source = other.source;
+            }
+        }
+
         /**
          * This constructor is for generating classes which contain a code only (i.e, trimmed)
          * @param codeOnly
@@ -84,9 +137,50 @@ public interface IStreamAddressSpace {
         ITimestamp logicalTimestamp = ITimestamp.getInvalidTimestamp();
 
         /**
-         * The deserialized version of the payload.
+         * The deserialized version of the payload, once it has been deserialized.
+         */
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        private T payload;
+
+        /**
+         * The read which holds the serialized payload, until it has been deserialized.
+         */
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        private INewWriteOnceLogUnit.ReadResult source;
+
+        /**
+         * Get the payload, deserializing it if this is the first time it is asked for.
+         *
+         * @return The deserialized payload.
          */
-        private final T payload;
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized T getPayload() {
+            if (source != null)
+            {
+                payload = (T) source.getPayload();
+                source = null;
+                if (payload instanceof CompressionDictionary)
+                {
+                    // Record where the dictionary is, so payloads compressed with it can name it.
+                    ((CompressionDictionary) payload).setAddress(globalIndex);
+                }
+            }
+            return payload;
+        }
+
+        /**
+         * Release the buffer the payload was read into, if it has not been deserialized. The
+         * payload can still be read afterwards.
+         */
+        public synchronized void release() {
+            if (source != null)
+            {
+                source.release();
+            }
+        }
 
         /**
          * Gets the list of of the streams this entry belongs to.
@@ -177,6 +271,32 @@ public interface IStreamAddressSpace {
         return readAsync(offset).get();
     }
 
+    /**
+     * Asynchronously read a range of the stream address space, once, regardless of which
+     * streams the entries belong to. Addresses which have not been written are omitted.
+     * Every address in the range is requested at once, and the whole range is held in
+     * memory, so large ranges should be read in windows.
+     * @param start     The first offset (global index) to read, inclusive.
+     * @param end       The last offset (global index) to read, exclusive.
+     * @return          A map from offset to the entry at that offset.
+     */
+    default CompletableFuture<NavigableMap<Long, StreamAddressSpaceEntry>> readRangeAsync(long start, long end)
+    {
+        NavigableMap<Long, StreamAddressSpaceEntry> entries = new ConcurrentSkipListMap<>();
+        List<CompletableFuture<Void>> requestList = new ArrayList<>();
+        for (long i = start; i < end; i++)
+        {
+            final long offset = i;
+            requestList.add(readAsync(offset).thenAccept(e -> {
+                if (e != null) {
+                    entries.put(offset, e);
+                }
+            }));
+        }
+        return CompletableFuture.allOf(requestList.toArray(new CompletableFuture[requestList.size()]))
+                .thenApply(v -> entries);
+    }
+
     /**
      * Trim a prefix of a stream.
      * @param stream    The ID of the stream to be trimmed.
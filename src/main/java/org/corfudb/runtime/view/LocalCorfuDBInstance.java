@@ -11,6 +11,7 @@ import org.corfudb.runtime.objects.CorfuObjectByteBuddyProxy;
 import org.corfudb.runtime.objects.CorfuObjectRuntimeProcessor;
 import org.corfudb.runtime.smr.*;
 import org.corfudb.runtime.stream.*;
+import org.corfudb.util.collections.IndexedHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +29,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class LocalCorfuDBInstance implements ICorfuDBInstance {
 
+    /** The number of addresses read at a time by a bulk open of objects. */
+    static final int OPEN_WINDOW_SIZE = 1000;
+
     // Members of this CorfuDBInstance
     private IConfigurationMaster configMaster;
     private IStreamingSequencer streamingSequencer;
@@ -76,6 +80,32 @@ public class LocalCorfuDBInstance implements ICorfuDBInstance {
         this.cdr = cdr;
     }
 
+    /**
+     * Stop the background tasks of the engines of this instance, and write any pending batches.
+     */
+    void stopEngines() {
+        this.baseEngineMap.values().stream()
+                .filter(e -> e instanceof TailingSMREngine)
+                .forEach(e -> ((TailingSMREngine) e).stopTailing());
+        this.baseEngineMap.values().stream()
+                .filter(e -> e instanceof WriteBehindSMREngine)
+                .forEach(e -> {
+                    try {
+                        ((WriteBehindSMREngine) e).flush();
+                    } catch (Exception ex) {
+                        log.error("Failed to write pending batch of stream {}.", e.getStreamID(), ex);
+                    }
+                });
+    }
+
+    /**
+     * Close this instance, stopping the background tasks of its objects.
+     */
+    @Override
+    public void close() {
+        stopEngines();
+    }
+
     /**
      * Gets a configuration master for this instance.
      *
@@ -133,6 +163,7 @@ public class LocalCorfuDBInstance implements ICorfuDBInstance {
      * Resets all local caches.
      */
     public void resetAllCaches() {
+        stopEngines();
         this.objectMap.clear();
         this.baseEngineMap.clear();
         this.localStreamMap.clear();
@@ -181,6 +212,42 @@ public class LocalCorfuDBInstance implements ICorfuDBInstance {
             }
         });
     }
+
+    /**
+     * Gets the base engine for an object, replacing the current base engine if it is not
+     * of the requested type. A replacement engine replays the stream from the beginning.
+     *
+     * @param id                The unique ID of the object.
+     * @param smrType           The type of SMR engine to use.
+     * @param underlyingType    The type of the state of the object.
+     * @param t                 The object the engine implements.
+     * @return                  A base engine of the requested type.
+     */
+    @SuppressWarnings("unchecked")
+    ISMREngine getBaseEngine(UUID id, Class<? extends ISMREngine> smrType, Class<?> underlyingType, ICorfuDBObject t) {
+        return baseEngineMap.compute(id, (k, e) -> {
+            if (e != null && e.getClass().equals(smrType)) { return e; }
+            try {
+                if (e instanceof TailingSMREngine) {
+                    ((TailingSMREngine) e).stopTailing();
+                }
+                IStream s = e == null ? openStream(k) : openStream(k, EnumSet.of(OpenStreamFlags.NON_CACHED));
+                ISMREngine e1 = smrType.getConstructor(IStream.class, Class.class, Class[].class)
+                        .newInstance(s, underlyingType, new Class[0]);
+                e1.setImplementingObject(t);
+                if (e1 instanceof TailingSMREngine) {
+                    ((TailingSMREngine) e1).start();
+                }
+                return e1;
+            }
+            catch (NoSuchMethodException | InstantiationException | IllegalAccessException
+                    | InvocationTargetException ex)
+            {
+                throw new RuntimeException(ex);
+            }
+        });
+    }
+
     /**
      * Delete a stream given its identifier using this instance.
      *
@@ -227,17 +294,41 @@ public class LocalCorfuDBInstance implements ICorfuDBInstance {
         Class<? extends ISMREngine> smrType = oargs.smrType == null ? SimpleSMREngine.class : oargs.smrType;
 
         if (!oargs.typeCheck && cachedObject != null)
-            return cachedObject;
+            return registerIndexes(cachedObject, oargs);
         else {
             if (!oargs.createNew && cachedObject != null && cachedObject.getUnderlyingSMREngine().getClass().equals(smrType)) {
-                return cachedObject;
+                return registerIndexes(cachedObject, oargs);
             }
         }
 
         try {
             T returnObject = CorfuObjectByteBuddyProxy.getProxy().getObject(oargs.type, this, id);
+            if (oargs.smrType != null)
+            {
+                getBaseEngine(id, oargs.smrType, returnObject.getUnderlyingType(), returnObject);
+            }
+            if (oargs.maxStaleness > 0)
+            {
+                ISMREngine engine = returnObject.getUnderlyingSMREngine();
+                if (engine instanceof SimpleSMREngine)
+                {
+                    ((SimpleSMREngine) engine).setMaxStaleness(oargs.maxStaleness);
+                }
+            }
+            if (returnObject.getUnderlyingSMREngine() instanceof WriteBehindSMREngine)
+            {
+                WriteBehindSMREngine engine = (WriteBehindSMREngine) returnObject.getUnderlyingSMREngine();
+                if (oargs.writeBehindBatchSize > 0)
+                {
+                    engine.setMaxBatchSize(oargs.writeBehindBatchSize);
+                }
+                if (oargs.writeBehindMicros > 0)
+                {
+                    engine.setMaxDelayMicros(oargs.writeBehindMicros);
+                }
+            }
             objectMap.put(id, returnObject);
-            return returnObject;
+            return registerIndexes(returnObject, oargs);
         }
         catch (Exception e)
         {
@@ -245,6 +336,95 @@ public class LocalCorfuDBInstance implements ICorfuDBInstance {
         }
     }
 
+    /**
+     * Registers the secondary indexes requested by the open arguments on an object.
+     *
+     * @param object The object to register the indexes on.
+     * @param oargs  The arguments the object was opened with.
+     * @return The object.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends ICorfuDBObject> T registerIndexes(T object, OpenObjectArgs<T> oargs) {
+        if (oargs.indexes.isEmpty())
+        {
+            return object;
+        }
+        if (!(object instanceof CDBSimpleMap))
+        {
+            throw new UnsupportedOperationException("Secondary indexes are only supported on CDBSimpleMap.");
+        }
+        for (IndexedHashMap.IndexDefinition<?> definition : oargs.indexes)
+        {
+            ((CDBSimpleMap) object).registerIndex(definition);
+        }
+        return object;
+    }
+
+    /**
+     * Retrieves a set of corfuDB objects together. The union of the objects' log ranges is
+     * read once through the stream address space, in windows of OPEN_WINDOW_SIZE addresses,
+     * and each object's engine replays the entries of each window in parallel on the common
+     * fork join pool. The next window is read while the current one is replayed.
+     *
+     * @param ids   The unique IDs of the objects to be retrieved.
+     * @param oargs The arguments to open each object with.
+     * @return A map from each ID to its CorfuDB object.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends ICorfuDBObject> Map<UUID, T> openObjects(Set<UUID> ids, OpenObjectArgs<T> oargs) {
+        Map<UUID, T> objects = new HashMap<>();
+        ids.forEach(id -> objects.put(id, openObject(id, oargs)));
+
+        List<SimpleSMREngine> engines = objects.values().stream()
+                .map(ICorfuDBObject::getUnderlyingSMREngine)
+                .filter(e -> e instanceof SimpleSMREngine)
+                .map(e -> (SimpleSMREngine) e)
+                .distinct()
+                .collect(Collectors.toList());
+        if (engines.isEmpty())
+        {
+            return objects;
+        }
+
+        long start = engines.stream()
+                .map(e -> e.getStream().getCurrentPosition())
+                .mapToLong(t -> ITimestamp.isMin(t) ? 0L : ((SimpleTimestamp) t).address + 1)
+                .min().getAsLong();
+        long tail = getNewStreamingSequencer().nextTokenAsync(ids, 0).join();
+        if (start >= tail)
+        {
+            return objects;
+        }
+
+        log.debug("Bulk open of {} objects, replaying {} to {}", engines.size(), start, tail);
+        // Read in windows, so only the window being replayed and the one being read are in memory.
+        CompletableFuture<NavigableMap<Long, IStreamAddressSpace.StreamAddressSpaceEntry>> next =
+                streamAddressSpace.readRangeAsync(start, Math.min(start + OPEN_WINDOW_SIZE, tail));
+        for (long windowStart = start; windowStart < tail; windowStart += OPEN_WINDOW_SIZE)
+        {
+            long windowEnd = Math.min(windowStart + OPEN_WINDOW_SIZE, tail);
+            NavigableMap<Long, IStreamAddressSpace.StreamAddressSpaceEntry> entries = next.join();
+            if (windowEnd < tail)
+            {
+                next = streamAddressSpace.readRangeAsync(windowEnd, Math.min(windowEnd + OPEN_WINDOW_SIZE, tail));
+            }
+            // Only replay up to the first unwritten address, accessors will fill holes as they sync.
+            long end = windowStart;
+            while (end < windowEnd && entries.containsKey(end)) { end++; }
+
+            final ITimestamp point = new SimpleTimestamp(end);
+            engines.parallelStream()
+                    .forEach(e -> e.syncPrefetched(point, entries));
+            if (end < windowEnd)
+            {
+                log.debug("Bulk open stopped at unwritten address {}", end);
+                break;
+            }
+        }
+        return objects;
+    }
+
     /**
      * Executes a transaction against the CorfuDB instance.
      *
@@ -255,20 +435,14 @@ public class LocalCorfuDBInstance implements ICorfuDBInstance {
     @Override
     public <T> T executeTransaction(Class<? extends ITransaction> type, ITransactionCommand<T> command) {
         try {
-            ITransaction tx = type.getConstructor(ICorfuDBInstance.class).newInstance(this);
+            ITransaction<T> tx = type.getConstructor(ICorfuDBInstance.class).newInstance(this);
             tx.setTransaction(command);
-            CompletableFuture<T> c = new CompletableFuture<>();
-            tx.propose();
-            return c.join();
+            return tx.execute();
         }
         catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e )
         {
             throw new RuntimeException(e);
         }
-        catch (IOException e)
-        {
-            throw new RuntimeException(e);
-        }
     }
 
     /**
@@ -278,4 +452,25 @@ public class LocalCorfuDBInstance implements ICorfuDBInstance {
     public void invalidateView() {
         cdr.invalidateViewAndWait(null);
     }
+
+    /**
+     * Invalidate the current view without waiting for it to be refreshed.
+     *
+     * @return A future which completes with the next valid view.
+     */
+    @Override
+    public CompletableFuture<CorfuDBView> invalidateViewAsync() {
+        return cdr.invalidateViewAsync(null);
+    }
+
+    /**
+     * Get the current view without blocking.
+     *
+     * @return A future which completes with the current view, or with the next valid view if
+     * the view is being refreshed.
+     */
+    @Override
+    public CompletableFuture<CorfuDBView> getViewAsync() {
+        return cdr.getViewAsync();
+    }
 }
@@ -1,15 +1,23 @@
 package org.corfudb.runtime.view;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.exceptions.TransactionAbortedException;
 import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.protocols.IServerProtocol;
 import org.corfudb.runtime.protocols.sequencers.INewStreamSequencer;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Created by mwei on 9/16/15.
@@ -18,6 +26,23 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class NewStreamingSequencer implements INewStreamingSequencer{
 
+    /** The number of times a failed token request is retried before it fails. */
+    static final int MAX_RETRIES = 10;
+
+    /** The delay, in milliseconds, before the first retry of a failed token request. */
+    static final long RETRY_DELAY_MILLIS = 10;
+
+    /** The longest delay, in milliseconds, between retries of a failed token request. */
+    static final long MAX_RETRY_DELAY_MILLIS = 1000;
+
+    /** The executor which schedules delayed retries. */
+    static final ScheduledExecutorService retryExecutor =
+            Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder()
+                            .setDaemon(true)
+                            .setNameFormat("sequencer-retry-%d")
+                            .build());
+
     final ICorfuDBInstance instance;
 
     /**
@@ -26,13 +51,77 @@ public class NewStreamingSequencer implements INewStreamingSequencer{
      */
     INewStreamSequencer getProtocol()
     {
-        List<IServerProtocol> lp = instance.getView().getSequencers();
+        return getProtocol(instance.getView());
+    }
+
+    /**
+     * Get the protocol for the streaming sequencer of a view.
+     * @param view  The view to get the streaming sequencer from.
+     * @return  An INewStreamingSequencer representing the streaming sequencer of the view.
+     */
+    static INewStreamSequencer getProtocol(CorfuDBView view)
+    {
+        List<IServerProtocol> lp = view.getSequencers();
         if (lp.size() < 1) { throw new RuntimeException("Invalid configuration, no sequencers available"); }
         if (!(lp.get(0) instanceof INewStreamSequencer)) {throw new RuntimeException("NewStreamingSequencer " +
                 "only supports INewStreamSequencer, primary sequencer is of type " + lp.get(0).getClass());}
             return (INewStreamSequencer)lp.get(0);
     }
 
+    /**
+     * Get the view to retry a failed request against. A WrongEpochException invalidates the
+     * current view, and the retry waits for the next one. Retries are composed asynchronously
+     * on these futures, so they never run on, or block, a Netty event loop or the view manager.
+     *
+     * @param base  The exception the request failed with.
+     * @return      A future which completes with the view to retry against.
+     */
+    CompletableFuture<CorfuDBView> retryView(Throwable base)
+    {
+        return base instanceof WrongEpochException ? instance.invalidateViewAsync() : instance.getViewAsync();
+    }
+
+    /**
+     * Retry a failed request. A WrongEpochException is retried as soon as the next view is
+     * available. Other errors are retried after a delay which doubles with each attempt, and
+     * the request fails once MAX_RETRIES attempts have failed.
+     *
+     * @param e         The exception the request failed with.
+     * @param attempt   The number of the attempt which failed, starting at 0.
+     * @param request   The request to retry, given the view to retry against.
+     * @return          A future which completes with the result of the retry, or exceptionally,
+     *                  if the request is not retried.
+     */
+    CompletableFuture<Long> retry(Throwable e, int attempt, Function<CorfuDBView, CompletableFuture<Long>> request)
+    {
+        Throwable base = e instanceof CompletionException ? e.getCause() : e;
+        if (attempt >= MAX_RETRIES || base instanceof IllegalArgumentException)
+        {
+            log.error("Token request failed after {} attempts.", attempt + 1, e);
+            CompletableFuture<Long> failed = new CompletableFuture<>();
+            failed.completeExceptionally(base);
+            return failed;
+        }
+        if (base instanceof WrongEpochException)
+        {
+            return retryView(base).thenComposeAsync(request);
+        }
+        log.warn("Token request failed, retrying (attempt {}).", attempt + 1, e);
+        CompletableFuture<Long> retried = new CompletableFuture<>();
+        long delay = Math.min(RETRY_DELAY_MILLIS << attempt, MAX_RETRY_DELAY_MILLIS);
+        retryExecutor.schedule(() -> {
+            retryView(base).thenComposeAsync(request)
+                    .whenComplete((token, re) -> {
+                        if (re != null) {
+                            retried.completeExceptionally(re);
+                        } else {
+                            retried.complete(token);
+                        }
+                    });
+        }, delay, TimeUnit.MILLISECONDS);
+        return retried;
+    }
+
     /**
      * Asynchronously retrieve the next token in the sequence, given a set of streams.
      *
@@ -42,22 +131,56 @@ public class NewStreamingSequencer implements INewStreamingSequencer{
      */
     @Override
     public CompletableFuture<Long> nextTokenAsync(Set<UUID> streams, long numTokens) {
-        return getProtocol().getNext(streams, numTokens)
-                .exceptionally(e -> {
-                    try {
-                        Throwable base = e.getCause();
-                        log.error("Exception during nextTokenAsync, retrying.", e);
-                        if (base instanceof WrongEpochException)
-                        {
-                            instance.invalidateView();
-                        }
-                        return nextTokenAsync(streams, numTokens).get();
+        return nextTokenAsync(getProtocol(), streams, numTokens, 0);
+    }
+
+    CompletableFuture<Long> nextTokenAsync(INewStreamSequencer sequencer, Set<UUID> streams, long numTokens,
+                                           int attempt) {
+        return sequencer.getNext(streams, numTokens)
+                .handle((token, e) -> {
+                    if (e == null)
+                    {
+                        return CompletableFuture.completedFuture(token);
+                    }
+                    return retry(e, attempt, v -> nextTokenAsync(getProtocol(v), streams, numTokens, attempt + 1));
+                })
+                .thenCompose(f -> f);
+    }
+
+    /**
+     * Asynchronously retrieve the next token in the sequence, given a set of streams, only if
+     * none of the streams in the read set have been issued a token past the version read.
+     * Rejections are not retried, since retrying with the same read set would fail again.
+     *
+     * @param streams   The set of streams to retrieve the next token for.
+     * @param numTokens The number of tokens to acquire, 0 means to just fetch the head of the stream.
+     * @param readSet   The version of each stream read, as returned by nextTokenAsync for 0 tokens.
+     * @return The next token in the sequence, or a future which completes exceptionally
+     * with a TransactionAbortedException if the read set is out of date.
+     */
+    @Override
+    public CompletableFuture<Long> nextTokenAsync(Set<UUID> streams, long numTokens, Map<UUID, Long> readSet) {
+        return nextTokenAsync(getProtocol(), streams, numTokens, readSet, 0);
+    }
+
+    CompletableFuture<Long> nextTokenAsync(INewStreamSequencer sequencer, Set<UUID> streams, long numTokens,
+                                           Map<UUID, Long> readSet, int attempt) {
+        return sequencer.getNext(streams, numTokens, readSet)
+                .handle((token, e) -> {
+                    if (e == null)
+                    {
+                        return CompletableFuture.completedFuture(token);
                     }
-                    catch (Exception ex)
+                    Throwable base = e instanceof CompletionException ? e.getCause() : e;
+                    if (base instanceof TransactionAbortedException)
                     {
-                        log.error("Caught an exception during nextTokenAsync", ex);
-                        throw new RuntimeException(ex);
+                        CompletableFuture<Long> rejected = new CompletableFuture<>();
+                        rejected.completeExceptionally(base);
+                        return rejected;
                     }
-                });
+                    return retry(e, attempt,
+                            v -> nextTokenAsync(getProtocol(v), streams, numTokens, readSet, attempt + 1));
+                })
+                .thenCompose(f -> f);
     }
 }
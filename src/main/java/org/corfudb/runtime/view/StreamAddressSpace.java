@@ -2,12 +2,14 @@ package org.corfudb.runtime.view;
 
 import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalNotification;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.infrastructure.thrift.ReadCode;
 import org.corfudb.runtime.protocols.IServerProtocol;
 import org.corfudb.runtime.protocols.logunits.INewWriteOnceLogUnit;
+import org.corfudb.util.serializer.CompressionDictionary;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -71,7 +73,9 @@ public class StreamAddressSpace implements IStreamAddressSpace {
                     switch (r.getResult()) {
                         case DATA:
                             log.trace("Load[{}]: Data", index);
-                            return new StreamAddressSpaceEntry(r.getStreams(), index, StreamAddressEntryCode.DATA, r.getPayload());
+                            // The payload is only deserialized when it is consumed.
+                            r.setDictionaryLoader(this::readDictionary);
+                            return new StreamAddressSpaceEntry(r.getStreams(), index, r);
                         case EMPTY:
                             //self invalidate
                             log.trace("Load[{}]: Empty", index);
@@ -84,6 +88,18 @@ public class StreamAddressSpace implements IStreamAddressSpace {
                 });
     }
 
+    /**
+     * Read the compression dictionary at an address of this address space.
+     * @param address   The address of the dictionary.
+     * @return          The dictionary, or null, if there is no dictionary at the address.
+     */
+    CompressionDictionary readDictionary(long address)
+    {
+        StreamAddressSpaceEntry entry = read(address);
+        return entry != null && entry.getPayload() instanceof CompressionDictionary ?
+                (CompressionDictionary) entry.getPayload() : null;
+    }
+
     /**
      * This constructor builds a default stream address space with a LRU cache of 10,000 entries.
      * @param instance     The Corfu instance that this StreamAddressSpace serves.
@@ -104,6 +120,13 @@ public class StreamAddressSpace implements IStreamAddressSpace {
         AtomicInteger threadNum = new AtomicInteger();
         return Caffeine.newBuilder()
                 .maximumSize(10_000)
+                .removalListener((RemovalNotification<Long, StreamAddressSpaceEntry> n) -> {
+                    // Free the buffer of any entry which was evicted before it was consumed.
+                    if (n.getValue() != null)
+                    {
+                        n.getValue().release();
+                    }
+                })
                 .executor(Executors.newFixedThreadPool(8, new ThreadFactory() {
                     @Override
                     public Thread newThread(Runnable runnable) {
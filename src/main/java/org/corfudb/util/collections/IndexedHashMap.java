@@ -0,0 +1,454 @@
+package org.corfudb.util.collections;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.serializers.MapSerializer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A concurrent hash map which maintains secondary indexes over its values.
+ *
+ * An index maps the attribute extracted from each value to the keys holding values with that
+ * attribute, so looking entries up by attribute does not scan the map. Indexes are kept up to
+ * date by the mutating methods of the map as they are applied; values must not be changed in
+ * place, and removals made through the iterators of the views are not indexed. Until an index
+ * is defined, the mutating methods neither lock nor reindex, so a map without indexes costs
+ * about as much as a plain concurrent hash map.
+ *
+ * Index definitions hold functions, so they are not serialized with the map. A copy made by Kryo
+ * keeps the definitions of the original, and a map read from a buffer has no indexes until
+ * they are defined again.
+ */
+@DefaultSerializer(IndexedHashMap.IndexedHashMapSerializer.class)
+public class IndexedHashMap<K,V> extends ConcurrentHashMap<K,V> {
+
+    /** The definition of a secondary index. */
+    @Getter
+    @RequiredArgsConstructor
+    public static class IndexDefinition<V> {
+        /** The name the index is looked up by. */
+        final String name;
+        /** Extracts the index key from a value. Values for which it returns null are not indexed. */
+        final Function<? super V, ?> extractor;
+        /** Whether the index keys are ordered, which allows range lookups. The index keys must be Comparable. */
+        final boolean sorted;
+
+        /** Define an index supporting lookups by equality. */
+        public static <V> IndexDefinition<V> hash(String name, Function<? super V, ?> extractor)
+        {
+            return new IndexDefinition<>(name, extractor, false);
+        }
+
+        /** Define an index supporting lookups by equality and by range. */
+        public static <V> IndexDefinition<V> sorted(String name, Function<? super V, ?> extractor)
+        {
+            return new IndexDefinition<>(name, extractor, true);
+        }
+    }
+
+    /** A secondary index, from index keys to the keys of the map. */
+    public static class Index<K,V> {
+        @Getter
+        final IndexDefinition<V> definition;
+        final ConcurrentMap<Object, Set<K>> entries;
+
+        Index(IndexDefinition<V> definition)
+        {
+            this.definition = definition;
+            this.entries = definition.sorted ? new ConcurrentSkipListMap<>() : new ConcurrentHashMap<>();
+        }
+
+        void add(K key, V value)
+        {
+            Object indexKey = definition.extractor.apply(value);
+            if (indexKey != null)
+            {
+                entries.computeIfAbsent(indexKey, k -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+
+        void remove(K key, V value)
+        {
+            Object indexKey = definition.extractor.apply(value);
+            if (indexKey != null)
+            {
+                entries.computeIfPresent(indexKey, (k, keys) -> {
+                    keys.remove(key);
+                    return keys.isEmpty() ? null : keys;
+                });
+            }
+        }
+
+        /**
+         * Get the keys of the entries whose values have the given index key.
+         * @param indexKey  The index key to look up.
+         * @return          The keys of the matching entries.
+         */
+        public Set<K> get(Object indexKey)
+        {
+            return entries.getOrDefault(indexKey, Collections.emptySet());
+        }
+
+        /**
+         * Get the keys of the entries whose index keys fall in a range, ordered by index key.
+         * @param from  The lowest index key to return, inclusive.
+         * @param to    The highest index key to return, exclusive.
+         * @return      A map from each index key in the range to the keys of the matching entries.
+         */
+        @SuppressWarnings("unchecked")
+        public NavigableMap<Object, Set<K>> range(Object from, Object to)
+        {
+            if (!definition.sorted)
+            {
+                throw new UnsupportedOperationException("Index " + definition.name + " is not sorted.");
+            }
+            return ((ConcurrentSkipListMap<Object, Set<K>>) entries).subMap(from, true, to, false);
+        }
+    }
+
+    final transient Map<String, Index<K,V>> indexes = new ConcurrentHashMap<>();
+
+    /** Whether the map has, or had, indexes. Until it does, mutations neither lock nor reindex. */
+    transient volatile boolean indexed = false;
+
+    /** The number of mutations in progress which do not lock, since the map had no indexes. */
+    final transient LongAdder unindexedMutations = new LongAdder();
+
+    /**
+     * Begin a mutation which does not need to lock or reindex, if the map has no indexes.
+     * An index is only built once every such mutation has finished, so none is missed.
+     * @return  True, if the mutation may proceed without locking, in which case
+     *          endUnindexed must be called once it has finished.
+     */
+    boolean beginUnindexed()
+    {
+        if (indexed)
+        {
+            return false;
+        }
+        unindexedMutations.increment();
+        if (indexed)
+        {
+            unindexedMutations.decrement();
+            return false;
+        }
+        return true;
+    }
+
+    void endUnindexed()
+    {
+        unindexedMutations.decrement();
+    }
+
+    /**
+     * Get the index with the given definition, building it from the contents of the map
+     * if it does not exist, or if the index of that name has a different definition.
+     * @param definition    The definition of the index.
+     * @return              The index.
+     */
+    public Index<K,V> index(IndexDefinition<V> definition)
+    {
+        Index<K,V> index = indexes.get(definition.name);
+        if (index != null && index.definition == definition)
+        {
+            return index;
+        }
+        synchronized (this)
+        {
+            if (!indexed)
+            {
+                indexed = true;
+                // Wait for mutations which started without locking to finish.
+                while (unindexedMutations.sum() != 0)
+                {
+                    Thread.yield();
+                }
+            }
+            index = indexes.get(definition.name);
+            if (index == null || index.definition != definition)
+            {
+                index = new Index<>(definition);
+                for (Map.Entry<K,V> e : entrySet())
+                {
+                    index.add(e.getKey(), e.getValue());
+                }
+                indexes.put(definition.name, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Drop an index.
+     * @param name  The name of the index to drop.
+     */
+    public synchronized void dropIndex(String name)
+    {
+        indexes.remove(name);
+        if (indexes.isEmpty())
+        {
+            indexed = false;
+        }
+    }
+
+    /** Move a key from the index entries of its old value to those of its new value. */
+    void reindex(K key, V oldValue, V newValue)
+    {
+        if (oldValue == newValue)
+        {
+            return;
+        }
+        for (Index<K,V> index : indexes.values())
+        {
+            if (oldValue != null)
+            {
+                index.remove(key, oldValue);
+            }
+            if (newValue != null)
+            {
+                index.add(key, newValue);
+            }
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (beginUnindexed())
+        {
+            try { return super.put(key, value); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.put(key, value);
+            reindex(key, old, value);
+            return old;
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (beginUnindexed())
+        {
+            try { return super.putIfAbsent(key, value); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.putIfAbsent(key, value);
+            if (old == null)
+            {
+                reindex(key, null, value);
+            }
+            return old;
+        }
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+        {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (beginUnindexed())
+        {
+            try { return super.remove(key); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.remove(key);
+            reindex((K) key, old, null);
+            return old;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object key, Object value) {
+        if (beginUnindexed())
+        {
+            try { return super.remove(key, value); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.get(key);
+            if (super.remove(key, value))
+            {
+                reindex((K) key, old, null);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (beginUnindexed())
+        {
+            try { return super.replace(key, value); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.replace(key, value);
+            reindex(key, old, old == null ? null : value);
+            return old;
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (beginUnindexed())
+        {
+            try { return super.replace(key, oldValue, newValue); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.get(key);
+            if (super.replace(key, oldValue, newValue))
+            {
+                reindex(key, old, newValue);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (beginUnindexed())
+        {
+            try { return super.computeIfAbsent(key, mappingFunction); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.get(key);
+            V result = super.computeIfAbsent(key, mappingFunction);
+            reindex(key, old, result);
+            return result;
+        }
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (beginUnindexed())
+        {
+            try { return super.computeIfPresent(key, remappingFunction); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.get(key);
+            V result = super.computeIfPresent(key, remappingFunction);
+            reindex(key, old, result);
+            return result;
+        }
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (beginUnindexed())
+        {
+            try { return super.compute(key, remappingFunction); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.get(key);
+            V result = super.compute(key, remappingFunction);
+            reindex(key, old, result);
+            return result;
+        }
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (beginUnindexed())
+        {
+            try { return super.merge(key, value, remappingFunction); } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            V old = super.get(key);
+            V result = super.merge(key, value, remappingFunction);
+            reindex(key, old, result);
+            return result;
+        }
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        if (beginUnindexed())
+        {
+            try { super.replaceAll(function); return; } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            super.replaceAll(function);
+            List<IndexDefinition<V>> definitions = new ArrayList<>();
+            for (Index<K,V> index : indexes.values())
+            {
+                definitions.add(index.definition);
+            }
+            indexes.clear();
+            for (IndexDefinition<V> definition : definitions)
+            {
+                index(definition);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (beginUnindexed())
+        {
+            try { super.clear(); return; } finally { endUnindexed(); }
+        }
+        synchronized (this)
+        {
+            super.clear();
+            for (Index<K,V> index : indexes.values())
+            {
+                index.entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Serializes the contents of the map as any other map. Copies keep the index definitions
+     * of the original, and are reindexed as the contents are copied in.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static class IndexedHashMapSerializer extends MapSerializer {
+
+        @Override
+        protected Map create(Kryo kryo, Input input, Class<Map> type) {
+            return new IndexedHashMap();
+        }
+
+        @Override
+        protected Map createCopy(Kryo kryo, Map original) {
+            IndexedHashMap copy = new IndexedHashMap();
+            for (Object index : ((IndexedHashMap) original).indexes.values())
+            {
+                copy.index(((Index) index).definition);
+            }
+            return copy;
+        }
+    }
+}
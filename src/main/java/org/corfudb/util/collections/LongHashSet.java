@@ -0,0 +1,60 @@
+package org.corfudb.util.collections;
+
+/**
+ * An open addressing hash set of primitive longs.
+ */
+public class LongHashSet extends LongHashTable {
+
+    public LongHashSet()
+    {
+        this(MIN_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize)
+    {
+        super(expectedSize);
+    }
+
+    @Override
+    void allocateValues(int capacity) {
+    }
+
+    @Override
+    Object saveValues() {
+        return null;
+    }
+
+    @Override
+    void restoreValue(Object saved, int from, int to) {
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+    }
+
+    @Override
+    void clearValue(int slot) {
+    }
+
+    /**
+     * Add a value to the set.
+     * @param value The value to add.
+     * @return      True, if the value was not already in the set.
+     */
+    public boolean add(long value)
+    {
+        int slot = find(value);
+        if (slot >= 0)
+        {
+            return false;
+        }
+        insert(value, slot);
+        return true;
+    }
+
+    /** Returns true if the set contains the given value. */
+    public boolean contains(long value)
+    {
+        return containsKey(value);
+    }
+}
@@ -0,0 +1,212 @@
+package org.corfudb.util.collections;
+
+/**
+ * The base of the open addressing hash tables keyed by primitive longs. Keys are stored
+ * unboxed in a single array and probed linearly. Removal shifts the following entries
+ * back instead of leaving tombstones, so lookups never degrade after deletes.
+ *
+ * Subclasses store their values in arrays parallel to the key array.
+ */
+public abstract class LongHashTable {
+
+    static final float LOAD_FACTOR = 0.75f;
+    static final int MIN_CAPACITY = 8;
+
+    long[] keys;
+    boolean[] used;
+    int size;
+    int mask;
+    int resizeAt;
+
+    LongHashTable(int expectedSize)
+    {
+        allocate(capacityFor(expectedSize));
+    }
+
+    static int capacityFor(int expectedSize)
+    {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize)
+        {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /** Spread the bits of a key (the murmur3 finalizer). */
+    static int mix(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        allocateValues(capacity);
+    }
+
+    /** Allocate the value arrays for the given capacity. */
+    abstract void allocateValues(int capacity);
+
+    /** Save the value arrays before a rehash. */
+    abstract Object saveValues();
+
+    /** Copy a value from the saved value arrays into a slot. */
+    abstract void restoreValue(Object saved, int from, int to);
+
+    /** Move a value from one slot to another, during removal. */
+    abstract void moveValue(int from, int to);
+
+    /** Clear the value in a slot, so it can be collected. */
+    abstract void clearValue(int slot);
+
+    /**
+     * Find the slot of a key.
+     * @param key   The key to find.
+     * @return      The slot of the key, or if the key is absent, -(the slot to insert it at) - 1.
+     */
+    int find(long key)
+    {
+        int i = mix(key) & mask;
+        while (used[i])
+        {
+            if (keys[i] == key)
+            {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -i - 1;
+    }
+
+    /**
+     * Insert a key which is absent from the table.
+     * @param key   The key to insert.
+     * @param slot  The result of find() for the key.
+     * @return      The slot the key was inserted at.
+     */
+    int insert(long key, int slot)
+    {
+        if (size >= resizeAt)
+        {
+            rehash(keys.length << 1);
+            slot = find(key);
+        }
+        slot = -slot - 1;
+        used[slot] = true;
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        Object oldValues = saveValues();
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldUsed[i])
+            {
+                int slot = -find(oldKeys[i]) - 1;
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                restoreValue(oldValues, i, slot);
+            }
+        }
+    }
+
+    /** Remove the entry in a slot, shifting back any entries displaced past it. */
+    void removeAt(int slot)
+    {
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        while (used[i])
+        {
+            int home = mix(keys[i]) & mask;
+            // the entry can fill the gap if its home is not cyclically within (gap, i].
+            if (((i - home) & mask) >= ((i - gap) & mask))
+            {
+                keys[gap] = keys[i];
+                moveValue(i, gap);
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        used[gap] = false;
+        clearValue(gap);
+        size--;
+    }
+
+    /** Returns the number of keys in the table. */
+    public int size()
+    {
+        return size;
+    }
+
+    /** Returns true if the table has no keys. */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /** Returns true if the table contains the given key. */
+    public boolean containsKey(long key)
+    {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Remove a key from the table.
+     * @param key   The key to remove.
+     * @return      True, if the key was present.
+     */
+    public boolean remove(long key)
+    {
+        int slot = find(key);
+        if (slot < 0)
+        {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    /** Remove every key from the table, keeping its capacity. */
+    public void clear()
+    {
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (used[i])
+            {
+                used[i] = false;
+                clearValue(i);
+            }
+        }
+        size = 0;
+    }
+
+    /** Returns a copy of the keys in the table, in no particular order. */
+    public long[] keys()
+    {
+        long[] result = new long[size];
+        int j = 0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (used[i])
+            {
+                result[j++] = keys[i];
+            }
+        }
+        return result;
+    }
+}
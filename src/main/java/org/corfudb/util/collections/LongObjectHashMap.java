@@ -0,0 +1,78 @@
+package org.corfudb.util.collections;
+
+/**
+ * An open addressing hash map from primitive longs to objects.
+ */
+public class LongObjectHashMap<V> extends LongHashTable {
+
+    Object[] values;
+
+    public LongObjectHashMap()
+    {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize)
+    {
+        super(expectedSize);
+    }
+
+    @Override
+    void allocateValues(int capacity) {
+        values = new Object[capacity];
+    }
+
+    @Override
+    Object saveValues() {
+        return values;
+    }
+
+    @Override
+    void restoreValue(Object saved, int from, int to) {
+        values[to] = ((Object[]) saved)[from];
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+        values[slot] = null;
+    }
+
+    /**
+     * Get the value of a key.
+     * @param key   The key to get.
+     * @return      The value of the key, or null if the key is absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key)
+    {
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Map a key to a value.
+     * @param key   The key to put.
+     * @param value The value to map it to.
+     * @return      The previous value of the key, or null if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value)
+    {
+        int slot = find(key);
+        if (slot >= 0)
+        {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        // insert may resize, which replaces the value array, so it must run before the array is read.
+        int inserted = insert(key, slot);
+        values[inserted] = value;
+        return null;
+    }
+}
@@ -0,0 +1,630 @@
+package org.corfudb.util.collections;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.corfudb.util.serializer.ISerializer;
+import org.corfudb.util.serializer.KryoSerializer;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map which keeps its keys and values serialized in direct memory, so that the contents
+ * of the map do not live on the Java heap and are never traced by the garbage collector.
+ *
+ * Records are appended to a list of direct segments, and chained from a bucket index which is
+ * itself held in direct memory. Keys are compared by their serialized form, so keys must serialize
+ * deterministically (strings, boxed primitives, UUIDs and the like do). Overwriting a value with
+ * one of the same serialized length is done in place; otherwise the old record becomes garbage,
+ * which is reclaimed by compacting the segments once it outweighs the live records.
+ *
+ * Reads deserialize a fresh copy of the value, so mutating a returned value does not change
+ * the map.
+ */
+@DefaultSerializer(OffHeapHashMap.OffHeapHashMapSerializer.class)
+public class OffHeapHashMap<K,V> extends AbstractMap<K,V> {
+
+    static final long NIL = -1L;
+    static final int SEGMENT_BITS = 30;
+    static final int MAX_SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    static final int INITIAL_SEGMENT_SIZE = 1 << 16;
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 26;
+    static final int MIN_BUCKETS = 16;
+    static final int MAX_BUCKETS = 1 << 28;
+    static final float LOAD_FACTOR = 0.75f;
+
+    // Record layout: next record in the chain, hash, key length, value length, key, value.
+    static final int NEXT = 0;
+    static final int HASH = 8;
+    static final int KEY_LENGTH = 12;
+    static final int VALUE_LENGTH = 16;
+    static final int HEADER = 20;
+
+    static final ISerializer serializer = new KryoSerializer();
+
+    final int segmentSize;
+    List<ByteBuffer> segments;
+    int tail;
+    ByteBuffer buckets;
+    int mask;
+    int threshold;
+    int size;
+    long liveBytes;
+    long garbageBytes;
+    int modCount;
+
+    public OffHeapHashMap()
+    {
+        this(DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Create a new off-heap map.
+     * @param segmentSize   The largest size, in bytes, of a segment of direct memory. Segments
+     *                      start small and double until they reach this size.
+     */
+    public OffHeapHashMap(int segmentSize)
+    {
+        if (segmentSize <= HEADER || segmentSize > MAX_SEGMENT_SIZE)
+        {
+            throw new IllegalArgumentException("Segment size must be between " + HEADER + " and " + MAX_SEGMENT_SIZE);
+        }
+        this.segmentSize = segmentSize;
+        this.segments = new ArrayList<>();
+        allocateBuckets(MIN_BUCKETS);
+    }
+
+    //region Records
+    static long address(int segment, int offset)
+    {
+        return ((long) segment << SEGMENT_BITS) | offset;
+    }
+
+    static int offsetOf(long address)
+    {
+        return (int) (address & (MAX_SEGMENT_SIZE - 1));
+    }
+
+    ByteBuffer segmentOf(long address)
+    {
+        return segments.get((int) (address >>> SEGMENT_BITS));
+    }
+
+    long next(long a)
+    {
+        return segmentOf(a).getLong(offsetOf(a) + NEXT);
+    }
+
+    void setNext(long a, long next)
+    {
+        segmentOf(a).putLong(offsetOf(a) + NEXT, next);
+    }
+
+    int hashOf(long a)
+    {
+        return segmentOf(a).getInt(offsetOf(a) + HASH);
+    }
+
+    int keyLength(long a)
+    {
+        return segmentOf(a).getInt(offsetOf(a) + KEY_LENGTH);
+    }
+
+    int valueLength(long a)
+    {
+        return segmentOf(a).getInt(offsetOf(a) + VALUE_LENGTH);
+    }
+
+    int recordLength(long a)
+    {
+        return HEADER + keyLength(a) + valueLength(a);
+    }
+
+    /** Returns a buffer over length bytes of the segment containing a record, starting at offset. */
+    ByteBuffer slice(long a, int offset, int length)
+    {
+        ByteBuffer b = segmentOf(a).duplicate();
+        b.limit(offsetOf(a) + offset + length);
+        b.position(offsetOf(a) + offset);
+        return b;
+    }
+
+    byte[] keyBytes(long a)
+    {
+        byte[] key = new byte[keyLength(a)];
+        slice(a, HEADER, key.length).get(key);
+        return key;
+    }
+
+    byte[] valueBytes(long a)
+    {
+        byte[] value = new byte[valueLength(a)];
+        slice(a, HEADER + keyLength(a), value.length).get(value);
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    K key(long a)
+    {
+        return (K) serializer.deserialize(Unpooled.wrappedBuffer(slice(a, HEADER, keyLength(a))));
+    }
+
+    @SuppressWarnings("unchecked")
+    V value(long a)
+    {
+        return (V) serializer.deserialize(Unpooled.wrappedBuffer(slice(a, HEADER + keyLength(a), valueLength(a))));
+    }
+
+    boolean keyEquals(long a, byte[] key)
+    {
+        if (keyLength(a) != key.length)
+        {
+            return false;
+        }
+        ByteBuffer s = segmentOf(a);
+        int offset = offsetOf(a) + HEADER;
+        for (int i = 0; i < key.length; i++)
+        {
+            if (s.get(offset + i) != key[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Reserve space for a record at the tail of the segments, adding a segment if needed. */
+    long allocate(int length)
+    {
+        if (length > MAX_SEGMENT_SIZE)
+        {
+            throw new IllegalArgumentException("Record of " + length + " bytes exceeds the maximum segment size.");
+        }
+        ByteBuffer last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last == null || tail + length > last.capacity())
+        {
+            int next = last == null ? INITIAL_SEGMENT_SIZE : (int) Math.min((long) last.capacity() << 1, segmentSize);
+            segments.add(ByteBuffer.allocateDirect(Math.max(length, Math.min(next, segmentSize))));
+            tail = 0;
+        }
+        long a = address(segments.size() - 1, tail);
+        tail += length;
+        return a;
+    }
+
+    long append(int hash, byte[] key, byte[] value)
+    {
+        long a = allocate(HEADER + key.length + value.length);
+        ByteBuffer s = segmentOf(a);
+        int offset = offsetOf(a);
+        s.putLong(offset + NEXT, NIL);
+        s.putInt(offset + HASH, hash);
+        s.putInt(offset + KEY_LENGTH, key.length);
+        s.putInt(offset + VALUE_LENGTH, value.length);
+        ByteBuffer b = slice(a, HEADER, key.length + value.length);
+        b.put(key);
+        b.put(value);
+        return a;
+    }
+    //endregion
+
+    //region Index
+    void allocateBuckets(int count)
+    {
+        buckets = ByteBuffer.allocateDirect(count * 8);
+        for (int i = 0; i < count; i++)
+        {
+            buckets.putLong(i * 8, NIL);
+        }
+        mask = count - 1;
+        threshold = (int) (count * LOAD_FACTOR);
+    }
+
+    long bucket(int i)
+    {
+        return buckets.getLong(i * 8);
+    }
+
+    void setBucket(int i, long a)
+    {
+        buckets.putLong(i * 8, a);
+    }
+
+    /** Spread the bits of the hash of a serialized key (the murmur3 finalizer). */
+    static int hash(byte[] key)
+    {
+        int h = 1;
+        for (byte b : key)
+        {
+            h = 31 * h + b;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    long find(byte[] key, int hash)
+    {
+        long a = bucket(hash & mask);
+        while (a != NIL)
+        {
+            if (hashOf(a) == hash && keyEquals(a, key))
+            {
+                return a;
+            }
+            a = next(a);
+        }
+        return NIL;
+    }
+
+    void link(long a, int hash)
+    {
+        int i = hash & mask;
+        setNext(a, bucket(i));
+        setBucket(i, a);
+    }
+
+    void unlink(long a, int hash)
+    {
+        int i = hash & mask;
+        long prev = NIL;
+        long current = bucket(i);
+        while (current != a)
+        {
+            prev = current;
+            current = next(current);
+        }
+        if (prev == NIL)
+        {
+            setBucket(i, next(a));
+        }
+        else
+        {
+            setNext(prev, next(a));
+        }
+        int length = recordLength(a);
+        liveBytes -= length;
+        garbageBytes += length;
+        size--;
+    }
+
+    /** Double the number of buckets, relinking every record. */
+    void resize()
+    {
+        if (mask + 1 >= MAX_BUCKETS)
+        {
+            return;
+        }
+        ByteBuffer oldBuckets = buckets;
+        int oldCount = mask + 1;
+        allocateBuckets(oldCount << 1);
+        for (int i = 0; i < oldCount; i++)
+        {
+            long a = oldBuckets.getLong(i * 8);
+            while (a != NIL)
+            {
+                long next = next(a);
+                link(a, hashOf(a));
+                a = next;
+            }
+        }
+    }
+
+    /** Copy the live records into fresh segments, dropping the garbage left by removes and overwrites. */
+    void compact()
+    {
+        List<ByteBuffer> oldSegments = segments;
+        segments = new ArrayList<>();
+        tail = 0;
+        for (int i = 0; i <= mask; i++)
+        {
+            long a = bucket(i);
+            long head = NIL;
+            while (a != NIL)
+            {
+                ByteBuffer s = oldSegments.get((int) (a >>> SEGMENT_BITS)).duplicate();
+                int offset = offsetOf(a);
+                int length = HEADER + s.getInt(offset + KEY_LENGTH) + s.getInt(offset + VALUE_LENGTH);
+                long next = s.getLong(offset + NEXT);
+                s.limit(offset + length);
+                s.position(offset);
+                long copy = allocate(length);
+                slice(copy, 0, length).put(s);
+                setNext(copy, head);
+                head = copy;
+                a = next;
+            }
+            setBucket(i, head);
+        }
+        garbageBytes = 0;
+    }
+
+    /**
+     * Store a serialized mapping, replacing any existing mapping for the key.
+     * @param hash  The hash of the serialized key.
+     * @param key   The serialized key.
+     * @param value The serialized value.
+     */
+    synchronized void store(int hash, byte[] key, byte[] value)
+    {
+        modCount++;
+        long a = find(key, hash);
+        if (a != NIL)
+        {
+            if (valueLength(a) == value.length)
+            {
+                slice(a, HEADER + key.length, value.length).put(value);
+                return;
+            }
+            unlink(a, hash);
+        }
+        if (garbageBytes > liveBytes && garbageBytes >= INITIAL_SEGMENT_SIZE)
+        {
+            compact();
+        }
+        a = append(hash, key, value);
+        link(a, hash);
+        size++;
+        liveBytes += recordLength(a);
+        if (size > threshold)
+        {
+            resize();
+        }
+    }
+
+    /** Visit the serialized form of every mapping. */
+    synchronized void forEachRecord(RecordConsumer consumer)
+    {
+        for (int i = 0; i <= mask; i++)
+        {
+            for (long a = bucket(i); a != NIL; a = next(a))
+            {
+                consumer.accept(hashOf(a), keyBytes(a), valueBytes(a));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(int hash, byte[] key, byte[] value);
+    }
+    //endregion
+
+    static byte[] toBytes(Object o)
+    {
+        ByteBuf b = Unpooled.buffer();
+        serializer.serialize(o, b);
+        byte[] bytes = new byte[b.readableBytes()];
+        b.readBytes(bytes);
+        return bytes;
+    }
+
+    /** Returns the number of bytes of direct memory held by the records of this map. */
+    public synchronized long getOffHeapBytes()
+    {
+        long total = buckets.capacity();
+        for (ByteBuffer s : segments)
+        {
+            total += s.capacity();
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        byte[] k = toBytes(key);
+        return find(k, hash(k)) != NIL;
+    }
+
+    @Override
+    public synchronized V get(Object key) {
+        byte[] k = toBytes(key);
+        long a = find(k, hash(k));
+        return a == NIL ? null : value(a);
+    }
+
+    @Override
+    public synchronized V put(K key, V value) {
+        byte[] k = toBytes(key);
+        int hash = hash(k);
+        long a = find(k, hash);
+        V previous = a == NIL ? null : value(a);
+        store(hash, k, toBytes(value));
+        return previous;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+        {
+            byte[] k = toBytes(e.getKey());
+            store(hash(k), k, toBytes(e.getValue()));
+        }
+    }
+
+    @Override
+    public synchronized V remove(Object key) {
+        byte[] k = toBytes(key);
+        int hash = hash(k);
+        long a = find(k, hash);
+        if (a == NIL)
+        {
+            return null;
+        }
+        V previous = value(a);
+        unlink(a, hash);
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public synchronized void clear() {
+        segments = new ArrayList<>();
+        tail = 0;
+        allocateBuckets(MIN_BUCKETS);
+        size = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns a view of the mappings in this map. Each entry is deserialized as it is iterated,
+     * so iterating does not pull the whole map onto the heap.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return OffHeapHashMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                OffHeapHashMap.this.clear();
+            }
+        };
+    }
+
+    class EntryIterator implements Iterator<Entry<K, V>> {
+        int bucket = -1;
+        long next = NIL;
+        int expectedModCount;
+        K lastKey;
+        boolean canRemove;
+
+        EntryIterator()
+        {
+            synchronized (OffHeapHashMap.this)
+            {
+                expectedModCount = modCount;
+                advance();
+            }
+        }
+
+        void advance()
+        {
+            while (next == NIL && bucket < mask)
+            {
+                next = bucket(++bucket);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != NIL;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            synchronized (OffHeapHashMap.this)
+            {
+                if (modCount != expectedModCount)
+                {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == NIL)
+                {
+                    throw new NoSuchElementException();
+                }
+                long a = next;
+                next = OffHeapHashMap.this.next(a);
+                advance();
+                lastKey = key(a);
+                canRemove = true;
+                return new SimpleImmutableEntry<>(lastKey, value(a));
+            }
+        }
+
+        @Override
+        public void remove() {
+            synchronized (OffHeapHashMap.this)
+            {
+                if (!canRemove)
+                {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount)
+                {
+                    throw new ConcurrentModificationException();
+                }
+                // Removing only unlinks the record, so the address of the next record stays valid.
+                OffHeapHashMap.this.remove(lastKey);
+                expectedModCount = modCount;
+                canRemove = false;
+            }
+        }
+    }
+
+    /**
+     * Serializes an off-heap map as its raw records, so copying or logging the map never
+     * deserializes its keys or values.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static class OffHeapHashMapSerializer extends Serializer<OffHeapHashMap> {
+
+        @Override
+        public void write(Kryo kryo, Output output, OffHeapHashMap map) {
+            synchronized (map)
+            {
+                output.writeInt(map.segmentSize, true);
+                output.writeInt(map.size, true);
+                map.forEachRecord((hash, key, value) -> {
+                    output.writeInt(hash);
+                    output.writeInt(key.length, true);
+                    output.writeBytes(key);
+                    output.writeInt(value.length, true);
+                    output.writeBytes(value);
+                });
+            }
+        }
+
+        @Override
+        public OffHeapHashMap read(Kryo kryo, Input input, Class<OffHeapHashMap> type) {
+            OffHeapHashMap map = new OffHeapHashMap(input.readInt(true));
+            int size = input.readInt(true);
+            for (int i = 0; i < size; i++)
+            {
+                int hash = input.readInt();
+                byte[] key = input.readBytes(input.readInt(true));
+                byte[] value = input.readBytes(input.readInt(true));
+                map.store(hash, key, value);
+            }
+            return map;
+        }
+
+        @Override
+        public OffHeapHashMap copy(Kryo kryo, OffHeapHashMap original) {
+            OffHeapHashMap map = new OffHeapHashMap(original.segmentSize);
+            original.forEachRecord(map::store);
+            return map;
+        }
+    }
+}
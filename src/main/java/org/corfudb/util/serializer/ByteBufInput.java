@@ -0,0 +1,101 @@
+package org.corfudb.util.serializer;
+
+import com.esotericsoftware.kryo.io.Input;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A Kryo input which reads directly from a Netty ByteBuf.
+ *
+ * If the ByteBuf is backed by an array, Kryo reads from the array in place. Otherwise, the bytes
+ * are pulled into a small reusable chunk as they are needed. When the input is released, the reader
+ * index of the ByteBuf is left just past the bytes Kryo consumed, so several objects may be read
+ * from the same ByteBuf in turn.
+ *
+ * An input is meant to be reused by a single thread, one ByteBuf at a time.
+ */
+public class ByteBufInput extends Input {
+
+    static final int CHUNK_SIZE = 4096;
+
+    /** The chunk used for ByteBufs which are not backed by an array. */
+    final byte[] chunk = new byte[CHUNK_SIZE];
+
+    /** The ByteBuf being read, or null if the input is not in use. */
+    ByteBuf source;
+
+    /** Whether Kryo is reading from the array backing the source, rather than the chunk. */
+    boolean inPlace;
+
+    /** The offset into the backing array that reading started at. */
+    int start;
+
+    public ByteBufInput()
+    {
+        super();
+    }
+
+    /** Returns true if the input is reading from a ByteBuf. */
+    public boolean isInUse()
+    {
+        return source != null;
+    }
+
+    /**
+     * Start reading from a ByteBuf, from its reader index.
+     * @param b The ByteBuf to read from.
+     */
+    public void setByteBuf(ByteBuf b)
+    {
+        source = b;
+        inPlace = b.hasArray();
+        if (inPlace)
+        {
+            start = b.arrayOffset() + b.readerIndex();
+            setBuffer(b.array(), start, b.readableBytes());
+        }
+        else
+        {
+            start = 0;
+            setBuffer(chunk, 0, 0);
+        }
+    }
+
+    /**
+     * Stop reading, and move the reader index of the ByteBuf to just past the bytes which were
+     * consumed.
+     */
+    public void release()
+    {
+        if (source == null)
+        {
+            return;
+        }
+        if (inPlace)
+        {
+            source.skipBytes((int) total() - start);
+        }
+        else
+        {
+            // Return the bytes which were pulled into the chunk but not consumed.
+            source.readerIndex(source.readerIndex() - (limit - position));
+        }
+        source = null;
+        setBuffer(chunk, 0, 0);
+    }
+
+    @Override
+    protected int fill(byte[] buffer, int offset, int count) {
+        if (source == null || inPlace)
+        {
+            // The whole of an array backed ByteBuf is already visible.
+            return -1;
+        }
+        int n = Math.min(count, source.readableBytes());
+        if (n == 0)
+        {
+            return -1;
+        }
+        source.readBytes(buffer, offset, n);
+        return n;
+    }
+}
@@ -0,0 +1,65 @@
+package org.corfudb.util.serializer;
+
+import com.esotericsoftware.kryo.io.Output;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A Kryo output which writes directly into a Netty ByteBuf.
+ *
+ * Kryo writes into a small reusable chunk, which is copied into the ByteBuf whenever it fills
+ * and when the output is flushed. The ByteBuf grows as needed, so there is no limit on the size
+ * of the serialized object.
+ *
+ * An output is meant to be reused by a single thread, one ByteBuf at a time.
+ */
+public class ByteBufOutput extends Output {
+
+    static final int CHUNK_SIZE = 4096;
+
+    /** The ByteBuf being written, or null if the output is not in use. */
+    ByteBuf target;
+
+    public ByteBufOutput()
+    {
+        super(CHUNK_SIZE, -1);
+    }
+
+    /** Returns true if the output is writing to a ByteBuf. */
+    public boolean isInUse()
+    {
+        return target != null;
+    }
+
+    /**
+     * Start writing to a ByteBuf, at its writer index.
+     * @param b The ByteBuf to write to.
+     */
+    public void setByteBuf(ByteBuf b)
+    {
+        target = b;
+        clear();
+    }
+
+    /** Flush any buffered bytes into the ByteBuf and stop writing. */
+    public void release()
+    {
+        if (target == null)
+        {
+            return;
+        }
+        flush();
+        target = null;
+        clear();
+    }
+
+    @Override
+    public void flush() {
+        if (target == null)
+        {
+            return;
+        }
+        target.writeBytes(buffer, 0, position);
+        total += position;
+        position = 0;
+    }
+}
@@ -0,0 +1,381 @@
+package org.corfudb.util.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import lombok.Getter;
+import lombok.Setter;
+import org.corfudb.runtime.smr.SMRCheckpoint;
+import org.corfudb.runtime.smr.SMRLocalCommandWrapper;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of codecs, keyed by a stable type ID which is written ahead of every value.
+ *
+ * Type IDs below FIRST_USER_TYPE are reserved for the built in codecs, which cover boxed
+ * primitives, strings, byte and long arrays, UUIDs and the common collections. Other classes
+ * must be registered, either with a hand written codec, or with a codec generated from their
+ * fields. Type IDs are written as varints, so the first 128 IDs take a single byte.
+ *
+ * Java serialization is only used for classes which are explicitly registered with
+ * registerJavaSerializable, or for any Serializable class if the fallback is enabled.
+ */
+public class CodecRegistry {
+
+    private CodecRegistry() {}
+
+    /** The first type ID available to classes registered outside this package. */
+    public static final int FIRST_USER_TYPE = 64;
+
+    //region Built in type IDs
+    static final int NULL = 0;
+    static final int BOOLEAN = 1;
+    static final int BYTE = 2;
+    static final int SHORT = 3;
+    static final int CHARACTER = 4;
+    static final int INTEGER = 5;
+    static final int LONG = 6;
+    static final int FLOAT = 7;
+    static final int DOUBLE = 8;
+    static final int STRING = 9;
+    static final int BYTE_ARRAY = 10;
+    static final int LONG_ARRAY = 11;
+    static final int UUID_TYPE = 12;
+    static final int ARRAY_LIST = 13;
+    static final int HASH_MAP = 14;
+    static final int HASH_SET = 15;
+    static final int OBJECT_ARRAY = 16;
+    static final int SMR_CHECKPOINT = 32;
+    static final int SMR_LOCAL_COMMAND_WRAPPER = 33;
+    static final int COMPRESSION_DICTIONARY = 34;
+    /** Any Serializable class, written with Java serialization when the fallback is enabled. */
+    static final int JAVA_FALLBACK = 63;
+    //endregion
+
+    static class Registration<T> {
+        final int typeId;
+        final Class<T> type;
+        final ICodec<T> codec;
+
+        Registration(int typeId, Class<T> type, ICodec<T> codec)
+        {
+            this.typeId = typeId;
+            this.type = type;
+            this.codec = codec;
+        }
+    }
+
+    static final Map<Integer, Registration<?>> byId = new ConcurrentHashMap<>();
+    static final Map<Class<?>, Registration<?>> byClass = new ConcurrentHashMap<>();
+
+    /** Whether Serializable classes without a codec are written with Java serialization. */
+    @Getter
+    @Setter
+    static volatile boolean javaSerializationFallback = false;
+
+    static final ICodec<Object> javaCodec = new ICodec<Object>() {
+        @Override
+        public void encode(Object value, ByteBuf b) {
+            // Length prefixed, since an ObjectInputStream may read past the end of the object.
+            int index = b.writerIndex();
+            b.writeInt(0);
+            try (ByteBufOutputStream bbos = new ByteBufOutputStream(b))
+            {
+                try (ObjectOutputStream oos = new ObjectOutputStream(bbos))
+                {
+                    oos.writeObject(value);
+                }
+            }
+            catch (IOException ie)
+            {
+                throw new RuntimeException(ie);
+            }
+            b.setInt(index, b.writerIndex() - index - 4);
+        }
+
+        @Override
+        public Object decode(ByteBuf b) {
+            int length = b.readInt();
+            try (ByteBufInputStream bbis = new ByteBufInputStream(b.slice(b.readerIndex(), length)))
+            {
+                try (ObjectInputStream ois = new ObjectInputStream(bbis))
+                {
+                    return ois.readObject();
+                }
+            }
+            catch (IOException | ClassNotFoundException ie)
+            {
+                throw new RuntimeException(ie);
+            }
+            finally
+            {
+                b.skipBytes(length);
+            }
+        }
+    };
+
+    static {
+        registerBuiltin(BOOLEAN, Boolean.class, (v, b) -> b.writeBoolean(v), ByteBuf::readBoolean);
+        registerBuiltin(BYTE, Byte.class, (v, b) -> b.writeByte(v), ByteBuf::readByte);
+        registerBuiltin(SHORT, Short.class, (v, b) -> Varint.writeSignedVarLong(v, b),
+                b -> (short) Varint.readSignedVarLong(b));
+        registerBuiltin(CHARACTER, Character.class, (v, b) -> Varint.writeVarInt(v, b),
+                b -> (char) Varint.readVarInt(b));
+        registerBuiltin(INTEGER, Integer.class, (v, b) -> Varint.writeSignedVarLong(v, b),
+                b -> (int) Varint.readSignedVarLong(b));
+        registerBuiltin(LONG, Long.class, (v, b) -> Varint.writeSignedVarLong(v, b), Varint::readSignedVarLong);
+        registerBuiltin(FLOAT, Float.class, (v, b) -> b.writeFloat(v), ByteBuf::readFloat);
+        registerBuiltin(DOUBLE, Double.class, (v, b) -> b.writeDouble(v), ByteBuf::readDouble);
+        registerBuiltin(STRING, String.class, (v, b) -> {
+            byte[] bytes = v.getBytes(StandardCharsets.UTF_8);
+            Varint.writeVarInt(bytes.length, b);
+            b.writeBytes(bytes);
+        }, b -> {
+            byte[] bytes = new byte[Varint.readVarInt(b)];
+            b.readBytes(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        });
+        registerBuiltin(BYTE_ARRAY, byte[].class, (v, b) -> {
+            Varint.writeVarInt(v.length, b);
+            b.writeBytes(v);
+        }, b -> {
+            byte[] bytes = new byte[Varint.readVarInt(b)];
+            b.readBytes(bytes);
+            return bytes;
+        });
+        registerBuiltin(LONG_ARRAY, long[].class, (v, b) -> {
+            Varint.writeVarInt(v.length, b);
+            for (long l : v)
+            {
+                Varint.writeSignedVarLong(l, b);
+            }
+        }, b -> {
+            long[] longs = new long[Varint.readVarInt(b)];
+            for (int i = 0; i < longs.length; i++)
+            {
+                longs[i] = Varint.readSignedVarLong(b);
+            }
+            return longs;
+        });
+        registerBuiltin(UUID_TYPE, UUID.class, (v, b) -> {
+            b.writeLong(v.getMostSignificantBits());
+            b.writeLong(v.getLeastSignificantBits());
+        }, b -> new UUID(b.readLong(), b.readLong()));
+        registerBuiltin(OBJECT_ARRAY, Object[].class, (v, b) -> {
+            Varint.writeVarInt(v.length, b);
+            for (Object o : v)
+            {
+                writeObject(o, b);
+            }
+        }, b -> {
+            Object[] objects = new Object[Varint.readVarInt(b)];
+            for (int i = 0; i < objects.length; i++)
+            {
+                objects[i] = readObject(b);
+            }
+            return objects;
+        });
+        registerBuiltin(ARRAY_LIST, ArrayList.class, CodecRegistry::writeCollection,
+                b -> readCollection(b, new ArrayList<>()));
+        registerBuiltin(HASH_SET, HashSet.class, CodecRegistry::writeCollection,
+                b -> readCollection(b, new HashSet<>()));
+        registerBuiltin(HASH_MAP, HashMap.class, (v, b) -> {
+            Varint.writeVarInt(v.size(), b);
+            for (Map.Entry<?,?> e : ((Map<?,?>) v).entrySet())
+            {
+                writeObject(e.getKey(), b);
+                writeObject(e.getValue(), b);
+            }
+        }, b -> {
+            int size = Varint.readVarInt(b);
+            Map<Object,Object> map = new HashMap<>();
+            for (int i = 0; i < size; i++)
+            {
+                map.put(readObject(b), readObject(b));
+            }
+            return (HashMap) map;
+        });
+        // Checkpoints and local command wrappers carry arbitrary state and lambdas.
+        registerJavaSerializable(SMR_CHECKPOINT, SMRCheckpoint.class);
+        registerJavaSerializable(SMR_LOCAL_COMMAND_WRAPPER, SMRLocalCommandWrapper.class);
+        add(new Registration<>(COMPRESSION_DICTIONARY, CompressionDictionary.class,
+                new FieldCodec<>(CompressionDictionary.class)));
+    }
+
+    interface Encoder<T> {
+        void encode(T value, ByteBuf b);
+    }
+
+    interface Decoder<T> {
+        T decode(ByteBuf b);
+    }
+
+    static <T> void registerBuiltin(int typeId, Class<T> type, Encoder<T> encoder, Decoder<T> decoder)
+    {
+        add(new Registration<>(typeId, type, new ICodec<T>() {
+            @Override
+            public void encode(T value, ByteBuf b) {
+                encoder.encode(value, b);
+            }
+
+            @Override
+            public T decode(ByteBuf b) {
+                return decoder.decode(b);
+            }
+        }));
+    }
+
+    static void writeCollection(Collection<?> c, ByteBuf b)
+    {
+        Varint.writeVarInt(c.size(), b);
+        for (Object o : c)
+        {
+            writeObject(o, b);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <C extends Collection> C readCollection(ByteBuf b, C c)
+    {
+        int size = Varint.readVarInt(b);
+        for (int i = 0; i < size; i++)
+        {
+            c.add(readObject(b));
+        }
+        return c;
+    }
+
+    static synchronized void add(Registration<?> registration)
+    {
+        Registration<?> existing = byId.get(registration.typeId);
+        if (existing != null && existing.type != registration.type)
+        {
+            throw new IllegalArgumentException("Type ID " + registration.typeId + " is already registered to "
+                    + existing.type.getName());
+        }
+        byId.put(registration.typeId, registration);
+        byClass.put(registration.type, registration);
+    }
+
+    static void checkUserType(int typeId)
+    {
+        if (typeId < FIRST_USER_TYPE)
+        {
+            throw new IllegalArgumentException("Type IDs below " + FIRST_USER_TYPE + " are reserved.");
+        }
+    }
+
+    /**
+     * Register a class with a hand written codec.
+     * @param typeId    The stable type ID of the class, at least FIRST_USER_TYPE.
+     * @param type      The class to register.
+     * @param codec     The codec for the class.
+     */
+    public static <T> void register(int typeId, Class<T> type, ICodec<T> codec)
+    {
+        checkUserType(typeId);
+        add(new Registration<>(typeId, type, codec));
+    }
+
+    /**
+     * Register a class with a codec generated from its fields.
+     * @param typeId    The stable type ID of the class, at least FIRST_USER_TYPE.
+     * @param type      The class to register.
+     */
+    public static <T> void register(int typeId, Class<T> type)
+    {
+        register(typeId, type, new FieldCodec<>(type));
+    }
+
+    /**
+     * Register a class to be written with Java serialization.
+     * @param typeId    The stable type ID of the class.
+     * @param type      The class to register.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Serializable> void registerJavaSerializable(int typeId, Class<T> type)
+    {
+        add(new Registration<>(typeId, type, (ICodec<T>) javaCodec));
+    }
+
+    /**
+     * Returns true if values of the given class can be written by this registry.
+     * @param type  The class to check.
+     * @return      True, if the class has a codec, or may be written with Java serialization.
+     */
+    public static boolean canEncode(Class<?> type)
+    {
+        return byClass.containsKey(type) || (javaSerializationFallback && Serializable.class.isAssignableFrom(type));
+    }
+
+    /**
+     * Write a value, preceded by its type ID.
+     * @param o The value to write, which may be null.
+     * @param b The bytebuf to write it into.
+     */
+    @SuppressWarnings("unchecked")
+    public static void writeObject(Object o, ByteBuf b)
+    {
+        if (o == null)
+        {
+            Varint.writeVarInt(NULL, b);
+            return;
+        }
+        Registration<Object> r = (Registration<Object>) byClass.get(o.getClass());
+        if (r != null)
+        {
+            Varint.writeVarInt(r.typeId, b);
+            r.codec.encode(o, b);
+        }
+        else if (javaSerializationFallback && o instanceof Serializable)
+        {
+            Varint.writeVarInt(JAVA_FALLBACK, b);
+            javaCodec.encode(o, b);
+        }
+        else
+        {
+            throw new IllegalArgumentException("No codec is registered for " + o.getClass().getName()
+                    + ", and Java serialization is not enabled for it.");
+        }
+    }
+
+    /**
+     * Read a value written by writeObject.
+     * @param b The bytebuf to read from.
+     * @return  The value read.
+     */
+    public static Object readObject(ByteBuf b)
+    {
+        int typeId = Varint.readVarInt(b);
+        if (typeId == NULL)
+        {
+            return null;
+        }
+        if (typeId == JAVA_FALLBACK)
+        {
+            if (!javaSerializationFallback)
+            {
+                throw new IllegalStateException("Java serialization is not enabled, refusing to deserialize.");
+            }
+            return javaCodec.decode(b);
+        }
+        Registration<?> r = byId.get(typeId);
+        if (r == null)
+        {
+            throw new IllegalArgumentException("Unknown type ID " + typeId);
+        }
+        return r.codec.decode(b);
+    }
+}
@@ -0,0 +1,105 @@
+package org.corfudb.util.serializer;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.Adler32;
+
+/**
+ * A preset dictionary for compressing the payloads of a stream.
+ *
+ * A dictionary is stored in the log like any other entry, in the stream it belongs to, before any
+ * entry compressed with it. Readers register a dictionary with PayloadCompression as they read it.
+ * Each compressed payload names its dictionary by ID. The ID is the Adler-32 checksum of the
+ * dictionary, which deflate writes in its header. Compressed payloads also record the log address
+ * of their dictionary, so readers which have not read it can fetch it.
+ */
+public class CompressionDictionary {
+
+    /** The length of the fragments counted when training a dictionary. */
+    static final int FRAGMENT_LENGTH = 8;
+
+    /** The stream this dictionary belongs to. */
+    @Getter
+    UUID stream;
+
+    /** The bytes of the dictionary, most frequent fragments last. */
+    @Getter
+    byte[] dictionary;
+
+    /** The log address this dictionary was written at, or -1, if it is not known. It is only known
+     * once the dictionary has been written, so it is not serialized. */
+    @Getter
+    @Setter
+    transient long address = -1;
+
+    public CompressionDictionary(UUID stream, byte[] dictionary)
+    {
+        this.stream = stream;
+        this.dictionary = dictionary;
+    }
+
+    /** Get the ID of this dictionary, the Adler-32 checksum of its bytes. */
+    public int getId()
+    {
+        Adler32 a = new Adler32();
+        a.update(dictionary, 0, dictionary.length);
+        return (int) a.getValue();
+    }
+
+    /**
+     * Train a dictionary from sample payloads of a stream.
+     *
+     * The dictionary is made of the fragments which occur in the most samples. Deflate finds
+     * matches closer to the data more cheaply, so the most frequent fragments are placed last.
+     *
+     * @param stream    The stream the dictionary is for.
+     * @param samples   Serialized payloads from the stream.
+     * @param maxSize   The maximum size of the dictionary, in bytes.
+     * @return          The trained dictionary.
+     */
+    public static CompressionDictionary train(UUID stream, Iterable<byte[]> samples, int maxSize)
+    {
+        // Strings in ISO-8859-1 map each byte to one char, which makes fragments easy to count.
+        Map<String, Integer> counts = new HashMap<>();
+        for (byte[] sample : samples)
+        {
+            String s = new String(sample, StandardCharsets.ISO_8859_1);
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i + FRAGMENT_LENGTH <= s.length(); i++)
+            {
+                String fragment = s.substring(i, i + FRAGMENT_LENGTH);
+                if (seen.add(fragment))
+                {
+                    counts.merge(fragment, 1, Integer::sum);
+                }
+            }
+        }
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : counts.entrySet())
+        {
+            if (e.getValue() > 1)
+            {
+                candidates.add(e);
+            }
+        }
+        candidates.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+
+        int count = Math.min(candidates.size(), maxSize / FRAGMENT_LENGTH);
+        StringBuilder sb = new StringBuilder(count * FRAGMENT_LENGTH);
+        // The most frequent fragments go last.
+        for (int i = count - 1; i >= 0; i--)
+        {
+            sb.append(candidates.get(i).getKey());
+        }
+        return new CompressionDictionary(stream, sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
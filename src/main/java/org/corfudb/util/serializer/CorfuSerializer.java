@@ -2,14 +2,12 @@ package org.corfudb.util.serializer;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.ByteBufOutputStream;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.corfudb.runtime.smr.smrprotocol.SMRCommand;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.function.Function;
@@ -24,12 +22,14 @@ public class CorfuSerializer implements ISerializer {
     @RequiredArgsConstructor
     public enum CorfuPayloadType {
         // Type of SMR command
-        SMR(0, SMRCommand.class, SMRCommand::deserialize)
+        SMR(0, SMRCommand.class, SMRCommand::deserialize),
+        // Any other value, written by the codec registry
+        CODEC(1, Object.class, CodecRegistry::readObject)
         ;
 
         final int type;
         @Getter
-        final Class<? extends ICorfuSerializable> cls;
+        final Class<?> cls;
         final Function<ByteBuf, ?> deserializer;
 
         byte asByte() { return (byte)type; }
@@ -59,6 +59,10 @@ public class CorfuSerializer implements ISerializer {
     public Object deserialize(ByteBuf b) {
         byte magic;
         if ((magic = b.readByte()) != CorfuPayloadMagic) {
+            if (!CodecRegistry.isJavaSerializationFallback())
+            {
+                throw new IllegalStateException("Payload is not a Corfu payload, and Java serialization is not enabled.");
+            }
             b.resetReaderIndex();
             try (ByteBufInputStream bbis = new ByteBufInputStream(b))
             {
@@ -88,27 +92,19 @@ public class CorfuSerializer implements ISerializer {
      */
     @Override
     public void serialize(Object o, ByteBuf b) {
+        b.writeByte(CorfuPayloadMagic);
         if (o instanceof ICorfuSerializable)
         {
-            b.writeByte(CorfuPayloadMagic);
-            b.writeByte(0); //TODO: Support multiple types (this only assumes SMR).
+            b.writeByte(CorfuPayloadType.SMR.asByte());
             ICorfuSerializable c = (ICorfuSerializable) o;
             c.serialize(b);
         }
         else
         {
-            //try to java serialize things.
-            try (ByteBufOutputStream bbos = new ByteBufOutputStream(b))
-            {
-                try (ObjectOutputStream oos = new ObjectOutputStream(bbos))
-                {
-                    oos.writeObject(o);
-                }
-            }
-            catch (Exception e)
-            {
-                throw new RuntimeException(e);
-            }
+            // Anything else goes through the codec registry, which only uses Java
+            // serialization for classes that have opted in.
+            b.writeByte(CorfuPayloadType.CODEC.asByte());
+            CodecRegistry.writeObject(o, b);
         }
     }
     //endregion
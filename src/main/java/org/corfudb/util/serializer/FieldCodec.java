@@ -0,0 +1,160 @@
+package org.corfudb.util.serializer;
+
+import io.netty.buffer.ByteBuf;
+import lombok.RequiredArgsConstructor;
+import org.objenesis.ObjenesisStd;
+import org.objenesis.instantiator.ObjectInstantiator;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A codec generated from the fields of a class. Every non-static, non-transient field, including
+ * inherited fields, is written in a fixed order: by declaring class from the root of the hierarchy
+ * down, then by name. Integral fields are written as varints (zigzag encoded when signed), enum
+ * fields as their ordinal, and any other field as a tagged value through the CodecRegistry.
+ *
+ * Since fields are written by position, adding, removing or renaming a field changes the encoding;
+ * classes which evolve should register a hand written codec instead.
+ */
+public class FieldCodec<T> implements ICodec<T> {
+
+    static final ObjenesisStd objenesis = new ObjenesisStd(true);
+
+    interface FieldOp {
+        void apply(Object o, ByteBuf b) throws IllegalAccessException;
+    }
+
+    /** Writes and reads one field of an object. */
+    @RequiredArgsConstructor
+    static class FieldHandler {
+        final FieldOp write;
+        final FieldOp read;
+    }
+
+    final Class<T> type;
+    final ObjectInstantiator<T> instantiator;
+    final FieldHandler[] handlers;
+
+    public FieldCodec(Class<T> type)
+    {
+        this.type = type;
+        this.instantiator = objenesis.getInstantiatorOf(type);
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+        {
+            hierarchy.add(0, c);
+        }
+        List<FieldHandler> handlers = new ArrayList<>();
+        for (Class<?> c : hierarchy)
+        {
+            List<Field> fields = new ArrayList<>();
+            for (Field f : c.getDeclaredFields())
+            {
+                if (!Modifier.isStatic(f.getModifiers()) && !Modifier.isTransient(f.getModifiers()) && !f.isSynthetic())
+                {
+                    f.setAccessible(true);
+                    fields.add(f);
+                }
+            }
+            fields.sort(Comparator.comparing(Field::getName));
+            fields.forEach(f -> handlers.add(handlerFor(f)));
+        }
+        this.handlers = handlers.toArray(new FieldHandler[handlers.size()]);
+    }
+
+    @SuppressWarnings("unchecked")
+    static FieldHandler handlerFor(Field f)
+    {
+        Class<?> t = f.getType();
+        if (t == boolean.class)
+        {
+            return handler((o, b) -> b.writeBoolean(f.getBoolean(o)), (o, b) -> f.setBoolean(o, b.readBoolean()));
+        }
+        else if (t == byte.class)
+        {
+            return handler((o, b) -> b.writeByte(f.getByte(o)), (o, b) -> f.setByte(o, b.readByte()));
+        }
+        else if (t == short.class)
+        {
+            return handler((o, b) -> Varint.writeSignedVarLong(f.getShort(o), b),
+                    (o, b) -> f.setShort(o, (short) Varint.readSignedVarLong(b)));
+        }
+        else if (t == char.class)
+        {
+            return handler((o, b) -> Varint.writeVarInt(f.getChar(o), b),
+                    (o, b) -> f.setChar(o, (char) Varint.readVarInt(b)));
+        }
+        else if (t == int.class)
+        {
+            return handler((o, b) -> Varint.writeSignedVarLong(f.getInt(o), b),
+                    (o, b) -> f.setInt(o, (int) Varint.readSignedVarLong(b)));
+        }
+        else if (t == long.class)
+        {
+            return handler((o, b) -> Varint.writeSignedVarLong(f.getLong(o), b),
+                    (o, b) -> f.setLong(o, Varint.readSignedVarLong(b)));
+        }
+        else if (t == float.class)
+        {
+            return handler((o, b) -> b.writeFloat(f.getFloat(o)), (o, b) -> f.setFloat(o, b.readFloat()));
+        }
+        else if (t == double.class)
+        {
+            return handler((o, b) -> b.writeDouble(f.getDouble(o)), (o, b) -> f.setDouble(o, b.readDouble()));
+        }
+        else if (t.isEnum())
+        {
+            Enum<?>[] constants = ((Class<? extends Enum<?>>) t).getEnumConstants();
+            // Ordinals are offset by one, so that zero encodes null.
+            return handler((o, b) -> {
+                        Enum<?> e = (Enum<?>) f.get(o);
+                        Varint.writeVarInt(e == null ? 0 : e.ordinal() + 1, b);
+                    },
+                    (o, b) -> {
+                        int ordinal = Varint.readVarInt(b);
+                        f.set(o, ordinal == 0 ? null : constants[ordinal - 1]);
+                    });
+        }
+        return handler((o, b) -> CodecRegistry.writeObject(f.get(o), b),
+                (o, b) -> f.set(o, CodecRegistry.readObject(b)));
+    }
+
+    static FieldHandler handler(FieldOp write, FieldOp read)
+    {
+        return new FieldHandler(write, read);
+    }
+
+    @Override
+    public void encode(T value, ByteBuf b) {
+        try {
+            for (FieldHandler h : handlers)
+            {
+                h.write.apply(value, b);
+            }
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new RuntimeException("Unable to encode " + type.getName(), e);
+        }
+    }
+
+    @Override
+    public T decode(ByteBuf b) {
+        T value = instantiator.newInstance();
+        try {
+            for (FieldHandler h : handlers)
+            {
+                h.read.apply(value, b);
+            }
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new RuntimeException("Unable to decode " + type.getName(), e);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,24 @@
+package org.corfudb.util.serializer;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A codec writes the fields of values of one type into a byte buffer, and reads them back.
+ * The type itself is written by the CodecRegistry, so a codec only deals with the fields.
+ */
+public interface ICodec<T> {
+
+    /** Encode a value into a given byte buffer.
+     *
+     * @param value The value to encode.
+     * @param b     The bytebuf to encode it into.
+     */
+    void encode(T value, ByteBuf b);
+
+    /** Decode a value from a given byte buffer.
+     *
+     * @param b The bytebuf to decode from.
+     * @return  The decoded value.
+     */
+    T decode(ByteBuf b);
+}
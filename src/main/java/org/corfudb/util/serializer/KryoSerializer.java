@@ -10,8 +10,6 @@ import com.esotericsoftware.kryo.util.IntMap;
 import com.esotericsoftware.kryo.util.MapReferenceResolver;
 import com.esotericsoftware.kryo.util.ObjectMap;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.ByteBufOutputStream;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.runtime.CorfuDBRuntime;
 import org.corfudb.runtime.entries.SimpleStreamEntry;
@@ -19,61 +17,122 @@ import org.corfudb.runtime.objects.CorfuObjectByteBuddyProxy;
 import org.corfudb.runtime.smr.*;
 import org.corfudb.runtime.stream.ITimestamp;
 import org.corfudb.runtime.stream.SimpleTimestamp;
+import org.corfudb.util.collections.*;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.Serializable;
+import java.lang.invoke.SerializedLambda;
 import java.lang.reflect.Method;
-import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 
 import static com.esotericsoftware.kryo.util.Util.className;
 import static com.esotericsoftware.kryo.util.Util.getWrapperClass;
 
 /**
  * Created by mwei on 9/17/15.
+ *
+ * Objects are written through ByteBufOutput, which uses Kryo's varint encoding, and are
+ * preceded by FORMAT_VARINT. Objects written before this format existed were written with
+ * UnsafeOutput, which encodes values at fixed width in native byte order, and start with the
+ * class ID as such an int, so their first byte is never FORMAT_VARINT. They are still read,
+ * through UnsafeInput, but are no longer written.
  */
 @Slf4j
 public class KryoSerializer implements ISerializer{
 
+    /** The marker which precedes each object written with the varint encoding. */
+    public static final byte FORMAT_VARINT = (byte) 0xFF;
+
+    /** Thread local inputs, reused across calls to deserialize. */
+    static final ThreadLocal<ByteBufInput> inputs = ThreadLocal.withInitial(ByteBufInput::new);
+
+    /** Thread local outputs, reused across calls to serialize. */
+    static final ThreadLocal<ByteBufOutput> outputs = ThreadLocal.withInitial(ByteBufOutput::new);
+
     @Override
     public Object deserialize(ByteBuf b) {
-        Object o;
-        Kryo k = kryos.get();
-        try (ByteBufInputStream bbis = new ByteBufInputStream(b))
+        return readObject(b);
+    }
+
+    @Override
+    public void serialize(Object o, ByteBuf b) {
+        writeObject(o, b);
+    }
+
+    /** Read an object from a ByteBuf, leaving the reader index just past the object.
+     *
+     * @param b     The ByteBuf to read from, or null.
+     *
+     * @return      The deserialized object, or null if there was no ByteBuf.
+     */
+    public static Object readObject(ByteBuf b)
+    {
+        if (b == null)
         {
-            try (UnsafeInput i = new UnsafeInput(bbis, 16384))
-            {
-                o = k.readClassAndObject(i);
-                return o;
-            }
+            return null;
         }
-        catch (IOException ie)
+        if (b.getByte(b.readerIndex()) != FORMAT_VARINT)
         {
-            log.error("Exception during deserialization!", ie);
-            return null;
+            return readLegacyObject(b);
+        }
+        b.skipBytes(1);
+        ByteBufInput input = inputs.get();
+        if (input.isInUse())
+        {
+            // A nested call, from within a serializer on this thread.
+            input = new ByteBufInput();
+        }
+        input.setByteBuf(b);
+        try {
+            return kryos.get().readClassAndObject(input);
+        }
+        finally {
+            input.release();
         }
     }
 
-    @Override
-    public void serialize(Object o, ByteBuf b) {
-        Kryo k = kryos.get();
-        try (ByteBufOutputStream bbos = new ByteBufOutputStream(b))
+    /** Read an object written with UnsafeOutput, before the varint format, leaving the reader
+     * index just past the object.
+     *
+     * @param b     The ByteBuf to read from.
+     *
+     * @return      The deserialized object.
+     */
+    static Object readLegacyObject(ByteBuf b)
+    {
+        byte[] data = new byte[b.readableBytes()];
+        b.getBytes(b.readerIndex(), data);
+        try (UnsafeInput input = new UnsafeInput(data))
         {
-            try (UnsafeOutput output = new UnsafeOutput(bbos, 16384))
-            {
-                k.writeClassAndObject(output, o);
-                output.flush();
-            }
+            Object o = kryos.get().readClassAndObject(input);
+            b.skipBytes(input.position());
+            return o;
         }
-        catch (IOException ie)
+    }
+
+    /** Write an object into a ByteBuf, at its writer index.
+     *
+     * @param o     The object to serialize.
+     * @param b     The ByteBuf to write to.
+     */
+    public static void writeObject(Object o, ByteBuf b)
+    {
+        ByteBufOutput output = outputs.get();
+        if (output.isInUse())
         {
-            log.error("Exception during serialization!", ie);
+            // A nested call, from within a serializer on this thread.
+            output = new ByteBufOutput();
+        }
+        b.writeByte(FORMAT_VARINT);
+        output.setByteBuf(b);
+        try {
+            kryos.get().writeClassAndObject(output, o);
+        }
+        finally {
+            output.release();
         }
     }
 
@@ -208,26 +267,47 @@ public class KryoSerializer implements ISerializer{
     }
     /** Register classes for serialization. Add the classes you use here to increase the speed
      * of serialization/deserialization.
+     *
+     * Registered classes are written as their ID rather than their name, so the IDs are fixed here
+     * and must never be reused or changed. IDs 0-9 are taken by Kryo for the primitive types and
+     * String. New registrations go at the end, with the next free ID.
      */
     static void registerSerializer(Kryo k)
     {
         k.setInstantiatorStrategy(new StdInstantiatorStrategy());
         k.addDefaultSerializer(ICorfuDBObject.class, new CorfuDBObjectSerializer());
-        k.register(SimpleStreamEntry.class);
-        k.register(SimpleTimestamp.class);
-        k.register(HashMap.class);
-        k.register(UUID.class, new UUIDSerializer());
-        k.register(AtomicLong.class);
-        k.register(Set.class);
-        k.register(Map.class);
-        k.register(SMRCommandWrapper.class);
-        k.register(ITimestamp.class);
-        k.register(LinkedList.class);
-        k.register(ArrayList.class);
-        k.register(Triple.class);
-        k.register(HashSet.class);
-        k.register(Pair.class);
-        k.register(ISMREngineCommand.class, new NewCommandSerializer());
+        k.register(SimpleStreamEntry.class, 10);
+        k.register(SimpleTimestamp.class, 11);
+        k.register(HashMap.class, 12);
+        k.register(UUID.class, new UUIDSerializer(), 13);
+        k.register(AtomicLong.class, 14);
+        k.register(Set.class, 15);
+        k.register(Map.class, 16);
+        k.register(SMRCommandWrapper.class, 17);
+        k.register(ITimestamp.class, 18);
+        k.register(LinkedList.class, 19);
+        k.register(ArrayList.class, 20);
+        k.register(Triple.class, 21);
+        k.register(HashSet.class, 22);
+        k.register(Pair.class, 23);
+        k.register(ISMREngineCommand.class, new NewCommandSerializer(), 24);
+        k.register(SerializedLambda.class, 25);
+        k.register(Class.class, 26);
+        k.register(Object[].class, 27);
+        k.register(byte[].class, 28);
+        k.register(int[].class, 29);
+        k.register(long[].class, 30);
+        k.register(String[].class, 31);
+        k.register(TreeMap.class, 32);
+        k.register(TreeSet.class, 33);
+        k.register(LinkedHashMap.class, 34);
+        k.register(ConcurrentHashMap.class, 35);
+        k.register(ConcurrentSkipListMap.class, 36);
+        k.register(IndexedHashMap.class, 37);
+        k.register(OffHeapHashMap.class, 38);
+        k.register(LongLongHashMap.class, 39);
+        k.register(LongObjectHashMap.class, 40);
+        k.register(LongHashSet.class, 41);
     }
 
     /** Get a thread local kryo instance for deserialization */
@@ -408,98 +488,4 @@ public class KryoSerializer implements ISerializer{
             return kryo;
         };
     };
-
-
-
-
-    /** Serialize a object.
-     *
-     * @param o      The object to be serialized.
-     *
-     * @return       The serialized object byte array.
-     */
-    public ByteBuffer serializeBuffer (Object o)
-            throws IOException
-    {
-        Kryo k = kryos.get();
-        try (ByteBufferOutputStream baos = new ByteBufferOutputStream())
-        {
-            try (UnsafeOutput output = new UnsafeOutput(baos, 16384))
-            {
-                k.writeClassAndObject(output, o);
-                output.flush();
-                return baos.getByteBuffer();
-            }
-        }
-    }
-
-    /** Deserialize an object using compresssion.
-     *
-     * @param data      The array to be deserialized.
-     *
-     * @return          The deserialized object.
-     */
-    public Object deserialize_compressed(byte[] data)
-            throws IOException, ClassNotFoundException
-    {
-        Object o;
-        Kryo k = kryos.get();
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(data))
-        {
-            try (InflaterInputStream iis = new InflaterInputStream(bis))
-            {
-                try (UnsafeInput i = new UnsafeInput(iis, 16384))
-                {
-                    o = k.readClassAndObject(i);
-                    return o;
-                }
-            }
-        }
-    }
-
-    /** Serialize an object using compression.
-     * @param o     The object to be serialized.
-     *
-     * @return      The serialized byte array.
-     */
-    public byte[] serialize_compressed (Object o)
-            throws IOException
-    {
-        Kryo k = kryos.get();
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream())
-        {
-            try (DeflaterOutputStream dos = new DeflaterOutputStream(baos))
-            {
-                try (UnsafeOutput output = new UnsafeOutput(dos, 16384))
-                {
-                    k.writeClassAndObject(output, o);
-                    output.flush();
-                }
-                dos.finish();
-            }
-            return baos.toByteArray();
-        }
-    }
-
-    /** Deep copy an object.
-     *
-     * @param o     The object to copy.
-     * @return      A deep copy of the object.
-     */
-    public Object copy(Object o)
-    {
-        Kryo k = kryos.get();
-        return k.copy(o);
-    }
-
-    /** Shallow copy an object.
-     *
-     * @param o
-     * @return
-     */
-    public Object copyShallow(Object o)
-    {
-        Kryo k = kryos.get();
-        return k.copyShallow(o);
-    }
 }
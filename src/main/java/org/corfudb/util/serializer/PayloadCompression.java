@@ -0,0 +1,270 @@
+package org.corfudb.util.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.Getter;
+import lombok.Setter;
+import org.corfudb.runtime.stream.IStream;
+import org.corfudb.runtime.stream.ITimestamp;
+import org.corfudb.runtime.stream.SimpleTimestamp;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Optional compression of log entry payloads, with per-stream preset dictionaries.
+ *
+ * A compressed payload starts with a marker byte, which is distinct from the magic written by
+ * CorfuSerializer and from a Java serialization stream. The marker is followed by the length of the
+ * uncompressed payload as a varint, then by the log address of the dictionary plus one as a varint
+ * (zero if no dictionary was used), and then by a deflate stream.
+ * Since compressed payloads describe themselves, log units store and return them unchanged.
+ * Readers always understand them, whether or not they compress their own writes. A reader which
+ * has not read the dictionary of a payload fetches it from the log the payload was read from,
+ * through the dictionary loader passed to decompress.
+ *
+ * A payload which belongs to a single stream is compressed with the dictionary of that stream, if
+ * one has been added and its address is known. Writers add dictionaries with writeDictionary, which
+ * writes them to the log first. Payloads which belong to several streams are compressed without a dictionary,
+ * since readers of the other streams may never read it. Payloads are only stored compressed if that
+ * makes them smaller.
+ */
+public class PayloadCompression {
+
+    /** The marker which starts a compressed payload. */
+    public static final byte COMPRESSED_MAGIC = 0x43;
+
+    /** Whether payloads are compressed when written. Compressed payloads are always readable. */
+    @Getter
+    @Setter
+    static boolean enabled = false;
+
+    /** Payloads smaller than this, in bytes, are not compressed. */
+    @Getter
+    @Setter
+    static int threshold = 64;
+
+    /** The deflate level to compress with. */
+    @Getter
+    @Setter
+    static int level = Deflater.DEFAULT_COMPRESSION;
+
+    /** Dictionaries, by ID. */
+    static final Map<Integer, CompressionDictionary> dictionaries = new ConcurrentHashMap<>();
+
+    /** The dictionary to compress each stream with. */
+    static final Map<UUID, CompressionDictionary> streamDictionaries = new ConcurrentHashMap<>();
+
+    static final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+    static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    /**
+     * Add a dictionary, so payloads compressed with it can be read. It also becomes the
+     * dictionary that new payloads of its stream are compressed with.
+     * @param dictionary    The dictionary to add.
+     */
+    public static void addDictionary(CompressionDictionary dictionary)
+    {
+        CompressionDictionary known = dictionaries.get(dictionary.getId());
+        if (dictionary.getAddress() < 0 && known != null)
+        {
+            // A copy which was just read, before the stream address space has set its address.
+            dictionary.setAddress(known.getAddress());
+        }
+        dictionaries.put(dictionary.getId(), dictionary);
+        streamDictionaries.put(dictionary.getStream(), dictionary);
+    }
+
+    /**
+     * Write a dictionary to the log, in the stream it belongs to, and add it with the address it
+     * was written at. Payloads compressed with it then name it, so readers which have not read it
+     * can fetch it.
+     * @param stream        The stream the dictionary belongs to.
+     * @param dictionary    The dictionary to write.
+     * @throws IOException  If the dictionary could not be written.
+     */
+    public static void writeDictionary(IStream stream, CompressionDictionary dictionary)
+            throws IOException
+    {
+        if (!stream.getStreamID().equals(dictionary.getStream()))
+        {
+            throw new IllegalArgumentException("The dictionary belongs to stream " + dictionary.getStream()
+                    + ", not " + stream.getStreamID());
+        }
+        ITimestamp ts = stream.append(dictionary);
+        dictionary.setAddress(((SimpleTimestamp) ts).address);
+        addDictionary(dictionary);
+    }
+
+    /**
+     * Returns true if the payload in a buffer is compressed.
+     * @param b The buffer, positioned at the start of the payload.
+     */
+    public static boolean isCompressed(ByteBuf b)
+    {
+        return b.isReadable() && b.getByte(b.readerIndex()) == COMPRESSED_MAGIC;
+    }
+
+    static byte[] toArray(ByteBuf b)
+    {
+        byte[] data = new byte[b.readableBytes()];
+        b.getBytes(b.readerIndex(), data);
+        return data;
+    }
+
+    /**
+     * Compress a serialized payload into a buffer, if compression is worthwhile.
+     * @param raw       The serialized payload. Its reader index is not changed.
+     * @param streams   The streams the payload belongs to. A dictionary is only used if there
+     *                  is exactly one, and the address of its dictionary is known.
+     * @param out       The buffer to write the compressed payload to.
+     * @return          True, if the compressed payload was written. Otherwise, nothing was written.
+     */
+    public static boolean compress(ByteBuf raw, Set<UUID> streams, ByteBuf out)
+    {
+        int length = raw.readableBytes();
+        if (length < threshold)
+        {
+            return false;
+        }
+        CompressionDictionary dictionary = streams.size() == 1 ?
+                streamDictionaries.get(streams.iterator().next()) : null;
+        if (dictionary != null && dictionary.getAddress() < 0)
+        {
+            // Readers which have not read the dictionary could not fetch it.
+            dictionary = null;
+        }
+
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setLevel(level);
+        if (dictionary != null)
+        {
+            deflater.setDictionary(dictionary.getDictionary());
+        }
+        if (raw.hasArray())
+        {
+            deflater.setInput(raw.array(), raw.arrayOffset() + raw.readerIndex(), length);
+        }
+        else
+        {
+            deflater.setInput(toArray(raw));
+        }
+        deflater.finish();
+
+        int start = out.writerIndex();
+        out.writeByte(COMPRESSED_MAGIC);
+        Varint.writeVarInt(length, out);
+        Varint.writeVarLong(dictionary == null ? 0 : dictionary.getAddress() + 1, out);
+        byte[] chunk = new byte[Math.min(length, 4096)];
+        while (!deflater.finished())
+        {
+            int n = deflater.deflate(chunk);
+            out.writeBytes(chunk, 0, n);
+            if (out.writerIndex() - start >= length)
+            {
+                // Not worth it, so leave the buffer as it was.
+                out.writerIndex(start);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a dictionary by ID, fetching it from the log if it has not been added.
+     * @param id        The ID of the dictionary.
+     * @param address   The log address of the dictionary, or -1, if it is not known.
+     * @param loader    Reads the dictionary at a log address, or null, if dictionaries cannot be fetched.
+     * @return          The dictionary, or null, if it could not be found.
+     */
+    static CompressionDictionary getDictionary(int id, long address, Function<Long, CompressionDictionary> loader)
+    {
+        CompressionDictionary dictionary = dictionaries.get(id);
+        if (dictionary != null || address < 0 || loader == null)
+        {
+            return dictionary;
+        }
+        dictionary = loader.apply(address);
+        if (dictionary == null || dictionary.getId() != id)
+        {
+            return null;
+        }
+        dictionary.setAddress(address);
+        dictionaries.putIfAbsent(id, dictionary);
+        return dictionary;
+    }
+
+    /**
+     * Decompress a payload, whose dictionary, if any, must have been added.
+     * @param b The buffer holding the compressed payload, which is consumed.
+     * @return  A buffer holding the serialized payload.
+     */
+    public static ByteBuf decompress(ByteBuf b)
+    {
+        return decompress(b, null);
+    }
+
+    /**
+     * Decompress a payload.
+     * @param b         The buffer holding the compressed payload, which is consumed.
+     * @param loader    Reads the dictionary at an address of the log the payload was read from,
+     *                  or null, if dictionaries cannot be fetched.
+     * @return          A buffer holding the serialized payload.
+     */
+    public static ByteBuf decompress(ByteBuf b, Function<Long, CompressionDictionary> loader)
+    {
+        if (b.readByte() != COMPRESSED_MAGIC)
+        {
+            throw new IllegalArgumentException("Payload is not compressed.");
+        }
+        int length = Varint.readVarInt(b);
+        long dictionaryAddress = Varint.readVarLong(b) - 1;
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        if (b.hasArray())
+        {
+            inflater.setInput(b.array(), b.arrayOffset() + b.readerIndex(), b.readableBytes());
+        }
+        else
+        {
+            inflater.setInput(toArray(b));
+        }
+        byte[] data = new byte[length];
+        try {
+            int n = 0;
+            while (n < length)
+            {
+                int read = inflater.inflate(data, n, length - n);
+                if (read == 0 && inflater.needsDictionary())
+                {
+                    CompressionDictionary dictionary = getDictionary(inflater.getAdler(), dictionaryAddress, loader);
+                    if (dictionary == null)
+                    {
+                        throw new IllegalStateException("Payload was compressed with unknown dictionary "
+                                + Integer.toHexString(inflater.getAdler()));
+                    }
+                    inflater.setDictionary(dictionary.getDictionary());
+                }
+                else if (read == 0 && (inflater.finished() || inflater.needsInput()))
+                {
+                    throw new IllegalStateException("Compressed payload is truncated.");
+                }
+                n += read;
+            }
+        }
+        catch (DataFormatException dfe)
+        {
+            throw new IllegalStateException("Compressed payload is corrupt.", dfe);
+        }
+        b.skipBytes(b.readableBytes() - inflater.getRemaining());
+        return Unpooled.wrappedBuffer(data);
+    }
+}
@@ -0,0 +1,100 @@
+package org.corfudb.util.serializer;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Variable length encodings for integers. Values are written 7 bits at a time, least significant
+ * group first, with the high bit of each byte set if more bytes follow. Signed values are
+ * zigzag encoded first, so values of small magnitude encode to few bytes regardless of sign.
+ */
+public class Varint {
+
+    private Varint() {}
+
+    /** Zigzag encode a signed value, mapping 0, -1, 1, -2... to 0, 1, 2, 3...
+     *
+     * @param v The value to encode.
+     * @return  The encoded value.
+     */
+    public static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    /** Decode a zigzag encoded value.
+     *
+     * @param v The encoded value.
+     * @return  The decoded value.
+     */
+    public static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** Write an unsigned value as a varint.
+     *
+     * @param v The value to write.
+     * @param b The buffer to write it into.
+     */
+    public static void writeVarLong(long v, ByteBuf b) {
+        while ((v & ~0x7FL) != 0)
+        {
+            b.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        b.writeByte((int) v);
+    }
+
+    /** Read an unsigned varint.
+     *
+     * @param b The buffer to read from.
+     * @return  The value read.
+     */
+    public static long readVarLong(ByteBuf b) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            byte x = b.readByte();
+            result |= (long) (x & 0x7F) << shift;
+            if ((x & 0x80) == 0)
+            {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint, more than 10 bytes.");
+    }
+
+    /** Write a signed value as a zigzag encoded varint.
+     *
+     * @param v The value to write.
+     * @param b The buffer to write it into.
+     */
+    public static void writeSignedVarLong(long v, ByteBuf b) {
+        writeVarLong(zigZag(v), b);
+    }
+
+    /** Read a zigzag encoded varint.
+     *
+     * @param b The buffer to read from.
+     * @return  The value read.
+     */
+    public static long readSignedVarLong(ByteBuf b) {
+        return unZigZag(readVarLong(b));
+    }
+
+    /** Write an unsigned int as a varint.
+     *
+     * @param v The value to write.
+     * @param b The buffer to write it into.
+     */
+    public static void writeVarInt(int v, ByteBuf b) {
+        writeVarLong(v & 0xFFFFFFFFL, b);
+    }
+
+    /** Read an unsigned int written as a varint.
+     *
+     * @param b The buffer to read from.
+     * @return  The value read.
+     */
+    public static int readVarInt(ByteBuf b) {
+        return (int) readVarLong(b);
+    }
+}
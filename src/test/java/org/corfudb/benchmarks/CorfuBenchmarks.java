@@ -0,0 +1,28 @@
+package org.corfudb.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH microbenchmarks, with the GC profiler, so that allocation rates are reported
+ * alongside the time per operation. Results are written as JSON to target/jmh-result.json.
+ *
+ * Usually run through the benchmarks profile: mvn -Pbenchmarks test -Dbenchmarks=Sequencer
+ * Any JMH command line options may be passed as arguments.
+ */
+public class CorfuBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,59 @@
+package org.corfudb.benchmarks;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.corfudb.infrastructure.AbstractNettyServer;
+import org.corfudb.infrastructure.wireprotocol.NettyCorfuMessageDecoder;
+import org.corfudb.infrastructure.wireprotocol.NettyCorfuMessageEncoder;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A server, attached to an in-process channel instead of a socket. Messages written to the
+ * channel pass through the same decoder, handler and encoder as on the network, on the
+ * calling thread.
+ */
+class EmbeddedServer<T extends AbstractNettyServer> {
+
+    final T server;
+    final EmbeddedChannel channel;
+
+    EmbeddedServer(T server)
+    {
+        this.server = server;
+        Map<String, Object> config = new HashMap<>();
+        config.put("port", 0);
+        server.getInstance(config);
+        channel = new EmbeddedChannel(new NettyCorfuMessageDecoder(),
+                new NettyCorfuMessageEncoder(),
+                ((AbstractNettyServer) server).new NettyServerHandler());
+    }
+
+    /**
+     * Pass a message to the server, and consume every response it sends.
+     *
+     * @param msg   The message, either encoded in a ByteBuf or as a NettyCorfuMsg.
+     * @param bh    The blackhole to consume responses with, or null.
+     */
+    void send(Object msg, Blackhole bh)
+    {
+        channel.writeInbound(msg);
+        Object o;
+        while ((o = channel.readOutbound()) != null)
+        {
+            if (bh != null)
+            {
+                bh.consume(o);
+            }
+            ReferenceCountUtil.release(o);
+        }
+    }
+
+    void close()
+    {
+        channel.finish();
+        server.close();
+    }
+}
@@ -0,0 +1,118 @@
+package org.corfudb.benchmarks;
+
+import lombok.Getter;
+
+/**
+ * A histogram of latencies, in nanoseconds, with buckets which grow logarithmically, in the
+ * style of HdrHistogram. Values are recorded to within 1/64 (about 1.6%) of their value, in a
+ * fixed number of buckets, so recording never allocates and a histogram covers any latency.
+ *
+ * Histograms are not thread safe: each thread should record into its own, and the histograms
+ * added together when measurement is done.
+ */
+class LatencyHistogram {
+
+    /** The number of bits of precision each value is recorded with. */
+    static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    /** Values below SUB_BUCKET_COUNT are recorded exactly, and each power of two above that
+     * is split into SUB_BUCKET_HALF_COUNT buckets. */
+    static final int BUCKETS = SUB_BUCKET_COUNT + (64 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+    final long[] counts = new long[BUCKETS];
+
+    @Getter
+    long totalCount;
+
+    @Getter
+    long max;
+
+    long sum;
+
+    static int indexOf(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT
+                + (int) (value >>> shift) - SUB_BUCKET_HALF_COUNT;
+    }
+
+    /** Get the highest value which would be recorded in a bucket. */
+    static long highestValueAt(int index)
+    {
+        if (index < SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long top = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Record a latency.
+     * @param nanos The latency, in nanoseconds.
+     */
+    void record(long nanos)
+    {
+        if (nanos < 0)
+        {
+            nanos = 0;
+        }
+        counts[indexOf(nanos)]++;
+        totalCount++;
+        sum += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    /**
+     * Add the values recorded by another histogram to this one.
+     * @param other The histogram to add.
+     */
+    void add(LatencyHistogram other)
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    double getMean()
+    {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Get the value at a percentile. As with HdrHistogram, this is the highest value which is
+     * equivalent, within the precision of the histogram, to the value at the percentile.
+     * @param percentile    The percentile, between 0 and 100.
+     * @return              The value at the percentile, in nanoseconds, or 0 if no values
+     *                      have been recorded.
+     */
+    long getValueAtPercentile(double percentile)
+    {
+        if (totalCount == 0)
+        {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += counts[i];
+            if (seen >= countAtPercentile)
+            {
+                return Math.min(highestValueAt(i), max);
+            }
+        }
+        return max;
+    }
+}
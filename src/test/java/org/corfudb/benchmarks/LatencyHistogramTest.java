@@ -0,0 +1,73 @@
+package org.corfudb.benchmarks;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void smallValuesAreRecordedExactly()
+    {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long i = 1; i <= 100; i++)
+        {
+            h.record(i);
+        }
+        assertThat(h.getValueAtPercentile(50.0))
+                .isEqualTo(50L);
+        assertThat(h.getValueAtPercentile(99.0))
+                .isEqualTo(99L);
+        assertThat(h.getValueAtPercentile(100.0))
+                .isEqualTo(100L);
+        assertThat(h.getMean())
+                .isEqualTo(50.5);
+    }
+
+    @Test
+    public void largeValuesAreRecordedWithinPrecision()
+    {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++)
+        {
+            h.record(i * 1_000_000L);
+        }
+        assertThat(h.getValueAtPercentile(99.9))
+                .isBetween(999_000_000L, (long) (999_000_000L * (1 + 1.0 / 64)));
+        assertThat(h.getValueAtPercentile(50.0))
+                .isBetween(500_000_000L, (long) (500_000_000L * (1 + 1.0 / 64)));
+        assertThat(h.getMax())
+                .isEqualTo(1_000_000_000L);
+    }
+
+    @Test
+    public void bucketsCoverEveryValue()
+    {
+        for (int shift = 0; shift < 63; shift++)
+        {
+            long v = 1L << shift;
+            int index = LatencyHistogram.indexOf(v);
+            assertThat(LatencyHistogram.highestValueAt(index))
+                    .isGreaterThanOrEqualTo(v);
+        }
+        assertThat(LatencyHistogram.indexOf(Long.MAX_VALUE))
+                .isLessThan(LatencyHistogram.BUCKETS);
+    }
+
+    @Test
+    public void histogramsCanBeAdded()
+    {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(10);
+        b.record(20);
+        b.record(30);
+        a.add(b);
+        assertThat(a.getTotalCount())
+                .isEqualTo(3L);
+        assertThat(a.getMax())
+                .isEqualTo(30L);
+        assertThat(a.getValueAtPercentile(50.0))
+                .isEqualTo(20L);
+    }
+}
@@ -0,0 +1,98 @@
+package org.corfudb.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.wireprotocol.NettyLogUnitReadRequestMsg;
+import org.corfudb.infrastructure.wireprotocol.NettyLogUnitWriteMsg;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the log unit servicing writes and reads over an in-process channel. Writes arrive
+ * encoded, in a buffer of their own, as they would from the network, and are decoded by the
+ * channel. Reads are sent decoded, and measure the lookup and encoding the response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LogUnitBenchmark {
+
+    /** The number of entries written before reads are measured. */
+    static final int READ_ENTRIES = 1024;
+
+    /** The number of entries written before the log is reset, which bounds the memory used. */
+    static final int WRITE_WINDOW = 65536;
+
+    @Param({"64", "4096"})
+    int payloadSize;
+
+    EmbeddedServer<NettyLogUnitServer> logUnit;
+
+    /** An encoded write, which has its address at the end. */
+    ByteBuf encodedWrite;
+
+    NettyLogUnitReadRequestMsg readRequest;
+
+    long address;
+
+    @Setup
+    public void setup()
+    {
+        logUnit = new EmbeddedServer<>(new NettyLogUnitServer());
+
+        NettyLogUnitWriteMsg write = new NettyLogUnitWriteMsg(0L);
+        write.setClientID(UUID.randomUUID());
+        write.setStreams(Collections.singleton(UUID.randomUUID()));
+        write.setRank(0L);
+        write.setPayload(new byte[payloadSize]);
+        encodedWrite = Unpooled.buffer();
+        write.serialize(encodedWrite);
+
+        readRequest = new NettyLogUnitReadRequestMsg(0L);
+        readRequest.setClientID(UUID.randomUUID());
+
+        for (int i = 0; i < READ_ENTRIES; i++)
+        {
+            logUnit.send(nextWrite(), null);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        logUnit.close();
+    }
+
+    ByteBuf nextWrite()
+    {
+        if (address == WRITE_WINDOW)
+        {
+            logUnit.server.reset();
+            address = 0;
+        }
+        ByteBuf b = Unpooled.copiedBuffer(encodedWrite);
+        b.setLong(b.writerIndex() - 8, address++);
+        return b;
+    }
+
+    @Benchmark
+    public void write(Blackhole bh)
+    {
+        logUnit.send(nextWrite(), bh);
+    }
+
+    @Benchmark
+    public void read(Blackhole bh)
+    {
+        readRequest.setAddress(address++ % READ_ENTRIES);
+        logUnit.send(readRequest, bh);
+    }
+}
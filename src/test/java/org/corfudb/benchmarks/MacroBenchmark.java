@@ -0,0 +1,391 @@
+package org.corfudb.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.collections.CDBSimpleMap;
+import org.corfudb.runtime.entries.IStreamEntry;
+import org.corfudb.runtime.smr.OptimisticTransaction;
+import org.corfudb.runtime.smr.TransactionAbortedException;
+import org.corfudb.runtime.stream.IStream;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.GitRepositoryState;
+import org.corfudb.util.RandomOpenPort;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * An end to end benchmark, which starts a sequencer, log units and a configuration master in
+ * process, on localhost, and drives workloads against them through a runtime.
+ *
+ * Each workload runs on a number of threads for a warmup period, and then for a measured period.
+ * The throughput and latency percentiles of each operation in the measured period are written as
+ * JSON, along with the configuration and version benchmarked, so that results can be compared
+ * across releases and configurations.
+ *
+ * Options are given as key=value arguments:
+ *  workload    append, map, tx, replay or all (default all).
+ *  logunits    The number of log units (default 1).
+ *  chains      The number of chains the log units are spread across (default 1).
+ *  threads     The number of threads each workload runs on (default 4).
+ *  warmup      The warmup period, in seconds (default 5).
+ *  duration    The measured period, in seconds (default 10).
+ *  valuesize   The size, in bytes, of each value written (default 64).
+ *  keys        The number of keys the map and transaction workloads use (default 1000).
+ *  objects     The number of maps the transaction workload updates (default 4).
+ *  streams     The number of streams the replay workload reads (default 64).
+ *  entries     The number of entries in each stream the replay workload reads (default 100).
+ *  output      The file results are written to (default target/macrobenchmark-result.json).
+ *
+ * Usually run through the macrobenchmark profile:
+ *  mvn -Pmacrobenchmark test -Dmacrobenchmark="workload=tx threads=8"
+ */
+@Slf4j
+public class MacroBenchmark {
+
+    static final String[] WORKLOADS = {"append", "map", "tx", "replay"};
+
+    /** A single operation of a workload, which records its own latencies. */
+    @FunctionalInterface
+    interface Operation {
+        void run(Recorder recorder) throws Exception;
+    }
+
+    /** The latencies recorded by a single thread. */
+    static class Recorder {
+        final Map<String, LatencyHistogram> histograms = new HashMap<>();
+        boolean recording;
+        long errors;
+
+        void record(String operation, long startNanos)
+        {
+            long latency = System.nanoTime() - startNanos;
+            if (recording)
+            {
+                histograms.computeIfAbsent(operation, k -> new LatencyHistogram()).record(latency);
+            }
+        }
+    }
+
+    final Map<String, String> options;
+    final ICorfuDBInstance instance;
+    final Random random = new Random();
+
+    final int threads;
+    final long warmupNanos;
+    final long durationNanos;
+    final int valueSize;
+    final int keys;
+
+    /** The maps the transaction workload updates. */
+    List<CDBSimpleMap<Integer, Long>> txMaps;
+
+    /** The streams the replay workload reads. */
+    List<UUID> replayStreams;
+
+    MacroBenchmark(Map<String, String> options, ICorfuDBInstance instance)
+    {
+        this.options = options;
+        this.instance = instance;
+        threads = Integer.parseInt(options.get("threads"));
+        warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+        durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+        valueSize = Math.max(Long.BYTES, Integer.parseInt(options.get("valuesize")));
+        keys = Integer.parseInt(options.get("keys"));
+    }
+
+    static Map<String, String> parseOptions(String[] args)
+    {
+        Map<String, String> options = new TreeMap<>();
+        options.put("workload", "all");
+        options.put("logunits", "1");
+        options.put("chains", "1");
+        options.put("threads", "4");
+        options.put("warmup", "5");
+        options.put("duration", "10");
+        options.put("valuesize", "64");
+        options.put("keys", "1000");
+        options.put("objects", "4");
+        options.put("streams", "64");
+        options.put("entries", "100");
+        options.put("output", "target/macrobenchmark-result.json");
+        for (String arg : args)
+        {
+            // Maven passes all of the options in a single argument.
+            for (String option : arg.trim().split("\\s+"))
+            {
+                if (option.isEmpty())
+                {
+                    continue;
+                }
+                String[] kv = option.split("=", 2);
+                if (kv.length != 2 || !options.containsKey(kv[0]))
+                {
+                    throw new IllegalArgumentException("Unknown option " + option);
+                }
+                options.put(kv[0], kv[1]);
+            }
+        }
+        return options;
+    }
+
+    static String getVersion()
+    {
+        try {
+            return GitRepositoryState.getRepositoryState().describe;
+        } catch (Exception e)
+        {
+            return "unknown";
+        }
+    }
+
+    byte[] newValue(long sequence)
+    {
+        byte[] value = new byte[valueSize];
+        ByteBuffer.wrap(value).putLong(0, sequence);
+        return value;
+    }
+
+    /** Prepare any state shared by the threads of a workload. */
+    @SuppressWarnings("unchecked")
+    void setup(String workload) throws Exception
+    {
+        switch (workload)
+        {
+            case "tx":
+                int objects = Integer.parseInt(options.get("objects"));
+                if (objects < 2)
+                {
+                    throw new IllegalArgumentException("The transaction workload needs at least 2 objects");
+                }
+                txMaps = new ArrayList<>();
+                for (int i = 0; i < objects; i++)
+                {
+                    txMaps.add(instance.openObject(UUID.randomUUID(), CDBSimpleMap.class));
+                }
+                break;
+            case "replay":
+                replayStreams = new ArrayList<>();
+                int entries = Integer.parseInt(options.get("entries"));
+                for (int i = 0; i < Integer.parseInt(options.get("streams")); i++)
+                {
+                    IStream s = instance.openStream(UUID.randomUUID());
+                    for (int j = 0; j < entries; j++)
+                    {
+                        s.append(newValue(j));
+                    }
+                    replayStreams.add(s.getStreamID());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Create the operation a thread of a workload runs repeatedly. */
+    @SuppressWarnings("unchecked")
+    Operation createOperation(String workload)
+    {
+        Random r = new Random(random.nextLong());
+        switch (workload)
+        {
+            case "append": {
+                IStream s = instance.openStream(UUID.randomUUID());
+                byte[] value = newValue(0);
+                return recorder -> {
+                    long start = System.nanoTime();
+                    s.append(value);
+                    recorder.record("append", start);
+                };
+            }
+            case "map": {
+                // Each thread writes a map of its own, and checks that it reads its own writes.
+                CDBSimpleMap<Integer, byte[]> map = instance.openObject(UUID.randomUUID(), CDBSimpleMap.class);
+                long[] sequence = new long[1];
+                return recorder -> {
+                    int key = r.nextInt(keys);
+                    long written = sequence[0]++;
+                    long start = System.nanoTime();
+                    map.put(key, newValue(written));
+                    recorder.record("put", start);
+                    start = System.nanoTime();
+                    byte[] read = map.get(key);
+                    recorder.record("get", start);
+                    if (read == null || ByteBuffer.wrap(read).getLong(0) != written)
+                    {
+                        throw new IllegalStateException("Read of key " + key + " did not return the last write");
+                    }
+                };
+            }
+            case "tx":
+                return recorder -> {
+                    int first = r.nextInt(txMaps.size());
+                    int second = (first + 1 + r.nextInt(txMaps.size() - 1)) % txMaps.size();
+                    CDBSimpleMap<Integer, Long> a = txMaps.get(first);
+                    CDBSimpleMap<Integer, Long> b = txMaps.get(second);
+                    int key = r.nextInt(keys);
+                    long start = System.nanoTime();
+                    try {
+                        instance.executeTransaction(OptimisticTransaction.class, (opts) -> {
+                            Long va = a.get(key);
+                            a.put(key, va == null ? 1L : va + 1);
+                            Long vb = b.get(key);
+                            b.put(key, vb == null ? 1L : vb + 1);
+                            return true;
+                        });
+                        recorder.record("commit", start);
+                    } catch (TransactionAbortedException tae)
+                    {
+                        recorder.record("abort", start);
+                    }
+                };
+            case "replay":
+                return recorder -> {
+                    UUID id = replayStreams.get(r.nextInt(replayStreams.size()));
+                    long start = System.nanoTime();
+                    IStream s = instance.openStream(id, EnumSet.of(ICorfuDBInstance.OpenStreamFlags.NON_CACHED));
+                    IStreamEntry[] entries = s.checkAsync().thenCompose(s::readToAsync).join();
+                    recorder.record("replay", start);
+                    s.close();
+                    if (entries == null || entries.length == 0)
+                    {
+                        throw new IllegalStateException("Replay of stream " + id + " read no entries");
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown workload " + workload);
+        }
+    }
+
+    JsonObject run(String workload) throws Exception
+    {
+        log.info("Running workload {} on {} threads...", workload, threads);
+        setup(workload);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Callable<Recorder>> workers = new ArrayList<>();
+        long warmupEnd = System.nanoTime() + warmupNanos;
+        long end = warmupEnd + durationNanos;
+        for (int i = 0; i < threads; i++)
+        {
+            Operation op = createOperation(workload);
+            workers.add(() -> {
+                Recorder recorder = new Recorder();
+                long now;
+                while ((now = System.nanoTime()) < end)
+                {
+                    recorder.recording = now >= warmupEnd;
+                    try {
+                        op.run(recorder);
+                    } catch (Exception e)
+                    {
+                        log.warn("Operation failed in workload {}", workload, e);
+                        if (recorder.recording)
+                        {
+                            recorder.errors++;
+                        }
+                    }
+                }
+                return recorder;
+            });
+        }
+
+        Map<String, LatencyHistogram> histograms = new TreeMap<>();
+        long errors = 0;
+        try {
+            for (Future<Recorder> f : executor.invokeAll(workers))
+            {
+                Recorder recorder = f.get();
+                recorder.histograms.forEach((k, v) ->
+                        histograms.computeIfAbsent(k, x -> new LatencyHistogram()).add(v));
+                errors += recorder.errors;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double seconds = durationNanos / 1_000_000_000.0;
+        JsonObjectBuilder operations = Json.createObjectBuilder();
+        histograms.forEach((k, h) -> operations.add(k, Json.createObjectBuilder()
+                .add("count", h.getTotalCount())
+                .add("throughput", h.getTotalCount() / seconds)
+                .add("meanMicros", h.getMean() / 1000.0)
+                .add("p50Micros", h.getValueAtPercentile(50.0) / 1000.0)
+                .add("p99Micros", h.getValueAtPercentile(99.0) / 1000.0)
+                .add("p999Micros", h.getValueAtPercentile(99.9) / 1000.0)
+                .add("maxMicros", h.getMax() / 1000.0)));
+        return Json.createObjectBuilder()
+                .add("durationSeconds", seconds)
+                .add("errors", errors)
+                .add("operations", operations)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int logUnits = Integer.parseInt(options.get("logunits"));
+        int chains = Integer.parseInt(options.get("chains"));
+        if (chains < 1 || logUnits < chains)
+        {
+            throw new IllegalArgumentException("Each of the " + chains + " chains needs at least one log unit");
+        }
+
+        CorfuInfrastructureBuilder infrastructure = CorfuInfrastructureBuilder.getBuilder()
+                .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null);
+        for (int i = 0; i < logUnits; i++)
+        {
+            Map<String, Object> luConfigMap = new HashMap<>();
+            luConfigMap.put("capacity", 200000);
+            luConfigMap.put("ramdisk", true);
+            luConfigMap.put("pagesize", 4096);
+            luConfigMap.put("trim", 0);
+            infrastructure.addLoggingUnit(RandomOpenPort.getOpenPort(), i % chains, NettyLogUnitServer.class, "nlu", luConfigMap);
+        }
+        infrastructure.start(RandomOpenPort.getOpenPort());
+
+        CorfuDBRuntime runtime = CorfuDBRuntime.createRuntime(infrastructure.getConfigString());
+        JsonObjectBuilder results = Json.createObjectBuilder();
+        try {
+            runtime.waitForViewReady();
+            MacroBenchmark benchmark = new MacroBenchmark(options, runtime.getLocalInstance());
+            List<String> workloads = options.get("workload").equals("all") ?
+                    Arrays.asList(WORKLOADS) : Arrays.asList(options.get("workload").split(","));
+            for (String workload : workloads)
+            {
+                results.add(workload, benchmark.run(workload));
+            }
+        } finally {
+            runtime.close();
+            infrastructure.shutdownAndWait();
+        }
+
+        JsonObjectBuilder config = Json.createObjectBuilder();
+        options.forEach(config::add);
+        JsonObject result = Json.createObjectBuilder()
+                .add("version", getVersion())
+                .add("config", config)
+                .add("workloads", results)
+                .build();
+
+        File output = new File(options.get("output"));
+        if (output.getParentFile() != null)
+        {
+            output.getParentFile().mkdirs();
+        }
+        try (JsonWriter writer = Json.createWriter(new FileWriter(output)))
+        {
+            writer.writeObject(result);
+        }
+        log.info("Results written to {}", output);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,81 @@
+package org.corfudb.benchmarks;
+
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.infrastructure.wireprotocol.NettyStreamingServerTokenRequestMsg;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the streaming sequencer issuing tokens, from a decoded request to an encoded
+ * response, over an in-process channel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequencerBenchmark {
+
+    /** The number of streams each request is for. */
+    @Param({"1", "8"})
+    int numStreams;
+
+    EmbeddedServer<NettyStreamingSequencerServer> sequencer;
+
+    NettyStreamingServerTokenRequestMsg nextToken;
+    NettyStreamingServerTokenRequestMsg streamHead;
+    NettyStreamingServerTokenRequestMsg conditionalToken;
+
+    @Setup
+    public void setup()
+    {
+        sequencer = new EmbeddedServer<>(new NettyStreamingSequencerServer());
+
+        Set<UUID> streams = new HashSet<>();
+        for (int i = 0; i < numStreams; i++)
+        {
+            streams.add(UUID.randomUUID());
+        }
+        UUID readStream = streams.iterator().next();
+
+        nextToken = new NettyStreamingServerTokenRequestMsg(streams, 1L);
+        nextToken.setClientID(UUID.randomUUID());
+        streamHead = new NettyStreamingServerTokenRequestMsg(streams, 0L);
+        streamHead.setClientID(UUID.randomUUID());
+        // A read set no token can be issued past, so the request is never rejected.
+        conditionalToken = new NettyStreamingServerTokenRequestMsg(streams, 1L,
+                Collections.singletonMap(readStream, Long.MAX_VALUE));
+        conditionalToken.setClientID(UUID.randomUUID());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        sequencer.close();
+    }
+
+    @Benchmark
+    public void nextToken(Blackhole bh)
+    {
+        sequencer.send(nextToken, bh);
+    }
+
+    @Benchmark
+    public void streamHead(Blackhole bh)
+    {
+        sequencer.send(streamHead, bh);
+    }
+
+    @Benchmark
+    public void conditionalToken(Blackhole bh)
+    {
+        sequencer.send(conditionalToken, bh);
+    }
+}
@@ -0,0 +1,102 @@
+package org.corfudb.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.corfudb.util.serializer.CorfuSerializer;
+import org.corfudb.util.serializer.KryoSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serializing and deserializing payloads with the CorfuSerializer, and with Kryo
+ * directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"string", "map", "bytes"})
+    String payloadType;
+
+    final CorfuSerializer corfuSerializer = new CorfuSerializer();
+
+    Object payload;
+
+    /** A buffer payloads are serialized into, which is reused. */
+    ByteBuf buffer;
+
+    ByteBuf corfuSerialized;
+    ByteBuf kryoSerialized;
+
+    @Setup
+    public void setup()
+    {
+        switch (payloadType)
+        {
+            case "string":
+                payload = "The quick brown fox jumps over the lazy dog";
+                break;
+            case "map":
+                Map<String, String> m = new HashMap<>();
+                for (int i = 0; i < 16; i++)
+                {
+                    m.put("key" + i, "value" + i);
+                }
+                payload = m;
+                break;
+            case "bytes":
+                payload = new byte[1024];
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown payload type " + payloadType);
+        }
+        buffer = PooledByteBufAllocator.DEFAULT.directBuffer();
+        corfuSerialized = PooledByteBufAllocator.DEFAULT.directBuffer();
+        corfuSerializer.serialize(payload, corfuSerialized);
+        kryoSerialized = PooledByteBufAllocator.DEFAULT.directBuffer();
+        KryoSerializer.writeObject(payload, kryoSerialized);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        buffer.release();
+        corfuSerialized.release();
+        kryoSerialized.release();
+    }
+
+    @Benchmark
+    public ByteBuf corfuSerialize()
+    {
+        buffer.clear();
+        corfuSerializer.serialize(payload, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Object corfuDeserialize()
+    {
+        return corfuSerializer.deserialize(corfuSerialized.duplicate());
+    }
+
+    @Benchmark
+    public ByteBuf kryoSerialize()
+    {
+        buffer.clear();
+        KryoSerializer.writeObject(payload, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Object kryoDeserialize()
+    {
+        return KryoSerializer.readObject(kryoSerialized.duplicate());
+    }
+}
@@ -0,0 +1,120 @@
+package org.corfudb.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.wireprotocol.NettyCorfuMsg;
+import org.corfudb.infrastructure.wireprotocol.NettyLogUnitReadResponseMsg;
+import org.corfudb.infrastructure.wireprotocol.NettyLogUnitWriteMsg;
+import org.corfudb.infrastructure.wireprotocol.NettyStreamingServerTokenRequestMsg;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding NettyCorfuMsgs, and parsing the metadata of log unit messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireProtocolBenchmark {
+
+    @Param({"64", "4096"})
+    int payloadSize;
+
+    NettyLogUnitWriteMsg writeMsg;
+    NettyStreamingServerTokenRequestMsg tokenMsg;
+
+    /** A buffer messages are encoded into, which is reused. */
+    ByteBuf buffer;
+
+    ByteBuf encodedWrite;
+    ByteBuf encodedToken;
+    ByteBuf encodedReadResponse;
+
+    static ByteBuf encode(NettyCorfuMsg msg)
+    {
+        ByteBuf b = Unpooled.buffer();
+        msg.serialize(b);
+        return b;
+    }
+
+    @Setup
+    public void setup()
+    {
+        Set<UUID> streams = new HashSet<>(Arrays.asList(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()));
+
+        writeMsg = new NettyLogUnitWriteMsg(0L);
+        writeMsg.setClientID(UUID.randomUUID());
+        writeMsg.setStreams(streams);
+        writeMsg.setRank(0L);
+        writeMsg.setPayload(new byte[payloadSize]);
+
+        tokenMsg = new NettyStreamingServerTokenRequestMsg(streams, 1L);
+        tokenMsg.setClientID(UUID.randomUUID());
+
+        NettyLogUnitReadResponseMsg readResponse = new NettyLogUnitReadResponseMsg(NettyLogUnitServer.ReadResultType.DATA);
+        readResponse.setClientID(UUID.randomUUID());
+        readResponse.setStreams(streams);
+        readResponse.setRank(0L);
+        readResponse.setData(Unpooled.wrappedBuffer(new byte[payloadSize]));
+
+        buffer = PooledByteBufAllocator.DEFAULT.directBuffer();
+        encodedWrite = encode(writeMsg);
+        encodedToken = encode(tokenMsg);
+        encodedReadResponse = encode(readResponse);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        buffer.release();
+    }
+
+    @Benchmark
+    public ByteBuf encodeWrite()
+    {
+        buffer.clear();
+        writeMsg.serialize(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public NettyCorfuMsg decodeWrite()
+    {
+        NettyCorfuMsg m = NettyCorfuMsg.deserialize(encodedWrite.duplicate());
+        // Decoding retains the buffer the payload is sliced from.
+        encodedWrite.release();
+        return m;
+    }
+
+    @Benchmark
+    public ByteBuf encodeTokenRequest()
+    {
+        buffer.clear();
+        tokenMsg.serialize(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public NettyCorfuMsg decodeTokenRequest()
+    {
+        return NettyCorfuMsg.deserialize(encodedToken.duplicate());
+    }
+
+    @Benchmark
+    public Set<UUID> parseReadResponseMetadata()
+    {
+        NettyLogUnitReadResponseMsg m = (NettyLogUnitReadResponseMsg) NettyCorfuMsg.deserialize(encodedReadResponse.duplicate());
+        encodedReadResponse.release();
+        return m.getStreams();
+    }
+}
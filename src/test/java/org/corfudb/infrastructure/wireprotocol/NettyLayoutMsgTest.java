@@ -0,0 +1,52 @@
+package org.corfudb.infrastructure.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class NettyLayoutMsgTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void layoutRoundTrips()
+    {
+        NettyLayoutMsg m = new NettyLayoutMsg();
+        m.setMsgType(NettyCorfuMsg.NettyCorfuMsgType.LAYOUT_PUSH);
+        m.setClientID(UUID.randomUUID());
+        m.setEpoch(3L);
+        m.setLogID(UUID.randomUUID());
+        m.setPageSize(4096L);
+        m.setSequencers(Collections.singletonList("nsss://localhost:7776"));
+        m.setConfigMasters(Collections.singletonList("cdbcm://localhost:8002"));
+        List<List<String>> groups = Collections.singletonList(
+                Arrays.asList("nlu://localhost:7777", "nlu://localhost:7778"));
+        m.setSegments(Collections.singletonList(new NettyLayoutMsg.LayoutSegment("cdbcr", 0L, 0L, groups)));
+
+        ByteBuf b = Unpooled.buffer();
+        m.serialize(b);
+        NettyLayoutMsg read = (NettyLayoutMsg) NettyCorfuMsg.deserialize(b);
+
+        assertThat(read.getEpoch())
+                .isEqualTo(3L);
+        assertThat(read.getLogID())
+                .isEqualTo(m.getLogID());
+        assertThat(read.getSegments())
+                .isEqualTo(m.getSegments());
+
+        Map<String, Object> config = read.toConfig();
+        assertThat(config.get("sequencers"))
+                .isEqualTo(m.getSequencers());
+        List<Map<String, Object>> segments =
+                (List<Map<String, Object>>) ((Map<String, Object>) config.get("layout")).get("segments");
+        assertThat(segments.get(0).get("replication"))
+                .isEqualTo("cdbcr");
+    }
+}
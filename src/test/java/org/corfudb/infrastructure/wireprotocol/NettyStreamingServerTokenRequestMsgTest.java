@@ -0,0 +1,53 @@
+package org.corfudb.infrastructure.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class NettyStreamingServerTokenRequestMsgTest {
+
+    static Map<UUID, Long> readSet(int size)
+    {
+        Map<UUID, Long> readSet = new HashMap<>();
+        for (long i = 0; i < size; i++)
+        {
+            readSet.put(UUID.randomUUID(), i);
+        }
+        return readSet;
+    }
+
+    @Test
+    public void largeReadSetsRoundTrip()
+    {
+        Map<UUID, Long> readSet = readSet(300);
+        NettyStreamingServerTokenRequestMsg m =
+                new NettyStreamingServerTokenRequestMsg(Collections.singleton(UUID.randomUUID()), 1L, readSet);
+        m.setClientID(UUID.randomUUID());
+
+        ByteBuf b = Unpooled.buffer();
+        m.serialize(b);
+        NettyStreamingServerTokenRequestMsg read = (NettyStreamingServerTokenRequestMsg) NettyCorfuMsg.deserialize(b);
+
+        assertThat(read.getReadSet())
+                .isEqualTo(readSet);
+        assertThat(read.getNumTokens())
+                .isEqualTo(1L);
+        assertThat(read.getStreamIDs())
+                .isEqualTo(m.getStreamIDs());
+    }
+
+    @Test
+    public void oversizedReadSetsAreRejected()
+    {
+        assertThatThrownBy(() -> new NettyStreamingServerTokenRequestMsg(Collections.emptySet(), 1L,
+                readSet(NettyStreamingServerTokenRequestMsg.MAX_READS + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -16,6 +16,8 @@ import org.reflections.Reflections;
 import org.reflections.scanners.SubTypesScanner;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by mwei on 4/30/15.
@@ -49,6 +51,19 @@ public class CorfuDBRuntimeTest {
         assertNotNull(view);
     }
 
+    @Test
+    public void MemoryCorfuDBViewInvalidationDoesNotBlock() throws Exception {
+        MemoryConfigMasterProtocol.inMemoryClear();
+        CorfuDBRuntime runtime = CorfuDBRuntime.createRuntime("memory");
+        CorfuDBView view = runtime.getView();
+        assertNotNull(view);
+        CompletableFuture<CorfuDBView> next = runtime.invalidateViewAsync(null);
+        assertThat(next.get(10, TimeUnit.SECONDS).isValid())
+                .isTrue();
+        assertThat(runtime.getViewAsync().get(10, TimeUnit.SECONDS).getEpoch())
+                .isGreaterThanOrEqualTo(view.getEpoch());
+    }
+
     /*
     @Test
     @SuppressWarnings("unchecked")
@@ -0,0 +1,106 @@
+package org.corfudb.runtime;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.StringByteIterator;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.Vector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class YCSBClientTest {
+
+    YCSBClient client;
+
+    YCSBClient newClient(String map, int shards) throws Exception
+    {
+        Properties p = new Properties();
+        p.setProperty("corfudb.config", "inprocess");
+        p.setProperty("corfudb.map", map);
+        p.setProperty("corfudb.shards", Integer.toString(shards));
+        YCSBClient c = new YCSBClient();
+        c.setProperties(p);
+        c.init();
+        return c;
+    }
+
+    static HashMap<String, ByteIterator> record(String... fieldsAndValues)
+    {
+        HashMap<String, String> values = new HashMap<>();
+        for (int i = 0; i < fieldsAndValues.length; i += 2)
+        {
+            values.put(fieldsAndValues[i], fieldsAndValues[i + 1]);
+        }
+        return StringByteIterator.getByteIteratorMap(values);
+    }
+
+    @After
+    public void cleanup() throws Exception
+    {
+        if (client != null)
+        {
+            client.cleanup();
+        }
+    }
+
+    @Test
+    public void recordsCanBeInsertedUpdatedAndDeleted() throws Exception
+    {
+        client = newClient("simple", 4);
+        assertThat(client.insert("usertable", "user1", record("field0", "a", "field1", "b")))
+                .isEqualTo(YCSBClient.OK);
+        assertThat(client.update("usertable", "user1", record("field1", "c")))
+                .isEqualTo(YCSBClient.OK);
+
+        HashMap<String, ByteIterator> result = new HashMap<>();
+        assertThat(client.read("usertable", "user1", null, result))
+                .isEqualTo(YCSBClient.OK);
+        assertThat(StringByteIterator.getStringMap(result))
+                .containsEntry("field0", "a")
+                .containsEntry("field1", "c");
+
+        result.clear();
+        assertThat(client.read("usertable", "user1", Collections.singleton("field0"), result))
+                .isEqualTo(YCSBClient.OK);
+        assertThat(result)
+                .containsOnlyKeys("field0");
+
+        assertThat(client.delete("usertable", "user1"))
+                .isEqualTo(YCSBClient.OK);
+        assertThat(client.read("usertable", "user1", null, new HashMap<>()))
+                .isEqualTo(YCSBClient.ERROR);
+    }
+
+    @Test
+    public void scansMergeShardsInKeyOrder() throws Exception
+    {
+        client = newClient("skiplist", 4);
+        for (int i = 0; i < 20; i++)
+        {
+            assertThat(client.insert("usertable", String.format("user%02d", i), record("field0", Integer.toString(i))))
+                    .isEqualTo(YCSBClient.OK);
+        }
+        Vector<HashMap<String, ByteIterator>> result = new Vector<>();
+        assertThat(client.scan("usertable", "user05", 5, null, result))
+                .isEqualTo(YCSBClient.OK);
+        assertThat(result)
+                .hasSize(5);
+        for (int i = 0; i < 5; i++)
+        {
+            assertThat(result.get(i).get("field0").toString())
+                    .isEqualTo(Integer.toString(i + 5));
+        }
+    }
+
+    @Test
+    public void scansRequireAnOrderedMap() throws Exception
+    {
+        client = newClient("simple", 1);
+        assertThat(client.scan("usertable", "user0", 10, null, new Vector<>()))
+                .isEqualTo(YCSBClient.ERROR);
+    }
+}
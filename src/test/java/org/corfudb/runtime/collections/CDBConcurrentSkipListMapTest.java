@@ -1,11 +1,17 @@
 package org.corfudb.runtime.collections;
 
 
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
 import org.corfudb.runtime.CorfuDBRuntime;
 import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Iterator;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -52,4 +58,49 @@ public class CDBConcurrentSkipListMapTest {
         assertThat(map.lastEntry().getValue())
                 .isEqualTo(1000);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void skipListMapScansInPages() throws Exception
+    {
+        CorfuInfrastructureBuilder infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        try {
+            ICorfuDBInstance instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+            CDBConcurrentSkipListMap<Integer, Integer> orderedMap =
+                    instance.openObject(UUID.randomUUID(), CDBConcurrentSkipListMap.class);
+            for (int i = 0; i < 25; i++)
+            {
+                orderedMap.put(i, i * 10);
+            }
+            CDBConcurrentSkipListMap.ScanPage<Integer, Integer> page = orderedMap.scan(5, true, 20, false, 10);
+            assertThat(page.getEntries())
+                    .hasSize(10);
+            assertThat(page.getContinuationKey())
+                    .isEqualTo(14);
+            page = page.next();
+            assertThat(page.getEntries().get(0).getKey())
+                    .isEqualTo(15);
+            assertThat(page.getEntries())
+                    .hasSize(5);
+            assertThat(page.hasNext())
+                    .isFalse();
+
+            int count = 0;
+            Iterator<Map.Entry<Integer, Integer>> iterator = orderedMap.scanIterator(null, null, 4);
+            while (iterator.hasNext())
+            {
+                assertThat(iterator.next().getKey())
+                        .isEqualTo(count++);
+            }
+            assertThat(count)
+                    .isEqualTo(25);
+        }
+        finally {
+            infrastructure.shutdownAndWait();
+        }
+    }
 }
@@ -0,0 +1,190 @@
+package org.corfudb.runtime.collections;
+
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.smr.WriteBatchTransaction;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class CDBShardedMapTest {
+
+    CorfuInfrastructureBuilder infrastructure;
+    ICorfuDBInstance instance;
+
+    @Before
+    public void generateInstance() throws Exception
+    {
+        infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+    }
+
+    @After
+    public void shutdownInfrastructure()
+    {
+        infrastructure.shutdownAndWait();
+    }
+
+    static Map<Integer, Integer> entries(int count)
+    {
+        Map<Integer, Integer> entries = new HashMap<>();
+        for (int i = 0; i < count; i++)
+        {
+            entries.put(i, i * 10);
+        }
+        return entries;
+    }
+
+    @Test
+    public void shardedMapRoutesAndFansOut() throws Exception
+    {
+        CDBShardedMap<Integer, Integer> hashMap = new CDBShardedMap<>(instance, UUID.randomUUID(), 4);
+        Map<Integer, Integer> entries = entries(100);
+        hashMap.putAll(entries);
+        hashMap.put(100, 1000);
+        assertThat(hashMap.size())
+                .isEqualTo(101);
+        assertThat(hashMap.get(42))
+                .isEqualTo(420);
+        assertThat(hashMap.entrySet())
+                .hasSize(101);
+
+        CDBShardedMap<Integer, Integer> rangeMap =
+                new CDBShardedMap<>(instance, UUID.randomUUID(), Arrays.asList(25, 50, 75));
+        rangeMap.putAll(entries);
+        assertThat(rangeMap.getShardCount())
+                .isEqualTo(4);
+        assertThat(rangeMap.subMap(20, 60))
+                .hasSize(40)
+                .containsEntry(20, 200)
+                .containsEntry(59, 590)
+                .doesNotContainKey(60);
+        assertThat(rangeMap.keySet())
+                .startsWith(0, 1, 2);
+    }
+
+    @Test
+    public void emptyShardsContributeNothing() throws Exception
+    {
+        CDBShardedMap<Integer, Integer> hashMap = new CDBShardedMap<>(instance, UUID.randomUUID(), 8);
+        assertThat(hashMap.isEmpty())
+                .isTrue();
+        assertThat(hashMap.entrySet())
+                .isEmpty();
+        hashMap.put(1, 10);
+        assertThat(hashMap.isEmpty())
+                .isFalse();
+        assertThat(hashMap.size())
+                .isEqualTo(1);
+
+        CDBShardedMap<Integer, Integer> rangeMap =
+                new CDBShardedMap<>(instance, UUID.randomUUID(), Arrays.asList(25, 50, 75));
+        assertThat(rangeMap.subMap(0, 100))
+                .isEmpty();
+        // Only the first and the last shard have entries.
+        for (int i = 0; i < 10; i++)
+        {
+            rangeMap.put(i, i * 10);
+            rangeMap.put(80 + i, (80 + i) * 10);
+        }
+        assertThat(rangeMap.size())
+                .isEqualTo(20);
+        assertThat(rangeMap.subMap(5, 85).keySet())
+                .containsExactly(5, 6, 7, 8, 9, 80, 81, 82, 83, 84);
+        assertThat(rangeMap.subMap(30, 70))
+                .isEmpty();
+    }
+
+    @Test
+    public void keysEqualToSplitPointsBelongToTheUpperShard() throws Exception
+    {
+        CDBShardedMap<Integer, Integer> rangeMap =
+                new CDBShardedMap<>(instance, UUID.randomUUID(), Arrays.asList(25, 50, 75));
+        assertThat(rangeMap.shardIndex(24))
+                .isEqualTo(0);
+        assertThat(rangeMap.shardIndex(25))
+                .isEqualTo(1);
+        assertThat(rangeMap.shardIndex(75))
+                .isEqualTo(3);
+
+        for (int key : Arrays.asList(24, 25, 49, 50, 75))
+        {
+            rangeMap.put(key, key * 10);
+        }
+        assertThat(rangeMap.shards.get(1))
+                .containsOnlyKeys(25, 49);
+        assertThat(rangeMap.get(50))
+                .isEqualTo(500);
+        assertThat(rangeMap.subMap(25, 50).keySet())
+                .containsExactly(25, 49);
+        assertThat(rangeMap.subMap(24, 25).keySet())
+                .containsExactly(24);
+        assertThat(rangeMap.subMap(50, 50))
+                .isEmpty();
+        assertThat(rangeMap.subMap(50, 76).keySet())
+                .containsExactly(50, 75);
+    }
+
+    @Test
+    public void subMapsSpanningSeveralShardsAreMerged() throws Exception
+    {
+        CDBShardedMap<Integer, Integer> rangeMap =
+                new CDBShardedMap<>(instance, UUID.randomUUID(), Arrays.asList(25, 50, 75));
+        rangeMap.putAll(entries(100));
+
+        NavigableMap<Integer, Integer> middle = rangeMap.subMap(10, 90);
+        assertThat(middle)
+                .hasSize(80);
+        assertThat(middle.firstKey())
+                .isEqualTo(10);
+        assertThat(middle.lastKey())
+                .isEqualTo(89);
+        assertThat(middle.keySet())
+                .startsWith(10, 11)
+                .endsWith(88, 89);
+
+        // A range beyond the split points on both sides covers every shard.
+        assertThat(rangeMap.subMap(-100, 1000))
+                .hasSize(100)
+                .isEqualTo(entries(100));
+    }
+
+    @Test
+    public void shardedMapFansOutOnTheCallingThreadInTransactions() throws Exception
+    {
+        CDBShardedMap<Integer, Integer> hashMap = new CDBShardedMap<>(instance, UUID.randomUUID(), 4);
+        Map<Integer, Integer> entries = entries(100);
+        long before = instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1);
+        Boolean result = instance.executeTransaction(WriteBatchTransaction.class,
+                (opts) -> {
+                    hashMap.putAll(entries);
+                    return true;
+                });
+        assertThat(result)
+                .isTrue();
+        // Every shard is written by the transaction, in a single entry.
+        assertThat(instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1))
+                .isEqualTo(before + 2);
+        assertThat(hashMap.size())
+                .isEqualTo(100);
+        assertThat(hashMap.get(42))
+                .isEqualTo(420);
+    }
+}
@@ -10,16 +10,25 @@ import org.corfudb.runtime.stream.ITimestamp;
 import org.corfudb.runtime.view.*;
 import org.corfudb.util.CorfuInfrastructureBuilder;
 import org.corfudb.util.RandomOpenPort;
+import org.corfudb.util.collections.IndexedHashMap;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.ParallelComputer;
 import org.junit.runner.JUnitCore;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.*;
 /**
@@ -91,6 +100,94 @@ public class CDBSimpleMapTest {
                 .isEqualTo(100);
     }
 
+    @Test
+    public void bulkOperationsLogOneEntry() throws Exception
+    {
+        Map<Integer, Integer> entries = new HashMap<>();
+        for (int i = 0; i < 100; i++)
+        {
+            entries.put(i, i * 10);
+        }
+        long before = instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1);
+        testMap.putAll(entries);
+        assertThat(testMap.size())
+                .isEqualTo(100);
+        assertThat(testMap.removeAll(Arrays.asList(0, 1, 2, 1000)))
+                .isEqualTo(3);
+        assertThat(testMap.computeIfAbsentAll(Arrays.asList(2, 3), k -> -k))
+                .containsEntry(2, -2)
+                .containsEntry(3, 30);
+        assertThat(instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1))
+                .isEqualTo(before + 4);
+
+        CorfuTokenMap<Integer, Integer> testMapT = instance.openObject(UUID.randomUUID(), CorfuTokenMap.class);
+        testMapT.putAll(entries);
+        assertThat(testMapT.get(99))
+                .isEqualTo(990);
+        assertThat(testMapT.removeAll(entries.keySet()))
+                .isEqualTo(100);
+        assertThat(testMapT.isEmpty())
+                .isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void computeIfAbsentAllOnlyComputesAbsentKeys() throws Exception
+    {
+        CorfuTokenMap<Integer, Integer> tokenMap = instance.openObject(UUID.randomUUID(), CorfuTokenMap.class);
+        checkComputeIfAbsentAll(testMap, testMap::computeIfAbsentAll);
+        checkComputeIfAbsentAll(tokenMap, tokenMap::computeIfAbsentAll);
+    }
+
+    void checkComputeIfAbsentAll(Map<Integer, Integer> map,
+                                 BiFunction<List<Integer>, Function<Integer, Integer>, Map<Integer, Integer>> computeIfAbsentAll)
+    {
+        map.put(1, 10);
+        List<Integer> computed = new ArrayList<>();
+        assertThat(computeIfAbsentAll.apply(Arrays.asList(1, 2, 3), k -> {
+                    computed.add(k);
+                    return k == 3 ? null : -k;
+                }))
+                .containsEntry(1, 10)
+                .containsEntry(2, -2)
+                .doesNotContainKey(3);
+        assertThat(computed)
+                .containsExactly(2, 3);
+        assertThat(map.containsKey(3))
+                .isFalse();
+
+        long before = instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1);
+        assertThat(computeIfAbsentAll.apply(Arrays.asList(1, 2), k -> -k))
+                .containsEntry(1, 10)
+                .containsEntry(2, -2);
+        assertThat(instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1))
+                .isEqualTo(before + 1);
+    }
+
+    @Test
+    public void secondaryIndexesFollowMutations() throws Exception
+    {
+        ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap> oargs =
+                new ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap>(CDBSimpleMap.class);
+        oargs.indexes.add(IndexedHashMap.IndexDefinition.<String>hash("length", String::length));
+        oargs.indexes.add(IndexedHashMap.IndexDefinition.<String>sorted("first", s -> s.charAt(0)));
+        CDBSimpleMap<Integer, String> indexedMap = instance.openObject(UUID.randomUUID(), oargs);
+        indexedMap.put(1, "a");
+        indexedMap.put(2, "bb");
+        indexedMap.put(3, "cc");
+        indexedMap.put(4, "ddd");
+        assertThat(indexedMap.getByIndex("length", 2))
+                .containsOnlyKeys(2, 3);
+        indexedMap.put(3, "c");
+        indexedMap.remove(2);
+        assertThat(indexedMap.getByIndex("length", 2))
+                .isEmpty();
+        assertThat(indexedMap.getByIndex("length", 1))
+                .containsOnlyKeys(1, 3);
+        assertThat(indexedMap.getByIndexRange("first", 'b', 'd'))
+                .containsOnlyKeys(3);
+    }
+
     @Test
     public void tokenMapContainsTokenMapTest() throws Exception
     {
@@ -148,6 +245,35 @@ public class CDBSimpleMapTest {
         es.shutdown();
         es.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
     }
+    @Test
+    @SuppressWarnings("unchecked")
+    public void staleMapReadsOwnWrites() throws Exception
+    {
+        ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap> oargs =
+                new ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap>(CDBSimpleMap.class);
+        oargs.maxStaleness = 60_000;
+        UUID staleID = UUID.randomUUID();
+        CDBSimpleMap<Integer, Integer> staleMap = instance.openObject(staleID, oargs);
+        staleMap.put(0, 10);
+        assertThat(staleMap.get(0))
+                .isEqualTo(10);
+        staleMap.put(0, 20);
+        assertThat(staleMap.get(0))
+                .isEqualTo(20);
+        assertThat(staleMap.accessorHelper((map, opts) -> map.size(), 60_000))
+                .isEqualTo(1);
+
+        // A read within the staleness bound is served without contacting the sequencer,
+        // so it does not see a write by another client until a linearized read.
+        ICorfuDBInstance other = CorfuDBRuntime.createRuntime(infrastructure.getConfigString()).getLocalInstance();
+        CDBSimpleMap<Integer, Integer> otherMap = other.openObject(staleID, CDBSimpleMap.class);
+        otherMap.put(1, 30);
+        assertThat(staleMap.get(1))
+                .isNull();
+        assertThat(staleMap.accessorHelper((map, opts) -> map.get(1), 0))
+                .isEqualTo(30);
+    }
+
     @Test
     public void ensureMutatorAccessorsWork() throws Exception
     {
@@ -177,6 +303,47 @@ public class CDBSimpleMapTest {
                 .isEqualTo(1000);
     }
 
+    @Test
+    public void DeferredTransactionInfersStreams() throws Exception
+    {
+        final CDBSimpleMap<Integer, Integer> testMapLocal = testMap;
+        testMap.put(10, 100);
+        DeferredTransaction<Boolean> tx = new DeferredTransaction<Boolean>(cdr.getLocalInstance(),
+                (opts) -> {
+                    Integer result = testMapLocal.get(10);
+                    testMapLocal.put(10, result * 10);
+                    return true;
+                });
+        tx.inferStreams();
+        assertThat(tx.getStreamList())
+                .containsExactly(streamID);
+        // the dry run must not modify the map.
+        assertThat(testMap.get(10))
+                .isEqualTo(100);
+        ITimestamp txStamp = tx.propose();
+        testMap.getSMREngine().sync(txStamp);
+        assertThat(testMap.get(10))
+                .isEqualTo(1000);
+    }
+
+    @Test
+    public void DeferredTransactionUsingItsArgumentCannotInferStreams() throws Exception
+    {
+        final CDBSimpleMap<Integer, Integer> testMapLocal = testMap;
+        testMap.put(10, 100);
+        DeferredTransaction<Boolean> tx = new DeferredTransaction<Boolean>(cdr.getLocalInstance(),
+                (opts) -> {
+                    testMapLocal.put(10, opts.hashCode());
+                    return true;
+                });
+        assertThatThrownBy(tx::inferStreams)
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(tx.getStreamList())
+                .isEmpty();
+        assertThat(testMap.get(10))
+                .isEqualTo(100);
+    }
+
    // @Test
     public void crossMapSwapTransactionalTest() throws Exception
     {
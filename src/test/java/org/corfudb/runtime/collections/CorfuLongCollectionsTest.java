@@ -0,0 +1,73 @@
+package org.corfudb.runtime.collections;
+
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class CorfuLongCollectionsTest {
+
+    CorfuInfrastructureBuilder infrastructure;
+    ICorfuDBInstance instance;
+
+    @Before
+    public void generateInstance() throws Exception
+    {
+        infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+    }
+
+    @After
+    public void shutdownInfrastructure()
+    {
+        infrastructure.shutdownAndWait();
+    }
+
+    @Test
+    public void longCollectionsArePuttableGettable() throws Exception
+    {
+        CorfuLongLongMap longMap = instance.openObject(UUID.randomUUID(), CorfuLongLongMap.class);
+        longMap.putAll(new long[]{1L, -1L, Long.MAX_VALUE}, new long[]{10L, -10L, Long.MIN_VALUE});
+        longMap.remove(1L);
+        assertThat(longMap.get(-1L, 0L))
+                .isEqualTo(-10L);
+        assertThat(longMap.get(Long.MAX_VALUE, 0L))
+                .isEqualTo(Long.MIN_VALUE);
+        assertThat(longMap.containsKey(1L))
+                .isFalse();
+
+        CorfuLongObjectMap<String> objectMap = instance.openObject(UUID.randomUUID(), CorfuLongObjectMap.class);
+        for (long i = 0; i < 100; i++)
+        {
+            objectMap.put(i, Long.toString(i));
+        }
+        assertThat(objectMap.size())
+                .isEqualTo(100);
+        assertThat(objectMap.get(42L))
+                .isEqualTo("42");
+
+        CorfuLongSet set = instance.openObject(UUID.randomUUID(), CorfuLongSet.class);
+        set.add(3L, 5L, 7L);
+        set.remove(5L);
+        assertThat(set.contains(3L))
+                .isTrue();
+        assertThat(set.contains(5L))
+                .isFalse();
+        set.clear();
+        assertThat(set.size())
+                .isEqualTo(0);
+    }
+}
@@ -0,0 +1,63 @@
+package org.corfudb.runtime.collections;
+
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class CorfuOffHeapMapTest {
+
+    CorfuInfrastructureBuilder infrastructure;
+    ICorfuDBInstance instance;
+
+    @Before
+    public void generateInstance() throws Exception
+    {
+        infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+    }
+
+    @After
+    public void shutdownInfrastructure()
+    {
+        infrastructure.shutdownAndWait();
+    }
+
+    @Test
+    public void offHeapMapIsPuttableGettable() throws Exception
+    {
+        CorfuOffHeapMap<Integer, String> offHeapMap = instance.openObject(UUID.randomUUID(), CorfuOffHeapMap.class);
+        for (int i = 0; i < 1000; i++)
+        {
+            offHeapMap.fastPut(i, Integer.toString(i));
+        }
+        assertThat(offHeapMap.put(10, "ten"))
+                .isEqualTo("10");
+        assertThat(offHeapMap.remove(11))
+                .isEqualTo("11");
+        assertThat(offHeapMap.get(10))
+                .isEqualTo("ten");
+        assertThat(offHeapMap.containsKey(11))
+                .isFalse();
+        assertThat(offHeapMap.size())
+                .isEqualTo(999);
+        assertThat(offHeapMap.keySet())
+                .hasSize(999)
+                .contains(0, 999);
+        assertThat(offHeapMap.getOffHeapBytes())
+                .isGreaterThan(0L);
+    }
+}
@@ -8,6 +8,7 @@ import org.reflections.scanners.SubTypesScanner;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -64,4 +65,18 @@ public class IServerProtocolTest {
             }
         });
     }
+
+    @Test
+    public void TestIfServerProtocolsAreRegistered() throws Exception {
+        protocols.stream()
+                .filter(p -> !Modifier.isAbstract(p.getModifiers()))
+                .forEach(p ->
+        {
+            String protocol = ProtocolRegistry.getProtocolString(p);
+            assertTrue(p.getName() + " is not registered in the ProtocolRegistry!",
+                    ProtocolRegistry.sequencers.get(protocol) == p ||
+                    ProtocolRegistry.logUnits.get(protocol) == p ||
+                    ProtocolRegistry.configMasters.get(protocol) == p);
+        });
+    }
 }
@@ -0,0 +1,72 @@
+package org.corfudb.runtime.smr;
+
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.collections.CDBSimpleMap;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class OptimisticTransactionTest {
+
+    CorfuInfrastructureBuilder infrastructure;
+    ICorfuDBInstance instance;
+    CDBSimpleMap<Integer, Integer> testMap;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void generateInstance() throws Exception
+    {
+        infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+        testMap = instance.openObject(UUID.randomUUID(), CDBSimpleMap.class);
+    }
+
+    @After
+    public void shutdownInfrastructure()
+    {
+        infrastructure.shutdownAndWait();
+    }
+
+    @Test
+    public void optimisticTXCommitsAndAbortsOnConflict() throws Exception
+    {
+        testMap.put(10, 100);
+        OptimisticTransaction<Integer> tx = new OptimisticTransaction<Integer>(instance,
+                (opts) -> {
+                    Integer old = testMap.get(10);
+                    testMap.put(10, old + 1);
+                    return old;
+                });
+        assertThat(tx.execute())
+                .isEqualTo(100);
+        assertThat(testMap.get(10))
+                .isEqualTo(101);
+
+        OptimisticTransaction<Integer> conflictingTX = new OptimisticTransaction<Integer>(instance,
+                (opts) -> {
+                    Integer old = testMap.get(10);
+                    // a concurrent write, from outside the transaction
+                    CompletableFuture.runAsync(() -> testMap.put(10, 0)).join();
+                    testMap.put(10, old + 1);
+                    return old;
+                });
+        assertThatThrownBy(conflictingTX::execute)
+                .isInstanceOf(TransactionAbortedException.class);
+        assertThat(testMap.get(10))
+                .isEqualTo(0);
+    }
+}
@@ -1,13 +1,30 @@
 package org.corfudb.runtime.smr;
 
 import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.entries.IStreamEntry;
+import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.protocols.configmasters.MemoryConfigMasterProtocol;
+import org.corfudb.runtime.smr.smrprotocol.LambdaSMRCommand;
+import org.corfudb.runtime.smr.smrprotocol.SMRCommand;
+import org.corfudb.runtime.stream.IStream;
+import org.corfudb.runtime.stream.ITimestamp;
 import org.corfudb.runtime.stream.NewStream;
+import org.corfudb.runtime.stream.SimpleTimestamp;
 import org.corfudb.runtime.view.*;
+import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
 
 /**
  * Created by mwei on 5/1/15.
@@ -67,4 +84,210 @@ public class SimpleSMREngineTest {
         assertThat(previous.get())
                 .isEqualTo(1);*/
     }
+
+    /**
+     * A stream which hands out tokens from a counter and records every write. Writes complete
+     * with the scripted results first, then with OK. Writes may come from any thread.
+     */
+    static class ScriptedStream implements IStream {
+
+        final UUID streamID = UUID.randomUUID();
+        final AtomicLong nextToken = new AtomicLong();
+        final Queue<CompletableFuture<IStreamAddressSpace.StreamAddressWriteResult>> results = new ConcurrentLinkedQueue<>();
+        final List<Long> writes = Collections.synchronizedList(new ArrayList<>());
+        final List<Object> payloads = Collections.synchronizedList(new ArrayList<>());
+
+        void script(IStreamAddressSpace.StreamAddressWriteResult result)
+        {
+            results.add(CompletableFuture.completedFuture(result));
+        }
+
+        void script(Throwable t)
+        {
+            CompletableFuture<IStreamAddressSpace.StreamAddressWriteResult> result = new CompletableFuture<>();
+            result.completeExceptionally(t);
+            results.add(result);
+        }
+
+        /** Get the entry a write to the given address is read back as. */
+        IStreamEntry entry(long address, long logicalTimestamp, Object payload)
+        {
+            return new IStreamAddressSpace.StreamAddressSpaceEntry<>(Collections.singleton(streamID), null,
+                    address, IStreamAddressSpace.StreamAddressEntryCode.DATA,
+                    new SimpleTimestamp(logicalTimestamp), payload);
+        }
+
+        @Override
+        public CompletableFuture<ITimestamp[]> reserveAsync(int numTokens) {
+            ITimestamp[] tokens = new ITimestamp[numTokens];
+            for (int i = 0; i < numTokens; i++)
+            {
+                tokens[i] = new SimpleTimestamp(nextToken.getAndIncrement());
+            }
+            return CompletableFuture.completedFuture(tokens);
+        }
+
+        @Override
+        public ITimestamp[] reserve(int numTokens) {
+            return reserveAsync(numTokens).join();
+        }
+
+        @Override
+        public void write(ITimestamp timestamp, Object data) throws OverwriteException {
+            if (writeAsync(timestamp, data).join() == IStreamAddressSpace.StreamAddressWriteResult.OVERWRITE)
+            {
+                throw new OverwriteException("Scripted overwrite", ((SimpleTimestamp) timestamp).address, null);
+            }
+        }
+
+        @Override
+        public CompletableFuture<IStreamAddressSpace.StreamAddressWriteResult> writeAsync(ITimestamp timestamp, Object data) {
+            synchronized (this)
+            {
+                writes.add(((SimpleTimestamp) timestamp).address);
+                payloads.add(data);
+            }
+            CompletableFuture<IStreamAddressSpace.StreamAddressWriteResult> result = results.poll();
+            return result == null ? CompletableFuture.completedFuture(IStreamAddressSpace.StreamAddressWriteResult.OK) : result;
+        }
+
+        @Override
+        public ITimestamp append(Object data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IStreamEntry readNextEntry() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IStreamEntry readEntry(ITimestamp timestamp) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ITimestamp getNextTimestamp(ITimestamp ts) {
+            return ITimestamp.isMin(ts) ? new SimpleTimestamp(0) : new SimpleTimestamp(((SimpleTimestamp) ts).address + 1);
+        }
+
+        @Override
+        public ITimestamp getPreviousTimestamp(ITimestamp ts) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ITimestamp check(boolean cached) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ITimestamp getCurrentPosition() {
+            return ITimestamp.getMinTimestamp();
+        }
+
+        @Override
+        public void trim(ITimestamp address) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public UUID getStreamID() {
+            return streamID;
+        }
+
+        @Override
+        public ICorfuDBInstance getInstance() {
+            return null;
+        }
+    }
+
+    @Test
+    public void overwrittenProposalsAreReproposed() throws Exception
+    {
+        ScriptedStream stream = new ScriptedStream();
+        stream.script(IStreamAddressSpace.StreamAddressWriteResult.OVERWRITE);
+        SimpleSMREngine<AtomicInteger> smr = new SimpleSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        SMRCommand<AtomicInteger, Integer> increment = new LambdaSMRCommand<AtomicInteger, Integer>(a -> a.incrementAndGet());
+        CompletableFuture<Integer> completion = new CompletableFuture<>();
+
+        ITimestamp proposal = smr.proposeAsync(increment, completion, false).join();
+        assertThat(proposal)
+                .isEqualTo(new SimpleTimestamp(1));
+        assertThat(stream.writes)
+                .containsExactly(0L, 1L);
+        assertThat(smr.completionTable.containsKey(0L))
+                .isFalse();
+        assertThat(smr.completionTable.containsKey(1L))
+                .isTrue();
+
+        // The entry another client wrote to the overwritten address must not complete the proposal.
+        smr.learnAndApply(stream.entry(0L, 0L, new LambdaSMRCommand<AtomicInteger, Integer>(a -> a.addAndGet(10))));
+        assertThat(completion.isDone())
+                .isFalse();
+        smr.learnAndApply(stream.entry(1L, 1L, increment));
+        assertThat(completion.get())
+                .isEqualTo(11);
+        assertThat(smr.completionTable.isEmpty())
+                .isTrue();
+    }
+
+    @Test
+    public void failedProposalsAreRemovedFromTheCompletionTable() throws Exception
+    {
+        ScriptedStream stream = new ScriptedStream();
+        stream.script(new RuntimeException("write failed"));
+        stream.script(IStreamAddressSpace.StreamAddressWriteResult.TRIMMED);
+        SimpleSMREngine<AtomicInteger> smr = new SimpleSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+
+        for (int i = 0; i < 2; i++)
+        {
+            CompletableFuture<Integer> completion = new CompletableFuture<>();
+            CompletableFuture<ITimestamp> proposal =
+                    smr.proposeAsync(new LambdaSMRCommand<AtomicInteger, Integer>(a -> a.incrementAndGet()),
+                            completion, false);
+            assertThatThrownBy(proposal::join)
+                    .isInstanceOf(CompletionException.class);
+            assertThat(completion.isCompletedExceptionally())
+                    .isTrue();
+            assertThat(smr.completionTable.isEmpty())
+                    .isTrue();
+        }
+        assertThat(stream.writes)
+                .containsExactly(0L, 1L);
+    }
+
+    @Test
+    public void applyErrorsCompleteTheProposalExceptionally() throws Exception
+    {
+        ScriptedStream stream = new ScriptedStream();
+        SimpleSMREngine<AtomicInteger> smr = new SimpleSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        SMRCommand<AtomicInteger, Integer> failing = new LambdaSMRCommand<AtomicInteger, Integer>(a -> {
+            throw new IllegalStateException("apply failed");
+        });
+        SMRCommand<AtomicInteger, Integer> increment = new LambdaSMRCommand<AtomicInteger, Integer>(a -> a.incrementAndGet());
+        CompletableFuture<Integer> failed = new CompletableFuture<>();
+        CompletableFuture<Integer> incremented = new CompletableFuture<>();
+        smr.proposeAsync(failing, failed, false).join();
+        smr.proposeAsync(increment, incremented, false).join();
+
+        smr.learnAndApply(stream.entry(0L, 0L, failing));
+        assertThatThrownBy(failed::join)
+                .isInstanceOf(CompletionException.class);
+        assertThat(smr.completionTable.containsKey(0L))
+                .isFalse();
+
+        // The failed entry is still applied, so the entries after it are not held up.
+        assertThat(smr.lastApplied)
+                .isEqualTo(new SimpleTimestamp(0));
+        smr.learnAndApply(stream.entry(1L, 1L, increment));
+        assertThat(incremented.get())
+                .isEqualTo(1);
+        assertThat(smr.getObject().get())
+                .isEqualTo(1);
+    }
 }
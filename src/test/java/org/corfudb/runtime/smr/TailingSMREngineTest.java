@@ -0,0 +1,212 @@
+package org.corfudb.runtime.smr;
+
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.collections.CDBSimpleMap;
+import org.corfudb.runtime.entries.IStreamEntry;
+import org.corfudb.runtime.exceptions.BatchReadException;
+import org.corfudb.runtime.smr.smrprotocol.LambdaSMRCommand;
+import org.corfudb.runtime.stream.ITimestamp;
+import org.corfudb.runtime.stream.SimpleTimestamp;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
+import org.corfudb.util.collections.IndexedHashMap;
+import org.junit.Test;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class TailingSMREngineTest {
+
+    /**
+     * A scripted stream whose tail never moves, and which reads failed batches again with
+     * the scripted entries.
+     */
+    static class TailedStream extends SimpleSMREngineTest.ScriptedStream {
+
+        final AtomicInteger checks = new AtomicInteger();
+        final Queue<CompletableFuture<IStreamEntry[]>> rereads = new ConcurrentLinkedQueue<>();
+
+        void scriptReread(IStreamEntry... entries)
+        {
+            rereads.add(CompletableFuture.completedFuture(entries));
+        }
+
+        @Override
+        public CompletableFuture<ITimestamp> checkAsync() {
+            checks.incrementAndGet();
+            return CompletableFuture.completedFuture(ITimestamp.getMinTimestamp());
+        }
+
+        @Override
+        public CompletableFuture<IStreamEntry[]> readToAsync(ITimestamp point) {
+            return CompletableFuture.completedFuture(new IStreamEntry[0]);
+        }
+
+        @Override
+        public CompletableFuture<IStreamEntry[]> rereadAsync(BatchReadException failed) {
+            CompletableFuture<IStreamEntry[]> reread = rereads.poll();
+            if (reread == null)
+            {
+                reread = new CompletableFuture<>();
+                reread.completeExceptionally(failed);
+            }
+            return reread;
+        }
+    }
+
+    static BatchReadException failedBatch(long batch)
+    {
+        return new BatchReadException(batch, batch, batch + 1, new RuntimeException("read failed"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void tailingMapIsPuttableGettable() throws Exception
+    {
+        CorfuInfrastructureBuilder infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        try
+        {
+            ICorfuDBInstance instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+            UUID tailingID = UUID.randomUUID();
+            CDBSimpleMap<Integer, Integer> tailingMap = instance.openObject(tailingID,
+                    new ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap>(CDBSimpleMap.class, TailingSMREngine.class));
+            assertThat(tailingMap.getUnderlyingSMREngine())
+                    .isInstanceOf(TailingSMREngine.class);
+            for (int i = 0; i < 100; i++)
+            {
+                tailingMap.put(i, i * 10);
+            }
+            assertThat(tailingMap.get(10))
+                    .isEqualTo(100);
+            assertThat(tailingMap.size())
+                    .isEqualTo(100);
+
+            // An entry written by another client is applied in the background, without an access to sync.
+            ICorfuDBInstance other = CorfuDBRuntime.createRuntime(infrastructure.getConfigString()).getLocalInstance();
+            CDBSimpleMap<Integer, Integer> otherMap = other.openObject(tailingID, CDBSimpleMap.class);
+            otherMap.put(100, 1000);
+            IndexedHashMap<Integer, Integer> object = tailingMap.getUnderlyingSMREngine().getObject();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (object.get(100) == null && System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(10);
+            }
+            assertThat(object.get(100))
+                    .isEqualTo(1000);
+            ((TailingSMREngine) tailingMap.getUnderlyingSMREngine()).stopTailing();
+        }
+        finally
+        {
+            infrastructure.shutdownAndWait();
+        }
+    }
+
+    @Test
+    public void failedBatchesAreReadAgainBeforeTheTail() throws Exception
+    {
+        TailedStream stream = new TailedStream();
+        TailingSMREngine<AtomicInteger> smr = new TailingSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        smr.recordFailedBatch(new CompletionException(failedBatch(0)));
+
+        // A batch which fails to read again is kept, so the next poll reads it once more.
+        smr.poll().join();
+        assertThat(smr.failedBatches)
+                .hasSize(1);
+
+        stream.scriptReread(stream.entry(0L, 0L, new LambdaSMRCommand<AtomicInteger, Integer>(a -> a.incrementAndGet())));
+        assertThat(smr.poll().join())
+                .isEqualTo(smr.getTailInterval());
+        assertThat(smr.failedBatches)
+                .isEmpty();
+        assertThat(smr.getObject().get())
+                .isEqualTo(1);
+        assertThat(stream.checks.get())
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void accessorsReadFailedBatchesAgainAfterTheApplyTimeout() throws Exception
+    {
+        TailedStream stream = new TailedStream();
+        TailingSMREngine<AtomicInteger> smr = new TailingSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        smr.setApplyTimeout(10);
+        smr.recordFailedBatch(failedBatch(0));
+        stream.scriptReread(stream.entry(0L, 0L, new LambdaSMRCommand<AtomicInteger, Integer>(a -> a.incrementAndGet())));
+
+        smr.waitForApply(new SimpleTimestamp(0));
+        assertThat(smr.getObject().get())
+                .isEqualTo(1);
+        assertThat(smr.failedBatches)
+                .isEmpty();
+    }
+
+    @Test
+    public void accessorsGiveUpOnEntriesWhichAreNeverApplied() throws Exception
+    {
+        TailedStream stream = new TailedStream();
+        TailingSMREngine<AtomicInteger> smr = new TailingSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        smr.setApplyTimeout(1);
+
+        assertThatThrownBy(() -> smr.waitForApply(new SimpleTimestamp(0)))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Timed out");
+
+        Thread.currentThread().interrupt();
+        try {
+            smr.waitForApply(new SimpleTimestamp(0), 1000);
+            fail("An interrupted wait must throw");
+        } catch (RuntimeException e)
+        {
+            assertThat(e.getCause())
+                    .isInstanceOf(InterruptedException.class);
+        }
+        // The interrupt is kept for the caller.
+        assertThat(Thread.interrupted())
+                .isTrue();
+    }
+
+    @Test
+    public void stoppedEnginesStopPolling() throws Exception
+    {
+        TailedStream stream = new TailedStream();
+        TailingSMREngine<AtomicInteger> smr = new TailingSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        smr.setTailInterval(1);
+        smr.setMaxTailInterval(1);
+        smr.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (stream.checks.get() < 2 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertThat(stream.checks.get())
+                .isGreaterThanOrEqualTo(2);
+
+        smr.stopTailing();
+        assertThat(smr.isTailing())
+                .isFalse();
+        // A poll which was in flight may still finish.
+        Thread.sleep(100);
+        int checks = stream.checks.get();
+        Thread.sleep(100);
+        assertThat(stream.checks.get())
+                .isEqualTo(checks);
+
+        // An engine which has stopped tailing cannot be started again.
+        smr.start();
+        assertThat(smr.isTailing())
+                .isFalse();
+    }
+}
@@ -1,15 +1,24 @@
 package org.corfudb.runtime.smr;
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
 import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.collections.CDBSimpleMap;
 import org.corfudb.runtime.protocols.configmasters.MemoryConfigMasterProtocol;
 import org.corfudb.runtime.stream.IStream;
+import org.corfudb.runtime.stream.ITimestamp;
 import org.corfudb.runtime.view.ConfigurationMaster;
 import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
 import org.junit.Before;
+import org.junit.Test;
 
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Created by mwei on 5/6/15.
@@ -101,4 +110,81 @@ public class TimeTravelSMREngineTest {
                 */
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void multiVersionReadsSeePastVersions() throws Exception
+    {
+        CorfuInfrastructureBuilder infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        try {
+            ICorfuDBInstance instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+            CDBSimpleMap<Integer, Integer> map = instance.openObject(UUID.randomUUID(),
+                    new ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap>(CDBSimpleMap.class, TimeTravelSMREngine.class));
+            TimeTravelSMREngine engine = (TimeTravelSMREngine) map.getUnderlyingSMREngine();
+            engine.setVersionWindow(100);
+            engine.setSnapshotInterval(4);
+
+            map.put(10, 100);
+            map.put(100, 1000);
+            ITimestamp ts1 = engine.getLastProposal();
+            for (int i = 0; i < 10; i++)
+            {
+                map.put(100, i);
+            }
+            ITimestamp ts2 = engine.getLastProposal();
+            map.remove(100);
+
+            assertThat(map.get(100))
+                    .isNull();
+            assertThat(engine.readAt(ts1, (m, o) -> ((Map) m).get(100)))
+                    .isEqualTo(1000);
+            assertThat(engine.readAt(ts2, (m, o) -> ((Map) m).get(100)))
+                    .isEqualTo(9);
+            assertThat(engine.readAt(ts2, (m, o) -> ((Map) m).get(10)))
+                    .isEqualTo(100);
+        }
+        finally {
+            infrastructure.shutdownAndWait();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void lockedEnginesRejectReadsOfUnappliedVersions() throws Exception
+    {
+        CorfuInfrastructureBuilder infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        try {
+            ICorfuDBInstance instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+            CDBSimpleMap<Integer, Integer> map = instance.openObject(UUID.randomUUID(),
+                    new ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap>(CDBSimpleMap.class, TimeTravelSMREngine.class));
+            TimeTravelSMREngine engine = (TimeTravelSMREngine) map.getUnderlyingSMREngine();
+            engine.setVersionWindow(100);
+
+            map.put(10, 100);
+            ITimestamp applied = engine.getLastProposal();
+            // Lock the engine where it is, so nothing after this point is applied.
+            engine.lockTS = applied;
+            map.fastPut(10, 200);
+            ITimestamp unapplied = engine.getLastProposal();
+
+            assertThat(engine.readAt(applied, (m, o) -> ((Map) m).get(10)))
+                    .isEqualTo(100);
+            assertThatThrownBy(() -> engine.readAt(unapplied, (m, o) -> ((Map) m).get(10)))
+                    .isInstanceOf(IllegalStateException.class);
+
+            engine.unlock(applied);
+            assertThat(engine.readAt(unapplied, (m, o) -> ((Map) m).get(10)))
+                    .isEqualTo(200);
+        }
+        finally {
+            infrastructure.shutdownAndWait();
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package org.corfudb.runtime.smr;
+
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.collections.CDBSimpleMap;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class WriteBatchTransactionTest {
+
+    CorfuInfrastructureBuilder infrastructure;
+    ICorfuDBInstance instance;
+    CDBSimpleMap<Integer, Integer> testMap;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void generateInstance() throws Exception
+    {
+        infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+        testMap = instance.openObject(UUID.randomUUID(), CDBSimpleMap.class);
+    }
+
+    @After
+    public void shutdownInfrastructure()
+    {
+        infrastructure.shutdownAndWait();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void writeBatchTXWritesAllMapsInOneEntry() throws Exception
+    {
+        CDBSimpleMap<Integer, Integer> testMap2 = instance.openObject(UUID.randomUUID(), CDBSimpleMap.class);
+        testMap.put(10, 100);
+        long before = instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1);
+        Boolean result = instance.executeTransaction(WriteBatchTransaction.class,
+                (opts) -> {
+                    testMap.put(10, 1000);
+                    testMap2.put(10, 100);
+                    testMap2.put(20, 200);
+                    return true;
+                });
+        assertThat(result)
+                .isTrue();
+        assertThat(instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1))
+                .isEqualTo(before + 2);
+        assertThat(testMap.get(10))
+                .isEqualTo(1000);
+        assertThat(testMap2.get(10))
+                .isEqualTo(100);
+        assertThat(testMap2.get(20))
+                .isEqualTo(200);
+    }
+}
@@ -0,0 +1,176 @@
+package org.corfudb.runtime.smr;
+
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.NettyStreamingSequencerServer;
+import org.corfudb.runtime.CorfuDBRuntime;
+import org.corfudb.runtime.collections.CDBSimpleMap;
+import org.corfudb.runtime.smr.smrprotocol.LambdaSMRCommand;
+import org.corfudb.runtime.smr.smrprotocol.MultiStreamSMRCommand;
+import org.corfudb.runtime.smr.smrprotocol.SMRCommand;
+import org.corfudb.runtime.stream.ITimestamp;
+import org.corfudb.runtime.stream.SimpleTimestamp;
+import org.corfudb.runtime.view.ICorfuDBInstance;
+import org.corfudb.util.CorfuInfrastructureBuilder;
+import org.corfudb.util.RandomOpenPort;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class WriteBehindSMREngineTest {
+
+    static SMRCommand<AtomicInteger, Integer> increment()
+    {
+        return new LambdaSMRCommand<AtomicInteger, Integer>(a -> a.incrementAndGet());
+    }
+
+    /** Wait up to ten seconds for the given number of writes to the stream. */
+    static void awaitWrites(SimpleSMREngineTest.ScriptedStream stream, int count) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (stream.writes.size() < count && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertThat(stream.writes)
+                .hasSize(count);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void writeBehindMapBatchesMutations() throws Exception
+    {
+        CorfuInfrastructureBuilder infrastructure =
+                CorfuInfrastructureBuilder.getBuilder()
+                        .addSequencer(RandomOpenPort.getOpenPort(), NettyStreamingSequencerServer.class, "nsss", null)
+                        .addLoggingUnit(RandomOpenPort.getOpenPort(), 0, NettyLogUnitServer.class, "nlu", null)
+                        .start(RandomOpenPort.getOpenPort());
+        try
+        {
+            ICorfuDBInstance instance = CorfuDBRuntime.getRuntime(infrastructure.getConfigString()).getLocalInstance();
+            ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap> oargs =
+                    new ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap>(CDBSimpleMap.class, WriteBehindSMREngine.class);
+            oargs.writeBehindBatchSize = 100;
+            oargs.writeBehindMicros = 60_000_000;
+            CDBSimpleMap<Integer, Integer> writeBehindMap = instance.openObject(UUID.randomUUID(), oargs);
+            long before = instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1);
+            for (int i = 0; i < 1000; i++)
+            {
+                writeBehindMap.fastPut(i, i * 10);
+            }
+            assertThat(instance.getNewStreamingSequencer().nextToken(Collections.emptySet(), 1))
+                    .isEqualTo(before + 11);
+            // the accessor must read its own writes
+            writeBehindMap.fastPut(1000, 10000);
+            assertThat(writeBehindMap.get(1000))
+                    .isEqualTo(10000);
+            assertThat(writeBehindMap.size())
+                    .isEqualTo(1001);
+        }
+        finally
+        {
+            infrastructure.shutdownAndWait();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void pendingMutationsAreWrittenOnceTheirDelayElapses() throws Exception
+    {
+        SimpleSMREngineTest.ScriptedStream stream = new SimpleSMREngineTest.ScriptedStream();
+        WriteBehindSMREngine<AtomicInteger> smr = new WriteBehindSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        smr.setMaxDelayMicros(200_000);
+        SMRCommand<AtomicInteger, Integer> first = increment();
+        SMRCommand<AtomicInteger, Integer> second = increment();
+
+        assertThat(smr.propose(first, null, false))
+                .isNull();
+        assertThat(smr.propose(second, null, false))
+                .isNull();
+        assertThat(stream.writes)
+                .isEmpty();
+
+        awaitWrites(stream, 1);
+        assertThat(stream.payloads.get(0))
+                .isInstanceOf(MultiStreamSMRCommand.class);
+        assertThat(((MultiStreamSMRCommand<AtomicInteger>) stream.payloads.get(0)).getCommandMap().get(stream.streamID))
+                .containsExactly(first, second);
+    }
+
+    @Test
+    public void failedBatchesAreWrittenAgain() throws Exception
+    {
+        SimpleSMREngineTest.ScriptedStream stream = new SimpleSMREngineTest.ScriptedStream();
+        stream.script(new RuntimeException("write failed"));
+        stream.script(IStreamAddressSpace.StreamAddressWriteResult.TRIMMED);
+        WriteBehindSMREngine<AtomicInteger> smr = new WriteBehindSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        smr.setMaxDelayMicros(60_000_000);
+        smr.propose(increment(), null, false);
+        smr.propose(increment(), null, false);
+
+        assertThat(smr.flush())
+                .isEqualTo(new SimpleTimestamp(2));
+        assertThat(stream.writes)
+                .containsExactly(0L, 1L, 2L);
+        // Every attempt writes the same batch.
+        assertThat(stream.payloads.get(2))
+                .isSameAs(stream.payloads.get(0));
+    }
+
+    @Test
+    public void batchesWhichCannotBeWrittenFailTheFlush() throws Exception
+    {
+        SimpleSMREngineTest.ScriptedStream stream = new SimpleSMREngineTest.ScriptedStream();
+        for (int i = 0; i < WriteBehindSMREngine.MAX_WRITE_ATTEMPTS; i++)
+        {
+            stream.script(new RuntimeException("write failed"));
+        }
+        WriteBehindSMREngine<AtomicInteger> smr = new WriteBehindSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        smr.setMaxDelayMicros(60_000_000);
+        smr.propose(increment(), null, false);
+
+        assertThatThrownBy(smr::flush)
+                .isInstanceOf(CompletionException.class);
+        assertThat(stream.writes)
+                .hasSize(WriteBehindSMREngine.MAX_WRITE_ATTEMPTS);
+
+        // The dropped batch does not hold up the batches after it.
+        smr.propose(increment(), null, false);
+        assertThat(smr.flush())
+                .isEqualTo(new SimpleTimestamp(WriteBehindSMREngine.MAX_WRITE_ATTEMPTS));
+    }
+
+    @Test
+    public void proposalsWithACompletionAreWrittenAfterPendingMutations() throws Exception
+    {
+        SimpleSMREngineTest.ScriptedStream stream = new SimpleSMREngineTest.ScriptedStream();
+        WriteBehindSMREngine<AtomicInteger> smr = new WriteBehindSMREngine<AtomicInteger>(stream, AtomicInteger.class);
+        smr.setMaxDelayMicros(60_000_000);
+        SMRCommand<AtomicInteger, Integer> buffered = increment();
+        SMRCommand<AtomicInteger, Integer> proposed = increment();
+        SMRCommand<AtomicInteger, Integer> bufferedAsync = increment();
+        SMRCommand<AtomicInteger, Integer> proposedAsync = increment();
+
+        smr.propose(buffered, null, false);
+        assertThat(smr.propose(proposed, new CompletableFuture<Integer>(), false))
+                .isEqualTo(new SimpleTimestamp(1));
+
+        smr.propose(bufferedAsync, null, false);
+        ITimestamp ts = smr.proposeAsync(proposedAsync, new CompletableFuture<Integer>(), false).join();
+        assertThat(ts)
+                .isEqualTo(new SimpleTimestamp(3));
+
+        // A single pending mutation is written as is, ahead of the proposal which follows it.
+        assertThat(stream.writes)
+                .containsExactly(0L, 1L, 2L, 3L);
+        assertThat(stream.payloads)
+                .containsExactly(buffered, proposed, bufferedAsync, proposedAsync);
+        assertThat(smr.completionTable.keySet())
+                .containsOnly(1L, 3L);
+    }
+}
@@ -0,0 +1,90 @@
+package org.corfudb.runtime.smr.smrprotocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class LongCollectionSMRCommandTest {
+
+    static final long[] EDGE_VALUES = new long[]{0L, 1L, -1L, 63L, -64L, 64L, -65L,
+            Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    static LongCollectionSMRCommand<?> roundTrip(LongCollectionSMRCommand<?> command)
+    {
+        ByteBuf b = Unpooled.buffer();
+        command.serialize(b);
+        SMRCommand read = SMRCommand.deserialize(b);
+        assertThat(b.readableBytes())
+                .isEqualTo(0);
+        assertThat(read)
+                .isInstanceOf(LongCollectionSMRCommand.class);
+        return (LongCollectionSMRCommand<?>) read;
+    }
+
+    @Test
+    public void longKeysAndValuesRoundTrip()
+    {
+        long[] values = EDGE_VALUES.clone();
+        // Pair every key with a value of the opposite sign, so the two arrays differ.
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = ~values[i];
+        }
+        LongCollectionSMRCommand<?> read = roundTrip(new LongCollectionSMRCommand<Object>(EDGE_VALUES, values));
+        assertThat(read.getOp())
+                .isEqualTo(LongCollectionSMRCommand.LongCollectionOp.PUT_LONG);
+        assertThat(read.getKeys())
+                .isEqualTo(EDGE_VALUES);
+        assertThat(read.getLongValues())
+                .isEqualTo(values);
+    }
+
+    @Test
+    public void objectValuesRoundTrip()
+    {
+        long[] keys = new long[]{Long.MIN_VALUE, -1L, 0L, Long.MAX_VALUE};
+        Object[] values = new Object[]{"min", "minus one", null, "max"};
+        LongCollectionSMRCommand<?> read = roundTrip(new LongCollectionSMRCommand<Object>(keys, values));
+        assertThat(read.getOp())
+                .isEqualTo(LongCollectionSMRCommand.LongCollectionOp.PUT_OBJECT);
+        assertThat(read.getKeys())
+                .isEqualTo(keys);
+        assertThat(read.getObjectValues())
+                .isEqualTo(values);
+    }
+
+    @Test
+    public void keyOnlyCommandsRoundTrip()
+    {
+        for (LongCollectionSMRCommand.LongCollectionOp op : new LongCollectionSMRCommand.LongCollectionOp[]{
+                LongCollectionSMRCommand.LongCollectionOp.ADD,
+                LongCollectionSMRCommand.LongCollectionOp.REMOVE})
+        {
+            LongCollectionSMRCommand<?> read = roundTrip(new LongCollectionSMRCommand<Object>(op, EDGE_VALUES));
+            assertThat(read.getOp())
+                    .isEqualTo(op);
+            assertThat(read.getKeys())
+                    .isEqualTo(EDGE_VALUES);
+            assertThat(read.getLongValues())
+                    .isNull();
+        }
+
+        LongCollectionSMRCommand<?> clear =
+                roundTrip(new LongCollectionSMRCommand<Object>(LongCollectionSMRCommand.LongCollectionOp.CLEAR));
+        assertThat(clear.getKeys())
+                .isEmpty();
+    }
+
+    @Test
+    public void smallKeysAreWrittenCompactly()
+    {
+        ByteBuf b = Unpooled.buffer();
+        new LongCollectionSMRCommand<Object>(LongCollectionSMRCommand.LongCollectionOp.ADD, 0L, -1L, 63L, -64L)
+                .serialize(b);
+        // The command type, the op, the key count, then a byte for each key.
+        assertThat(b.readableBytes())
+                .isEqualTo(3 + 4);
+    }
+}
@@ -4,6 +4,9 @@ import org.corfudb.runtime.collections.CDBSimpleMap;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,4 +41,26 @@ public abstract class ICorfuDBInstanceTest {
                 .isInstanceOf(CDBSimpleMap.class)
                 .isSameAs(getInstance().openObject(objID, CDBSimpleMap.class));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void canOpenObjectsTogether()
+    {
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < 10; i++)
+        {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            CDBSimpleMap<Integer, Integer> map = getInstance().openObject(id, CDBSimpleMap.class);
+            map.put(i, i);
+        }
+        Map<UUID, CDBSimpleMap> maps = getInstance().openObjects(ids,
+                new ICorfuDBInstance.OpenObjectArgs<CDBSimpleMap>(CDBSimpleMap.class));
+        assertThat(maps)
+                .hasSize(10)
+                .containsOnlyKeys(ids.toArray(new UUID[ids.size()]));
+        maps.values().forEach(m ->
+                assertThat(m.size())
+                        .isEqualTo(1));
+    }
 }
@@ -0,0 +1,48 @@
+package org.corfudb.runtime.view;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.corfudb.infrastructure.NettyLogUnitServer;
+import org.corfudb.infrastructure.wireprotocol.NettyLogUnitPayloadMsg;
+import org.corfudb.infrastructure.wireprotocol.NettyLogUnitReadResponseMsg;
+import org.corfudb.runtime.protocols.logunits.INewWriteOnceLogUnit;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class StreamAddressSpaceEntryTest {
+
+    INewWriteOnceLogUnit.ReadResult readOf(Object payload)
+    {
+        ByteBuf b = Unpooled.buffer();
+        NettyLogUnitPayloadMsg.defaultSerializer.serialize(payload, b);
+        NettyLogUnitReadResponseMsg m = new NettyLogUnitReadResponseMsg(NettyLogUnitServer.ReadResultType.DATA);
+        m.setData(b);
+        return new INewWriteOnceLogUnit.ReadResult(m);
+    }
+
+    @Test
+    public void payloadIsDeserializedOnceWhenConsumed()
+    {
+        IStreamAddressSpace.StreamAddressSpaceEntry<String> e =
+                new IStreamAddressSpace.StreamAddressSpaceEntry<>(Collections.emptySet(), 0L, readOf("hello"));
+        IStreamAddressSpace.StreamAddressSpaceEntry<String> copy =
+                new IStreamAddressSpace.StreamAddressSpaceEntry<>(e);
+        assertThat(e.getPayload())
+                .isEqualTo("hello");
+        assertThat(copy.getPayload())
+                .isSameAs(e.getPayload());
+    }
+
+    @Test
+    public void payloadIsReadableAfterRelease()
+    {
+        IStreamAddressSpace.StreamAddressSpaceEntry<String> e =
+                new IStreamAddressSpace.StreamAddressSpaceEntry<>(Collections.emptySet(), 0L, readOf("evicted"));
+        e.release();
+        assertThat(e.getPayload())
+                .isEqualTo("evicted");
+    }
+}
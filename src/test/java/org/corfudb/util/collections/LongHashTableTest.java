@@ -0,0 +1,174 @@
+package org.corfudb.util.collections;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class LongHashTableTest {
+
+    /** Find keys which hash to the given slot of a table with the given mask. */
+    static long[] keysWithHome(int home, int mask, int count)
+    {
+        long[] result = new long[count];
+        int found = 0;
+        for (long k = 0; found < count; k++)
+        {
+            if ((LongHashTable.mix(k) & mask) == home)
+            {
+                result[found++] = k;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void removalInsideCollisionChainKeepsFollowingKeys()
+    {
+        LongLongHashMap map = new LongLongHashMap(4);
+        long[] chain = keysWithHome(2, map.mask, 4);
+        for (long k : chain)
+        {
+            map.put(k, k * 10);
+        }
+
+        assertThat(map.remove(chain[1]))
+                .isTrue();
+        assertThat(map.containsKey(chain[1]))
+                .isFalse();
+        for (long k : new long[] {chain[0], chain[2], chain[3]})
+        {
+            assertThat(map.get(k, -1L))
+                    .isEqualTo(k * 10);
+        }
+
+        assertThat(map.remove(chain[0]))
+                .isTrue();
+        assertThat(map.get(chain[2], -1L))
+                .isEqualTo(chain[2] * 10);
+        assertThat(map.get(chain[3], -1L))
+                .isEqualTo(chain[3] * 10);
+        assertThat(map.size())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void chainsWrapAroundTheEndOfTheTable()
+    {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        int last = map.mask;
+        long[] chain = keysWithHome(last, map.mask, 3);
+        long[] atZero = keysWithHome(0, map.mask, 1);
+        for (long k : chain)
+        {
+            map.put(k, Long.toString(k));
+        }
+        map.put(atZero[0], "zero");
+
+        // The chain starts in the last slot and continues at the start of the table.
+        assertThat(map.find(chain[0]))
+                .isEqualTo(last);
+        assertThat(map.find(chain[1]))
+                .isEqualTo(0);
+        assertThat(map.find(atZero[0]))
+                .isEqualTo(2);
+
+        assertThat(map.remove(chain[0]))
+                .isTrue();
+        assertThat(map.get(chain[1]))
+                .isEqualTo(Long.toString(chain[1]));
+        assertThat(map.get(chain[2]))
+                .isEqualTo(Long.toString(chain[2]));
+        assertThat(map.get(atZero[0]))
+                .isEqualTo("zero");
+        // Entries shift back across the end of the table, but never before their home slot.
+        assertThat(map.find(chain[1]))
+                .isEqualTo(last);
+        assertThat(map.find(atZero[0]))
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void resizingKeepsEveryEntry()
+    {
+        LongLongHashMap map = new LongLongHashMap();
+        int capacity = map.keys.length;
+        for (long k = 0; k < 10000; k++)
+        {
+            map.put(k * 31, k);
+        }
+        assertThat(map.keys.length)
+                .isGreaterThan(capacity);
+        assertThat(map.size())
+                .isEqualTo(10000);
+        for (long k = 0; k < 10000; k++)
+        {
+            assertThat(map.get(k * 31, -1L))
+                    .isEqualTo(k);
+        }
+    }
+
+    @Test
+    public void removalAfterResizingKeepsOtherEntries()
+    {
+        LongHashSet set = new LongHashSet();
+        for (long k = 0; k < 1000; k++)
+        {
+            set.add(k);
+        }
+        for (long k = 0; k < 1000; k += 2)
+        {
+            assertThat(set.remove(k))
+                    .isTrue();
+        }
+        assertThat(set.size())
+                .isEqualTo(500);
+        for (long k = 0; k < 1000; k++)
+        {
+            assertThat(set.contains(k))
+                    .isEqualTo(k % 2 == 1);
+        }
+        assertThat(set.add(0))
+                .isTrue();
+        assertThat(set.contains(0))
+                .isTrue();
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap()
+    {
+        Random r = new Random(42);
+        LongLongHashMap map = new LongLongHashMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++)
+        {
+            long key = r.nextInt(512);
+            if (r.nextBoolean())
+            {
+                long value = r.nextLong();
+                map.put(key, value);
+                expected.put(key, value);
+            }
+            else
+            {
+                assertThat(map.remove(key))
+                        .isEqualTo(expected.remove(key) != null);
+            }
+        }
+        assertThat(map.size())
+                .isEqualTo(expected.size());
+        for (long key = 0; key < 512; key++)
+        {
+            assertThat(map.containsKey(key))
+                    .isEqualTo(expected.containsKey(key));
+            if (expected.containsKey(key))
+            {
+                assertThat(map.get(key, 0L))
+                        .isEqualTo(expected.get(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.corfudb.util.collections;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.corfudb.util.serializer.KryoSerializer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class OffHeapHashMapTest {
+
+    static String value(int i, int length)
+    {
+        char[] c = new char[length];
+        Arrays.fill(c, (char) ('a' + i % 26));
+        return new String(c);
+    }
+
+    @Test
+    public void overwritesAreCompacted()
+    {
+        OffHeapHashMap<Integer, String> map = new OffHeapHashMap<>();
+        // Each round changes the length of every value, so every overwrite leaves garbage.
+        for (int round = 0; round < 20; round++)
+        {
+            for (int i = 0; i < 500; i++)
+            {
+                map.put(i, value(i, 100 + round));
+            }
+        }
+        assertThat(map.size())
+                .isEqualTo(500);
+        for (int i = 0; i < 500; i++)
+        {
+            assertThat(map.get(i))
+                    .isEqualTo(value(i, 119));
+        }
+        // Without compaction, the segments would hold every version written.
+        assertThat(map.getOffHeapBytes())
+                .isLessThan(8 * map.liveBytes);
+    }
+
+    @Test
+    public void compactionKeepsLiveRecordsOnly()
+    {
+        OffHeapHashMap<Integer, String> map = new OffHeapHashMap<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            map.put(i, value(i, 50));
+        }
+        for (int i = 0; i < 1000; i += 2)
+        {
+            map.remove(i);
+        }
+        for (int i = 1; i < 1000; i += 4)
+        {
+            map.put(i, value(i, 80));
+        }
+        long live = map.liveBytes;
+        assertThat(map.garbageBytes)
+                .isGreaterThan(0);
+
+        map.compact();
+        assertThat(map.garbageBytes)
+                .isEqualTo(0);
+        assertThat(map.liveBytes)
+                .isEqualTo(live);
+        assertThat(map.size())
+                .isEqualTo(500);
+        for (int i = 0; i < 1000; i++)
+        {
+            assertThat(map.get(i))
+                    .isEqualTo(i % 2 == 0 ? null : value(i, i % 4 == 1 ? 80 : 50));
+        }
+    }
+
+    @Test
+    public void segmentsGrowUpToTheSegmentSize()
+    {
+        int segmentSize = 1 << 18;
+        OffHeapHashMap<Integer, byte[]> map = new OffHeapHashMap<>(segmentSize);
+        byte[] v = new byte[1000];
+        for (int i = 0; i < 1000; i++)
+        {
+            v[0] = (byte) i;
+            map.put(i, v);
+        }
+        assertThat(map.segments.size())
+                .isGreaterThan(3);
+        assertThat(map.segments.get(0).capacity())
+                .isEqualTo(OffHeapHashMap.INITIAL_SEGMENT_SIZE);
+        assertThat(map.segments.get(1).capacity())
+                .isEqualTo(OffHeapHashMap.INITIAL_SEGMENT_SIZE << 1);
+        for (ByteBuffer segment : map.segments)
+        {
+            assertThat(segment.capacity())
+                    .isLessThanOrEqualTo(segmentSize);
+        }
+        for (int i = 0; i < 1000; i++)
+        {
+            assertThat(map.get(i)[0])
+                    .isEqualTo((byte) i);
+        }
+    }
+
+    @Test
+    public void recordsLargerThanTheSegmentSizeGetTheirOwnSegment()
+    {
+        OffHeapHashMap<Integer, byte[]> map = new OffHeapHashMap<>(1024);
+        byte[] v = new byte[4000];
+        v[3999] = 42;
+        map.put(1, v);
+        map.put(2, new byte[10]);
+        assertThat(map.get(1))
+                .containsExactly(v);
+        assertThat(map.get(2))
+                .hasSize(10);
+    }
+
+    @Test
+    public void mapRoundTripsThroughKryo()
+    {
+        OffHeapHashMap<String, Long> map = new OffHeapHashMap<>(1 << 16);
+        for (long i = 0; i < 1000; i++)
+        {
+            map.put("key" + i, i);
+        }
+        for (long i = 0; i < 1000; i += 3)
+        {
+            map.remove("key" + i);
+        }
+        map.put("key1", -1L);
+
+        ByteBuf b = Unpooled.buffer();
+        KryoSerializer.writeObject(map, b);
+        @SuppressWarnings("unchecked")
+        OffHeapHashMap<String, Long> read = (OffHeapHashMap<String, Long>) KryoSerializer.readObject(b);
+        assertThat(read)
+                .isEqualTo(map);
+        assertThat(read.segmentSize)
+                .isEqualTo(map.segmentSize);
+        assertThat(read.garbageBytes)
+                .isEqualTo(0);
+        assertThat(b.readableBytes())
+                .isEqualTo(0);
+
+        @SuppressWarnings("unchecked")
+        OffHeapHashMap<String, Long> copy = KryoSerializer.kryos.get().copy(map);
+        assertThat(copy)
+                .isEqualTo(map);
+        copy.put("key2", 0L);
+        assertThat(map.get("key2"))
+                .isEqualTo(2L);
+    }
+}
@@ -0,0 +1,90 @@
+package org.corfudb.util.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static com.github.marschall.junitlambda.LambdaAssert.assertRaises;
+
+public class CodecRegistryTest {
+
+    enum Color { RED, GREEN }
+
+    static class Point {
+        int x;
+        long y;
+        String label;
+        Color color;
+        Map<String, Integer> tags;
+    }
+
+    static class Unregistered implements Serializable {
+        int value;
+    }
+
+    static {
+        CodecRegistry.register(CodecRegistry.FIRST_USER_TYPE + 1, Point.class);
+    }
+
+    Object roundTrip(Object o)
+    {
+        ByteBuf b = Unpooled.buffer();
+        CodecRegistry.writeObject(o, b);
+        return CodecRegistry.readObject(b);
+    }
+
+    @Test
+    public void builtinsRoundTrip()
+    {
+        UUID id = UUID.randomUUID();
+        assertThat(roundTrip(-1)).isEqualTo(-1);
+        assertThat(roundTrip(Long.MIN_VALUE)).isEqualTo(Long.MIN_VALUE);
+        assertThat(roundTrip("hello")).isEqualTo("hello");
+        assertThat(roundTrip(id)).isEqualTo(id);
+        assertThat(roundTrip(null)).isNull();
+        assertThat(roundTrip(new ArrayList<>(Arrays.asList(1, "two", 3L))))
+                .isEqualTo(Arrays.asList(1, "two", 3L));
+    }
+
+    @Test
+    public void smallIntegersAreCompact()
+    {
+        ByteBuf b = Unpooled.buffer();
+        CodecRegistry.writeObject(-3, b);
+        assertThat(b.readableBytes())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void generatedCodecRoundTrips()
+    {
+        Point p = new Point();
+        p.x = -5;
+        p.y = 1L << 40;
+        p.label = "origin";
+        p.color = Color.GREEN;
+        p.tags = new HashMap<>();
+        p.tags.put("a", 1);
+        Point q = (Point) roundTrip(p);
+        assertThat(q.x).isEqualTo(-5);
+        assertThat(q.y).isEqualTo(1L << 40);
+        assertThat(q.label).isEqualTo("origin");
+        assertThat(q.color).isEqualTo(Color.GREEN);
+        assertThat(q.tags).containsEntry("a", 1);
+    }
+
+    @Test
+    public void javaSerializationIsOptIn()
+    {
+        Unregistered u = new Unregistered();
+        assertRaises(() -> CodecRegistry.writeObject(u, Unpooled.buffer()), IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,69 @@
+package org.corfudb.util.serializer;
+
+import com.esotericsoftware.kryo.io.UnsafeOutput;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class KryoSerializerTest {
+
+    void readsBackInOrder(ByteBuf b)
+    {
+        KryoSerializer s = new KryoSerializer();
+        UUID id = UUID.randomUUID();
+        Map<String, Long> m = new HashMap<>();
+        for (long i = 0; i < 1000; i++)
+        {
+            m.put("key" + i, i);
+        }
+        s.serialize(id, b);
+        s.serialize(m, b);
+        s.serialize("tail", b);
+
+        assertThat(s.deserialize(b))
+                .isEqualTo(id);
+        assertThat(s.deserialize(b))
+                .isEqualTo(m);
+        assertThat(s.deserialize(b))
+                .isEqualTo("tail");
+        assertThat(b.readableBytes())
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void heapBuffersReadBackInOrder()
+    {
+        readsBackInOrder(Unpooled.buffer());
+    }
+
+    @Test
+    public void directBuffersReadBackInOrder()
+    {
+        readsBackInOrder(Unpooled.directBuffer());
+    }
+
+    @Test
+    public void objectsWrittenWithUnsafeOutputAreStillRead()
+    {
+        Map<String, Long> m = new HashMap<>();
+        m.put("key", 1L);
+        UnsafeOutput output = new UnsafeOutput(4096);
+        KryoSerializer.kryos.get().writeClassAndObject(output, m);
+        ByteBuf b = Unpooled.buffer();
+        b.writeBytes(output.toBytes());
+        b.writeByte(0x7);
+
+        assertThat(b.getByte(0))
+                .isNotEqualTo(KryoSerializer.FORMAT_VARINT);
+        assertThat(new KryoSerializer().deserialize(b))
+                .isEqualTo(m);
+        assertThat(b.readByte())
+                .isEqualTo((byte) 0x7);
+    }
+}
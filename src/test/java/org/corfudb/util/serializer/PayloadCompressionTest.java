@@ -0,0 +1,155 @@
+package org.corfudb.util.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PayloadCompressionTest {
+
+    byte[] sample(int i)
+    {
+        return ("{\"customerName\":\"name" + i + "\",\"customerAddress\":\"street " + i
+                + "\",\"customerClass\":\"org.corfudb.runtime.collections.CDBSimpleMap\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void payloadsRoundTripWithDictionary()
+    {
+        UUID stream = UUID.randomUUID();
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+        {
+            samples.add(sample(i));
+        }
+        CompressionDictionary d = CompressionDictionary.train(stream, samples, 4096);
+        assertThat(d.getDictionary().length)
+                .isGreaterThan(0);
+
+        ByteBuf raw = Unpooled.wrappedBuffer(sample(1000));
+        ByteBuf plain = Unpooled.buffer();
+        assertThat(PayloadCompression.compress(raw, Collections.singleton(stream), plain))
+                .isTrue();
+
+        d.setAddress(0L);
+        PayloadCompression.addDictionary(d);
+        ByteBuf withDictionary = Unpooled.buffer();
+        assertThat(PayloadCompression.compress(raw, Collections.singleton(stream), withDictionary))
+                .isTrue();
+        assertThat(withDictionary.readableBytes())
+                .isLessThan(plain.readableBytes());
+
+        assertThat(PayloadCompression.isCompressed(withDictionary))
+                .isTrue();
+        ByteBuf out = PayloadCompression.decompress(withDictionary);
+        assertThat(out)
+                .isEqualTo(raw);
+    }
+
+    CompressionDictionary train(UUID stream)
+    {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+        {
+            samples.add(sample(i));
+        }
+        return CompressionDictionary.train(stream, samples, 4096);
+    }
+
+    @Test
+    public void multiStreamPayloadsAreCompressedWithoutDictionary()
+    {
+        UUID stream = UUID.randomUUID();
+        CompressionDictionary d = train(stream);
+        d.setAddress(0L);
+        PayloadCompression.addDictionary(d);
+
+        ByteBuf raw = Unpooled.wrappedBuffer(sample(1000));
+        ByteBuf plain = Unpooled.buffer();
+        PayloadCompression.compress(raw, Collections.singleton(UUID.randomUUID()), plain);
+        ByteBuf multi = Unpooled.buffer();
+        assertThat(PayloadCompression.compress(raw, new HashSet<>(Arrays.asList(stream, UUID.randomUUID())), multi))
+                .isTrue();
+        assertThat(multi)
+                .isEqualTo(plain);
+    }
+
+    @Test
+    public void dictionariesWithUnknownAddressesAreNotUsed()
+    {
+        UUID stream = UUID.randomUUID();
+        CompressionDictionary d = train(stream);
+        // Other tests add the same dictionary with an address.
+        PayloadCompression.dictionaries.remove(d.getId());
+        PayloadCompression.addDictionary(d);
+
+        ByteBuf raw = Unpooled.wrappedBuffer(sample(1000));
+        ByteBuf plain = Unpooled.buffer();
+        PayloadCompression.compress(raw, Collections.singleton(UUID.randomUUID()), plain);
+        ByteBuf compressed = Unpooled.buffer();
+        assertThat(PayloadCompression.compress(raw, Collections.singleton(stream), compressed))
+                .isTrue();
+        assertThat(compressed)
+                .isEqualTo(plain);
+    }
+
+    @Test
+    public void readCopiesKeepTheAddressOfTheirDictionary()
+    {
+        UUID stream = UUID.randomUUID();
+        CompressionDictionary d = train(stream);
+        d.setAddress(7L);
+        PayloadCompression.addDictionary(d);
+
+        CompressionDictionary copy = new CompressionDictionary(stream, d.getDictionary());
+        PayloadCompression.addDictionary(copy);
+        assertThat(copy.getAddress())
+                .isEqualTo(7L);
+    }
+
+    @Test
+    public void missingDictionaryIsFetchedFromItsAddress()
+    {
+        UUID stream = UUID.randomUUID();
+        CompressionDictionary d = train(stream);
+        d.setAddress(42L);
+        PayloadCompression.addDictionary(d);
+
+        ByteBuf raw = Unpooled.wrappedBuffer(sample(1000));
+        ByteBuf compressed = Unpooled.buffer();
+        assertThat(PayloadCompression.compress(raw, Collections.singleton(stream), compressed))
+                .isTrue();
+
+        // A reader which has not read the dictionary.
+        PayloadCompression.dictionaries.remove(d.getId());
+        List<Long> fetched = new ArrayList<>();
+        assertThat(PayloadCompression.decompress(compressed, address -> {
+                    fetched.add(address);
+                    return new CompressionDictionary(stream, d.getDictionary());
+                }))
+                .isEqualTo(raw);
+        assertThat(fetched)
+                .containsExactly(42L);
+    }
+
+    @Test
+    public void smallPayloadsAreNotCompressed()
+    {
+        ByteBuf raw = Unpooled.wrappedBuffer(new byte[] {1, 2, 3});
+        ByteBuf out = Unpooled.buffer();
+        assertThat(PayloadCompression.compress(raw, Collections.emptySet(), out))
+                .isFalse();
+        assertThat(out.readableBytes())
+                .isEqualTo(0);
+    }
+}